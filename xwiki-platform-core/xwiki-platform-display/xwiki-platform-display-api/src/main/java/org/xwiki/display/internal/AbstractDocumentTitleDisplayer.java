@@ -173,9 +173,11 @@ private XDOM displayTitle(DocumentModelBridge document, DocumentDisplayerParamet
         if (!StringUtils.isEmpty(rawTitle)) {
             try {
                 String title = rawTitle;
-                // Evaluate the title only if the document has script rights, otherwise use the raw title.
-                if (authorizationManager.hasAccess(Right.SCRIPT, document.getContentAuthorReference(),
-                    document.getDocumentReference())) {
+                // Evaluate the title only if the document has script rights, otherwise use the raw title. A title
+                // without any Velocity syntax evaluates to itself so we don't need to check the rights nor to clone the
+                // execution context in this case (which is the most common one).
+                if (StringUtils.containsAny(rawTitle, '#', '$') && authorizationManager.hasAccess(Right.SCRIPT,
+                    document.getContentAuthorReference(), document.getDocumentReference())) {
                     title = evaluateTitle(rawTitle, document.getDocumentReference(), parameters);
                 }
                 return parseTitle(title);
@@ -52,6 +52,7 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -111,7 +112,7 @@ public void whenSettingTheContextDocumentTheContextWikiIsAlsoSet() throws Except
         DocumentModelBridge document = mock(DocumentModelBridge.class);
         DocumentReference documentReference = new DocumentReference("wiki", Arrays.asList("Space"), "Page");
         when(document.getDocumentReference()).thenReturn(documentReference);
-        when(document.getTitle()).thenReturn("title");
+        when(document.getTitle()).thenReturn("$title");
 
         XDOM titleXDOM = new XDOM(Arrays.asList(new WordBlock("title")));
 
@@ -141,4 +142,33 @@ public void whenSettingTheContextDocumentTheContextWikiIsAlsoSet() throws Except
         verify(dab).popDocumentFromContext(any());
         verify(modelContext).setCurrentEntityReference(currentWikiReference);
     }
+
+    @Test
+    public void staticTitleIsNotEvaluated() throws Exception
+    {
+        DocumentModelBridge document = mock(DocumentModelBridge.class);
+        DocumentReference documentReference = new DocumentReference("wiki", Arrays.asList("Space"), "Page");
+        when(document.getDocumentReference()).thenReturn(documentReference);
+        when(document.getTitle()).thenReturn("Static title");
+
+        XDOM titleXDOM = new XDOM(Arrays.asList(new WordBlock("Static title")));
+
+        Parser plainTextParser = this.mocker.getInstance(Parser.class, "plain/1.0");
+        when(plainTextParser.parse(any(StringReader.class))).thenReturn(titleXDOM);
+
+        DocumentDisplayerParameters params = new DocumentDisplayerParameters();
+        params.setTitleDisplayed(true);
+        params.setExecutionContextIsolated(true);
+
+        assertSame(titleXDOM, this.mocker.getComponentUnderTest().display(document, params));
+
+        ArgumentCaptor<Reader> argument = ArgumentCaptor.forClass(Reader.class);
+        verify(plainTextParser).parse(argument.capture());
+        assertEquals("Static title", IOUtils.toString(argument.getValue()));
+
+        AuthorizationManager authorizationManager = this.mocker.getInstance(AuthorizationManager.class);
+        verify(authorizationManager, never()).hasAccess(any(), any(), any());
+        DocumentAccessBridge dab = this.mocker.getInstance(DocumentAccessBridge.class);
+        verify(dab, never()).pushDocumentInContext(any(), any(DocumentReference.class));
+    }
 }
@@ -21,14 +21,21 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.extension.ExtensionDependency;
 import org.xwiki.extension.ExtensionId;
@@ -39,7 +46,9 @@
 import org.xwiki.extension.xar.internal.handler.XarExtensionHandler;
 import org.xwiki.extension.xar.internal.handler.XarHandlerUtils;
 import org.xwiki.extension.xar.internal.handler.packager.Packager;
+import org.xwiki.extension.repository.InstalledExtensionRepository;
 import org.xwiki.extension.xar.internal.job.diff.DocumentUnifiedDiffBuilder;
+import org.xwiki.extension.xar.internal.repository.XarInstalledExtension;
 import org.xwiki.extension.xar.job.diff.DiffXarJobStatus;
 import org.xwiki.extension.xar.job.diff.DocumentUnifiedDiff;
 import org.xwiki.extension.xar.job.diff.DocumentVersionReference;
@@ -48,10 +57,12 @@
 import org.xwiki.xar.XarEntry;
 import org.xwiki.xar.XarException;
 import org.xwiki.xar.XarFile;
+import org.xwiki.xar.XarPackage;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.util.AbstractXWikiRunnable;
 
 /**
  * Computes the differences between the documents provided by a XAR extension and the documents from the database.
@@ -86,12 +97,42 @@ public class DiffXarJob extends AbstractExtensionJob<InstallRequest, DiffXarJobS
     @Inject
     private DocumentUnifiedDiffBuilder documentDiffBuilder;
 
+    /**
+     * Used to reuse the already parsed XAR packages.
+     */
+    @Inject
+    @Named(XarExtensionHandler.TYPE)
+    private InstalledExtensionRepository installedXARs;
+
+    /**
+     * The workers reading and comparing the documents.
+     */
+    private ExecutorService executor;
+
+    /**
+     * The maximum number of documents compared at the same time.
+     */
+    private int maxPendingDiffs;
+
     /**
      * The set of features that have been compared. We try to avoid comparing the same feature twice. We assume all the
      * features are compared on the same namespace.
      */
     private Set<String> comparedFeatures = new HashSet<>();
 
+    private static final class PendingDiff
+    {
+        private final XarEntry entry;
+
+        private final Future<DocumentUnifiedDiff> future;
+
+        PendingDiff(XarEntry entry, Future<DocumentUnifiedDiff> future)
+        {
+            this.entry = entry;
+            this.future = future;
+        }
+    }
+
     @Override
     public String getType()
     {
@@ -115,6 +156,12 @@ protected void runInternal() throws Exception
 
         String namespace = request.getNamespaces().iterator().next();
 
+        // The workers spend most of their time waiting for the database so use at least two of them
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.maxPendingDiffs = threads * 2;
+        this.executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+            .namingPattern("XAR diff worker-%d").daemon(true).wrappedFactory(this::newWorkerThread).build());
+
         Collection<ExtensionId> extensionIds = request.getExtensions();
         this.progressManager.pushLevelProgress(extensionIds.size(), this);
         try {
@@ -130,10 +177,24 @@ protected void runInternal() throws Exception
                 this.progressManager.endStep(this);
             }
         } finally {
+            this.executor.shutdownNow();
             this.progressManager.popLevelProgress(this);
         }
     }
 
+    private Thread newWorkerThread(Runnable runnable)
+    {
+        // Each worker needs its own execution (and XWiki) context to access the database
+        return new Thread(new AbstractXWikiRunnable()
+        {
+            @Override
+            protected void runInternal()
+            {
+                runnable.run();
+            }
+        });
+    }
+
     private InstalledExtension getInstalledExtension(ExtensionId extensionId, String namespace)
     {
         if (extensionId.getVersion() != null) {
@@ -182,8 +243,7 @@ private void diff(InstalledExtension installedExtension, String namespace, Set<L
             }
             try {
                 WikiReference wikiReference = new WikiReference(XarHandlerUtils.getWikiFromNamespace(namespace));
-                diff(new XarFile(new File(installedExtension.getFile().getAbsolutePath())), wikiReference,
-                    installedExtension.getId(), alreadydone);
+                diff(getXarFile(installedExtension), wikiReference, installedExtension.getId(), alreadydone);
             } catch (UnsupportedNamespaceException e) {
                 this.logger.error("Failed to extract the wiki id from the namespace [{}].", namespace, e);
             } catch (IOException e) {
@@ -194,28 +254,61 @@ private void diff(InstalledExtension installedExtension, String namespace, Set<L
         }
     }
 
+    private XarFile getXarFile(InstalledExtension installedExtension) throws XarException, IOException
+    {
+        File file = new File(installedExtension.getFile().getAbsolutePath());
+
+        // Avoid parsing again the XAR package when it's already known by the XAR installed extensions repository
+        InstalledExtension installedXAR = this.installedXARs.getInstalledExtension(installedExtension.getId());
+        if (installedXAR instanceof XarInstalledExtension) {
+            XarPackage xarPackage = ((XarInstalledExtension) installedXAR).getXarPackage();
+            if (xarPackage != null) {
+                return new XarFile(file, xarPackage);
+            }
+        }
+
+        return new XarFile(file);
+    }
+
     private void diff(XarFile xarFile, WikiReference wikiReference, ExtensionId extensionId,
         Set<LocalDocumentReference> alreadydone)
     {
         Collection<XarEntry> xarEntries = xarFile.getEntries();
         this.progressManager.pushLevelProgress(xarEntries.size(), this);
+        // The documents are read and compared by the workers but the progress and the results are handled by the job
+        // thread, in the order of the XAR entries
+        Deque<PendingDiff> pendingDiffs = new ArrayDeque<>();
         try {
             for (XarEntry xarEntry : xarEntries) {
-                this.progressManager.startStep(this);
+                if (alreadydone.contains(xarEntry)) {
+                    pendingDiffs.add(new PendingDiff(xarEntry, null));
+                } else {
+                    alreadydone.add(xarEntry);
 
-                if (!alreadydone.contains(xarEntry)) {
-                    try {
-                        diff(this.packager.getXWikiDocument(xarFile.getInputStream(xarEntry), wikiReference),
-                            extensionId);
-                    } catch (Exception e) {
-                        // Skip this document and continue.
-                        this.logger.error("Failed to parse document [{}] from XAR.", xarEntry.getDocumentName(), e);
+                    if (getRequest().isVerbose()) {
+                        this.logger.info("Computing differences for document [{}]", xarEntry);
                     }
 
-                    alreadydone.add(xarEntry);
+                    pendingDiffs.add(new PendingDiff(xarEntry,
+                        this.executor.submit(() -> diff(xarFile, xarEntry, wikiReference, extensionId))));
+
+                    if (pendingDiffs.size() >= this.maxPendingDiffs) {
+                        handleDiff(pendingDiffs.poll());
+                    }
                 }
             }
+
+            while (!pendingDiffs.isEmpty()) {
+                handleDiff(pendingDiffs.poll());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
+            for (PendingDiff pendingDiff : pendingDiffs) {
+                if (pendingDiff.future != null) {
+                    pendingDiff.future.cancel(true);
+                }
+            }
             try {
                 xarFile.close();
             } catch (IOException e) {
@@ -225,25 +318,46 @@ private void diff(XarFile xarFile, WikiReference wikiReference, ExtensionId exte
         }
     }
 
-    private void diff(XWikiDocument document, ExtensionId extensionId)
+    private void handleDiff(PendingDiff pendingDiff) throws InterruptedException
     {
-        if (getRequest().isVerbose()) {
-            this.logger.info("Computing differences for document [{}]", document.getDocumentReferenceWithLocale());
+        this.progressManager.startStep(this);
+
+        if (pendingDiff.future != null) {
+            try {
+                DocumentUnifiedDiff documentDiff = pendingDiff.future.get();
+                if (documentDiff != null) {
+                    maybeAddDocumentDiff(documentDiff);
+                }
+            } catch (ExecutionException e) {
+                // Skip this document and continue.
+                if (e.getCause() instanceof XWikiException) {
+                    this.logger.error("Failed to get document [{}] from the database.", pendingDiff.entry,
+                        e.getCause());
+                } else {
+                    this.logger.error("Failed to parse document [{}] from XAR.", pendingDiff.entry.getDocumentName(),
+                        e.getCause());
+                }
+            }
         }
+    }
+
+    private DocumentUnifiedDiff diff(XarFile xarFile, XarEntry xarEntry, WikiReference wikiReference,
+        ExtensionId extensionId) throws Exception
+    {
+        XWikiDocument document = this.packager.getXWikiDocument(xarFile.getInputStream(xarEntry), wikiReference);
+
         // Use the extension id as the document version.
         XWikiDocument previousDocument =
             document.duplicate(new DocumentVersionReference(document.getDocumentReference(), extensionId));
         XWikiContext xcontext = this.xcontextProvider.get();
-        try {
-            XWikiDocument nextDocument =
-                xcontext.getWiki().getDocument(document.getDocumentReferenceWithLocale(), xcontext);
-            if (nextDocument.isNew()) {
-                nextDocument = null;
-            }
-            maybeAddDocumentDiff(this.documentDiffBuilder.diff(previousDocument, nextDocument));
-        } catch (XWikiException e) {
-            this.logger.error("Failed to get document [{}] from the database.", document.getDocumentReference(), e);
+        xcontext.setWikiId(wikiReference.getName());
+        XWikiDocument nextDocument =
+            xcontext.getWiki().getDocument(document.getDocumentReferenceWithLocale(), xcontext);
+        if (nextDocument.isNew()) {
+            nextDocument = null;
         }
+
+        return this.documentDiffBuilder.diff(previousDocument, nextDocument);
     }
 
     private void maybeAddDocumentDiff(DocumentUnifiedDiff documentDiff)
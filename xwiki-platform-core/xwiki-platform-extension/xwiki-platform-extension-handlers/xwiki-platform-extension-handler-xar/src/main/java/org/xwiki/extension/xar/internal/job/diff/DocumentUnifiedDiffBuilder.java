@@ -21,6 +21,7 @@
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -76,7 +77,7 @@ public DocumentUnifiedDiff diff(XWikiDocument previousDocument, XWikiDocument ne
             new DocumentUnifiedDiff(getDocumentVersionReference(previousDocument),
                 getDocumentVersionReference(nextDocument));
 
-        if (previousDocument != nextDocument) {
+        if (previousDocument != nextDocument && !isSame(previousDocument, nextDocument)) {
             XWikiDocument nonNullPreviousDocument = emptyDocumentIfNull(previousDocument);
             XWikiDocument nonNullNextDocument = emptyDocumentIfNull(nextDocument);
 
@@ -89,6 +90,26 @@ public DocumentUnifiedDiff diff(XWikiDocument previousDocument, XWikiDocument ne
         return diff;
     }
 
+    /**
+     * Cheap comparison used to avoid computing the differences (which involves serializing and diffing each field,
+     * object and attachment) for the most common case of a document which hasn't been modified. It stops at the first
+     * difference found.
+     */
+    private boolean isSame(XWikiDocument previousDocument, XWikiDocument nextDocument)
+    {
+        if (previousDocument == null || nextDocument == null) {
+            return false;
+        }
+
+        try {
+            return Objects.equals(previousDocument.getDefaultLocale(), nextDocument.getDefaultLocale())
+                && previousDocument.equalsData(nextDocument);
+        } catch (RuntimeException e) {
+            // Let the actual diff deal with it
+            return false;
+        }
+    }
+
     private DocumentVersionReference getDocumentVersionReference(XWikiDocument document)
     {
         if (document == null) {
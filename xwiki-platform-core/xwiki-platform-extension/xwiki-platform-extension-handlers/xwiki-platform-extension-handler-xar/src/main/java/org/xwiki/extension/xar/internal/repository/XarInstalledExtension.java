@@ -47,6 +47,21 @@ public XarInstalledExtension(InstalledExtension installedExtension, XarInstalled
         this.xarPackage = new XarPackage(new File(getFile().getAbsolutePath()));
     }
 
+    /**
+     * @param installedExtension the wrapped installed extension
+     * @param repository the repository of XAR extensions
+     * @param xarPackage the already parsed XAR package of the extension
+     * @since 12.6RC1
+     */
+    public XarInstalledExtension(InstalledExtension installedExtension, XarInstalledExtensionRepository repository,
+        XarPackage xarPackage)
+    {
+        super(installedExtension);
+
+        this.repository = repository;
+        this.xarPackage = xarPackage;
+    }
+
     /**
      * @since 5.4M1
      */
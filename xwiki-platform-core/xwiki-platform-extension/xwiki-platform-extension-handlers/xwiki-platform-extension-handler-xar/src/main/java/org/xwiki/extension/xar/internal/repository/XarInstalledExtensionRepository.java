@@ -19,6 +19,7 @@
  */
 package org.xwiki.extension.xar.internal.repository;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,12 +29,16 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
@@ -58,6 +63,7 @@
 import org.xwiki.xar.XarEntryType;
 import org.xwiki.xar.XarEntryTypeResolver;
 import org.xwiki.xar.XarException;
+import org.xwiki.xar.XarPackage;
 
 /**
  * Local repository proxy for XAR extensions.
@@ -77,6 +83,9 @@ public class XarInstalledExtensionRepository extends AbstractInstalledExtensionR
     @Inject
     private transient XarEntryTypeResolver typeResolver;
 
+    @Inject
+    private transient XarPackageCache packageCache;
+
     /**
      * Index used to find extensions owners of a document installed on a specific wiki.
      */
@@ -197,11 +206,23 @@ protected void removeCachedXarExtension(ExtensionId extensionId)
 
     private void loadExtensions()
     {
+        List<InstalledExtension> xarExtensions = new ArrayList<>();
         for (InstalledExtension localExtension : this.installedRepository.getInstalledExtensions()) {
             if (XarExtensionHandler.TYPE.equalsIgnoreCase(localExtension.getType())) {
+                xarExtensions.add(localExtension);
+            }
+        }
+
+        Map<ExtensionId, XarPackage> packages = loadPackages(xarExtensions);
+
+        for (InstalledExtension localExtension : xarExtensions) {
+            XarPackage xarPackage = packages.get(localExtension.getId());
+            if (xarPackage != null) {
                 try {
                     // Add XAR extension to the cache
-                    XarInstalledExtension xarInstalledExtension = addCacheXarExtension(localExtension);
+                    XarInstalledExtension xarInstalledExtension =
+                        new XarInstalledExtension(localExtension, this, xarPackage);
+                    addCachedExtension(xarInstalledExtension);
 
                     // Add extension pages to the index
                     if (xarInstalledExtension.getNamespaces() == null) {
@@ -212,14 +233,73 @@ private void loadExtensions()
                         }
                     }
                 } catch (Exception e) {
-                    this.logger.error("Failed to parse extension [{}]", localExtension.getId(), e);
-
-                    continue;
+                    this.logger.error("Failed to index extension [{}]", localExtension.getId(), e);
                 }
             }
         }
     }
 
+    /**
+     * Get the packages of the passed extensions from the persistent cache or parse them (in parallel) when they are
+     * not cached yet.
+     */
+    private Map<ExtensionId, XarPackage> loadPackages(List<InstalledExtension> xarExtensions)
+    {
+        Map<String, XarPackage> cachedPackages = this.packageCache.load();
+
+        Map<ExtensionId, XarPackage> packages = new ConcurrentHashMap<>();
+        Map<String, XarPackage> checksumPackages = new ConcurrentHashMap<>();
+
+        List<Callable<Void>> tasks = new ArrayList<>(xarExtensions.size());
+        for (InstalledExtension localExtension : xarExtensions) {
+            tasks.add(() -> {
+                try {
+                    File file = new File(localExtension.getFile().getAbsolutePath());
+                    String checksum = this.packageCache.getChecksum(file);
+
+                    XarPackage xarPackage = checksum != null ? cachedPackages.get(checksum) : null;
+                    if (xarPackage == null) {
+                        xarPackage = new XarPackage(file);
+                    }
+
+                    packages.put(localExtension.getId(), xarPackage);
+                    if (checksum != null) {
+                        checksumPackages.put(checksum, xarPackage);
+                    }
+                } catch (Exception e) {
+                    this.logger.error("Failed to parse extension [{}]", localExtension.getId(), e);
+                }
+
+                return null;
+            });
+        }
+
+        int threads = Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new BasicThreadFactory.Builder().namingPattern("XAR extension loader").daemon(true).build());
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            this.logger.warn("Interrupted while loading the XAR extensions");
+
+            Thread.currentThread().interrupt();
+
+            return packages;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Update the persistent cache in background when it does not match the installed extensions anymore
+        if (!checksumPackages.keySet().equals(cachedPackages.keySet())) {
+            Thread thread = new Thread(() -> this.packageCache.save(checksumPackages), "XAR packages cache writer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+
+        return packages;
+    }
+
     /**
      * @param reference the reference of the document
      * @return the extension owners of the passed document
@@ -0,0 +1,254 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.extension.xar.internal.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.LocaleUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.extension.ExtensionManagerConfiguration;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.xar.XarEntry;
+import org.xwiki.xar.XarPackage;
+
+/**
+ * Persistent cache of the parsed XAR packages, stored next to the local extension repository and indexed by the
+ * checksum of the XAR file. Parsing a XAR package requires reading every document it contains while the cached
+ * version can be loaded for all the installed extensions at once.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component(roles = XarPackageCache.class)
+@Singleton
+public class XarPackageCache
+{
+    /**
+     * Incremented each time the format of the file changes.
+     */
+    private static final int VERSION = 1;
+
+    private static final String FILE_NAME = "xar-packages.cache";
+
+    @Inject
+    private ExtensionManagerConfiguration configuration;
+
+    @Inject
+    private Logger logger;
+
+    private File getFile()
+    {
+        return new File(this.configuration.getLocalRepository().getParentFile(), FILE_NAME);
+    }
+
+    /**
+     * @param file the XAR file
+     * @return the checksum of the passed file or {@code null} if it cannot be cached (for example because it's a
+     *         directory)
+     * @throws IOException when failing to read the file
+     */
+    public String getChecksum(File file) throws IOException
+    {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (InputStream stream = new FileInputStream(file)) {
+            return DigestUtils.sha256Hex(stream);
+        }
+    }
+
+    /**
+     * @return the cached packages indexed by checksum
+     */
+    public Map<String, XarPackage> load()
+    {
+        File file = getFile();
+
+        if (file.exists()) {
+            try (DataInputStream stream =
+                new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (stream.readInt() == VERSION) {
+                    int size = stream.readInt();
+                    Map<String, XarPackage> packages = new HashMap<>(size * 2);
+                    for (int i = 0; i < size; ++i) {
+                        String checksum = readString(stream);
+                        packages.put(checksum, readPackage(stream));
+                    }
+
+                    return packages;
+                }
+            } catch (Exception e) {
+                this.logger.warn("Failed to load the XAR packages cache from [{}]. All the packages will be parsed.",
+                    file, e);
+            }
+        }
+
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Replace the content of the cache.
+     * 
+     * @param packages the packages to cache indexed by checksum
+     */
+    public void save(Map<String, XarPackage> packages)
+    {
+        File file = getFile();
+
+        try {
+            file.getParentFile().mkdirs();
+
+            // Write in a temporary file to never leave a partial cache behind
+            File tmpFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+            try (DataOutputStream stream =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                stream.writeInt(VERSION);
+                stream.writeInt(packages.size());
+                for (Map.Entry<String, XarPackage> entry : packages.entrySet()) {
+                    writeString(entry.getKey(), stream);
+                    writePackage(entry.getValue(), stream);
+                }
+            }
+
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (Exception e) {
+            this.logger.warn("Failed to save the XAR packages cache in [{}]", file, e);
+        }
+    }
+
+    private XarPackage readPackage(DataInputStream stream) throws IOException
+    {
+        String extensionId = readString(stream);
+        String version = readString(stream);
+        String name = readString(stream);
+        String description = readString(stream);
+        String license = readString(stream);
+        String author = readString(stream);
+        boolean backupPack = stream.readBoolean();
+        boolean preserveVersion = stream.readBoolean();
+
+        int size = stream.readInt();
+        List<XarEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            int spacesSize = stream.readInt();
+            List<String> spaces = new ArrayList<>(spacesSize);
+            for (int j = 0; j < spacesSize; ++j) {
+                spaces.add(readString(stream));
+            }
+            String documentName = readString(stream);
+            String locale = readString(stream);
+
+            LocalDocumentReference reference = new LocalDocumentReference(new LocalDocumentReference(spaces,
+                documentName), locale != null ? LocaleUtils.toLocale(locale) : null);
+
+            entries.add(new XarEntry(reference, readString(stream), stream.readInt(), readString(stream)));
+        }
+
+        XarPackage xarPackage = new XarPackage(entries);
+        xarPackage.setPackageExtensionId(extensionId);
+        xarPackage.setPackageVersion(version);
+        xarPackage.setPackageName(name);
+        xarPackage.setPackageDescription(description);
+        xarPackage.setPackageLicense(license);
+        xarPackage.setPackageAuthor(author);
+        xarPackage.setPackageBackupPack(backupPack);
+        xarPackage.setPackagePreserveVersion(preserveVersion);
+
+        return xarPackage;
+    }
+
+    private void writePackage(XarPackage xarPackage, DataOutputStream stream) throws IOException
+    {
+        writeString(xarPackage.getPackageExtensionId(), stream);
+        writeString(xarPackage.getPackageVersion(), stream);
+        writeString(xarPackage.getPackageName(), stream);
+        writeString(xarPackage.getPackageDescription(), stream);
+        writeString(xarPackage.getPackageLicense(), stream);
+        writeString(xarPackage.getPackageAuthor(), stream);
+        stream.writeBoolean(xarPackage.isPackageBackupPack());
+        stream.writeBoolean(xarPackage.isPackagePreserveVersion());
+
+        stream.writeInt(xarPackage.getEntries().size());
+        for (XarEntry entry : xarPackage.getEntries()) {
+            List<EntityReference> spaces = entry.extractReference(EntityType.SPACE).getReversedReferenceChain();
+            stream.writeInt(spaces.size());
+            for (EntityReference space : spaces) {
+                writeString(space.getName(), stream);
+            }
+            writeString(entry.getName(), stream);
+            Locale locale = entry.getLocale();
+            writeString(locale != null ? locale.toString() : null, stream);
+
+            writeString(entry.getEntryName(), stream);
+            stream.writeInt(entry.getDefaultAction());
+            writeString(entry.getEntryType(), stream);
+        }
+    }
+
+    private String readString(DataInputStream stream) throws IOException
+    {
+        int length = stream.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        stream.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeString(String value, DataOutputStream stream) throws IOException
+    {
+        if (value != null) {
+            // Not using DataOutputStream#writeUTF() which is limited to 64KB
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            stream.writeInt(bytes.length);
+            stream.write(bytes);
+        } else {
+            stream.writeInt(-1);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.extension.xar.internal.job;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.extension.ExtensionId;
+import org.xwiki.extension.InstalledExtension;
+import org.xwiki.extension.LocalExtensionFile;
+import org.xwiki.extension.job.InstallRequest;
+import org.xwiki.extension.repository.InstalledExtensionRepository;
+import org.xwiki.extension.xar.internal.handler.XarExtensionHandler;
+import org.xwiki.extension.xar.internal.handler.packager.Packager;
+import org.xwiki.extension.xar.internal.job.diff.DocumentUnifiedDiffBuilder;
+import org.xwiki.extension.xar.internal.repository.XarInstalledExtension;
+import org.xwiki.extension.xar.job.diff.DocumentUnifiedDiff;
+import org.xwiki.extension.xar.job.diff.DocumentVersionReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+import org.xwiki.xar.XarEntry;
+import org.xwiki.xar.XarPackage;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.web.Utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DiffXarJob}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class DiffXarJobTest
+{
+    private static final String NAMESPACE = "wiki:wiki";
+
+    private static final WikiReference WIKI_REFERENCE = new WikiReference("wiki");
+
+    private static final ExtensionId EXTENSION_ID = new ExtensionId("test", "1.0");
+
+    private static final int PAGE_COUNT = 10;
+
+    @InjectMockComponents
+    private DiffXarJob job;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private Packager packager;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    private DocumentUnifiedDiffBuilder documentDiffBuilder;
+
+    @MockComponent
+    private InstalledExtensionRepository installedExtensionRepository;
+
+    @MockComponent
+    @Named(XarExtensionHandler.TYPE)
+    private InstalledExtensionRepository installedXARs;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private ExecutionContextManager executionContextManager;
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    private List<XarEntry> entries = new ArrayList<>();
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        // Used by the workers to initialize their execution context
+        Utils.setComponentManager(this.componentManager);
+
+        File xarFile = new File(this.tmpDir, "test.xar");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(xarFile))) {
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                XarEntry entry =
+                    new XarEntry(new LocalDocumentReference("Space", "Page" + i), "Space/Page" + i + ".xml");
+                this.entries.add(entry);
+
+                zip.putNextEntry(new ZipEntry(entry.getEntryName()));
+                zip.write(entry.getName().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        LocalExtensionFile extensionFile = mock(LocalExtensionFile.class);
+        when(extensionFile.getAbsolutePath()).thenReturn(xarFile.getAbsolutePath());
+
+        InstalledExtension installedExtension = mock(InstalledExtension.class);
+        when(installedExtension.getId()).thenReturn(EXTENSION_ID);
+        when(installedExtension.getType()).thenReturn(XarExtensionHandler.TYPE);
+        when(installedExtension.getFile()).thenReturn(extensionFile);
+        when(installedExtension.isInstalled(NAMESPACE)).thenReturn(true);
+        when(this.installedExtensionRepository.getInstalledExtension(EXTENSION_ID)).thenReturn(installedExtension);
+        when(this.installedExtensionRepository.getInstalledExtension(EXTENSION_ID.getId(), NAMESPACE))
+            .thenReturn(installedExtension);
+
+        XarInstalledExtension installedXAR = mock(XarInstalledExtension.class);
+        when(installedXAR.getXarPackage()).thenReturn(new XarPackage(this.entries));
+        when(this.installedXARs.getInstalledExtension(EXTENSION_ID)).thenReturn(installedXAR);
+
+        when(this.packager.getXWikiDocument(any(InputStream.class), eq(WIKI_REFERENCE))).then(invocation -> {
+            String name = IOUtils.toString(invocation.<InputStream>getArgument(0), StandardCharsets.UTF_8);
+            return mockDocument(new DocumentReference("wiki", "Space", name));
+        });
+
+        XWikiContext xcontext = mock(XWikiContext.class);
+        XWiki xwiki = mock(XWiki.class);
+        when(this.xcontextProvider.get()).thenReturn(xcontext);
+        when(xcontext.getWiki()).thenReturn(xwiki);
+        when(xwiki.getDocument(any(DocumentReference.class), eq(xcontext)))
+            .then(invocation -> mockDocument(invocation.getArgument(0)));
+    }
+
+    private XWikiDocument mockDocument(DocumentReference documentReference)
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(documentReference);
+        when(document.getDocumentReferenceWithLocale()).thenReturn(documentReference);
+        when(document.duplicate(any(DocumentReference.class))).then(invocation -> mockDocument(
+            new DocumentVersionReference(invocation.getArgument(0), EXTENSION_ID)));
+
+        return document;
+    }
+
+    private List<String> diff() throws Throwable
+    {
+        InstallRequest request = new InstallRequest();
+        request.addExtension(EXTENSION_ID);
+        request.addNamespace(NAMESPACE);
+
+        this.job.initialize(request);
+        this.job.run();
+
+        assertNull(this.job.getStatus().getError());
+
+        return this.job.getStatus().getDocumentDiffs().stream()
+            .map(documentDiff -> documentDiff.getPreviousReference().getName()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void diffReturnsResultsInEntryOrder() throws Throwable
+    {
+        when(this.documentDiffBuilder.diff(any(), any())).then(invocation -> {
+            XWikiDocument previousDocument = invocation.getArgument(0);
+            XWikiDocument nextDocument = invocation.getArgument(1);
+            String name = previousDocument.getDocumentReference().getName();
+
+            // Make the first documents the slowest to compare so that the workers finish in reverse order
+            Thread.sleep((PAGE_COUNT - Integer.parseInt(name.substring("Page".length()))) * 10L);
+
+            DocumentUnifiedDiff documentDiff =
+                new DocumentUnifiedDiff((DocumentVersionReference) previousDocument.getDocumentReference(),
+                    new DocumentVersionReference(nextDocument.getDocumentReference()));
+            documentDiff.put("content", Collections.emptyList());
+            return documentDiff;
+        });
+
+        assertEquals(this.entries.stream().map(XarEntry::getName).collect(Collectors.toList()), diff());
+    }
+
+    @Test
+    public void diffSkipsDocumentsWithoutChanges() throws Throwable
+    {
+        when(this.documentDiffBuilder.diff(any(), any())).then(invocation -> {
+            XWikiDocument previousDocument = invocation.getArgument(0);
+            XWikiDocument nextDocument = invocation.getArgument(1);
+
+            DocumentUnifiedDiff documentDiff =
+                new DocumentUnifiedDiff((DocumentVersionReference) previousDocument.getDocumentReference(),
+                    new DocumentVersionReference(nextDocument.getDocumentReference()));
+            if (previousDocument.getDocumentReference().getName().equals("Page3")) {
+                documentDiff.put("content", Collections.emptyList());
+            }
+            return documentDiff;
+        });
+
+        assertEquals(Collections.singletonList("Page3"), diff());
+    }
+}
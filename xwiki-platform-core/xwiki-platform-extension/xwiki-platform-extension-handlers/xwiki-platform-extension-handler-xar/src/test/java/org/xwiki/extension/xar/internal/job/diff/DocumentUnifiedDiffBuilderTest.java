@@ -0,0 +1,105 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.extension.xar.internal.job.diff;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.diff.DiffManager;
+import org.xwiki.diff.DiffResult;
+import org.xwiki.diff.display.UnifiedDiffBlock;
+import org.xwiki.diff.display.UnifiedDiffConfiguration;
+import org.xwiki.diff.display.UnifiedDiffDisplayer;
+import org.xwiki.extension.xar.job.diff.DocumentUnifiedDiff;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DocumentUnifiedDiffBuilder}.
+ * 
+ * @version $Id$
+ */
+@OldcoreTest
+public class DocumentUnifiedDiffBuilderTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    @InjectMockComponents
+    private DocumentUnifiedDiffBuilder builder;
+
+    @MockComponent
+    private DiffManager diffManager;
+
+    @MockComponent
+    private UnifiedDiffDisplayer unifiedDiffDisplayer;
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        when(this.diffManager.diff(any(), any(), any())).thenReturn(mock(DiffResult.class));
+        when(this.unifiedDiffDisplayer.getDefaultConfiguration()).thenReturn(mock(UnifiedDiffConfiguration.class));
+        when(this.unifiedDiffDisplayer.display(any(DiffResult.class), any()))
+            .thenReturn(Collections.singletonList(mock(UnifiedDiffBlock.class)));
+    }
+
+    private XWikiDocument createDocument(String content)
+    {
+        XWikiDocument document = new XWikiDocument(DOCUMENT_REFERENCE);
+        document.setSyntax(Syntax.XWIKI_2_1);
+        document.setTitle("Title");
+        document.setContent(content);
+
+        return document;
+    }
+
+    @Test
+    public void diffWhenSame()
+    {
+        DocumentUnifiedDiff diff = this.builder.diff(createDocument("content"), createDocument("content"));
+
+        assertTrue(diff.isEmpty());
+        assertTrue(diff.getAttachmentDiffs().isEmpty());
+        assertTrue(diff.getObjectDiffs().isEmpty());
+        assertTrue(diff.getClassPropertyDiffs().isEmpty());
+
+        verifyNoInteractions(this.diffManager);
+    }
+
+    @Test
+    public void diffWhenContentModified()
+    {
+        DocumentUnifiedDiff diff = this.builder.diff(createDocument("content"), createDocument("modified content"));
+
+        assertEquals(Collections.singleton("content"), diff.keySet());
+    }
+}
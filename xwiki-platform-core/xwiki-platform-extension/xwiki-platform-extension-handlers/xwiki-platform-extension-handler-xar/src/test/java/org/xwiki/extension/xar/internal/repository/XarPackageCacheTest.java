@@ -0,0 +1,105 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.extension.xar.internal.repository;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.extension.ExtensionManagerConfiguration;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.xar.XarEntry;
+import org.xwiki.xar.XarPackage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link XarPackageCache}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class XarPackageCacheTest
+{
+    @InjectMockComponents
+    private XarPackageCache cache;
+
+    @MockComponent
+    private ExtensionManagerConfiguration configuration;
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        when(this.configuration.getLocalRepository()).thenReturn(new File(this.tmpDir, "repository"));
+    }
+
+    @Test
+    public void saveAndLoad()
+    {
+        assertTrue(this.cache.load().isEmpty());
+
+        XarEntry entry1 = new XarEntry(
+            new LocalDocumentReference(new LocalDocumentReference(Arrays.asList("A", "B.C"), "page"), Locale.ROOT),
+            "A/B.C/page.xml", 1, "home");
+        XarEntry entry2 =
+            new XarEntry(new LocalDocumentReference("Space", "page", Locale.FRENCH), "Space/page.fr.xml", 0, null);
+        XarPackage xarPackage = new XarPackage(Arrays.asList(entry1, entry2));
+        xarPackage.setPackageExtensionId("id");
+        xarPackage.setPackageVersion("1.0");
+        xarPackage.setPackageName("name");
+        xarPackage.setPackagePreserveVersion(true);
+
+        this.cache.save(Collections.singletonMap("checksum", xarPackage));
+
+        Map<String, XarPackage> packages = this.cache.load();
+        assertEquals(Collections.singleton("checksum"), packages.keySet());
+
+        XarPackage loadedPackage = packages.get("checksum");
+        assertEquals("id", loadedPackage.getPackageExtensionId());
+        assertEquals("1.0", loadedPackage.getPackageVersion());
+        assertEquals("name", loadedPackage.getPackageName());
+        assertNull(loadedPackage.getPackageDescription());
+        assertTrue(loadedPackage.isPackagePreserveVersion());
+
+        assertEquals(Arrays.asList(entry1, entry2), new ArrayList<>(loadedPackage.getEntries()));
+        XarEntry loadedEntry1 = loadedPackage.getEntry(entry1);
+        assertEquals("A/B.C/page.xml", loadedEntry1.getEntryName());
+        assertEquals(1, loadedEntry1.getDefaultAction());
+        assertEquals("home", loadedEntry1.getEntryType());
+        XarEntry loadedEntry2 = loadedPackage.getEntry(entry2);
+        assertEquals(Locale.FRENCH, loadedEntry2.getLocale());
+        assertNull(loadedEntry2.getEntryType());
+    }
+}
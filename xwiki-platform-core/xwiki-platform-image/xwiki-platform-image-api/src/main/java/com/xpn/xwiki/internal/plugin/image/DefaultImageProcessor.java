@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.internal.plugin.image;
 
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.RenderingHints;
@@ -30,11 +31,15 @@
 import java.util.Arrays;
 import java.util.Iterator;
 
+import javax.imageio.IIOException;
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
 import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.ImageOutputStream;
 import javax.inject.Singleton;
 
@@ -58,6 +63,85 @@ public Image readImage(InputStream inputStream) throws IOException
         return ImageIO.read(inputStream);
     }
 
+    @Override
+    public Image readImage(InputStream inputStream, int width, int height) throws IOException
+    {
+        try (ImageInputStream imageInputStream = createImageInputStream(inputStream)) {
+            ImageReader reader = getImageReader(imageInputStream);
+            if (reader == null) {
+                return null;
+            }
+
+            try {
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = getSubsampling(reader.getWidth(0), reader.getHeight(0), width, height);
+                if (subsampling > 1) {
+                    // Only decode one pixel out of "subsampling" pixels on each row and column
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @Override
+    public Dimension readImageSize(InputStream inputStream) throws IOException
+    {
+        try (ImageInputStream imageInputStream = createImageInputStream(inputStream)) {
+            ImageReader reader = getImageReader(imageInputStream);
+            if (reader == null) {
+                return null;
+            }
+
+            try {
+                // Only the header of the image is read
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private ImageInputStream createImageInputStream(InputStream inputStream) throws IOException
+    {
+        ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream);
+        if (imageInputStream == null) {
+            throw new IIOException("Can't create an ImageInputStream!");
+        }
+
+        return imageInputStream;
+    }
+
+    private ImageReader getImageReader(ImageInputStream imageInputStream)
+    {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+        if (readers.hasNext()) {
+            ImageReader reader = readers.next();
+            reader.setInput(imageInputStream, true, true);
+
+            return reader;
+        }
+
+        return null;
+    }
+
+    private int getSubsampling(int currentWidth, int currentHeight, int width, int height)
+    {
+        // Keep at least twice the requested dimensions to preserve the quality of the scaled image
+        int subsampling = Integer.MAX_VALUE;
+        if (width > 0) {
+            subsampling = Math.min(subsampling, currentWidth / (width * 2));
+        }
+        if (height > 0) {
+            subsampling = Math.min(subsampling, currentHeight / (height * 2));
+        }
+
+        return subsampling == Integer.MAX_VALUE ? 1 : Math.max(1, subsampling);
+    }
+
     @Override
     public void writeImage(RenderedImage image, String mimeType, float quality, OutputStream out) throws IOException
     {
@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.plugin.image;
 
+import java.awt.Dimension;
 import java.awt.Image;
 import java.awt.image.RenderedImage;
 import java.io.IOException;
@@ -26,6 +27,7 @@
 import java.io.OutputStream;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Component used to process images.
@@ -45,6 +47,41 @@
      */
     Image readImage(InputStream inputStream) throws IOException;
 
+    /**
+     * Reads an image from an input stream, skipping the pixels which are not needed to produce an image of the
+     * specified dimensions. The returned image is at least twice as large as the specified dimensions (when possible)
+     * so that it can be scaled down without a visible quality loss, but it can be a lot smaller than the original
+     * image, which reduces a lot the memory needed to read huge images.
+     *
+     * @param inputStream the input stream to read the image from
+     * @param width the width of the image which will be produced from the read image, {@code -1} if unknown
+     * @param height the height of the image which will be produced from the read image, {@code -1} if unknown
+     * @return the read image
+     * @throws IOException if reading the image fails
+     * @since 12.6RC1
+     */
+    @Unstable
+    default Image readImage(InputStream inputStream, int width, int height) throws IOException
+    {
+        return readImage(inputStream);
+    }
+
+    /**
+     * Reads the dimensions of an image, if possible without decoding the image.
+     *
+     * @param inputStream the input stream to read the image from
+     * @return the dimensions of the image or {@code null} if the image cannot be read
+     * @throws IOException if reading the image fails
+     * @since 12.6RC1
+     */
+    @Unstable
+    default Dimension readImageSize(InputStream inputStream) throws IOException
+    {
+        Image image = readImage(inputStream);
+
+        return image != null ? new Dimension(image.getWidth(null), image.getHeight(null)) : null;
+    }
+
     /**
      * Encodes the given image to match the specified mime type, if possible, and writes it to the output stream, using
      * the specified compression quality if appropriate.
@@ -0,0 +1,255 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.AutoCloseInputStream;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+
+/**
+ * Stores the scaled images on the disk so that they don't have to be computed again after a restart and don't need to
+ * be kept in memory. The scaled images of an attachment are stored in a directory dedicated to this attachment and the
+ * name of each file contains the version of the attachment and the transformation parameters. The number of scaled
+ * images kept for each attachment is limited: the least recently used ones are removed when the limit is reached, so
+ * that requesting many different sizes of the same image cannot fill the disk.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+class ImageDiskCache
+{
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final File directory;
+
+    private final int maxVariants;
+
+    /**
+     * Attachment content stored in a file of the cache, streamed from the disk when the image is downloaded.
+     */
+    private static final class FileContent extends XWikiAttachmentContent
+    {
+        private final File file;
+
+        FileContent(File file)
+        {
+            this.file = file;
+        }
+
+        FileContent(FileContent original)
+        {
+            super(original);
+
+            this.file = original.file;
+        }
+
+        @Override
+        public FileContent clone()
+        {
+            return new FileContent(this);
+        }
+
+        @Override
+        @Deprecated
+        public byte[] getContent()
+        {
+            if (getFileItem() != null) {
+                return super.getContent();
+            }
+
+            try {
+                return FileUtils.readFileToByteArray(this.file);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load the scaled image", e);
+            }
+        }
+
+        @Override
+        public InputStream getContentInputStream()
+        {
+            if (getFileItem() != null) {
+                return super.getContentInputStream();
+            }
+
+            try {
+                return new AutoCloseInputStream(new FileInputStream(this.file));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to get InputStream", e);
+            }
+        }
+
+        @Override
+        public long getLongSize()
+        {
+            return getFileItem() != null ? super.getLongSize() : this.file.length();
+        }
+    }
+
+    /**
+     * @param directory the directory where to store the scaled images
+     * @param maxVariants the maximum number of scaled images stored for each attachment
+     */
+    ImageDiskCache(File directory, int maxVariants)
+    {
+        this.directory = directory;
+        this.maxVariants = Math.max(1, maxVariants);
+    }
+
+    /**
+     * @param attachmentKey the serialized reference of the attachment
+     * @param image the original image
+     * @param width the requested width
+     * @param height the requested height
+     * @param keepAspectRatio {@code true} to preserve aspect ratio when resizing the image, {@code false} otherwise
+     * @param quality the requested compression quality
+     * @return the scaled image or {@code null} if it's not in the cache
+     */
+    XWikiAttachment get(String attachmentKey, XWikiAttachment image, int width, int height, boolean keepAspectRatio,
+        float quality)
+    {
+        File file = getFile(attachmentKey, image, width, height, keepAspectRatio, quality);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        // Remember the last access to remove the least recently used scaled images first
+        file.setLastModified(System.currentTimeMillis());
+
+        XWikiAttachment thumbnail = image.clone();
+        setContent(thumbnail, file);
+
+        return thumbnail;
+    }
+
+    /**
+     * Store the passed scaled image and make it stream its content from the stored file.
+     *
+     * @param attachmentKey the serialized reference of the attachment
+     * @param image the original image
+     * @param width the requested width
+     * @param height the requested height
+     * @param keepAspectRatio {@code true} to preserve aspect ratio when resizing the image, {@code false} otherwise
+     * @param quality the requested compression quality
+     * @param thumbnail the scaled image
+     * @param context the XWiki context
+     * @throws IOException when failing to write the file
+     * @throws XWikiException when failing to read the content of the scaled image
+     */
+    void set(String attachmentKey, XWikiAttachment image, int width, int height, boolean keepAspectRatio,
+        float quality, XWikiAttachment thumbnail, XWikiContext context) throws IOException, XWikiException
+    {
+        File file = getFile(attachmentKey, image, width, height, keepAspectRatio, quality);
+        File attachmentDirectory = file.getParentFile();
+        attachmentDirectory.mkdirs();
+
+        // Write in a temporary file first so that a partially written image is never served
+        File temporaryFile = File.createTempFile(file.getName(), TEMPORARY_FILE_SUFFIX, attachmentDirectory);
+        try {
+            try (InputStream input = thumbnail.getContentInputStream(context);
+                OutputStream output = new FileOutputStream(temporaryFile)) {
+                IOUtils.copyLarge(input, output);
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+
+        evict(attachmentDirectory, file);
+
+        setContent(thumbnail, file);
+    }
+
+    /**
+     * Remove the least recently used scaled images of an attachment when there are more than allowed.
+     *
+     * @param attachmentDirectory the directory holding the scaled images of an attachment
+     * @param newFile the scaled image that has just been stored
+     */
+    private void evict(File attachmentDirectory, File newFile)
+    {
+        File[] files = attachmentDirectory.listFiles(
+            file -> file.isFile() && !file.getName().endsWith(TEMPORARY_FILE_SUFFIX) && !file.equals(newFile));
+        if (files != null && files.length >= this.maxVariants) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (int i = 0; i <= files.length - this.maxVariants; i++) {
+                FileUtils.deleteQuietly(files[i]);
+            }
+        }
+    }
+
+    /**
+     * @param thumbnail a scaled image returned by the cache
+     * @return {@code false} if the file holding the content of the scaled image has been removed
+     */
+    boolean isAvailable(XWikiAttachment thumbnail)
+    {
+        XWikiAttachmentContent content = thumbnail.getAttachment_content();
+
+        return !(content instanceof FileContent) || ((FileContent) content).file.isFile();
+    }
+
+    /**
+     * Remove all the scaled images of an attachment.
+     *
+     * @param attachmentKey the serialized reference of the attachment
+     */
+    void remove(String attachmentKey)
+    {
+        FileUtils.deleteQuietly(getDirectory(attachmentKey));
+    }
+
+    private void setContent(XWikiAttachment thumbnail, File file)
+    {
+        thumbnail.setAttachment_content(new FileContent(file));
+        thumbnail.setLongSize(file.length());
+    }
+
+    private File getDirectory(String attachmentKey)
+    {
+        return new File(this.directory, DigestUtils.sha256Hex(attachmentKey));
+    }
+
+    private File getFile(String attachmentKey, XWikiAttachment image, int width, int height, boolean keepAspectRatio,
+        float quality)
+    {
+        long date = image.getDate() != null ? image.getDate().getTime() : 0;
+
+        return new File(getDirectory(attachmentKey), String.format("%s-%s-%sx%s-%s-%s", image.getVersion(), date,
+            width, height, keepAspectRatio, quality));
+    }
+}
@@ -19,14 +19,27 @@
  */
 package com.xpn.xwiki.plugin.image;
 
+import java.awt.Dimension;
 import java.awt.Image;
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.cache.Cache;
@@ -34,13 +47,26 @@
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Api;
 import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AbstractAttachmentEvent;
+import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
 import com.xpn.xwiki.plugin.XWikiDefaultPlugin;
 import com.xpn.xwiki.plugin.XWikiPluginInterface;
+import com.xpn.xwiki.util.AbstractXWikiRunnable;
 import com.xpn.xwiki.web.Utils;
 
 /**
@@ -48,7 +74,7 @@
  * @deprecated the plugin technology is deprecated, consider rewriting as components
  */
 @Deprecated
-public class ImagePlugin extends XWikiDefaultPlugin
+public class ImagePlugin extends XWikiDefaultPlugin implements EventListener
 {
     /**
      * Logging helper object.
@@ -62,6 +88,18 @@ public class ImagePlugin extends XWikiDefaultPlugin
      */
     private static final String PLUGIN_NAME = "image";
 
+    /**
+     * The maximum number of uploaded images waiting for their scaled images to be generated.
+     */
+    private static final int PREGENERATION_QUEUE_SIZE = 1000;
+
+    /**
+     * The default maximum number of scaled images stored on disk for each attachment.
+     */
+    private static final int DEFAULT_DISK_CACHE_MAX_VARIANTS = 10;
+
+    private static final int KILOBYTE = 1024;
+
     /**
      * Cache for already served images.
      */
@@ -72,6 +110,43 @@ public class ImagePlugin extends XWikiDefaultPlugin
      */
     private int capacity = 50;
 
+    /**
+     * Disk cache for the scaled images or {@code null} if it's disabled. It can be disabled by setting the key
+     * {@code xwiki.plugin.image.diskCache} to {@code 0}.
+     */
+    private ImageDiskCache diskCache;
+
+    /**
+     * The dimensions of the scaled images to generate when an image is uploaded. This parameter can be configured
+     * using the key {@code xwiki.plugin.image.diskCache.pregeneratedSizes} (comma separated list of
+     * {@code <width>x<height>} or {@code <width>} values).
+     */
+    private List<int[]> pregeneratedSizes = Collections.emptyList();
+
+    /**
+     * Generates the scaled images of the uploaded images in background.
+     */
+    private ExecutorService pregenerationExecutor;
+
+    /**
+     * Limits the number of images processed at the same time. This parameter can be configured using the key
+     * {@code xwiki.plugin.image.processing.maxThreads}. The requests exceeding the limit wait for the previous images
+     * to be processed.
+     */
+    private Semaphore processingSlots;
+
+    /**
+     * Limits the memory (in kilobytes) used to process images at the same time. This parameter can be configured
+     * (in megabytes) using the key {@code xwiki.plugin.image.processing.memoryBudget}. The requests exceeding the
+     * budget wait for the previous images to be processed.
+     */
+    private Semaphore memoryBudget;
+
+    /**
+     * The total memory budget, in kilobytes.
+     */
+    private int memoryBudgetSize;
+
     /**
      * Default JPEG image quality.
      */
@@ -115,6 +190,8 @@ public void init(XWikiContext context)
         super.init(context);
 
         initCache(context);
+        initDiskCache(context);
+        initProcessingLimits(context);
 
         String imageProcessorHint = context.getWiki().Param("xwiki.plugin.image.processorHint", "thumbnailator");
         this.imageProcessor = Utils.getComponent(ImageProcessor.class, imageProcessorHint);
@@ -166,6 +243,154 @@ private void initCache(XWikiContext context)
         }
     }
 
+    /**
+     * Initializes the limits protecting the server from too many images being processed at the same time.
+     *
+     * @param context the XWiki context
+     */
+    private void initProcessingLimits(XWikiContext context)
+    {
+        int maxThreads = parseInt(context.getWiki().Param("xwiki.plugin.image.processing.maxThreads"),
+            Runtime.getRuntime().availableProcessors());
+        this.processingSlots = new Semaphore(Math.max(1, maxThreads), true);
+
+        // Use a quarter of the heap by default
+        long defaultBudget = Runtime.getRuntime().maxMemory() / 4 / KILOBYTE / KILOBYTE;
+        long budget = parseInt(context.getWiki().Param("xwiki.plugin.image.processing.memoryBudget"),
+            (int) Math.min(defaultBudget, Integer.MAX_VALUE / KILOBYTE));
+        this.memoryBudgetSize = (int) Math.max(1, Math.min(budget * KILOBYTE, Integer.MAX_VALUE));
+        this.memoryBudget = new Semaphore(this.memoryBudgetSize, true);
+    }
+
+    private int parseInt(String param, int defaultValue)
+    {
+        if (!StringUtils.isBlank(param)) {
+            try {
+                return Integer.parseInt(param.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn("Failed to parse the integer configuration parameter [{}]. Using [{}] instead.", param,
+                    defaultValue);
+            }
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Initializes the disk cache and the generation of the scaled images when an image is uploaded.
+     *
+     * @param context the XWiki context
+     */
+    private void initDiskCache(XWikiContext context)
+    {
+        if (!"0".equals(context.getWiki().Param("xwiki.plugin.image.diskCache", "1"))) {
+            File permanentDirectory = Utils.getComponent(Environment.class).getPermanentDirectory();
+            if (permanentDirectory != null) {
+                int maxVariants = parseInt(context.getWiki().Param("xwiki.plugin.image.diskCache.maxVariants"),
+                    DEFAULT_DISK_CACHE_MAX_VARIANTS);
+                this.diskCache = new ImageDiskCache(new File(permanentDirectory, "cache/image"), maxVariants);
+
+                this.pregeneratedSizes =
+                    parseSizes(context.getWiki().Param("xwiki.plugin.image.diskCache.pregeneratedSizes"));
+                if (!this.pregeneratedSizes.isEmpty()) {
+                    this.pregenerationExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(PREGENERATION_QUEUE_SIZE),
+                        new BasicThreadFactory.Builder().namingPattern("Image pregeneration").daemon(true)
+                            .priority(Thread.MIN_PRIORITY).build(),
+                        new ThreadPoolExecutor.DiscardPolicy());
+                }
+
+                // Listen to the attachment modifications to remove the obsolete scaled images and to generate the new
+                // ones
+                Utils.getComponent(ObservationManager.class).addListener(this);
+            }
+        }
+    }
+
+    private List<int[]> parseSizes(String sizesParam)
+    {
+        List<int[]> sizes = new ArrayList<>();
+        for (String size : StringUtils.split(StringUtils.defaultString(sizesParam), ", ")) {
+            try {
+                int width = Integer.parseInt(StringUtils.substringBefore(size, "x"));
+                int height =
+                    size.indexOf('x') > 0 ? Integer.parseInt(StringUtils.substringAfter(size, "x")) : -1;
+                sizes.add(new int[] { width, height });
+            } catch (NumberFormatException e) {
+                LOG.warn("Failed to parse the size [{}] of the xwiki.plugin.image.diskCache.pregeneratedSizes "
+                    + "configuration parameter.", size);
+            }
+        }
+
+        return sizes;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return Arrays.<Event>asList(new AttachmentAddedEvent(), new AttachmentUpdatedEvent(),
+            new AttachmentDeletedEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiDocument document = (XWikiDocument) source;
+        AttachmentReference reference =
+            new AttachmentReference(((AbstractAttachmentEvent) event).getName(), document.getDocumentReference());
+
+        if (!(event instanceof AttachmentAddedEvent)) {
+            // The scaled images of the previous versions are not needed anymore
+            this.diskCache.remove(serialize(reference));
+        }
+
+        if (!(event instanceof AttachmentDeletedEvent) && this.pregenerationExecutor != null) {
+            this.pregenerationExecutor.execute(new AbstractXWikiRunnable()
+            {
+                @Override
+                protected void runInternal()
+                {
+                    pregenerate(reference);
+                }
+            });
+        }
+    }
+
+    /**
+     * Generates and stores on disk the configured scaled images of the passed attachment.
+     *
+     * @param reference the reference of the uploaded attachment
+     */
+    private void pregenerate(AttachmentReference reference)
+    {
+        XWikiContext context = Utils.getContext();
+        DocumentReference documentReference = reference.getDocumentReference();
+        context.setWikiId(documentReference.getWikiReference().getName());
+
+        try {
+            XWikiAttachment image =
+                context.getWiki().getDocument(documentReference, context).getAttachment(reference.getName());
+            if (image != null && this.imageProcessor.isMimeTypeSupported(image.getMimeType(context))) {
+                for (int[] size : this.pregeneratedSizes) {
+                    XWikiAttachment thumbnail = shrinkImage(image, size[0], size[1], false, -1, context);
+                    if (thumbnail != image) {
+                        this.diskCache.set(serialize(reference), image, size[0], size[1], false, -1, thumbnail,
+                            context);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to generate the scaled images of [{}].", reference, e);
+        }
+    }
+
+    private String serialize(AttachmentReference reference)
+    {
+        EntityReferenceSerializer<String> serializer = Utils.getComponent(EntityReferenceSerializer.TYPE_STRING);
+
+        return serializer.serialize(reference);
+    }
+
     @Override
     public void flushCache()
     {
@@ -249,7 +474,7 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
 
         boolean keepAspectRatio = Boolean.valueOf(context.getRequest().getParameter("keepAspectRatio"));
 
-        XWikiAttachment thumbnail = (this.imageCache == null)
+        XWikiAttachment thumbnail = (this.imageCache == null && this.diskCache == null)
             ? shrinkImage(image, width, height, keepAspectRatio, quality, context)
             : downloadImageFromCache(image, width, height, keepAspectRatio, quality, context);
 
@@ -283,10 +508,50 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
         String key = String.format("%s;%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), image.getDate().getTime(),
             width, height, keepAspectRatio, quality);
 
-        XWikiAttachment thumbnail = this.imageCache.get(key);
+        XWikiAttachment thumbnail = (this.imageCache != null) ? this.imageCache.get(key) : null;
+        if (thumbnail == null || (this.diskCache != null && !this.diskCache.isAvailable(thumbnail))) {
+            thumbnail = downloadImageFromDiskCache(image, width, height, keepAspectRatio, quality, context);
+            if (this.imageCache != null) {
+                this.imageCache.set(key, thumbnail);
+            }
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Gets the given image from the disk cache or transforms it and stores the result in the disk cache. The returned
+     * image streams its content from the disk so it's cheap to keep it in memory.
+     *
+     * @param image the image to be downloaded
+     * @param width the desired image width
+     * @param height the desired image height
+     * @param keepAspectRatio {@code true} to preserve aspect ratio when resizing the image, {@code false} otherwise
+     * @param quality the desired compression quality
+     * @param context the XWiki context
+     * @return the transformed image
+     * @throws Exception if transforming the image fails
+     */
+    private XWikiAttachment downloadImageFromDiskCache(XWikiAttachment image, int width, int height,
+        boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
+    {
+        AttachmentReference reference = (this.diskCache != null) ? image.getReference() : null;
+        if (reference == null) {
+            return shrinkImage(image, width, height, keepAspectRatio, quality, context);
+        }
+
+        String attachmentKey = serialize(reference);
+        XWikiAttachment thumbnail = this.diskCache.get(attachmentKey, image, width, height, keepAspectRatio, quality);
         if (thumbnail == null) {
             thumbnail = shrinkImage(image, width, height, keepAspectRatio, quality, context);
-            this.imageCache.set(key, thumbnail);
+            if (thumbnail != image) {
+                try {
+                    this.diskCache.set(attachmentKey, image, width, height, keepAspectRatio, quality, thumbnail,
+                        context);
+                } catch (IOException e) {
+                    LOG.warn("Failed to store the scaled image of [{}] on disk: {}", reference,
+                        ExceptionUtils.getRootCauseMessage(e));
+                }
+            }
         }
         return thumbnail;
     }
@@ -311,7 +576,67 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
     private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
         boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
     {
-        Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
+        Dimension size;
+        try (InputStream stream = attachment.getContentInputStream(context)) {
+            size = this.imageProcessor.readImageSize(stream);
+        }
+        int memoryCost = getMemoryCost(size, requestedWidth, requestedHeight);
+
+        // Wait for the other images to be processed instead of exhausting the memory
+        this.processingSlots.acquire();
+        try {
+            this.memoryBudget.acquire(memoryCost);
+            try {
+                return shrinkImageWithinLimits(attachment, requestedWidth, requestedHeight, keepAspectRatio,
+                    requestedQuality, context);
+            } finally {
+                this.memoryBudget.release(memoryCost);
+            }
+        } finally {
+            this.processingSlots.release();
+        }
+    }
+
+    /**
+     * @param size the dimensions of the original image, {@code null} if unknown
+     * @param requestedWidth the desired image width
+     * @param requestedHeight the desired image height
+     * @return an estimation of the memory needed to scale the image, in kilobytes
+     */
+    private int getMemoryCost(Dimension size, int requestedWidth, int requestedHeight)
+    {
+        double pixels;
+        if (size != null) {
+            // The image is decoded with at most 4 times the requested dimensions, see
+            // ImageProcessor#readImage(InputStream, int, int)
+            double ratio = 1;
+            if (requestedWidth > 0 && size.width > 0) {
+                ratio = Math.min(ratio, 4.0 * requestedWidth / size.width);
+            }
+            if (requestedHeight > 0 && size.height > 0) {
+                ratio = Math.min(ratio, 4.0 * requestedHeight / size.height);
+            }
+            pixels = (double) size.width * size.height * ratio * ratio;
+        } else {
+            pixels = 16.0 * Math.max(requestedWidth, 1) * Math.max(requestedHeight, 1);
+        }
+
+        // 4 bytes per pixel for the decoded image and at most as much for the scaled image
+        long cost = (long) (pixels * 8 / KILOBYTE) + 1;
+
+        // An image bigger than the whole budget is processed alone
+        return (int) Math.min(cost, this.memoryBudgetSize);
+    }
+
+    /**
+     * Does the actual work of {@link #shrinkImage(XWikiAttachment, int, int, boolean, float, XWikiContext)} once the
+     * processing limits allow it.
+     */
+    private XWikiAttachment shrinkImageWithinLimits(XWikiAttachment attachment, int requestedWidth,
+        int requestedHeight, boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
+    {
+        Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context), requestedWidth,
+            requestedHeight);
 
         // Compute the new image dimension.
         int currentWidth = image.getWidth(null);
@@ -410,7 +735,9 @@ private int[] reduceImageDimensions(int currentWidth, int currentHeight, int req
      */
     public int getWidth(XWikiAttachment attachment, XWikiContext context) throws IOException, XWikiException
     {
-        return this.imageProcessor.readImage(attachment.getContentInputStream(context)).getWidth(null);
+        try (InputStream stream = attachment.getContentInputStream(context)) {
+            return this.imageProcessor.readImageSize(stream).width;
+        }
     }
 
     /**
@@ -422,6 +749,8 @@ public int getWidth(XWikiAttachment attachment, XWikiContext context) throws IOE
      */
     public int getHeight(XWikiAttachment attachment, XWikiContext context) throws IOException, XWikiException
     {
-        return this.imageProcessor.readImage(attachment.getContentInputStream(context)).getHeight(null);
+        try (InputStream stream = attachment.getContentInputStream(context)) {
+            return this.imageProcessor.readImageSize(stream).height;
+        }
     }
 }
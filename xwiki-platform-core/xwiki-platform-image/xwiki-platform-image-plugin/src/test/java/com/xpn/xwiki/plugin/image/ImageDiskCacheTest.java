@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Date;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ImageDiskCache}.
+ *
+ * @version $Id$
+ */
+public class ImageDiskCacheTest
+{
+    private static final byte[] THUMBNAIL_CONTENT = new byte[] { 1, 2, 3 };
+
+    @TempDir
+    File tmpDir;
+
+    private ImageDiskCache diskCache;
+
+    private XWikiAttachment image = mock(XWikiAttachment.class);
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    @BeforeEach
+    public void setUp()
+    {
+        this.diskCache = new ImageDiskCache(this.tmpDir, 2);
+
+        when(this.image.getVersion()).thenReturn("1.1");
+        when(this.image.getDate()).thenReturn(new Date(42));
+    }
+
+    @Test
+    public void setAndGet() throws Exception
+    {
+        assertNull(this.diskCache.get("wiki:Space.Page@image.png", this.image, 30, 20, false, -1));
+
+        XWikiAttachment thumbnail = mock(XWikiAttachment.class);
+        when(thumbnail.getContentInputStream(this.xcontext)).thenReturn(new ByteArrayInputStream(THUMBNAIL_CONTENT));
+        this.diskCache.set("wiki:Space.Page@image.png", this.image, 30, 20, false, -1, thumbnail, this.xcontext);
+
+        ArgumentCaptor<XWikiAttachmentContent> contentCaptor = ArgumentCaptor.forClass(XWikiAttachmentContent.class);
+        verify(thumbnail).setAttachment_content(contentCaptor.capture());
+        assertArrayEquals(THUMBNAIL_CONTENT, IOUtils.toByteArray(contentCaptor.getValue().getContentInputStream()));
+        verify(thumbnail).setLongSize(THUMBNAIL_CONTENT.length);
+
+        XWikiAttachment clone = mock(XWikiAttachment.class);
+        when(this.image.clone()).thenReturn(clone);
+        assertSame(clone, this.diskCache.get("wiki:Space.Page@image.png", this.image, 30, 20, false, -1));
+        verify(clone).setLongSize(THUMBNAIL_CONTENT.length);
+
+        // Other dimensions
+        assertNull(this.diskCache.get("wiki:Space.Page@image.png", this.image, 30, 30, false, -1));
+
+        // Other version
+        when(this.image.getVersion()).thenReturn("1.2");
+        assertNull(this.diskCache.get("wiki:Space.Page@image.png", this.image, 30, 20, false, -1));
+    }
+
+    @Test
+    public void remove() throws Exception
+    {
+        XWikiAttachment thumbnail = mock(XWikiAttachment.class);
+        when(thumbnail.getContentInputStream(this.xcontext)).thenReturn(new ByteArrayInputStream(THUMBNAIL_CONTENT));
+        this.diskCache.set("wiki:Space.Page@image.png", this.image, 30, 20, false, -1, thumbnail, this.xcontext);
+
+        ArgumentCaptor<XWikiAttachmentContent> contentCaptor = ArgumentCaptor.forClass(XWikiAttachmentContent.class);
+        verify(thumbnail).setAttachment_content(contentCaptor.capture());
+        when(thumbnail.getAttachment_content()).thenReturn(contentCaptor.getValue());
+        assertTrue(this.diskCache.isAvailable(thumbnail));
+
+        this.diskCache.remove("wiki:Space.Page@image.png");
+
+        assertFalse(this.diskCache.isAvailable(thumbnail));
+        assertNull(this.diskCache.get("wiki:Space.Page@image.png", this.image, 30, 20, false, -1));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception
+    {
+        String key = "wiki:Space.Page@image.png";
+        when(this.image.clone()).thenReturn(mock(XWikiAttachment.class));
+
+        store(key, 10);
+        store(key, 20);
+
+        // Use the first scaled image so that the second one becomes the least recently used.
+        File[] files = this.tmpDir.listFiles()[0].listFiles();
+        for (File file : files) {
+            file.setLastModified(file.getName().contains("-20x") ? 1000 : 2000);
+        }
+
+        store(key, 30);
+
+        assertNotNull(this.diskCache.get(key, this.image, 10, 10, false, -1));
+        assertNull(this.diskCache.get(key, this.image, 20, 20, false, -1));
+        assertNotNull(this.diskCache.get(key, this.image, 30, 30, false, -1));
+    }
+
+    private void store(String key, int size) throws Exception
+    {
+        XWikiAttachment thumbnail = mock(XWikiAttachment.class);
+        when(thumbnail.getContentInputStream(this.xcontext)).thenReturn(new ByteArrayInputStream(THUMBNAIL_CONTENT));
+        this.diskCache.set(key, this.image, size, size, false, -1, thumbnail, this.xcontext);
+    }
+}
@@ -158,7 +158,7 @@ public void testCacheOfScaledAttachment() throws Exception
         Image image = mock(Image.class);
         when(image.getWidth(null)).thenReturn(400);
         when(image.getHeight(null)).thenReturn(300);
-        when(imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
+        when(imageProcessor.readImage(attachmentInputStream, 30, 30)).thenReturn(image);
         RenderedImage renderedImage = mock(RenderedImage.class);
         when(imageProcessor.scaleImage(image, 30, 30)).thenReturn(renderedImage);
 
@@ -0,0 +1,111 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal;
+
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * The information needed to display a document node. It is retrieved for a page of sibling nodes at once by the
+ * {@link DocumentRowProvider}.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class DocumentRow
+{
+    private final DocumentReference documentReference;
+
+    private boolean viewable;
+
+    private boolean deletable;
+
+    private String label;
+
+    private boolean withChildren;
+
+    /**
+     * @param documentReference the reference of the document displayed by the node
+     */
+    public DocumentRow(DocumentReference documentReference)
+    {
+        this.documentReference = documentReference;
+    }
+
+    /**
+     * @return the reference of the document displayed by the node
+     */
+    public DocumentReference getDocumentReference()
+    {
+        return this.documentReference;
+    }
+
+    /**
+     * @return {@code true} if the current user can view the document
+     */
+    public boolean isViewable()
+    {
+        return this.viewable;
+    }
+
+    void setViewable(boolean viewable)
+    {
+        this.viewable = viewable;
+    }
+
+    /**
+     * @return {@code true} if the current user can delete the document
+     */
+    public boolean isDeletable()
+    {
+        return this.deletable;
+    }
+
+    void setDeletable(boolean deletable)
+    {
+        this.deletable = deletable;
+    }
+
+    /**
+     * @return the plain title of the document in the current locale, or {@code null} if the title was not requested
+     *         or the document is not viewable
+     */
+    public String getLabel()
+    {
+        return this.label;
+    }
+
+    void setLabel(String label)
+    {
+        this.label = label;
+    }
+
+    /**
+     * @return {@code true} if the node has child nodes
+     */
+    public boolean hasChildren()
+    {
+        return this.withChildren;
+    }
+
+    void setWithChildren(boolean withChildren)
+    {
+        this.withChildren = withChildren;
+    }
+}
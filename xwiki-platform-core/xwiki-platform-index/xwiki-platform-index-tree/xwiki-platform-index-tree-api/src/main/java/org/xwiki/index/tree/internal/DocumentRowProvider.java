@@ -0,0 +1,289 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.localization.LocaleUtils;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceProvider;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.properties.converter.Converter;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.tree.Tree;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Retrieves the information needed to display a page of sibling document nodes at once: the rights of the current user
+ * are checked in a single pass, the raw titles of all the documents (and of their translations) are loaded with a
+ * single query per wiki and the nodes that have children are found with {@link Tree#getNodesWithChildren}. The
+ * documents themselves are loaded only when their title contains a script that needs to be evaluated.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component(roles = DocumentRowProvider.class)
+@Singleton
+public class DocumentRowProvider
+{
+    private static final String DOCUMENT_NODE_PREFIX = "document:";
+
+    /**
+     * The maximum number of documents to look for in a single query, some databases limit the size of the IN lists.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    @Inject
+    private Logger logger;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    @Named("entityTreeNodeId")
+    private Converter<EntityReference> entityTreeNodeIdConverter;
+
+    @Inject
+    private EntityReferenceProvider defaultEntityReferenceProvider;
+
+    @Inject
+    @Named("xwikicfg")
+    private ConfigurationSource xwikicfg;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    /**
+     * @param tree the tree that returned the nodes
+     * @param nodeIds the ids of the sibling nodes to display; the nodes that don't represent documents are ignored
+     * @return the information needed to display the document nodes, in the order of the given node ids
+     */
+    public Map<DocumentReference, DocumentRow> getRows(Tree tree, List<String> nodeIds)
+    {
+        Map<DocumentReference, DocumentRow> rows = new LinkedHashMap<>();
+        Map<String, DocumentRow> rowByNodeId = new LinkedHashMap<>();
+        for (String nodeId : nodeIds) {
+            if (StringUtils.startsWith(nodeId, DOCUMENT_NODE_PREFIX)) {
+                EntityReference entityReference = this.entityTreeNodeIdConverter.convert(EntityReference.class, nodeId);
+                if (entityReference != null && entityReference.getType() == EntityType.DOCUMENT) {
+                    DocumentReference documentReference = new DocumentReference(entityReference);
+                    DocumentRow row = new DocumentRow(documentReference);
+                    row.setViewable(this.authorization.hasAccess(Right.VIEW, documentReference));
+                    row.setDeletable(this.authorization.hasAccess(Right.DELETE, documentReference));
+                    rows.put(documentReference, row);
+                    rowByNodeId.put(nodeId, row);
+                }
+            }
+        }
+
+        if (Boolean.TRUE.equals(tree.getProperties().get("showDocumentTitle"))) {
+            setLabels(rows.values().stream().filter(DocumentRow::isViewable).collect(Collectors.toList()));
+        }
+
+        for (String nodeId : tree.getNodesWithChildren(rowByNodeId.keySet())) {
+            DocumentRow row = rowByNodeId.get(nodeId);
+            if (row != null) {
+                row.setWithChildren(true);
+            }
+        }
+
+        return rows;
+    }
+
+    private void setLabels(List<DocumentRow> rows)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        // The locales to look for, from the most specific one, as done when getting the translated document.
+        List<Locale> locales = new ArrayList<>();
+        Locale locale = LocaleUtils.toLocale(xcontext.getWiki().getLanguagePreference(xcontext), Locale.ROOT);
+        while (locale != null && !locale.equals(Locale.ROOT)) {
+            locales.add(locale);
+            locale = LocaleUtils.getParentLocale(locale);
+        }
+
+        Map<String, List<DocumentRow>> rowsByWiki = rows.stream()
+            .collect(Collectors.groupingBy(row -> row.getDocumentReference().getWikiReference().getName()));
+        for (Map.Entry<String, List<DocumentRow>> entry : rowsByWiki.entrySet()) {
+            Map<String, DocumentRow> rowByName = new LinkedHashMap<>();
+            for (DocumentRow row : entry.getValue()) {
+                rowByName.put(this.localEntityReferenceSerializer.serialize(row.getDocumentReference()), row);
+            }
+
+            try {
+                Map<String, Map<String, String[]>> titlesByName =
+                    getTitles(entry.getKey(), rowByName.keySet(), locales);
+                for (Map.Entry<String, DocumentRow> rowEntry : rowByName.entrySet()) {
+                    DocumentRow row = rowEntry.getValue();
+                    row.setLabel(getLabel(row.getDocumentReference(), titlesByName.get(rowEntry.getKey()), locales,
+                        xcontext));
+                }
+            } catch (QueryException e) {
+                // Fall-back on loading the documents one by one.
+                this.logger.warn("Failed to get the titles of the documents from wiki [{}]. Root cause [{}].",
+                    entry.getKey(), ExceptionUtils.getRootCauseMessage(e));
+                for (DocumentRow row : entry.getValue()) {
+                    row.setLabel(renderTitle(row.getDocumentReference(), xcontext));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param wiki the wiki where the documents are
+     * @param names the local references of the documents
+     * @param locales the locales of the translations to look for
+     * @return the default language and the raw title of each document and of its translations in the given locales,
+     *         indexed by document name and by language (empty for the default document)
+     * @throws QueryException if the query fails
+     */
+    private Map<String, Map<String, String[]>> getTitles(String wiki, Collection<String> names, List<Locale> locales)
+        throws QueryException
+    {
+        Map<String, Map<String, String[]>> titlesByName = new HashMap<>();
+
+        List<String> languages = locales.stream().map(Locale::toString).collect(Collectors.toList());
+        String statement = "select doc.fullName, doc.language, doc.defaultLanguage, doc.title from XWikiDocument doc "
+            + "where doc.fullName in (:names) and "
+            + (languages.isEmpty() ? "doc.translation = 0" : "(doc.translation = 0 or doc.language in (:languages))");
+
+        List<String> nameList = new ArrayList<>(names);
+        for (int start = 0; start < nameList.size(); start += BATCH_SIZE) {
+            Query query = this.queryManager.createQuery(statement, Query.HQL);
+            query.setWiki(wiki);
+            query.bindValue("names", nameList.subList(start, Math.min(start + BATCH_SIZE, nameList.size())));
+            if (!languages.isEmpty()) {
+                query.bindValue("languages", languages);
+            }
+            for (Object[] result : query.<Object[]>execute()) {
+                titlesByName.computeIfAbsent((String) result[0], key -> new HashMap<>()).put(
+                    StringUtils.defaultString((String) result[1]),
+                    new String[] {(String) result[2], (String) result[3]});
+            }
+        }
+
+        return titlesByName;
+    }
+
+    private String getLabel(DocumentReference documentReference, Map<String, String[]> titles, List<Locale> locales,
+        XWikiContext xcontext)
+    {
+        String[] defaultTitle = titles != null ? titles.get("") : null;
+        if (defaultTitle == null) {
+            // The document doesn't exist (e.g. a space without home page).
+            return getStaticTitle(documentReference);
+        }
+
+        // Look for the title of the translation in the current locale, as done by getTranslatedDocument().
+        String rawTitle = defaultTitle[1];
+        Locale defaultLocale = LocaleUtils.toLocale(defaultTitle[0], Locale.ROOT);
+        for (Locale locale : locales) {
+            if (locale.equals(defaultLocale)) {
+                break;
+            }
+            String[] translationTitle = titles.get(locale.toString());
+            if (translationTitle != null) {
+                rawTitle = translationTitle[1];
+                break;
+            }
+        }
+
+        if (StringUtils.isEmpty(rawTitle)) {
+            // The title may have to be extracted from the document content.
+            return isTitleExtractedFromContent() ? renderTitle(documentReference, xcontext)
+                : getStaticTitle(documentReference);
+        } else if (StringUtils.containsAny(rawTitle, '#', '$')) {
+            // The title needs to be evaluated in the context of the document.
+            return renderTitle(documentReference, xcontext);
+        } else {
+            // A static title only has to be converted to plain text, which doesn't need the actual document.
+            XWikiDocument titleDocument = new XWikiDocument(documentReference);
+            titleDocument.setTitle(rawTitle);
+            return titleDocument.getRenderedTitle(Syntax.PLAIN_1_0, xcontext);
+        }
+    }
+
+    private String renderTitle(DocumentReference documentReference, XWikiContext xcontext)
+    {
+        try {
+            XWikiDocument document =
+                xcontext.getWiki().getDocument(documentReference, xcontext).getTranslatedDocument(xcontext);
+            if (document == xcontext.getDoc()) {
+                // Make sure the displayed title is not affected by the sheet request parameter, which targets the
+                // current document instance.
+                document = document.clone();
+            }
+            return document.getRenderedTitle(Syntax.PLAIN_1_0, xcontext);
+        } catch (XWikiException e) {
+            this.logger.warn("Failed to render the title of [{}]. Root cause [{}].", documentReference,
+                ExceptionUtils.getRootCauseMessage(e));
+            return null;
+        }
+    }
+
+    private String getStaticTitle(DocumentReference documentReference)
+    {
+        if (this.defaultEntityReferenceProvider.getDefaultReference(EntityType.DOCUMENT).getName()
+            .equals(documentReference.getName())) {
+            // Use the space name for the space home pages.
+            return documentReference.getParent().getName();
+        }
+        return documentReference.getName();
+    }
+
+    private boolean isTitleExtractedFromContent()
+    {
+        return "1".equals(this.xwikicfg.getProperty("xwiki.title.compatibility", "0"));
+    }
+}
@@ -20,8 +20,10 @@
 package org.xwiki.index.tree.internal.nestedpages;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +34,7 @@
 import javax.inject.Provider;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
@@ -69,6 +72,13 @@ public class DocumentTreeNode extends AbstractDocumentTreeNode implements Initia
 
     private static final String PARAMETER_EXCLUDED_DOCUMENTS = "excludedDocuments";
 
+    private static final String PARAMETER_SPACES = "spaces";
+
+    /**
+     * The maximum number of spaces to look for in a single query, some databases limit the size of the IN lists.
+     */
+    private static final int BATCH_SIZE = 500;
+
     @Inject
     @Named("count")
     protected QueryFilter countQueryFilter;
@@ -234,6 +244,106 @@ protected int getChildCount(DocumentReference documentReference) throws Exceptio
         return getPseudoChildCount(documentReference) + getChildDocumentsCount(documentReference);
     }
 
+    @Override
+    public Set<String> getNodesWithChildren(Collection<String> nodeIds)
+    {
+        Set<String> nodesWithChildren = new HashSet<>();
+
+        // The child pages of the nested pages that have no specific exclusions are looked for with a few queries per
+        // wiki, instead of two count queries per node.
+        Map<String, Map<String, String>> nodeIdBySpaceByWiki = new HashMap<>();
+        List<String> remainingNodeIds = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            EntityReference entityReference = resolve(nodeId);
+            if (entityReference != null && entityReference.getType() == EntityType.DOCUMENT) {
+                DocumentReference documentReference = new DocumentReference(entityReference);
+                if (getDefaultDocumentName().equals(documentReference.getName())
+                    && getExcludedSpaces(documentReference.getParent()).isEmpty()
+                    && getExcludedDocuments(documentReference.getParent()).isEmpty()) {
+                    nodeIdBySpaceByWiki
+                        .computeIfAbsent(documentReference.getWikiReference().getName(), key -> new HashMap<>())
+                        .put(this.localEntityReferenceSerializer.serialize(documentReference.getParent()), nodeId);
+                } else {
+                    remainingNodeIds.add(nodeId);
+                }
+            }
+        }
+
+        for (Map.Entry<String, Map<String, String>> entry : nodeIdBySpaceByWiki.entrySet()) {
+            Map<String, String> nodeIdBySpace = entry.getValue();
+            try {
+                Set<String> spacesWithChildPages = getSpacesWithChildPages(entry.getKey(), nodeIdBySpace.keySet());
+                for (Map.Entry<String, String> spaceEntry : nodeIdBySpace.entrySet()) {
+                    // The nodes without child pages can still have pseudo child nodes.
+                    if (spacesWithChildPages.contains(spaceEntry.getKey())
+                        || hasPseudoChildren(new DocumentReference(resolve(spaceEntry.getValue())))) {
+                        nodesWithChildren.add(spaceEntry.getValue());
+                    }
+                }
+            } catch (QueryException e) {
+                this.logger.warn("Failed to look for the child pages in wiki [{}]. Root cause [{}].", entry.getKey(),
+                    ExceptionUtils.getRootCauseMessage(e));
+                remainingNodeIds.addAll(nodeIdBySpace.values());
+            }
+        }
+
+        for (String nodeId : remainingNodeIds) {
+            if (getChildCount(nodeId) > 0) {
+                nodesWithChildren.add(nodeId);
+            }
+        }
+
+        return nodesWithChildren;
+    }
+
+    private Set<String> getSpacesWithChildPages(String wiki, Collection<String> spaces) throws QueryException
+    {
+        Set<String> spacesWithChildPages = new HashSet<>();
+
+        List<String> spaceList = new ArrayList<>(spaces);
+        for (int start = 0; start < spaceList.size(); start += BATCH_SIZE) {
+            List<String> batch = spaceList.subList(start, Math.min(start + BATCH_SIZE, spaceList.size()));
+
+            List<String> constraints = new ArrayList<>();
+            constraints.add("parent in (:spaces)");
+            if (!areHiddenEntitiesShown()) {
+                constraints.add("hidden <> true");
+            }
+            Query query = this.queryManager.createQuery(
+                "select distinct parent from XWikiSpace " + whereClause(constraints), Query.HQL);
+            query.setWiki(wiki);
+            query.bindValue(PARAMETER_SPACES, batch);
+            spacesWithChildPages.addAll(query.<String>execute());
+
+            if (areTerminalDocumentsShown()) {
+                // Exclude page translations and the space home pages.
+                query = this.queryManager.createQuery("select distinct doc.space from XWikiDocument doc "
+                    + "where doc.translation = 0 and doc.space in (:spaces) and doc.name <> :defaultDocName",
+                    Query.HQL);
+                query.setWiki(wiki);
+                query.bindValue(PARAMETER_SPACES, batch);
+                query.bindValue("defaultDocName", getDefaultDocumentName());
+                if (Boolean.TRUE.equals(getProperties().get("filterHiddenDocuments"))) {
+                    query.addFilter(this.hiddenDocumentQueryFilterProvider.get());
+                }
+                spacesWithChildPages.addAll(query.<String>execute());
+            }
+        }
+
+        return spacesWithChildPages;
+    }
+
+    private boolean hasPseudoChildren(DocumentReference documentReference)
+    {
+        for (Map.Entry<String, TreeNode> entry : this.nonLeafChildNodes.entrySet()) {
+            if (hasChild(entry.getKey(), entry.getValue(), documentReference)) {
+                return true;
+            }
+        }
+
+        return showAddDocument(documentReference);
+    }
+
     private int getPseudoChildCount(DocumentReference documentReference)
     {
         int count = 0;
@@ -0,0 +1,59 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal.script;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.index.tree.internal.DocumentRow;
+import org.xwiki.index.tree.internal.DocumentRowProvider;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.script.service.ScriptService;
+import org.xwiki.tree.Tree;
+
+/**
+ * Internal script service used by the document tree macro to display a page of document nodes efficiently.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component
+@Named("documentTree")
+@Singleton
+public class DocumentTreeInternalScriptService implements ScriptService
+{
+    @Inject
+    private DocumentRowProvider documentRowProvider;
+
+    /**
+     * @param tree the tree that returned the nodes
+     * @param nodeIds the ids of the sibling nodes to display
+     * @return the information needed to display the document nodes, retrieved for all the nodes at once
+     */
+    public Map<DocumentReference, DocumentRow> getDocumentRows(Tree tree, List<String> nodeIds)
+    {
+        return this.documentRowProvider.getRows(tree, nodeIds);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.DocumentModelBridge;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.display.internal.DocumentDisplayer;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceProvider;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.properties.converter.Converter;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.renderer.BlockRenderer;
+import org.xwiki.rendering.renderer.printer.WikiPrinter;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+import org.xwiki.tree.Tree;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.web.Utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DocumentRowProvider}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class DocumentRowProviderTest
+{
+    @InjectMockComponents
+    private DocumentRowProvider documentRowProvider;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @MockComponent
+    @Named("entityTreeNodeId")
+    private Converter<EntityReference> entityTreeNodeIdConverter;
+
+    @MockComponent
+    private EntityReferenceProvider defaultEntityReferenceProvider;
+
+    @MockComponent
+    @Named("xwikicfg")
+    private ConfigurationSource xwikicfg;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    @Named("configured")
+    private DocumentDisplayer documentDisplayer;
+
+    @MockComponent
+    @Named("plain/1.0")
+    private BlockRenderer plainRenderer;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    private XWiki xwiki = mock(XWiki.class);
+
+    private Tree tree = mock(Tree.class);
+
+    private Query query = mock(Query.class);
+
+    private List<Object[]> titles = new ArrayList<>();
+
+    private DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        // The static titles are converted to plain text through the components looked up by XWikiDocument.
+        Utils.setComponentManager(this.componentManager);
+        when(this.documentDisplayer.display(any(DocumentModelBridge.class), any())).then(invocation -> new XDOM(
+            Collections.singletonList(new WordBlock(invocation.<DocumentModelBridge>getArgument(0).getTitle()))));
+        doAnswer(invocation -> {
+            XDOM xdom = invocation.getArgument(0);
+            invocation.<WikiPrinter>getArgument(1).print(((WordBlock) xdom.getChildren().get(0)).getWord());
+            return null;
+        }).when(this.plainRenderer).render(any(Block.class), any(WikiPrinter.class));
+
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("showDocumentTitle", true);
+        when(this.tree.getProperties()).thenReturn(properties);
+        when(this.tree.getNodesWithChildren(any())).thenReturn(Collections.emptySet());
+
+        when(this.authorization.hasAccess(Right.VIEW, this.documentReference)).thenReturn(true);
+        when(this.defaultEntityReferenceProvider.getDefaultReference(EntityType.DOCUMENT))
+            .thenReturn(new EntityReference("WebHome", EntityType.DOCUMENT));
+        when(this.xwikicfg.getProperty("xwiki.title.compatibility", "0")).thenReturn("0");
+
+        when(this.queryManager.createQuery(anyString(), any())).thenReturn(this.query);
+        when(this.query.<Object[]>execute()).thenReturn(this.titles);
+    }
+
+    @Test
+    public void getRowsWithDefaultLocaleEqualToRequestedLocale() throws Exception
+    {
+        when(this.xwiki.getLanguagePreference(this.xcontext)).thenReturn("fr");
+        this.titles.add(new Object[] {"Space.Page", "", "fr", "Titre"});
+        // A translation in the default locale of the document is ignored, as done by getTranslatedDocument().
+        this.titles.add(new Object[] {"Space.Page", "fr", "fr", "Autre titre"});
+
+        assertEquals("Titre", getLabel(this.documentReference));
+
+        verify(this.query).setWiki("wiki");
+        verify(this.query).bindValue("names", Collections.singletonList("Space.Page"));
+        verify(this.query).bindValue("languages", Collections.singletonList("fr"));
+        verify(this.xwiki, never()).getDocument(any(DocumentReference.class), any(XWikiContext.class));
+    }
+
+    @Test
+    public void getRowsWithParentLocaleFallback() throws Exception
+    {
+        when(this.xwiki.getLanguagePreference(this.xcontext)).thenReturn("fr_CA");
+        this.titles.add(new Object[] {"Space.Page", "", "en", "Title"});
+        this.titles.add(new Object[] {"Space.Page", "fr", "en", "Titre"});
+
+        assertEquals("Titre", getLabel(this.documentReference));
+
+        verify(this.query).bindValue("languages", Arrays.asList("fr_CA", "fr"));
+        verify(this.xwiki, never()).getDocument(any(DocumentReference.class), any(XWikiContext.class));
+    }
+
+    @Test
+    public void getRowsWithMissingDocument() throws Exception
+    {
+        when(this.xwiki.getLanguagePreference(this.xcontext)).thenReturn("en");
+
+        DocumentReference spaceHomeReference = new DocumentReference("wiki", "Space", "WebHome");
+        when(this.authorization.hasAccess(Right.VIEW, spaceHomeReference)).thenReturn(true);
+
+        assertEquals("Page", getLabel(this.documentReference));
+        assertEquals("Space", getLabel(spaceHomeReference));
+
+        verify(this.xwiki, never()).getDocument(any(DocumentReference.class), any(XWikiContext.class));
+    }
+
+    @Test
+    public void getRowsWithVelocityTitle() throws Exception
+    {
+        when(this.xwiki.getLanguagePreference(this.xcontext)).thenReturn("en");
+        this.titles.add(new Object[] {"Space.Page", "", "en", "$services.localization.render('title')"});
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        XWikiDocument translatedDocument = mock(XWikiDocument.class);
+        when(this.xwiki.getDocument(this.documentReference, this.xcontext)).thenReturn(document);
+        when(document.getTranslatedDocument(this.xcontext)).thenReturn(translatedDocument);
+        when(translatedDocument.getRenderedTitle(Syntax.PLAIN_1_0, this.xcontext)).thenReturn("Evaluated title");
+
+        assertEquals("Evaluated title", getLabel(this.documentReference));
+
+        verify(this.documentDisplayer, never()).display(any(DocumentModelBridge.class), any());
+    }
+
+    private String getLabel(DocumentReference reference)
+    {
+        String localReference = reference.getLastSpaceReference().getName() + '.' + reference.getName();
+        String nodeId = "document:wiki:" + localReference;
+        when(this.entityTreeNodeIdConverter.convert(EntityReference.class, nodeId)).thenReturn(reference);
+        when(this.localEntityReferenceSerializer.serialize(reference)).thenReturn(localReference);
+
+        return this.documentRowProvider.getRows(this.tree, Collections.singletonList(nodeId)).get(reference)
+            .getLabel();
+    }
+}
@@ -358,6 +358,46 @@ public void getChildCount() throws Exception
         assertEquals(2L, this.documentTreeNode.getChildCount("document:wiki:Path.To.Page.WebHome"));
     }
 
+    @Test
+    public void getNodesWithChildren() throws Exception
+    {
+        DocumentReference otherReference =
+            new DocumentReference("wiki", Arrays.asList("Path", "To", "Other"), "WebHome");
+        when(this.entityTreeNodeIdConverter.convert(EntityReference.class, "document:wiki:Path.To.Other.WebHome"))
+            .thenReturn(otherReference);
+        when(this.entityTreeNodeIdConverter.convert(String.class, otherReference.getParent()))
+            .thenReturn("space:wiki:Path.To.Other");
+        when(this.defaultEntityReferenceSerializer.serialize(otherReference)).thenReturn("wiki:Path.To.Other.WebHome");
+        when(this.localEntityReferenceSerializer.serialize(otherReference.getParent())).thenReturn("Path.To.Other");
+
+        Query childSpacesQuery = mock(Query.class, "childSpaces");
+        when(this.queryManager.createQuery("select distinct parent from XWikiSpace where parent in (:spaces)",
+            Query.HQL)).thenReturn(childSpacesQuery);
+        when(childSpacesQuery.execute()).thenReturn(Collections.emptyList());
+
+        Query childTerminalPagesQuery = mock(Query.class, "childTerminalPages");
+        when(this.queryManager.createQuery("select distinct doc.space from XWikiDocument doc where doc.translation = 0 "
+            + "and doc.space in (:spaces) and doc.name <> :defaultDocName", Query.HQL))
+                .thenReturn(childTerminalPagesQuery);
+        when(childTerminalPagesQuery.execute()).thenReturn(Collections.singletonList("Path.To.Page"));
+
+        // The other page has no child pages but it has translations.
+        this.documentTreeNode.getProperties().put("showTranslations", true);
+        when(this.translationsTreeNode.getChildCount("translations:wiki:Path.To.Other.WebHome")).thenReturn(1);
+
+        assertEquals(
+            new HashSet<>(Arrays.asList("document:wiki:Path.To.Page.WebHome", "document:wiki:Path.To.Other.WebHome")),
+            this.documentTreeNode.getNodesWithChildren(Arrays.asList("document:wiki:Path.To.Page.WebHome",
+                "document:wiki:Path.To.Other.WebHome", "document:wiki:Some.Page")));
+
+        verify(childSpacesQuery).setWiki("wiki");
+        verify(childTerminalPagesQuery).setWiki("wiki");
+        verify(childTerminalPagesQuery).bindValue("defaultDocName", "WebHome");
+        // The pseudo child nodes are not needed when there are child pages.
+        verify(this.translationsTreeNode, never()).getChildCount("translations:wiki:Path.To.Page.WebHome");
+        verify(this.translationsTreeNode).getChildCount("translations:wiki:Some.Page");
+    }
+
     @Test
     public void getPseudoChildCount()
     {
@@ -19,6 +19,8 @@
  */
 package org.xwiki.lesscss.internal.cache;
 
+import java.util.concurrent.locks.Lock;
+
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
 import org.xwiki.lesscss.resources.LESSResourceReference;
 import org.xwiki.lesscss.internal.skin.SkinReference;
@@ -42,6 +44,18 @@
      */
     T get(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme);
 
+    /**
+     * Get the last object that has been stored for the given LESS source, skin and color theme, even if it has been
+     * cleared from the cache since then. It is used to serve the previous result while a new one is being computed.
+     *
+     * @param lessResourceReference reference of the code to compile
+     * @param skin reference of the skin
+     * @param colorTheme reference of the color theme
+     * @return the last stored object, or {@code null} if nothing has ever been stored for these parameters
+     * @since 12.6RC1
+     */
+    T getStale(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme);
+
     /**
      * Add an object in the cache.
      *
@@ -90,4 +104,16 @@ void set(LESSResourceReference lessResourceReference, SkinReference skin, ColorT
      * @since 6.4.1
      */
     Object getMutex(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme);
+
+    /**
+     * Get the lock protecting the computation of a cache entry. Only one thread should compute a given entry at the
+     * same time, but distinct entries can be computed in parallel.
+     *
+     * @param lessResourceReference a reference to a LESS resource
+     * @param skin a reference to a Skin
+     * @param colorTheme a reference to a color theme
+     * @return the lock related to the 3 parameters
+     * @since 12.6RC1
+     */
+    Lock getLock(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme);
 }
@@ -56,4 +56,35 @@ public boolean isGenerateInlineSourceMaps()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "generateInlineSourceMaps", false);
     }
+
+    /**
+     * @return whether the compiled LESS resources should also be stored on disk, so that they survive a restart. The
+     *         LESS files located in the skins of the file system are identified only by the version of XWiki, so it
+     *         should not be enabled when these files are modified in place.
+     * @since 12.6RC1
+     */
+    public boolean isDiskCacheEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "diskCache.enabled", false);
+    }
+
+    /**
+     * @return the directory where the compiled LESS resources are stored, or {@code null} to use the default
+     *         directory located in the permanent directory. Pointing all the cluster nodes to the same shared directory
+     *         allows them to share the compiled resources.
+     * @since 12.6RC1
+     */
+    public String getDiskCacheDirectory()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "diskCache.directory");
+    }
+
+    /**
+     * @return whether the main skin should be compiled in background for the color themes in use when XWiki starts
+     * @since 12.6RC1
+     */
+    public boolean isCacheWarmupEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "cacheWarmup.enabled", true);
+    }
 }
@@ -19,15 +19,21 @@
  */
 package org.xwiki.lesscss.internal.cache;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.inject.Inject;
 
 import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheFactory;
 import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.eviction.LRUEvictionConfiguration;
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
 import org.xwiki.lesscss.resources.LESSResourceReference;
 import org.xwiki.lesscss.internal.skin.SkinReference;
@@ -42,6 +48,17 @@
  */
 public abstract class AbstractCache<T> implements LESSCache<T>
 {
+    /**
+     * The maximum number of entries kept after being cleared from the cache.
+     */
+    private static final int STALE_CACHE_SIZE = 100;
+
+    /**
+     * The time (in seconds) after which an entry cleared from the cache is forgotten, even if it has not been computed
+     * again.
+     */
+    private static final int STALE_CACHE_LIFESPAN = 3600;
+
     @Inject
     protected CacheManager cacheManager;
 
@@ -59,24 +76,31 @@
      * This map stores the list of the cached files keys corresponding to a skin, in order to clear the corresponding
      * cache when a skin is saved.
      */
-    private Map<Object, List<String>> cachedFilesKeysMapPerSkin = new HashMap<>();
+    private Map<Object, Set<String>> cachedFilesKeysMapPerSkin = new ConcurrentHashMap<>();
 
     /**
      * This map stores the list of the cached files keys corresponding to a color theme, in order to clear the
      * corresponding cache when a color theme is saved.
      */
-    private Map<Object, List<String>> cachedFilesKeysMapPerColorTheme = new HashMap<>();
+    private Map<Object, Set<String>> cachedFilesKeysMapPerColorTheme = new ConcurrentHashMap<>();
 
     /**
      * This map stores the list of the cached files keys corresponding to a LESS resource, in order to clear the
      * corresponding cache when a LESS resource is saved.
      */
-    private Map<Object, List<String>> cachedFilesKeysMapPerLESSResource = new HashMap<>();
+    private Map<Object, Set<String>> cachedFilesKeysMapPerLESSResource = new ConcurrentHashMap<>();
+
+    /**
+     * The entries that have been cleared from the cache, kept so that they can still be served while the new value is
+     * being computed. An entry is removed as soon as a new value is set for the same key, when it expires or when
+     * there are too many of them.
+     */
+    private Cache<T> staleCache;
 
     @Inject
     private CacheKeyFactory cacheKeyFactory;
 
-    private Map<String, String> mutexList = new HashMap<>();
+    private Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
 
     @Override
     public T get(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme)
@@ -84,6 +108,17 @@ public T get(LESSResourceReference lessResourceReference, SkinReference skin, Co
         return cache.get(cacheKeyFactory.getCacheKey(lessResourceReference, skin, colorTheme, isContextHandled));
     }
 
+    @Override
+    public T getStale(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme)
+    {
+        String cacheKey = cacheKeyFactory.getCacheKey(lessResourceReference, skin, colorTheme, isContextHandled);
+        T result = cache.get(cacheKey);
+        if (result == null) {
+            result = staleCache.get(cacheKey);
+        }
+        return result;
+    }
+
     @Override
     public void set(LESSResourceReference lessResourceReference, SkinReference skin,
         ColorThemeReference colorTheme, T content)
@@ -91,6 +126,7 @@ public void set(LESSResourceReference lessResourceReference, SkinReference skin,
         // Store the content in the cache
         String cacheKey = cacheKeyFactory.getCacheKey(lessResourceReference, skin, colorTheme, isContextHandled);
         cache.set(cacheKey, content);
+        staleCache.remove(cacheKey);
 
         // Add the new key to maps
         registerCacheKey(cachedFilesKeysMapPerSkin, cacheKey, skin);
@@ -98,6 +134,23 @@ public void set(LESSResourceReference lessResourceReference, SkinReference skin,
         registerCacheKey(cachedFilesKeysMapPerLESSResource, cacheKey, lessResourceReference);
     }
 
+    /**
+     * Create the cache holding the entries cleared from the cache, until they are computed again.
+     *
+     * @param cacheFactory the factory used to create the cache
+     * @param cacheId the id of the cache holding the current entries
+     * @throws CacheException when failing to create the cache
+     */
+    protected void initializeStaleCache(CacheFactory cacheFactory, String cacheId) throws CacheException
+    {
+        CacheConfiguration configuration = new CacheConfiguration(cacheId + ".stale");
+        LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
+        lru.setMaxEntries(STALE_CACHE_SIZE);
+        lru.setLifespan(STALE_CACHE_LIFESPAN);
+        configuration.put(LRUEvictionConfiguration.CONFIGURATIONID, lru);
+        this.staleCache = cacheFactory.newCache(configuration);
+    }
+
     /**
      * Add the cache key in the specified map (cachedFilesKeysMapPerSkin or cachedFilesKeysMapPerColorTheme), to be
      * able to clear the cache when one skin or one color theme is modified.
@@ -106,41 +159,48 @@ public void set(LESSResourceReference lessResourceReference, SkinReference skin,
      * @param cacheKey the cache key to register
      * @param reference name of the skin or of the color theme
      */
-    private void registerCacheKey(Map<Object, List<String>> cachedFilesKeysMap, String cacheKey, Object reference)
+    private void registerCacheKey(Map<Object, Set<String>> cachedFilesKeysMap, String cacheKey, Object reference)
     {
-        List<String> cachedFilesKeys = cachedFilesKeysMap.get(reference);
-        if (cachedFilesKeys == null) {
-            // if the list of cached files keys corresponding to the skin/colortheme name does not exist, we create it
-            cachedFilesKeys = new ArrayList<>();
-            cachedFilesKeysMap.put(reference, cachedFilesKeys);
-        }
-        if (!cachedFilesKeys.contains(cacheKey)) {
-            cachedFilesKeys.add(cacheKey);
-        }
+        // if the list of cached files keys corresponding to the skin/colortheme name does not exist, we create it
+        cachedFilesKeysMap.computeIfAbsent(reference, k -> ConcurrentHashMap.newKeySet()).add(cacheKey);
     }
 
     @Override
     public void clear()
     {
+        // Keep the current values so that they can be served while the new ones are computed
+        for (Set<String> cachedFilesKeys : cachedFilesKeysMapPerSkin.values()) {
+            markAsStale(cachedFilesKeys);
+        }
         cache.removeAll();
         cachedFilesKeysMapPerSkin.clear();
         cachedFilesKeysMapPerColorTheme.clear();
         cachedFilesKeysMapPerLESSResource.clear();
     }
 
-    private void clearFromCriteria(Map<Object, List<String>> cachedFilesKeysMap, Object criteria)
+    private void markAsStale(Collection<String> cachedFilesKeys)
+    {
+        for (String cachedFileKey : cachedFilesKeys) {
+            T value = cache.get(cachedFileKey);
+            if (value != null) {
+                staleCache.set(cachedFileKey, value);
+            }
+        }
+    }
+
+    private void clearFromCriteria(Map<Object, Set<String>> cachedFilesKeysMap, Object criteria)
     {
-        // Get the list of cached files keys corresponding to the criteria
-        List<String> cachedFilesKeys = cachedFilesKeysMap.get(criteria);
+        // Get (and remove) the list of cached files keys corresponding to the criteria
+        Set<String> cachedFilesKeys = cachedFilesKeysMap.remove(criteria);
         if (cachedFilesKeys == null) {
             return;
         }
+        // Keep the current values so that they can be served while the new ones are computed
+        markAsStale(cachedFilesKeys);
         // Remove all the cached files corresponding to the cached keys
         for (String cachedFileKey : cachedFilesKeys) {
             cache.remove(cachedFileKey);
         }
-        // Remove the list of cached keys corresponding to the criteria
-        cachedFilesKeysMap.remove(criteria);
     }
 
     @Override
@@ -160,19 +220,19 @@ public void clearFromLESSResource(LESSResourceReference lessResourceReference)
     {
         clearFromCriteria(cachedFilesKeysMapPerLESSResource, lessResourceReference);
     }
-    
+
     @Override
-    public synchronized Object getMutex(LESSResourceReference lessResourceReference, SkinReference skin, 
+    public Object getMutex(LESSResourceReference lessResourceReference, SkinReference skin,
+        ColorThemeReference colorTheme)
+    {
+        return getLock(lessResourceReference, skin, colorTheme);
+    }
+
+    @Override
+    public Lock getLock(LESSResourceReference lessResourceReference, SkinReference skin,
         ColorThemeReference colorTheme)
     {
-        // The mutex is a string (actually the cache key) to help debugging.
         String cacheKey = cacheKeyFactory.getCacheKey(lessResourceReference, skin, colorTheme, isContextHandled);
-        String mutex = mutexList.get(cacheKey);
-        if (mutex == null) {
-            // the mutex is the key, so no extra memory is needed
-            mutex = cacheKey;
-            mutexList.put(cacheKey, mutex);
-        }
-        return mutex;
+        return locks.computeIfAbsent(cacheKey, k -> new ReentrantLock());
     }
 }
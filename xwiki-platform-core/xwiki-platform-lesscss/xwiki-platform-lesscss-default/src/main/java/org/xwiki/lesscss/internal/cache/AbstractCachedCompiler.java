@@ -19,6 +19,8 @@
  */
 package org.xwiki.lesscss.internal.cache;
 
+import java.util.concurrent.locks.Lock;
+
 import javax.inject.Inject;
 import javax.inject.Provider;
 
@@ -110,31 +112,55 @@ public T getResult(LESSResourceReference lessResourceReference, boolean includeS
         ColorThemeReference colorThemeReference = colorThemeReferenceFactory.createReference(
                 currentColorThemeGetter.getCurrentColorTheme(true, "default"));
 
-        // Only one computation is allowed in the same time per color theme, then the waiting threads will be able to
-        // use the last result stored in the cache.
-        Object mutex = cache.getMutex(lessResourceReference, skinReference, colorThemeReference);
-        synchronized (mutex) {
+        // Check if the result is in the cache
+        if (!force) {
+            result = getCachedResult(lessResourceReference, includeSkinStyle, useVelocity, skin, skinReference,
+                colorThemeReference);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        // Only one computation is allowed in the same time per cache entry, then the waiting threads will be able to
+        // use the last result stored in the cache. Distinct entries (e.g. distinct skin and color theme pairs) can be
+        // computed in parallel.
+        Lock lock = cache.getLock(lessResourceReference, skinReference, colorThemeReference);
+        if (!lock.tryLock()) {
+            // Someone else is already computing this entry: serve the previous result (if any) instead of blocking
+            // the request until the new one is ready. It's not done for the HTML export since it needs the Velocity
+            // execution to know which resources to export.
+            if (!force && !lessContext.isHtmlExport()) {
+                result = cache.getStale(lessResourceReference, skinReference, colorThemeReference);
+                if (result != null) {
+                    return cloneResult(result);
+                }
+            }
+            lock.lock();
+        }
 
-            // Check if the result is in the cache
+        try {
+            // The result might have been computed by another thread while we were waiting for the lock
             if (!force) {
-                result = cache.get(lessResourceReference, skinReference, colorThemeReference);
+                result = getCachedResult(lessResourceReference, includeSkinStyle, useVelocity, skin, skinReference,
+                    colorThemeReference);
                 if (result != null) {
-                    // The LESS file contains Velocity code that call resources (ie: $xwiki.getSkinFile), and the HTML
-                    // exporter listens these calls to know which resources must be exported.
-                    // If we only use the cache, we would have a correct CSS file but some resources will be missing.
-                    // So we need to execute the velocity again, even if the LESS file is cached.
-                    // To perform this quickly, we do not recompile the LESS code (which would be useless anyway), but
-                    // we only do the Velocity Execution step.
-                    if (lessContext.isHtmlExport() && useVelocity && this instanceof DefaultLESSCompiler) {
-                        compiler.compute(lessResourceReference, includeSkinStyle, true, false, skin);
-                    }
+                    return result;
+                }
+            }
+
+            // The result might have been persisted by a previous execution (or by another cluster node)
+            if (!force) {
+                result = getPersistedResult(lessResourceReference, skinReference, colorThemeReference);
+                if (result != null) {
+                    cache.set(lessResourceReference, skinReference, colorThemeReference, result);
                     return cloneResult(result);
                 }
             }
 
-            // Either the result was in the cache or the force flag is set to true, we need to compile
+            // Either the result was not in the cache or the force flag is set to true, we need to compile
             try {
                 result = compiler.compute(lessResourceReference, includeSkinStyle, useVelocity, true, skin);
+                persistResult(lessResourceReference, skinReference, colorThemeReference, result);
             } catch (LESSCompilerException e) {
                 logger.error("Error during the compilation of the resource [{}].", lessResourceReference, e);
                 // We must cache the result, even if the compilation have failed, to prevent re-compiling again and
@@ -144,11 +170,63 @@ public T getResult(LESSResourceReference lessResourceReference, boolean includeS
                 // Put the result in the cache
                 cache.set(lessResourceReference, skinReference, colorThemeReference, result);
             }
+        } finally {
+            lock.unlock();
         }
 
         return cloneResult(result);
     }
 
+    private T getCachedResult(LESSResourceReference lessResourceReference, boolean includeSkinStyle,
+        boolean useVelocity, String skin, SkinReference skinReference, ColorThemeReference colorThemeReference)
+        throws LESSCompilerException
+    {
+        T result = cache.get(lessResourceReference, skinReference, colorThemeReference);
+        if (result != null) {
+            // The LESS file contains Velocity code that call resources (ie: $xwiki.getSkinFile), and the HTML
+            // exporter listens these calls to know which resources must be exported.
+            // If we only use the cache, we would have a correct CSS file but some resources will be missing.
+            // So we need to execute the velocity again, even if the LESS file is cached.
+            // To perform this quickly, we do not recompile the LESS code (which would be useless anyway), but
+            // we only do the Velocity Execution step.
+            if (lessContext.isHtmlExport() && useVelocity && this instanceof DefaultLESSCompiler) {
+                compiler.compute(lessResourceReference, includeSkinStyle, true, false, skin);
+            }
+            return cloneResult(result);
+        }
+        return null;
+    }
+
+    /**
+     * Get a result stored in a persistent storage, used when the result is not in the cache. Does nothing by default.
+     *
+     * @param lessResourceReference reference to the LESS content
+     * @param skinReference reference to the skin
+     * @param colorThemeReference reference to the color theme
+     * @return the persisted result or {@code null} if there is none
+     * @since 12.6RC1
+     */
+    protected T getPersistedResult(LESSResourceReference lessResourceReference, SkinReference skinReference,
+        ColorThemeReference colorThemeReference)
+    {
+        return null;
+    }
+
+    /**
+     * Store a successfully computed result in a persistent storage. Does nothing by default.
+     *
+     * @param lessResourceReference reference to the LESS content
+     * @param skinReference reference to the skin
+     * @param colorThemeReference reference to the color theme
+     * @param result the computed result
+     * @since 12.6RC1
+     */
+    protected void persistResult(LESSResourceReference lessResourceReference, SkinReference skinReference,
+        ColorThemeReference colorThemeReference, T result)
+    {
+        // Nothing is persisted by default
+    }
+
     /**
      * Returns a clone of the result to avoid returning the instance stored in the cache. Need to be implemented by
      * subclasses.
@@ -53,6 +53,7 @@ public void initialize() throws InitializationException
             CacheConfiguration configuration = new CacheConfiguration(LESS_COLOR_THEMES_CACHE_ID);
             CacheFactory cacheFactory = cacheManager.getCacheFactory();
             super.cache = cacheFactory.newCache(configuration);
+            initializeStaleCache(cacheFactory, LESS_COLOR_THEMES_CACHE_ID);
             
             // The Color Theme only depends on colors which do not depend on the XWikiContext. So we don't handle the
             // XWikiContext in this cache.
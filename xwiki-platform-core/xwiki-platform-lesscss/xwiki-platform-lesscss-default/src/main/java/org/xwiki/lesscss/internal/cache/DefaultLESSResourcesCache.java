@@ -56,6 +56,7 @@ public void initialize() throws InitializationException
             CacheConfiguration configuration = new CacheConfiguration(LESS_FILES_CACHE_ID);
             CacheFactory cacheFactory = cacheManager.getCacheFactory();
             this.cache = cacheFactory.newCache(configuration);
+            initializeStaleCache(cacheFactory, LESS_FILES_CACHE_ID);
         } catch (ComponentLookupException | CacheException e) {
             throw new InitializationException(
                     String.format("Failed to initialize LESS skin files cache [%s].", LESS_FILES_CACHE_ID), e);
@@ -0,0 +1,264 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.environment.Environment;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.LESSContext;
+import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
+import org.xwiki.lesscss.internal.colortheme.DocumentColorThemeReference;
+import org.xwiki.lesscss.internal.resources.LESSObjectPropertyResourceReference;
+import org.xwiki.lesscss.internal.skin.DocumentSkinReference;
+import org.xwiki.lesscss.internal.skin.SkinReference;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.model.reference.ObjectPropertyReference;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+/**
+ * Persistent tier of the compiled LESS resources cache. The results are stored on the file system so that they survive
+ * a restart and can be shared by the nodes of a cluster (when the configured directory is shared).
+ * <p>
+ * Since the entries are never invalidated explicitly, the versions of all the documents involved in the compilation
+ * (skin and the skins it inherits from, color theme, XObject holding the LESS code) are part of the key, as well as the
+ * version of XWiki (for the resources located on the file system, which means that a modification of these files is
+ * not detected until XWiki is upgraded). When an entry is stored, the entries it supersedes
+ * (same resource, skin and color theme but older versions) are removed.
+ *
+ * @since 12.6RC1
+ * @version $Id$
+ */
+@Component(roles = LESSDiskCache.class)
+@Singleton
+public class LESSDiskCache implements Initializable
+{
+    private static final String FILE_EXTENSION = ".css";
+
+    private static final LocalDocumentReference SKIN_CLASS = new LocalDocumentReference("XWiki", "XWikiSkins");
+
+    private static final String BASE_SKIN_PROPERTY = "baseskin";
+
+    @Inject
+    private LESSConfiguration lessConfiguration;
+
+    @Inject
+    private LESSContext lessContext;
+
+    @Inject
+    private CacheKeyFactory cacheKeyFactory;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    private Logger logger;
+
+    private File directory;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        String configuredDirectory = lessConfiguration.getDiskCacheDirectory();
+        if (StringUtils.isNotEmpty(configuredDirectory)) {
+            this.directory = new File(configuredDirectory);
+        } else {
+            this.directory = new File(environment.getPermanentDirectory(), "cache/lesscss");
+        }
+    }
+
+    /**
+     * @return whether the disk cache can be used in the current context
+     */
+    public boolean isEnabled()
+    {
+        // The HTML export needs the Velocity execution to know which resources to export
+        return lessConfiguration.isDiskCacheEnabled() && !lessContext.isHtmlExport();
+    }
+
+    /**
+     * Get a compiled resource from the disk.
+     *
+     * @param lessResourceReference reference of the compiled code
+     * @param skin reference of the skin
+     * @param colorTheme reference of the color theme
+     * @return the stored CSS or {@code null} if there is none for the current version of the involved documents
+     */
+    public String get(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme)
+    {
+        File file = getFile(lessResourceReference, skin, colorTheme);
+        if (file != null && file.isFile()) {
+            try {
+                return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warn("Failed to read the compiled LESS resource [{}] from [{}]: {}", lessResourceReference,
+                    file, e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Store a compiled resource on the disk.
+     *
+     * @param lessResourceReference reference of the compiled code
+     * @param skin reference of the skin
+     * @param colorTheme reference of the color theme
+     * @param content the compiled CSS
+     */
+    public void set(LESSResourceReference lessResourceReference, SkinReference skin, ColorThemeReference colorTheme,
+        String content)
+    {
+        File file = getFile(lessResourceReference, skin, colorTheme);
+        if (file == null) {
+            return;
+        }
+
+        try {
+            // Write in a temporary file first and move it, so that the other threads (or cluster nodes) never read a
+            // partially written file
+            FileUtils.forceMkdir(this.directory);
+            File temporaryFile = File.createTempFile(file.getName(), ".tmp", this.directory);
+            try {
+                FileUtils.writeStringToFile(temporaryFile, content, StandardCharsets.UTF_8);
+                Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+
+            removeSupersededFiles(file);
+        } catch (IOException e) {
+            logger.warn("Failed to store the compiled LESS resource [{}] in [{}]: {}", lessResourceReference, file,
+                e.getMessage());
+        }
+    }
+
+    private File getFile(LESSResourceReference lessResourceReference, SkinReference skin,
+        ColorThemeReference colorTheme)
+    {
+        XWikiContext xcontext = xcontextProvider.get();
+        if (xcontext == null || xcontext.getWiki() == null) {
+            return null;
+        }
+
+        try {
+            XWiki xwiki = xcontext.getWiki();
+
+            String cacheKey = cacheKeyFactory.getCacheKey(lessResourceReference, skin, colorTheme, true);
+
+            StringBuilder key = new StringBuilder();
+            key.append(xwiki.getVersion());
+            if (skin instanceof DocumentSkinReference) {
+                appendSkinVersions(key, ((DocumentSkinReference) skin).getSkinDocument(), xcontext);
+            }
+            if (colorTheme instanceof DocumentColorThemeReference) {
+                appendVersion(key, ((DocumentColorThemeReference) colorTheme).getColorThemeDocument(), xcontext);
+            }
+            if (lessResourceReference instanceof LESSObjectPropertyResourceReference) {
+                ObjectPropertyReference propertyReference =
+                    ((LESSObjectPropertyResourceReference) lessResourceReference).getObjectPropertyReference();
+                appendVersion(key, propertyReference.extractReference(EntityType.DOCUMENT), xcontext);
+            }
+
+            // The name of the file starts with the cache key so that the superseded files can be found
+            return new File(this.directory,
+                DigestUtils.sha256Hex(cacheKey) + '-' + DigestUtils.sha256Hex(key.toString()) + FILE_EXTENSION);
+        } catch (XWikiException e) {
+            logger.warn("Failed to compute the disk cache key of the LESS resource [{}]: {}", lessResourceReference,
+                e.getMessage());
+            return null;
+        }
+    }
+
+    private void appendVersion(StringBuilder key, EntityReference documentReference, XWikiContext xcontext)
+        throws XWikiException
+    {
+        key.append('_').append(xcontext.getWiki().getDocument(documentReference, xcontext).getVersion());
+    }
+
+    /**
+     * Append the versions of the skin document and of the skin documents it inherits from, since the LESS files can be
+     * overridden at any level of the skin inheritance.
+     */
+    private void appendSkinVersions(StringBuilder key, DocumentReference skinDocumentReference, XWikiContext xcontext)
+        throws XWikiException
+    {
+        Set<DocumentReference> visitedSkins = new HashSet<>();
+        DocumentReference currentSkin = skinDocumentReference;
+        while (currentSkin != null && visitedSkins.add(currentSkin)) {
+            XWikiDocument skinDocument = xcontext.getWiki().getDocument(currentSkin, xcontext);
+            key.append('_').append(skinDocument.getVersion());
+
+            // A skin which is not a document (e.g. on the file system) is covered by the version of XWiki
+            BaseObject skinObject = skinDocument.isNew() ? null : skinDocument.getXObject(SKIN_CLASS);
+            String baseSkin = skinObject != null ? skinObject.getStringValue(BASE_SKIN_PROPERTY) : null;
+            currentSkin = StringUtils.isNotBlank(baseSkin)
+                ? this.documentReferenceResolver.resolve(baseSkin, currentSkin.getWikiReference()) : null;
+        }
+    }
+
+    private void removeSupersededFiles(File file)
+    {
+        String prefix = StringUtils.substringBefore(file.getName(), "-") + '-';
+        File[] supersededFiles = this.directory.listFiles(
+            other -> other.getName().startsWith(prefix) && other.getName().endsWith(FILE_EXTENSION)
+                && !other.equals(file));
+        if (supersededFiles != null) {
+            for (File supersededFile : supersededFiles) {
+                FileUtils.deleteQuietly(supersededFile);
+            }
+        }
+    }
+}
@@ -32,6 +32,9 @@
 import org.xwiki.lesscss.compiler.LESSCompiler;
 import org.xwiki.lesscss.compiler.LESSCompilerException;
 import org.xwiki.lesscss.internal.cache.AbstractCachedCompiler;
+import org.xwiki.lesscss.internal.cache.LESSDiskCache;
+import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
+import org.xwiki.lesscss.internal.skin.SkinReference;
 import org.xwiki.lesscss.resources.LESSResourceReference;
 
 /**
@@ -52,6 +55,9 @@ public class DefaultLESSCompiler extends AbstractCachedCompiler<String> implemen
     @Inject
     private CachedLESSCompiler cachedLESSCompiler;
 
+    @Inject
+    private LESSDiskCache diskCache;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -73,6 +79,25 @@ public String compile(LESSResourceReference lessResourceReference, boolean inclu
         return super.getResult(lessResourceReference, includeSkinStyle, useVelocity, skin, force);
     }
 
+    @Override
+    protected String getPersistedResult(LESSResourceReference lessResourceReference, SkinReference skinReference,
+        ColorThemeReference colorThemeReference)
+    {
+        if (diskCache.isEnabled()) {
+            return diskCache.get(lessResourceReference, skinReference, colorThemeReference);
+        }
+        return null;
+    }
+
+    @Override
+    protected void persistResult(LESSResourceReference lessResourceReference, SkinReference skinReference,
+        ColorThemeReference colorThemeReference, String result)
+    {
+        if (diskCache.isEnabled()) {
+            diskCache.set(lessResourceReference, skinReference, colorThemeReference, result);
+        }
+    }
+
     @Override
     protected String cloneResult(String toClone)
     {
@@ -0,0 +1,204 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.listeners;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.bridge.event.ApplicationReadyEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.lesscss.compiler.LESSCompiler;
+import org.xwiki.lesscss.compiler.LESSCompilerException;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.compiler.CachedLESSCompiler;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.lesscss.resources.LESSResourceReferenceFactory;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.util.AbstractXWikiRunnable;
+import com.xpn.xwiki.web.XWikiRequest;
+import com.xpn.xwiki.web.XWikiServletRequest;
+import com.xpn.xwiki.web.XWikiServletRequestStub;
+
+/**
+ * Compile the main style of the skin of each wiki for all the color themes used in this wiki, in background, when XWiki
+ * is started. Combined with the disk cache, it avoids user requests to trigger a full compilation of the skin.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component
+@Named(LESSCacheWarmupListener.NAME)
+@Singleton
+public class LESSCacheWarmupListener implements EventListener
+{
+    /**
+     * The name of the event listener.
+     */
+    static final String NAME = "lessCacheWarmup";
+
+    private static final String COLOR_THEME_FIELD = "colorTheme";
+
+    private static final String COLOR_THEMES_QUERY = "select distinct prop.value from BaseObject obj, "
+        + "StringProperty prop where obj.className = 'XWiki.XWikiPreferences' and prop.id.id = obj.id "
+        + "and prop.id.name = 'colorTheme' and prop.value <> ''";
+
+    @Inject
+    private LESSConfiguration lessConfiguration;
+
+    @Inject
+    private Provider<LESSCompiler> lessCompilerProvider;
+
+    @Inject
+    private Provider<LESSResourceReferenceFactory> lessResourceReferenceFactoryProvider;
+
+    @Inject
+    private Provider<QueryManager> queryManagerProvider;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return Arrays.asList(new ApplicationReadyEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (!lessConfiguration.isCacheWarmupEnabled()) {
+            return;
+        }
+
+        Thread thread = new Thread(new AbstractXWikiRunnable()
+        {
+            @Override
+            protected void runInternal()
+            {
+                warmup();
+            }
+        }, "LESS cache warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void warmup()
+    {
+        XWikiContext xcontext = xcontextProvider.get();
+        if (xcontext == null || xcontext.getRequest() == null) {
+            logger.debug("No context available to warm up the LESS cache.");
+            return;
+        }
+
+        Collection<String> wikis;
+        try {
+            wikis = wikiDescriptorManagerProvider.get().getAllIds();
+        } catch (WikiManagerException e) {
+            logger.warn("Failed to get the wikis for which to warm up the LESS cache: {}",
+                ExceptionUtils.getRootCauseMessage(e));
+            return;
+        }
+
+        String currentWiki = xcontext.getWikiId();
+        XWikiRequest initialRequest = xcontext.getRequest();
+        try {
+            for (String wiki : wikis) {
+                xcontext.setWikiId(wiki);
+                warmup(xcontext, initialRequest);
+            }
+        } finally {
+            xcontext.setWikiId(currentWiki);
+            xcontext.setRequest(initialRequest);
+        }
+    }
+
+    private void warmup(XWikiContext xcontext, XWikiRequest initialRequest)
+    {
+        XWiki xwiki = xcontext.getWiki();
+        String skin = xwiki.getSkin(xcontext);
+        LESSResourceReference mainStyle = lessResourceReferenceFactoryProvider.get()
+            .createReferenceForSkinFile(CachedLESSCompiler.MAIN_SKIN_STYLE_FILENAME);
+
+        for (String colorTheme : getColorThemesInUse(xcontext.getWikiId())) {
+            // The current color theme is taken from the request
+            XWikiServletRequestStub request = new XWikiServletRequestStub(initialRequest);
+            request.put(COLOR_THEME_FIELD, colorTheme);
+            xcontext.setRequest(new XWikiServletRequest(request));
+
+            try {
+                lessCompilerProvider.get().compile(mainStyle, false, true, skin, false);
+            } catch (LESSCompilerException e) {
+                logger.warn("Failed to warm up the LESS cache for skin [{}] and color theme [{}] in wiki [{}]: {}",
+                    skin, colorTheme, xcontext.getWikiId(), ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+
+    private Set<String> getColorThemesInUse(String wiki)
+    {
+        Set<String> colorThemes = new LinkedHashSet<>();
+
+        // The empty value stands for the default color theme
+        colorThemes.add("");
+
+        try {
+            List<String> results =
+                queryManagerProvider.get().createQuery(COLOR_THEMES_QUERY, Query.HQL).setWiki(wiki).execute();
+            colorThemes.addAll(results);
+        } catch (QueryException e) {
+            logger.warn("Failed to get the color themes in use in wiki [{}]: {}", wiki,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return colorThemes;
+    }
+}
@@ -32,6 +32,7 @@
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -55,6 +56,8 @@
 
     private Cache<String> cache;
 
+    private Cache<String> staleCache;
+
     private CacheKeyFactory cacheKeyFactory;
 
     @Before
@@ -66,6 +69,10 @@ public void setUp() throws Exception
         when(cacheManager.getCacheFactory()).thenReturn(cacheFactory);
         CacheConfiguration configuration = new CacheConfiguration("lesscss.skinfiles.cache");
         when(cacheFactory.<String>newCache(eq(configuration))).thenReturn(cache);
+        staleCache = mock(Cache.class);
+        when(cacheFactory.<String>newCache(argThat(
+            staleConfiguration -> "lesscss.skinfiles.cache.stale".equals(staleConfiguration.getConfigurationId()))))
+                .thenReturn(staleCache);
         cacheKeyFactory = mocker.getInstance(CacheKeyFactory.class);
 
         LESSSkinFileResourceReference lessSkinFileResourceReference = 
@@ -218,4 +225,32 @@ public void clearFromLESSResource() throws Exception
         verify(cache, never()).remove("k3");
     }
 
+    @Test
+    public void getStaleAfterClearFromSkin() throws Exception
+    {
+        // Mocks
+        LESSSkinFileResourceReference file1 = createLESSSkinFileResourceReference("file1");
+        when(cacheKeyFactory.getCacheKey(eq(file1), eq(new FSSkinReference("skin1")),
+                eq(new NamedColorThemeReference("colorTheme")), eq(true))).thenReturn("k1");
+        when(cache.get("k1")).thenReturn("css1");
+
+        mocker.getComponentUnderTest().set(file1, new FSSkinReference("skin1"),
+                new NamedColorThemeReference("colorTheme"), "css1");
+
+        // Test
+        mocker.getComponentUnderTest().clearFromSkin(new FSSkinReference("skin1"));
+        when(cache.get("k1")).thenReturn(null);
+
+        // Verify
+        verify(cache).remove("k1");
+        verify(staleCache).set("k1", "css1");
+        when(staleCache.get("k1")).thenReturn("css1");
+        assertEquals("css1", mocker.getComponentUnderTest().getStale(file1, new FSSkinReference("skin1"),
+                new NamedColorThemeReference("colorTheme")));
+
+        // The stale entry is forgotten as soon as a new value is set
+        mocker.getComponentUnderTest().set(file1, new FSSkinReference("skin1"),
+                new NamedColorThemeReference("colorTheme"), "css2");
+        verify(staleCache, times(2)).remove("k1");
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.io.File;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.LESSContext;
+import org.xwiki.lesscss.internal.colortheme.DocumentColorThemeReference;
+import org.xwiki.lesscss.internal.colortheme.NamedColorThemeReference;
+import org.xwiki.lesscss.internal.resources.LESSSkinFileResourceReference;
+import org.xwiki.lesscss.internal.skin.DocumentSkinReference;
+import org.xwiki.lesscss.internal.skin.FSSkinReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link LESSDiskCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class LESSDiskCacheTest
+{
+    @InjectMockComponents
+    private LESSDiskCache diskCache;
+
+    @MockComponent
+    private LESSConfiguration lessConfiguration;
+
+    @MockComponent
+    private LESSContext lessContext;
+
+    @MockComponent
+    private CacheKeyFactory cacheKeyFactory;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    private XWikiContext xcontext;
+
+    private XWiki xwiki;
+
+    private XWikiDocument colorThemeDocument;
+
+    private LESSSkinFileResourceReference lessResourceReference =
+        new LESSSkinFileResourceReference("style.less.vm", null, null);
+
+    private FSSkinReference skinReference = new FSSkinReference("flamingo");
+
+    private DocumentReference colorThemeDocumentReference = new DocumentReference("wiki", "FlamingoThemes", "Iceberg");
+
+    private DocumentColorThemeReference colorThemeReference =
+        new DocumentColorThemeReference(colorThemeDocumentReference, null);
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        when(environment.getPermanentDirectory()).thenReturn(tmpDir);
+        when(lessConfiguration.isDiskCacheEnabled()).thenReturn(true);
+        this.diskCache.initialize();
+
+        xcontext = mock(XWikiContext.class);
+        when(xcontextProvider.get()).thenReturn(xcontext);
+        xwiki = mock(XWiki.class);
+        when(xcontext.getWiki()).thenReturn(xwiki);
+        when(xwiki.getVersion()).thenReturn("12.6");
+        colorThemeDocument = mock(XWikiDocument.class);
+        when(xwiki.getDocument((EntityReference) colorThemeDocumentReference, xcontext))
+            .thenReturn(colorThemeDocument);
+        when(colorThemeDocument.getVersion()).thenReturn("1.1");
+
+        when(cacheKeyFactory.getCacheKey(any(), any(), any(), anyBoolean())).thenReturn("key");
+    }
+
+    @Test
+    public void setAndGet()
+    {
+        assertNull(this.diskCache.get(lessResourceReference, skinReference, colorThemeReference));
+
+        this.diskCache.set(lessResourceReference, skinReference, colorThemeReference, "css");
+
+        assertEquals("css", this.diskCache.get(lessResourceReference, skinReference, colorThemeReference));
+    }
+
+    @Test
+    public void getWhenColorThemeUpdated()
+    {
+        this.diskCache.set(lessResourceReference, skinReference, colorThemeReference, "css");
+
+        when(colorThemeDocument.getVersion()).thenReturn("1.2");
+
+        assertNull(this.diskCache.get(lessResourceReference, skinReference, colorThemeReference));
+    }
+
+    @Test
+    public void getWithFileSystemColorTheme()
+    {
+        NamedColorThemeReference namedColorTheme = new NamedColorThemeReference("default");
+
+        this.diskCache.set(lessResourceReference, skinReference, namedColorTheme, "css");
+
+        when(cacheKeyFactory.getCacheKey(eq(lessResourceReference), eq(skinReference), eq(namedColorTheme),
+            anyBoolean())).thenReturn("other key");
+
+        assertNull(this.diskCache.get(lessResourceReference, skinReference, namedColorTheme));
+    }
+
+    @Test
+    public void getWhenBaseSkinUpdated() throws Exception
+    {
+        DocumentReference skinDocumentReference = new DocumentReference("wiki", "XWiki", "MySkin");
+        XWikiDocument skinDocument = mock(XWikiDocument.class);
+        when(xwiki.getDocument(skinDocumentReference, xcontext)).thenReturn(skinDocument);
+        when(skinDocument.getVersion()).thenReturn("1.1");
+        BaseObject skinObject = mock(BaseObject.class);
+        when(skinDocument.getXObject(new LocalDocumentReference("XWiki", "XWikiSkins"))).thenReturn(skinObject);
+        when(skinObject.getStringValue("baseskin")).thenReturn("XWiki.BaseSkin");
+
+        DocumentReference baseSkinDocumentReference = new DocumentReference("wiki", "XWiki", "BaseSkin");
+        when(documentReferenceResolver.resolve("XWiki.BaseSkin", skinDocumentReference.getWikiReference()))
+            .thenReturn(baseSkinDocumentReference);
+        XWikiDocument baseSkinDocument = mock(XWikiDocument.class);
+        when(xwiki.getDocument(baseSkinDocumentReference, xcontext)).thenReturn(baseSkinDocument);
+        when(baseSkinDocument.getVersion()).thenReturn("2.1");
+
+        DocumentSkinReference documentSkinReference = new DocumentSkinReference(skinDocumentReference, null);
+        this.diskCache.set(lessResourceReference, documentSkinReference, colorThemeReference, "css");
+        assertEquals("css", this.diskCache.get(lessResourceReference, documentSkinReference, colorThemeReference));
+
+        when(baseSkinDocument.getVersion()).thenReturn("2.2");
+        assertNull(this.diskCache.get(lessResourceReference, documentSkinReference, colorThemeReference));
+    }
+
+    @Test
+    public void setRemovesSupersededFile()
+    {
+        this.diskCache.set(lessResourceReference, skinReference, colorThemeReference, "css");
+
+        when(colorThemeDocument.getVersion()).thenReturn("1.2");
+        this.diskCache.set(lessResourceReference, skinReference, colorThemeReference, "new css");
+
+        assertEquals(1, new File(tmpDir, "cache/lesscss").listFiles().length);
+        assertEquals("new css", this.diskCache.get(lessResourceReference, skinReference, colorThemeReference));
+    }
+
+    @Test
+    public void isEnabled()
+    {
+        when(lessContext.isHtmlExport()).thenReturn(true);
+
+        assertFalse(this.diskCache.isEnabled());
+    }
+}
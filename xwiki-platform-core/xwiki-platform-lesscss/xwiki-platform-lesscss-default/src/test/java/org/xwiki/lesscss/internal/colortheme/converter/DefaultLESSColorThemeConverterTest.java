@@ -19,6 +19,8 @@
  */
 package org.xwiki.lesscss.internal.colortheme.converter;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 import javax.inject.Provider;
 
 import org.junit.Before;
@@ -91,8 +93,8 @@ public void setUp() throws Exception
         when(skinReferenceFactory.createReference("skin")).thenReturn(new FSSkinReference("skin"));
         when(colorThemeReferenceFactory.createReference("colorTheme")).thenReturn(
                 new NamedColorThemeReference("colorTheme"));
-        when(cache.getMutex(eq(new LESSSkinFileResourceReference("file", null, null)), eq(new FSSkinReference("skin")),
-                eq(new NamedColorThemeReference("colorTheme")))).thenReturn("mutex");
+        when(cache.getLock(eq(new LESSSkinFileResourceReference("file", null, null)), eq(new FSSkinReference("skin")),
+                eq(new NamedColorThemeReference("colorTheme")))).thenReturn(new ReentrantLock());
     }
 
     @Test
@@ -19,6 +19,9 @@
  */
 package org.xwiki.lesscss.internal.compiler;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
 import javax.inject.Provider;
 
 import org.apache.commons.lang3.StringUtils;
@@ -27,6 +30,7 @@
 import org.junit.Test;
 import org.xwiki.lesscss.compiler.LESSCompilerException;
 import org.xwiki.lesscss.internal.LESSContext;
+import org.xwiki.lesscss.internal.cache.LESSDiskCache;
 import org.xwiki.lesscss.internal.cache.LESSResourcesCache;
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReference;
 import org.xwiki.lesscss.internal.colortheme.ColorThemeReferenceFactory;
@@ -86,6 +90,8 @@
     
     private ColorThemeReference colorThemeReference = new NamedColorThemeReference("colorTheme");
 
+    private ReentrantLock lock = new ReentrantLock();
+
     @Before
     public void setUp() throws Exception
     {
@@ -107,8 +113,8 @@ public void setUp() throws Exception
         
         lessResourceReference = mock(LESSResourceReference.class);
 
-        when(cache.getMutex(eq(lessResourceReference), eq(new FSSkinReference("skin")),
-                eq(new NamedColorThemeReference("colorTheme")))).thenReturn("mutex");
+        when(cache.getLock(eq(lessResourceReference), eq(new FSSkinReference("skin")),
+                eq(new NamedColorThemeReference("colorTheme")))).thenReturn(lock);
     }
 
     @Test
@@ -176,6 +182,63 @@ public void compileSkinFileWhenInCacheButCacheDisabled() throws Exception
         verifyZeroInteractions(cache);
     }
 
+    @Test
+    public void compileWhenPersistedOnDisk() throws Exception
+    {
+        // Mocks
+        LESSDiskCache diskCache = mocker.getInstance(LESSDiskCache.class);
+        when(diskCache.isEnabled()).thenReturn(true);
+        when(diskCache.get(eq(lessResourceReference), eq(skinReference), eq(colorThemeReference))).thenReturn(
+                "persisted output");
+
+        // Test
+        assertEquals("persisted output",
+                mocker.getComponentUnderTest().compile(lessResourceReference, false, false, false));
+
+        // Verify that the result is put back in the memory cache without compiling anything
+        verify(cache).set(eq(lessResourceReference), eq(skinReference), eq(colorThemeReference),
+                eq("persisted output"));
+        verify(cachedLESSCompiler, never()).compute(any(LESSResourceReference.class), anyBoolean(), anyBoolean(),
+                anyBoolean(), any());
+    }
+
+    @Test
+    public void compileWhenNotPersistedOnDisk() throws Exception
+    {
+        // Mocks
+        LESSDiskCache diskCache = mocker.getInstance(LESSDiskCache.class);
+        when(diskCache.isEnabled()).thenReturn(true);
+        when(cachedLESSCompiler.compute(eq(lessResourceReference), eq(false), eq(false), eq(true), eq("skin"))).
+                thenReturn("compiled output");
+
+        // Test
+        assertEquals("compiled output",
+                mocker.getComponentUnderTest().compile(lessResourceReference, false, false, false));
+
+        // Verify
+        verify(diskCache).set(eq(lessResourceReference), eq(skinReference), eq(colorThemeReference),
+                eq("compiled output"));
+    }
+
+    @Test
+    public void compileWhenBeingComputedByAnotherThread() throws Exception
+    {
+        // Mocks
+        when(cache.getStale(eq(lessResourceReference), eq(skinReference), eq(colorThemeReference))).thenReturn(
+                "previous output");
+
+        // Simulate another thread computing the same entry
+        CompletableFuture.runAsync(() -> lock.lock()).get();
+
+        // Test
+        assertEquals("previous output",
+                mocker.getComponentUnderTest().compile(lessResourceReference, false, false, false));
+
+        // Verify that the request has not waited for the new result
+        verify(cachedLESSCompiler, never()).compute(any(LESSResourceReference.class), anyBoolean(), anyBoolean(),
+                anyBoolean(), any());
+    }
+
     @Test
     public void compileWhenInCacheAndHTMLExport() throws Exception
     {
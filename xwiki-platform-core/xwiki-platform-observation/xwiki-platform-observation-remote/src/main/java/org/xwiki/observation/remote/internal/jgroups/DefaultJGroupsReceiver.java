@@ -79,8 +79,21 @@ public RemoteObservationManager getRemoteObservationManager()
     @Override
     public void receive(Message msg)
     {
-        RemoteEventData remoteEvent = (RemoteEventData) msg.getObject();
+        Object object = msg.getObject();
 
+        if (object instanceof RemoteEventBatch) {
+            // Notify the events in the order they were sent
+            for (RemoteEventData remoteEvent : ((RemoteEventBatch) object).getEvents()) {
+                receive(remoteEvent);
+            }
+        } else {
+            // Single event sent by a node older than 12.6RC1
+            receive((RemoteEventData) object);
+        }
+    }
+
+    private void receive(RemoteEventData remoteEvent)
+    {
         this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
 
         getRemoteObservationManager().notify(remoteEvent);
@@ -23,8 +23,15 @@
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -42,6 +49,7 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.environment.Environment;
 import org.xwiki.observation.remote.NetworkAdapter;
 import org.xwiki.observation.remote.RemoteEventData;
@@ -50,6 +58,11 @@
 
 /**
  * JGroups based implementation of {@link NetworkAdapter}.
+ * <p>
+ * Since 12.6RC1 the events can be accumulated during a short period of time (configured with
+ * {@value #CONFIGURATION_BATCH_WINDOW}) and sent in a single {@link RemoteEventBatch} message, which makes a huge
+ * difference for operations producing a lot of events (imports, refactoring, etc.). This is disabled by default (see
+ * {@value #CONFIGURATION_BATCH_ENABLED}) because the nodes older than 12.6RC1 cannot read such messages.
  *
  * @version $Id$
  * @since 2.0RC1
@@ -64,6 +77,31 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
      */
     public static final String CONFIGURATION_PATH = "observation/remote/jgroups/";
 
+    /**
+     * The name of the property indicating if the events should be sent in batches.
+     *
+     * @since 12.6RC1
+     */
+    public static final String CONFIGURATION_BATCH_ENABLED = "observation.remote.jgroups.batch.enabled";
+
+    /**
+     * The name of the property containing the time (in milliseconds) to wait for other events before sending a batch.
+     *
+     * @since 12.6RC1
+     */
+    public static final String CONFIGURATION_BATCH_WINDOW = "observation.remote.jgroups.batch.window";
+
+    /**
+     * The name of the property containing the maximum number of events to send in a single message.
+     *
+     * @since 12.6RC1
+     */
+    public static final String CONFIGURATION_BATCH_MAXSIZE = "observation.remote.jgroups.batch.maxSize";
+
+    private static final long DEFAULT_BATCH_WINDOW = 10L;
+
+    private static final int DEFAULT_BATCH_MAXSIZE = 1000;
+
     /**
      * Used to lookup the receiver corresponding to the channel identifier.
      */
@@ -76,26 +114,133 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
     @Inject
     private Logger logger;
 
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
     /**
      * The network channels.
      */
     private Map<String, JChannel> channels = new ConcurrentHashMap<String, JChannel>();
 
+    /**
+     * The events waiting to be sent.
+     */
+    private final BlockingQueue<RemoteEventData> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * The thread sending the batches of events or {@code null} if the events are sent one by one.
+     */
+    private Thread sender;
+
+    /**
+     * Make sure no event is queued while the sender is being stopped (it would never be sent).
+     */
+    private final ReadWriteLock senderLock = new ReentrantReadWriteLock();
+
     @Override
     public void send(RemoteEventData remoteEvent)
     {
         this.logger.debug("Send JGroups remote event [" + remoteEvent + "]");
 
+        this.senderLock.readLock().lock();
+        try {
+            if (this.sender != null) {
+                this.queue.add(remoteEvent);
+            } else {
+                sendMessage(remoteEvent);
+            }
+        } finally {
+            this.senderLock.readLock().unlock();
+        }
+    }
+
+    private void startSender()
+    {
+        this.senderLock.writeLock().lock();
+        try {
+            if (this.sender == null && this.configuration.getProperty(CONFIGURATION_BATCH_ENABLED, false)) {
+                this.sender = new Thread(this::sendEvents, "XWiki remote events sender");
+                this.sender.setDaemon(true);
+                this.sender.start();
+            }
+        } finally {
+            this.senderLock.writeLock().unlock();
+        }
+    }
+
+    private void stopSender()
+    {
+        this.senderLock.writeLock().lock();
+        try {
+            if (this.sender != null) {
+                this.sender.interrupt();
+                try {
+                    this.sender.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                this.sender = null;
+
+                // Send the remaining events (the next ones are sent directly)
+                List<RemoteEventData> events = new ArrayList<>();
+                this.queue.drainTo(events);
+                if (!events.isEmpty()) {
+                    sendMessage(new RemoteEventBatch(events));
+                }
+            }
+        } finally {
+            this.senderLock.writeLock().unlock();
+        }
+    }
+
+    private void sendEvents()
+    {
+        long window = TimeUnit.MILLISECONDS
+            .toNanos(this.configuration.getProperty(CONFIGURATION_BATCH_WINDOW, DEFAULT_BATCH_WINDOW));
+        int maxSize = this.configuration.getProperty(CONFIGURATION_BATCH_MAXSIZE, DEFAULT_BATCH_MAXSIZE);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<RemoteEventData> events = new ArrayList<>();
+            try {
+                events.add(this.queue.take());
+
+                // Wait a bit for the events which are generally sent in bursts
+                long deadline = System.nanoTime() + window;
+                while (events.size() < maxSize) {
+                    RemoteEventData event = this.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (event == null) {
+                        break;
+                    }
+                    events.add(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!events.isEmpty()) {
+                sendMessage(new RemoteEventBatch(events));
+            }
+        }
+    }
+
+    private void sendMessage(Object payload)
+    {
         // Send the message to the whole group
-        Message message = new Message(null, remoteEvent);
+        Message message;
+        try {
+            message = new Message(null, payload);
+        } catch (Exception e) {
+            this.logger.error("Failed to serialize the remote events [{}]", payload, e);
+            return;
+        }
 
         // Send message to JGroups channels
         for (Map.Entry<String, JChannel> entry : this.channels.entrySet()) {
             try {
                 entry.getValue().send(message);
             } catch (Exception e) {
-                this.logger
-                    .error("Failed to send message [" + remoteEvent + "] to the channel [" + entry.getKey() + "]", e);
+                this.logger.error("Failed to send message [" + payload + "] to the channel [" + entry.getKey() + "]", e);
             }
         }
     }
@@ -125,6 +270,8 @@ public void startChannel(String channelId) throws RemoteEventException
             this.logger.warn("Failed to register channel [" + channelId + "] against the JMX Server", e);
         }
 
+        startSender();
+
         this.logger.info("Channel [{}] started", channelId);
     }
 
@@ -137,6 +284,10 @@ public void stopChannel(String channelId) throws RemoteEventException
             throw new RemoteEventException(MessageFormat.format("Channel [{0}] is not started", channelId));
         }
 
+        if (this.channels.size() == 1) {
+            stopSender();
+        }
+
         channel.close();
 
         this.channels.remove(channelId);
@@ -218,6 +369,8 @@ private ProtocolStackConfigurator loadChannelConfiguration(String channelId) thr
     @Override
     public void stopAllChannels() throws RemoteEventException
     {
+        stopSender();
+
         for (Map.Entry<String, JChannel> channelEntry : this.channels.entrySet()) {
             channelEntry.getValue().close();
         }
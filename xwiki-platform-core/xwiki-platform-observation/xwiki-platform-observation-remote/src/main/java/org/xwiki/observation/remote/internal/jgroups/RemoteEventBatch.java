@@ -0,0 +1,268 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jgroups;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.xwiki.observation.remote.RemoteEventData;
+
+/**
+ * A list of remote events sent in a single network message.
+ * <p>
+ * The events are serialized in a single compressed frame. The most common values (strings, numbers, booleans, maps and
+ * lists) found in the events produced by the converters are written with a compact hand-written encoding, the other
+ * values fall back on Java serialization, sharing the class descriptors between all the events of the frame.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class RemoteEventBatch implements Externalizable
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final byte NULL = 0;
+
+    private static final byte STRING = 1;
+
+    private static final byte BOOLEAN = 2;
+
+    private static final byte INTEGER = 3;
+
+    private static final byte LONG = 4;
+
+    private static final byte MAP = 5;
+
+    private static final byte LIST = 6;
+
+    private static final byte OBJECT = 7;
+
+    private List<RemoteEventData> events;
+
+    /**
+     * Used by Java serialization.
+     */
+    public RemoteEventBatch()
+    {
+        this.events = new ArrayList<>();
+    }
+
+    /**
+     * @param events the events to send
+     */
+    public RemoteEventBatch(List<RemoteEventData> events)
+    {
+        this.events = events;
+    }
+
+    /**
+     * @return the events, in the order in which they were sent
+     */
+    public List<RemoteEventData> getEvents()
+    {
+        return this.events;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream frame = new ObjectOutputStream(new DeflaterOutputStream(bytes))) {
+            frame.writeInt(this.events.size());
+            for (RemoteEventData event : this.events) {
+                writeValue(event.getEvent(), frame);
+                writeValue(event.getSource(), frame);
+                writeValue(event.getData(), frame);
+            }
+        }
+
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        try (ObjectInputStream frame =
+            new ContextObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            int size = frame.readInt();
+            this.events = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                this.events.add(new RemoteEventData((Serializable) readValue(frame), (Serializable) readValue(frame),
+                    (Serializable) readValue(frame)));
+            }
+        }
+    }
+
+    private void writeValue(Object value, ObjectOutputStream out) throws IOException
+    {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value.getClass() == HashMap.class) {
+            // Only the exact type is encoded to make sure the receiver gets the same type
+            out.writeByte(MAP);
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey(), out);
+                writeValue(entry.getValue(), out);
+            }
+        } else if (value.getClass() == ArrayList.class) {
+            out.writeByte(LIST);
+            List<?> list = (List<?>) value;
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(element, out);
+            }
+        } else {
+            out.writeByte(OBJECT);
+            out.writeObject(value);
+        }
+    }
+
+    private Object readValue(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        byte type = in.readByte();
+
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case MAP:
+                return readMap(in);
+            case LIST:
+                return readList(in);
+            case OBJECT:
+                return in.readObject();
+            default:
+                throw new IOException("Unknown value type [" + type + "]");
+        }
+    }
+
+    private Map<Object, Object> readMap(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        int size = in.readInt();
+        Map<Object, Object> map = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; ++i) {
+            map.put(readValue(in), readValue(in));
+        }
+
+        return map;
+    }
+
+    private List<Object> readList(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        int size = in.readInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            list.add(readValue(in));
+        }
+
+        return list;
+    }
+
+    private void writeString(String value, ObjectOutputStream out) throws IOException
+    {
+        // Not using writeUTF since it's limited to 64KB
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ObjectInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "events: " + this.events;
+    }
+
+    /**
+     * Resolve the classes using the context class loader first since the events can come from extensions.
+     *
+     * @version $Id$
+     */
+    private static final class ContextObjectInputStream extends ObjectInputStream
+    {
+        ContextObjectInputStream(InputStream in) throws IOException
+        {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    // Fallback on the standard resolution
+                }
+            }
+
+            return super.resolveClass(desc);
+        }
+    }
+}
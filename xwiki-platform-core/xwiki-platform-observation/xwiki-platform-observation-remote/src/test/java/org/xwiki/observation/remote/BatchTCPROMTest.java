@@ -0,0 +1,48 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.observation.remote.internal.jgroups.RemoteEventBatch;
+import org.xwiki.test.annotation.AllComponents;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Run the {@link TCPROMTest} tests with the events sent in {@link RemoteEventBatch batches}.
+ * 
+ * @version $Id$
+ */
+@AllComponents
+public class BatchTCPROMTest extends TCPROMTest
+{
+    @Override
+    protected boolean isBatchEnabled()
+    {
+        return true;
+    }
+
+    @Test
+    public void testSenderStarted()
+    {
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+            .anyMatch(thread -> thread.getName().equals("XWiki remote events sender") && thread.isAlive()));
+    }
+}
@@ -19,16 +19,26 @@
  */
 package org.xwiki.observation.remote;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.logging.event.LogEvent;
+import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.internal.jgroups.JGroupsNetworkAdapter;
 import org.xwiki.observation.remote.test.AbstractROMTestCase;
 import org.xwiki.observation.remote.test.TestEvent;
 import org.xwiki.test.annotation.AllComponents;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
@@ -55,11 +65,22 @@ public void beforeEach() throws Exception
 
         System.setProperty("jgroups.bind_addr", "localhost");
 
+        getConfigurationSource1().setProperty(JGroupsNetworkAdapter.CONFIGURATION_BATCH_ENABLED, isBatchEnabled());
+        getConfigurationSource2().setProperty(JGroupsNetworkAdapter.CONFIGURATION_BATCH_ENABLED, isBatchEnabled());
+
         getConfigurationSource1().setProperty("observation.remote.channels", Arrays.asList("tcp"));
         RemoteObservationManager rom = getComponentManager2().getInstance(RemoteObservationManager.class);
         rom.startChannel("tcp");
     }
 
+    /**
+     * @return whether the events should be sent in batches
+     */
+    protected boolean isBatchEnabled()
+    {
+        return false;
+    }
+
     /**
      * Validate sharing a simple Serializable event between two instances of {@link RemoteObservationManager}.
      */
@@ -92,4 +113,39 @@ public void testSerializableEvent() throws InterruptedException
         verify(localListener).onEvent(same(event), same(unserializable), same(unserializable));
         verify(remoteListener).onEvent(eq(event), eq("some source"), eq("some data"));
     }
+
+    /**
+     * Make sure a lot of events shared between two instances of {@link RemoteObservationManager} are all received, in
+     * the order they were sent.
+     */
+    @Test
+    public void testManyEvents() throws Exception
+    {
+        int count = 10000;
+
+        TestEvent event = new TestEvent();
+
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(count);
+        getObservationManager2().addListener(new AbstractEventListener("throughput", event)
+        {
+            @Override
+            public void onEvent(Event receivedEvent, Object source, Object data)
+            {
+                received.add(source);
+                latch.countDown();
+            }
+        });
+
+        for (int i = 0; i < count; ++i) {
+            getObservationManager1().notify(event, "source" + i, "data");
+        }
+
+        assertTrue(latch.await(60, TimeUnit.SECONDS), "Received only " + received.size() + " events");
+        assertEquals(count, received.size());
+
+        for (int i = 0; i < count; ++i) {
+            assertEquals("source" + i, received.get(i));
+        }
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal.jgroups;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.test.TestEvent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link RemoteEventBatch}.
+ *
+ * @version $Id$
+ */
+public class RemoteEventBatchTest
+{
+    private RemoteEventBatch serializeAndDeserialize(RemoteEventBatch batch) throws IOException, ClassNotFoundException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(batch);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (RemoteEventBatch) in.readObject();
+        }
+    }
+
+    @Test
+    public void serialize() throws Exception
+    {
+        HashMap<String, Object> source = new HashMap<>();
+        source.put("id", "wiki:Space.Page");
+        source.put("version", 42);
+        source.put("size", 43L);
+        source.put("hidden", Boolean.TRUE);
+        source.put("null", null);
+        source.put("list", new ArrayList<>(Arrays.asList("value", 44)));
+
+        RemoteEventData event1 = new RemoteEventData(new TestEvent(), source, "data");
+        RemoteEventData event2 = new RemoteEventData(new TestEvent(), null, null);
+
+        List<RemoteEventData> events = serializeAndDeserialize(new RemoteEventBatch(Arrays.asList(event1, event2)))
+            .getEvents();
+
+        assertEquals(2, events.size());
+
+        assertEquals(new TestEvent(), events.get(0).getEvent());
+        assertEquals(source, events.get(0).getSource());
+        assertTrue(events.get(0).getSource() instanceof HashMap);
+        assertTrue(((Map<?, ?>) events.get(0).getSource()).get("list") instanceof ArrayList);
+        assertEquals("data", events.get(0).getData());
+
+        assertEquals(new TestEvent(), events.get(1).getEvent());
+        assertNull(events.get(1).getSource());
+        assertNull(events.get(1).getData());
+    }
+
+    @Test
+    public void serializeLargeString() throws Exception
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100000; ++i) {
+            builder.append('é');
+        }
+        String value = builder.toString();
+
+        List<RemoteEventData> events = serializeAndDeserialize(
+            new RemoteEventBatch(Arrays.asList(new RemoteEventData(new TestEvent(), value, null)))).getEvents();
+
+        assertEquals(value, events.get(0).getSource());
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.officeimporter.internal.converter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jodconverter.document.DocumentFormatRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xwiki.officeimporter.converter.OfficeConverter;
+import org.xwiki.officeimporter.converter.OfficeConverterException;
+
+/**
+ * {@link OfficeConverter} making sure the same office document is not converted several times at once and, when a
+ * cache directory is provided, keeping the conversion results on disk so that the same office document is not
+ * converted again, even after a restart. The conversions are identified by a digest of the content of the input files
+ * and of the conversion parameters (input and output file names), computed while the input files are copied to a
+ * temporary directory so that they are never loaded in memory. Concurrent conversions of the same input are
+ * coalesced: only the first one is sent to the office server and the others wait for its result. The number of
+ * results kept on disk is limited: the least recently used ones are removed first, which also removes the results of
+ * the office documents which have been deleted or modified since then.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class CachingOfficeConverter implements OfficeConverter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingOfficeConverter.class);
+
+    private static final String TMP_DIR_SUFFIX = ".tmp";
+
+    /**
+     * The converter actually performing the conversions.
+     */
+    private final OfficeConverter converter;
+
+    /**
+     * The directory where the input files are copied while they are converted.
+     */
+    private final File workDir;
+
+    /**
+     * The directory where the conversion results are stored, one sub-directory per conversion, {@code null} if the
+     * conversion results are not kept on disk.
+     */
+    private final File cacheDir;
+
+    /**
+     * The maximum number of conversion results kept on disk.
+     */
+    private final int maxEntries;
+
+    /**
+     * The conversions currently performed, indexed by key.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Map<String, byte[]>>> pendingConversions =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link CachingOfficeConverter} instance keeping the conversion results on disk.
+     *
+     * @param converter the converter actually performing the conversions
+     * @param cacheDir the directory where to store the conversion results
+     * @param maxEntries the maximum number of conversion results kept on disk
+     */
+    public CachingOfficeConverter(OfficeConverter converter, File cacheDir, int maxEntries)
+    {
+        this(converter, cacheDir, cacheDir, maxEntries);
+    }
+
+    /**
+     * Creates a new {@link CachingOfficeConverter} instance.
+     *
+     * @param converter the converter actually performing the conversions
+     * @param workDir the directory where to copy the input files while they are converted
+     * @param cacheDir the directory where to store the conversion results, {@code null} to only coalesce the
+     *            concurrent conversions without keeping their results
+     * @param maxEntries the maximum number of conversion results kept on disk
+     */
+    public CachingOfficeConverter(OfficeConverter converter, File workDir, File cacheDir, int maxEntries)
+    {
+        this.converter = converter;
+        this.workDir = workDir;
+        this.cacheDir = cacheDir;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    @Override
+    public Map<String, byte[]> convert(Map<String, InputStream> inputStreams, String inputFileName,
+        String outputFileName) throws OfficeConverterException
+    {
+        if (inputStreams.get(inputFileName) == null) {
+            // Let the converter report the error
+            return this.converter.convert(inputStreams, inputFileName, outputFileName);
+        }
+
+        File inputDir = new File(this.workDir, UUID.randomUUID() + TMP_DIR_SUFFIX);
+        try {
+            Map<String, File> inputFiles = new HashMap<>();
+            String key = copyInputs(inputStreams, inputFileName, outputFileName, inputDir, inputFiles);
+
+            return convert(key, inputFiles, inputFileName, outputFileName);
+        } finally {
+            FileUtils.deleteQuietly(inputDir);
+        }
+    }
+
+    @Override
+    public DocumentFormatRegistry getFormatRegistry()
+    {
+        return this.converter.getFormatRegistry();
+    }
+
+    private Map<String, byte[]> convert(String key, Map<String, File> inputFiles, String inputFileName,
+        String outputFileName) throws OfficeConverterException
+    {
+        Map<String, byte[]> result = get(key);
+        if (result != null) {
+            return result;
+        }
+
+        CompletableFuture<Map<String, byte[]>> conversion = new CompletableFuture<>();
+        CompletableFuture<Map<String, byte[]>> pendingConversion = this.pendingConversions.putIfAbsent(key, conversion);
+        if (pendingConversion != null) {
+            return new HashMap<>(waitFor(pendingConversion));
+        }
+
+        try {
+            // The conversion might have been finished by another thread since the cache was checked
+            result = get(key);
+            if (result == null) {
+                result = convertFiles(inputFiles, inputFileName, outputFileName);
+
+                set(key, result);
+            }
+
+            conversion.complete(result);
+
+            return new HashMap<>(result);
+        } catch (OfficeConverterException | RuntimeException e) {
+            conversion.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            this.pendingConversions.remove(key, conversion);
+        }
+    }
+
+    private Map<String, byte[]> convertFiles(Map<String, File> inputFiles, String inputFileName,
+        String outputFileName) throws OfficeConverterException
+    {
+        Map<String, InputStream> inputStreams = new HashMap<>();
+        try {
+            for (Map.Entry<String, File> inputFile : inputFiles.entrySet()) {
+                inputStreams.put(inputFile.getKey(), new FileInputStream(inputFile.getValue()));
+            }
+
+            return this.converter.convert(inputStreams, inputFileName, outputFileName);
+        } catch (IOException e) {
+            throw new OfficeConverterException("Failed to read the input files.", e);
+        } finally {
+            inputStreams.values().forEach(IOUtils::closeQuietly);
+        }
+    }
+
+    /**
+     * Copy the input files to the passed directory and compute the conversion key while they are copied.
+     *
+     * @return the conversion key
+     */
+    private String copyInputs(Map<String, InputStream> inputStreams, String inputFileName, String outputFileName,
+        File inputDir, Map<String, File> inputFiles) throws OfficeConverterException
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new OfficeConverterException("Failed to compute the conversion cache key.", e);
+        }
+
+        update(digest, inputFileName);
+        update(digest, outputFileName);
+
+        inputDir.mkdirs();
+
+        // Sort the input files so that the key doesn't depend on the order of the map
+        for (Map.Entry<String, InputStream> entry : new TreeMap<>(inputStreams).entrySet()) {
+            // The input file names are not used as is on the file system since they come from the user
+            File inputFile = new File(inputDir, String.valueOf(inputFiles.size()));
+            update(digest, entry.getKey());
+            try {
+                long size = Files.copy(new DigestInputStream(entry.getValue(), digest), inputFile.toPath());
+                update(digest, String.valueOf(size));
+            } catch (IOException e) {
+                throw new OfficeConverterException(String.format("Failed to read input file [%s].", entry.getKey()),
+                    e);
+            }
+            inputFiles.put(entry.getKey(), inputFile);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+
+        return key.toString();
+    }
+
+    private void update(MessageDigest digest, String value)
+    {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separate the values to avoid collisions between different splits of the same string
+        digest.update((byte) 0);
+    }
+
+    private Map<String, byte[]> waitFor(CompletableFuture<Map<String, byte[]>> conversion)
+        throws OfficeConverterException
+    {
+        try {
+            return conversion.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new OfficeConverterException("Interrupted while waiting for the same conversion.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OfficeConverterException) {
+                throw (OfficeConverterException) e.getCause();
+            }
+
+            throw new OfficeConverterException("Error while performing conversion.", e.getCause());
+        }
+    }
+
+    private Map<String, byte[]> get(String key)
+    {
+        if (this.cacheDir == null) {
+            return null;
+        }
+
+        File resultDir = new File(this.cacheDir, key);
+        File[] files = resultDir.listFiles();
+        if (files == null) {
+            return null;
+        }
+
+        try {
+            Map<String, byte[]> result = new HashMap<>();
+            for (File file : files) {
+                result.put(file.getName(), FileUtils.readFileToByteArray(file));
+            }
+
+            // Remember the last access to remove the least recently used results first
+            resultDir.setLastModified(System.currentTimeMillis());
+
+            return result;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read the cached conversion result [{}]: {}", resultDir, e.getMessage());
+
+            return null;
+        }
+    }
+
+    private void set(String key, Map<String, byte[]> result)
+    {
+        if (this.cacheDir == null) {
+            return;
+        }
+
+        // Write the files in a temporary directory which is then renamed so that a partial result is never read
+        File tmpDir = new File(this.cacheDir, key + '-' + UUID.randomUUID() + TMP_DIR_SUFFIX);
+        try {
+            for (Map.Entry<String, byte[]> entry : result.entrySet()) {
+                FileUtils.writeByteArrayToFile(new File(tmpDir, entry.getKey()), entry.getValue());
+            }
+            tmpDir.mkdirs();
+
+            File resultDir = new File(this.cacheDir, key);
+            Files.move(tmpDir.toPath(), resultDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            evict(resultDir);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to store the conversion result [{}] on disk: {}", key, e.getMessage());
+
+            FileUtils.deleteQuietly(tmpDir);
+        }
+    }
+
+    /**
+     * Remove the least recently used conversion results when there are more than allowed.
+     *
+     * @param newResultDir the conversion result that has just been stored
+     */
+    private void evict(File newResultDir)
+    {
+        File[] resultDirs = this.cacheDir.listFiles(
+            file -> file.isDirectory() && !file.getName().endsWith(TMP_DIR_SUFFIX) && !file.equals(newResultDir));
+        if (resultDirs != null && resultDirs.length >= this.maxEntries) {
+            Arrays.sort(resultDirs, Comparator.comparingLong(File::lastModified));
+            for (int i = 0; i <= resultDirs.length - this.maxEntries; i++) {
+                FileUtils.deleteQuietly(resultDirs[i]);
+            }
+        }
+    }
+}
@@ -35,6 +35,7 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.environment.Environment;
 import org.xwiki.officeimporter.converter.OfficeConverter;
+import org.xwiki.officeimporter.internal.converter.CachingOfficeConverter;
 import org.xwiki.officeimporter.internal.converter.DefaultOfficeConverter;
 import org.xwiki.officeimporter.server.OfficeServer;
 import org.xwiki.officeimporter.server.OfficeServerConfiguration;
@@ -55,6 +56,11 @@ public class DefaultOfficeServer implements OfficeServer
      */
     private static final String DOCUMENT_FORMATS_PATH = "/document-formats.js";
 
+    /**
+     * The path, relative to the permanent directory, of the directory where the conversion results are kept.
+     */
+    private static final String CONVERSION_CACHE_PATH = "cache/officeconverter";
+
     /**
      * The office server configuration.
      */
@@ -169,7 +175,12 @@ public void initialize() throws OfficeServerException
         }
 
         File workDir = this.environment.getTemporaryDirectory();
-        this.converter = new DefaultOfficeConverter(this.jodConverter, workDir);
+        // Concurrent conversions of the same office document are always coalesced, the results are kept on disk
+        // only if the conversion cache is enabled
+        File cacheDir = this.config.isConversionCacheEnabled()
+            ? new File(this.environment.getPermanentDirectory(), CONVERSION_CACHE_PATH) : null;
+        this.converter = new CachingOfficeConverter(new DefaultOfficeConverter(this.jodConverter, workDir), workDir,
+            cacheDir, this.config.getConversionCacheMaxEntries());
     }
 
     @Override
@@ -57,6 +57,21 @@ public class DefaultOfficeServerConfiguration implements OfficeServerConfigurati
      */
     private static final int DEFAULT_SERVER_PORT = 8100;
 
+    /**
+     * @see OfficeServerConfiguration#getServerPorts()
+     */
+    private static final int DEFAULT_PROCESS_COUNT = 1;
+
+    /**
+     * @see OfficeServerConfiguration#isConversionCacheEnabled()
+     */
+    private static final boolean DEFAULT_CONVERSION_CACHE = false;
+
+    /**
+     * @see OfficeServerConfiguration#getConversionCacheMaxEntries()
+     */
+    private static final int DEFAULT_CONVERSION_CACHE_MAX_ENTRIES = 100;
+
     /**
      * @see OfficeServerConfiguration#isAutoStart()
      */
@@ -106,7 +121,13 @@ public int[] getServerPorts()
                 result[i] = Integer.parseInt(serverPorts.get(i));
             }
         } else {
-            result = new int[] { getServerPort() };
+            // One office process is started for each port, on consecutive ports
+            int serverPort = getServerPort();
+            int processCount = this.configuration.getProperty(PREFIX + "processCount", DEFAULT_PROCESS_COUNT);
+            result = new int[Math.max(processCount, 1)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = serverPort + i;
+            }
         }
         return result;
     }
@@ -152,6 +173,19 @@ public long getTaskExecutionTimeout()
         return this.configuration.getProperty(PREFIX + "taskExecutionTimeout", DEFAULT_TASK_EXECUTION_TIMEOUT);
     }
 
+    @Override
+    public boolean isConversionCacheEnabled()
+    {
+        return this.configuration.getProperty(PREFIX + "conversionCache", DEFAULT_CONVERSION_CACHE);
+    }
+
+    @Override
+    public int getConversionCacheMaxEntries()
+    {
+        return this.configuration.getProperty(PREFIX + "conversionCache.maxEntries",
+            DEFAULT_CONVERSION_CACHE_MAX_ENTRIES);
+    }
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -102,4 +102,25 @@ default int[] getServerPorts()
      * @return the timeout for document conversion tasks
      */
     long getTaskExecutionTimeout();
+
+    /**
+     * @return {@code true} if the conversion results should be kept on disk so that the same office document is not
+     *         converted again
+     * @since 12.6RC1
+     */
+    @Unstable
+    default boolean isConversionCacheEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * @return the maximum number of conversion results kept on disk, the least recently used ones being removed first
+     * @since 12.6RC1
+     */
+    @Unstable
+    default int getConversionCacheMaxEntries()
+    {
+        return 100;
+    }
 }
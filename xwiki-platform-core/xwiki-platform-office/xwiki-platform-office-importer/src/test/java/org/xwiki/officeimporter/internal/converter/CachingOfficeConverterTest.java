@@ -0,0 +1,205 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.officeimporter.internal.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.officeimporter.converter.OfficeConverter;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link CachingOfficeConverter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class CachingOfficeConverterTest
+{
+    @XWikiTempDir
+    private File tmpDir;
+
+    private OfficeConverter officeConverter;
+
+    private CachingOfficeConverter cachingOfficeConverter;
+
+    private Map<String, byte[]> result = new HashMap<>();
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        this.officeConverter = mock(OfficeConverter.class);
+        this.cachingOfficeConverter = new CachingOfficeConverter(this.officeConverter, this.tmpDir, 2);
+
+        this.result.put("output.html", "<p>content</p>".getBytes());
+        this.result.put("image.png", new byte[] { 1, 2, 3 });
+        when(this.officeConverter.convert(any(), eq("input.docx"), eq("output.html"))).thenReturn(this.result);
+    }
+
+    private Map<String, InputStream> getInput(String content)
+    {
+        return Collections.singletonMap("input.docx", new ByteArrayInputStream(content.getBytes()));
+    }
+
+    @Test
+    public void convertOnlyOnce() throws Exception
+    {
+        Map<String, byte[]> first = this.cachingOfficeConverter.convert(getInput("doc"), "input.docx", "output.html");
+        assertEquals(this.result.keySet(), first.keySet());
+
+        // Also after a restart.
+        CachingOfficeConverter restarted = new CachingOfficeConverter(this.officeConverter, this.tmpDir, 2);
+        Map<String, byte[]> second = restarted.convert(getInput("doc"), "input.docx", "output.html");
+        assertEquals(this.result.keySet(), second.keySet());
+        assertArrayEquals(this.result.get("image.png"), second.get("image.png"));
+
+        verify(this.officeConverter).convert(any(), eq("input.docx"), eq("output.html"));
+    }
+
+    @Test
+    public void convertWhenContentChanges() throws Exception
+    {
+        this.cachingOfficeConverter.convert(getInput("doc"), "input.docx", "output.html");
+        this.cachingOfficeConverter.convert(getInput("other doc"), "input.docx", "output.html");
+
+        verify(this.officeConverter, times(2)).convert(any(), eq("input.docx"), eq("output.html"));
+    }
+
+    @Test
+    public void coalesceConcurrentConversions() throws Exception
+    {
+        assertCoalesced(this.cachingOfficeConverter);
+    }
+
+    @Test
+    public void coalesceConcurrentConversionsWithoutDiskCache() throws Exception
+    {
+        File workDir = new File(this.tmpDir, "work");
+        assertCoalesced(new CachingOfficeConverter(this.officeConverter, workDir, null, 2));
+
+        // Nothing is kept on disk
+        assertEquals(0, workDir.listFiles().length);
+        this.cachingOfficeConverter = new CachingOfficeConverter(this.officeConverter, workDir, null, 2);
+        this.cachingOfficeConverter.convert(getInput("doc"), "input.docx", "output.html");
+        verify(this.officeConverter, times(2)).convert(any(), eq("input.docx"), eq("output.html"));
+    }
+
+    @Test
+    public void convertStreamedInputs() throws Exception
+    {
+        Map<String, InputStream> inputs = new HashMap<>();
+        inputs.put("input.docx", new ByteArrayInputStream("doc".getBytes()));
+        inputs.put("../image.png", new ByteArrayInputStream(new byte[] { 4, 5 }));
+        Map<String, byte[]> received = new HashMap<>();
+        when(this.officeConverter.convert(any(), eq("input.docx"), eq("output.html"))).then(invocation -> {
+            Map<String, InputStream> streams = invocation.getArgument(0);
+            for (Map.Entry<String, InputStream> entry : streams.entrySet()) {
+                received.put(entry.getKey(), IOUtils.toByteArray(entry.getValue()));
+            }
+            return this.result;
+        });
+
+        this.cachingOfficeConverter.convert(inputs, "input.docx", "output.html");
+
+        // The converter receives the same inputs, and the copies of the inputs are removed after the conversion
+        assertEquals(inputs.keySet(), received.keySet());
+        assertArrayEquals("doc".getBytes(), received.get("input.docx"));
+        assertArrayEquals(new byte[] { 4, 5 }, received.get("../image.png"));
+        assertEquals(1, this.tmpDir.listFiles().length);
+    }
+
+    private void assertCoalesced(CachingOfficeConverter converter) throws Exception
+    {
+        CountDownLatch conversionStarted = new CountDownLatch(1);
+        CountDownLatch conversionAllowed = new CountDownLatch(1);
+        when(this.officeConverter.convert(any(), eq("input.docx"), eq("output.html"))).then(invocation -> {
+            conversionStarted.countDown();
+            conversionAllowed.await();
+            return this.result;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, byte[]>> first =
+                executor.submit(() -> converter.convert(getInput("doc"), "input.docx", "output.html"));
+            conversionStarted.await();
+            Future<Map<String, byte[]>> second =
+                executor.submit(() -> converter.convert(getInput("doc"), "input.docx", "output.html"));
+
+            // Give the second conversion the time to wait for the first one
+            Thread.sleep(100);
+            conversionAllowed.countDown();
+
+            assertEquals(this.result.keySet(), first.get().keySet());
+            assertEquals(this.result.keySet(), second.get().keySet());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(this.officeConverter).convert(any(), eq("input.docx"), eq("output.html"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception
+    {
+        this.cachingOfficeConverter.convert(getInput("first"), "input.docx", "output.html");
+        this.cachingOfficeConverter.convert(getInput("second"), "input.docx", "output.html");
+        verify(this.officeConverter, times(2)).convert(any(), eq("input.docx"), eq("output.html"));
+
+        // Make the second result the least recently used.
+        File[] resultDirs = this.tmpDir.listFiles();
+        for (File resultDir : resultDirs) {
+            resultDir.setLastModified(0);
+        }
+        this.cachingOfficeConverter.convert(getInput("first"), "input.docx", "output.html");
+        verify(this.officeConverter, times(2)).convert(any(), eq("input.docx"), eq("output.html"));
+
+        this.cachingOfficeConverter.convert(getInput("third"), "input.docx", "output.html");
+        verify(this.officeConverter, times(3)).convert(any(), eq("input.docx"), eq("output.html"));
+        assertEquals(2, this.tmpDir.listFiles().length);
+
+        // The first result is still cached but the second one has been removed.
+        this.cachingOfficeConverter.convert(getInput("first"), "input.docx", "output.html");
+        verify(this.officeConverter, times(3)).convert(any(), eq("input.docx"), eq("output.html"));
+        this.cachingOfficeConverter.convert(getInput("second"), "input.docx", "output.html");
+        verify(this.officeConverter, times(4)).convert(any(), eq("input.docx"), eq("output.html"));
+    }
+}
@@ -34,6 +34,7 @@
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -67,6 +68,8 @@ public void defaultConfiguration()
         assertNull(defaultOfficeServerConfiguration.getProfilePath());
         assertTrue(defaultOfficeServerConfiguration.getMaxTasksPerProcess() > 0);
         assertTrue(defaultOfficeServerConfiguration.getTaskExecutionTimeout() > 0);
+        assertFalse(defaultOfficeServerConfiguration.isConversionCacheEnabled());
+        assertEquals(100, defaultOfficeServerConfiguration.getConversionCacheMaxEntries());
     }
 
     @Test
@@ -79,6 +82,16 @@ public void serverPorts()
         when(configuration.getProperty("openoffice.serverPorts", List.class))
             .thenReturn(Collections.emptyList());
         when(configuration.getProperty("openoffice.serverPort", 8100)).thenReturn(4242);
+        when(configuration.getProperty("openoffice.processCount", 1)).thenReturn(1);
         assertArrayEquals(new int[] {4242}, defaultOfficeServerConfiguration.getServerPorts());
     }
+
+    @Test
+    public void processCount()
+    {
+        when(configuration.getProperty("openoffice.serverPorts", List.class)).thenReturn(null);
+        when(configuration.getProperty("openoffice.serverPort", 8100)).thenReturn(8100);
+        when(configuration.getProperty("openoffice.processCount", 1)).thenReturn(3);
+        assertArrayEquals(new int[] {8100, 8101, 8102}, defaultOfficeServerConfiguration.getServerPorts());
+    }
 }
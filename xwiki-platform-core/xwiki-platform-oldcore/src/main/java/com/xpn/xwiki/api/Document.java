@@ -69,6 +69,7 @@
 import com.xpn.xwiki.doc.XWikiDocumentArchive;
 import com.xpn.xwiki.doc.XWikiLink;
 import com.xpn.xwiki.doc.XWikiLock;
+import com.xpn.xwiki.doc.rcs.XWikiRCSNodeInfo;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseProperty;
 import com.xpn.xwiki.objects.ObjectDiff;
@@ -1435,6 +1436,62 @@ public RevisionInfo getRevisionInfo(String version) throws XWikiException
         return new RevisionInfo(this.doc.getRevisionInfo(version, getXWikiContext()), getXWikiContext());
     }
 
+    /**
+     * Get information about a page of the document history, without loading the whole history.
+     *
+     * @param olderThan only the versions older than this one are returned, {@code null} to start with the latest
+     *            version
+     * @param limit the maximum number of versions to return, 0 or less for no limit
+     * @return the information about the versions, ordered from the most recent to the oldest
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    @Unstable
+    public List<RevisionInfo> getRevisionInfos(String olderThan, int limit) throws XWikiException
+    {
+        Version version = StringUtils.isEmpty(olderThan) ? null : new Version(olderThan);
+
+        List<RevisionInfo> revisions = new ArrayList<>();
+        for (XWikiRCSNodeInfo nodeInfo : this.doc.getRevisionInfos(version, limit, getXWikiContext())) {
+            revisions.add(new RevisionInfo(nodeInfo, getXWikiContext()));
+        }
+        return revisions;
+    }
+
+    /**
+     * Get information about a numbered page of the document history, without loading the whole history.
+     *
+     * @param includeMinorVersions {@code false} to keep only the last version of each major version
+     * @param offset the number of versions to skip
+     * @param limit the maximum number of versions to return, 0 or less for no limit
+     * @return the information about the versions, ordered from the most recent to the oldest
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    @Unstable
+    public List<RevisionInfo> getRevisionInfos(boolean includeMinorVersions, int offset, int limit)
+        throws XWikiException
+    {
+        List<RevisionInfo> revisions = new ArrayList<>();
+        for (XWikiRCSNodeInfo nodeInfo : this.doc.getRevisionInfos(includeMinorVersions, offset, limit,
+            getXWikiContext())) {
+            revisions.add(new RevisionInfo(nodeInfo, getXWikiContext()));
+        }
+        return revisions;
+    }
+
+    /**
+     * @param includeMinorVersions {@code false} to count only the last version of each major version
+     * @return the number of versions of the document
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    @Unstable
+    public long getRevisionCount(boolean includeMinorVersions) throws XWikiException
+    {
+        return this.doc.getRevisionCount(includeMinorVersions, getXWikiContext());
+    }
+
     public List<Attachment> getAttachmentList()
     {
         List<Attachment> apis = new ArrayList<Attachment>();
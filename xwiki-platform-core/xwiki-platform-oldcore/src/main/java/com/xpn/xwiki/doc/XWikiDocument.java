@@ -2364,9 +2364,67 @@ public Version[] getRevisions(XWikiContext context) throws XWikiException
         return getVersioningStore(context).getXWikiDocVersions(this, context);
     }
 
+    /**
+     * Get a page of the history of the document without loading the whole history when it's not already loaded.
+     *
+     * @param olderThan only the versions older than this one are returned, {@code null} to start with the latest
+     *            version
+     * @param limit the maximum number of versions to return, 0 or less for no limit
+     * @param context the XWiki context
+     * @return the information about the versions, ordered from the most recent to the oldest
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    public List<XWikiRCSNodeInfo> getRevisionInfos(Version olderThan, int limit, XWikiContext context)
+        throws XWikiException
+    {
+        return getVersioningStore(context).getXWikiDocVersionInfos(this, olderThan, limit, context);
+    }
+
+    /**
+     * Get a numbered page of the history of the document without loading the whole history when it's not already
+     * loaded.
+     *
+     * @param includeMinorVersions {@code false} to keep only the last version of each major version
+     * @param offset the number of versions to skip
+     * @param limit the maximum number of versions to return, 0 or less for no limit
+     * @param context the XWiki context
+     * @return the information about the versions, ordered from the most recent to the oldest
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    public List<XWikiRCSNodeInfo> getRevisionInfos(boolean includeMinorVersions, int offset, int limit,
+        XWikiContext context) throws XWikiException
+    {
+        return getVersioningStore(context).getXWikiDocVersionInfos(this, includeMinorVersions, offset, limit,
+            context);
+    }
+
+    /**
+     * @param includeMinorVersions {@code false} to count only the last version of each major version
+     * @param context the XWiki context
+     * @return the number of versions of the document
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    public long getRevisionCount(boolean includeMinorVersions, XWikiContext context) throws XWikiException
+    {
+        return getVersioningStore(context).countXWikiDocVersions(this, includeMinorVersions, context);
+    }
+
     public String[] getRecentRevisions(int nb, XWikiContext context) throws XWikiException
     {
         try {
+            if (nb > 0) {
+                // Only load the requested versions
+                List<XWikiRCSNodeInfo> nodes = getRevisionInfos(null, nb, context);
+                String[] recentrevs = new String[nodes.size()];
+                for (int i = 0; i < recentrevs.length; i++) {
+                    recentrevs[i] = nodes.get(i).getVersion().toString();
+                }
+                return recentrevs;
+            }
+
             Version[] revisions = getVersioningStore(context).getXWikiDocVersions(this, context);
             int length = nb;
             // 0 means all revisions
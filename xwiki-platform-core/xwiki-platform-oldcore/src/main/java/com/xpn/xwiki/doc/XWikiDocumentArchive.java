@@ -128,14 +128,10 @@ protected XWikiRCSNodeContent makePatch(XWikiRCSNodeInfo newnode, XWikiDocument
         newnode.setContent(result);
         XWikiRCSNodeInfo latestNode = getLatestNode();
         if (latestNode != null) {
-            int nodesCount = getNodes().size();
-            int nodesPerFull =
-                context.getWiki() == null ? 5 : Integer.parseInt(context.getWiki().getConfig()
-                    .getProperty("xwiki.store.rcs.nodesPerFull", "5"));
-            if (nodesPerFull <= 0 || (nodesCount % nodesPerFull) != 0) {
-                XWikiRCSNodeContent latestContent = latestNode.getContent(context);
-                latestContent.getPatch().setDiffVersion(latestContent.getPatch().getContent(),
-                    doc, context);
+            XWikiRCSNodeContent latestContent = latestNode.getContent(context);
+            XWikiPatch diff = new XWikiPatch().setDiffVersion(latestContent.getPatch().getContent(), doc, context);
+            if (!isSnapshotNeeded(latestNode, diff, context)) {
+                latestContent.setPatch(diff);
                 latestNode.setContent(latestContent);
                 updateNode(latestNode);
                 getUpdatedNodeContents().add(latestContent);
@@ -144,6 +140,63 @@ protected XWikiRCSNodeContent makePatch(XWikiRCSNodeInfo newnode, XWikiDocument
         return result;
     }
 
+    /**
+     * Indicate if the previous latest version should be kept as a full version (snapshot) instead of being replaced
+     * by a diff, so that the number and the size of the patches to apply to rebuild any version stay bounded.
+     *
+     * @param previousLatestNode the node which is not the latest version anymore
+     * @param diff the diff which would replace the full content of the previous latest node
+     * @param context used to read the configuration and load the content of the older nodes
+     * @return {@code true} if the previous latest version should be kept full
+     * @throws XWikiException if exception while loading content
+     */
+    private boolean isSnapshotNeeded(XWikiRCSNodeInfo previousLatestNode, XWikiPatch diff, XWikiContext context)
+        throws XWikiException
+    {
+        int nodesPerFull = getNodesPerFull(context);
+        long maxDiffSize = getMaxDiffSizePerFull(context);
+
+        // The older versions use the diff of the previous latest node, after the diffs of the versions between them
+        int chainLength = 1;
+        long chainSize = diff.getContent().length();
+        for (Version version = getPrevVersion(previousLatestNode.getVersion());
+            version != null && !isSnapshotNeeded(chainLength, chainSize, nodesPerFull, maxDiffSize);
+            version = getPrevVersion(version)) {
+            XWikiRCSNodeInfo node = getNode(version);
+            if (!node.isDiff()) {
+                break;
+            }
+
+            chainLength++;
+            if (maxDiffSize > 0) {
+                chainSize += node.getContent(context).getPatch().getContent().length();
+            }
+        }
+
+        return isSnapshotNeeded(chainLength, chainSize, nodesPerFull, maxDiffSize);
+    }
+
+    private boolean isSnapshotNeeded(int chainLength, long chainSize, int nodesPerFull, long maxDiffSize)
+    {
+        return (nodesPerFull > 0 && chainLength >= nodesPerFull) || (maxDiffSize > 0 && chainSize > maxDiffSize);
+    }
+
+    private int getNodesPerFull(XWikiContext context)
+    {
+        return context.getWiki() == null ? 5
+            : Integer.parseInt(context.getWiki().getConfig().getProperty("xwiki.store.rcs.nodesPerFull", "5"));
+    }
+
+    /**
+     * @return the maximum size of the diffs to apply to a full version to rebuild an older version, in characters, or
+     *         0 if there is no limit
+     */
+    private long getMaxDiffSizePerFull(XWikiContext context)
+    {
+        return context.getWiki() == null ? 0 : Long.parseLong(
+            context.getWiki().getConfig().getProperty("xwiki.store.rcs.maxDiffSizePerFull", "0")) * 1024;
+    }
+
     /** @return {@link XWikiDocument#getId()} - primary key */
     public long getId()
     {
@@ -174,6 +227,55 @@ public Collection<XWikiRCSNodeInfo> getNodes(Version vfrom, Version vto)
         return this.versionToNode.subMap(vfrom, new Version(ito)).values();
     }
 
+    /**
+     * @param olderThan the version before which to start, {@code null} to start with the latest version
+     * @param limit the maximum number of nodes to return, 0 or less for no limit
+     * @return the nodes of the versions older than the passed version, order by version desc
+     * @since 12.6RC1
+     */
+    public List<XWikiRCSNodeInfo> getOlderNodes(Version olderThan, int limit)
+    {
+        Collection<XWikiRCSNodeInfo> nodes;
+        if (olderThan != null) {
+            // tailMap is inclusive
+            nodes = this.versionToNode.tailMap(olderThan).values();
+        } else {
+            nodes = this.versionToNode.values();
+        }
+
+        List<XWikiRCSNodeInfo> result = new ArrayList<>();
+        for (XWikiRCSNodeInfo node : nodes) {
+            if (limit > 0 && result.size() == limit) {
+                break;
+            }
+            if (olderThan == null || !node.getVersion().equals(olderThan)) {
+                result.add(node);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param includeMinorVersions {@code false} to keep only the last version of each major version, i.e. to hide the
+     *            versions followed by a minor edit
+     * @return the nodes of the archive, order by version desc
+     * @since 12.6RC1
+     */
+    public List<XWikiRCSNodeInfo> getNodes(boolean includeMinorVersions)
+    {
+        List<XWikiRCSNodeInfo> result = new ArrayList<>();
+        XWikiRCSNodeInfo newer = null;
+        for (XWikiRCSNodeInfo node : this.versionToNode.values()) {
+            if (includeMinorVersions || newer == null || newer.getVersion().at(0) != node.getVersion().at(0)) {
+                result.add(node);
+            }
+            newer = node;
+        }
+
+        return result;
+    }
+
     /** @param versions - collection of XWikiRCSNodeInfo */
     public void setNodes(Collection<XWikiRCSNodeInfo> versions)
     {
@@ -311,6 +413,55 @@ public void removeVersions(Version newerVersion, Version olderVersion, XWikiCont
         }
     }
 
+    /**
+     * Turn into full versions the diffs which are too far (in number of diffs or in size of diffs to apply) from the
+     * nearest full version, according to the same policy used when the archive is updated. This is useful for
+     * archives created with another policy or imported from a XAR. The other nodes are left untouched, and since the
+     * diff of a node only depends on the next version, this can be done while the document is being modified.
+     *
+     * @param context used for loading nodes content
+     * @return {@code true} if some nodes were modified and the archive needs to be saved
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    public boolean compact(XWikiContext context) throws XWikiException
+    {
+        int nodesPerFull = getNodesPerFull(context);
+        long maxDiffSize = getMaxDiffSizePerFull(context);
+        if (nodesPerFull <= 0 && maxDiffSize <= 0) {
+            return false;
+        }
+
+        boolean modified = false;
+        List<String> text = new ArrayList<>();
+        int chainLength = 0;
+        long chainSize = 0;
+        // From the latest version to the oldest one
+        for (XWikiRCSNodeInfo node : new ArrayList<>(getNodes())) {
+            XWikiRCSNodeContent content = node.getContent(context);
+            content.getPatch().patch(text);
+
+            if (node.isDiff()) {
+                chainLength++;
+                chainSize += content.getPatch().getContent().length();
+                if (isSnapshotNeeded(chainLength, chainSize, nodesPerFull, maxDiffSize)) {
+                    content.getPatch().setFullVersion(ToString.arrayToString(text.toArray()));
+                    node.setContent(content);
+                    updateNode(node);
+                    getUpdatedNodeContents().add(content);
+                    modified = true;
+                }
+            }
+
+            if (!node.isDiff()) {
+                chainLength = 0;
+                chainSize = 0;
+            }
+        }
+
+        return modified;
+    }
+
     /**
      * @return selected version of document, null if version is not found.
      * @param version - which version to load
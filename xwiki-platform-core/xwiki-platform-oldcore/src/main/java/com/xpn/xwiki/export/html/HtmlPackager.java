@@ -21,11 +21,26 @@
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -36,6 +51,7 @@
 import org.apache.commons.io.filefilter.SuffixFileFilter;
 import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xwiki.component.util.DefaultParameterizedType;
@@ -43,10 +59,12 @@
 import org.xwiki.context.ExecutionContextException;
 import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.environment.Environment;
+import org.xwiki.job.event.status.JobProgressManager;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.stability.Unstable;
 import org.xwiki.url.URLContextManager;
 import org.xwiki.url.filesystem.FilesystemExportContext;
 import org.xwiki.url.internal.filesystem.FilesystemExportContextProvider;
@@ -84,6 +102,22 @@
      */
     private static final String ZIPPATH_SEPARATOR = "/";
 
+    /**
+     * The suffix of the file in which the parallel export keeps the skins needed by a rendered page, next to the page.
+     */
+    private static final String STATE_FILE_SUFFIX = ".skins";
+
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * The time (in seconds) to wait for the pages being rendered when the parallel export is stopped.
+     */
+    private static final long TERMINATION_TIMEOUT = 60;
+
+    private static final String STATE_SKIN = "skin:";
+
+    private static final String STATE_SKIN_FILE = "file:";
+
     /**
      * The name of the package for which packager append ".zip".
      */
@@ -97,7 +131,7 @@
     /**
      * The references to the pages to export.
      */
-    private Set<DocumentReference> pageReferences = new HashSet<>();
+    private Set<DocumentReference> pageReferences = new LinkedHashSet<>();
 
     /**
      * Used to get the temporary directory.
@@ -107,6 +141,25 @@
     private EntityReferenceSerializer<String> pathEntityReferenceSerializer =
         Utils.getComponent(EntityReferenceSerializer.TYPE_STRING, "path");
 
+    private JobProgressManager progressManager = Utils.getComponent(JobProgressManager.class);
+
+    /**
+     * A page rendered by a worker thread of the parallel export.
+     */
+    private static final class RenderedPage
+    {
+        private final String zipName;
+
+        private final Set<String> neededSkins = new HashSet<>();
+
+        private final Set<String> exportedSkinFiles = new HashSet<>();
+
+        RenderedPage(String zipName)
+        {
+            this.zipName = zipName;
+        }
+    }
+
     /**
      * Modify the name of the package for which packager append ".zip".
      *
@@ -220,18 +273,30 @@ private void renderDocument(DocumentReference pageReference, ZipOutputStream zos
             return;
         }
 
+        ZipEntry zipentry = new ZipEntry(getZipEntryName(doc));
+        zos.putNextEntry(zipentry);
+
+        zos.write(renderDocumentContent(doc, exportContext, context));
+        zos.closeEntry();
+    }
+
+    private String getZipEntryName(XWikiDocument doc)
+    {
         // Compute the location of the page inside the zip. We put pages inside directories for scalability as
         // otherwise on some OS we wouldn't be able to unzip if there are pages having a path longer than 255 chars...
-        String zipname = "pages/" + this.pathEntityReferenceSerializer.serialize(pageReference);
+        String zipname = "pages/" + this.pathEntityReferenceSerializer.serialize(doc.getDocumentReference());
         String language = doc.getLanguage();
         if (language != null && language.length() != 0) {
             zipname += POINT + language;
         }
         zipname += ".html";
 
-        ZipEntry zipentry = new ZipEntry(zipname);
-        zos.putNextEntry(zipentry);
+        return zipname;
+    }
 
+    private byte[] renderDocumentContent(XWikiDocument doc, FilesystemExportContext exportContext,
+        XWikiContext context) throws IOException
+    {
         try {
             context.setWikiId(doc.getDocumentReference().getWikiReference().getName());
             context.setDoc(doc);
@@ -246,10 +311,10 @@ private void renderDocument(DocumentReference pageReference, ZipOutputStream zos
 
             String content = evaluateDocumentContent(context);
 
-            zos.write(content.getBytes(context.getWiki().getEncoding()));
-            zos.closeEntry();
+            return content.getBytes(context.getWiki().getEncoding());
         } catch (Exception e) {
-            throw new IOException(String.format("Failed to render document [%s] for HTML export", pageReference), e);
+            throw new IOException(
+                String.format("Failed to render document [%s] for HTML export", doc.getDocumentReference()), e);
         }
     }
 
@@ -405,6 +470,230 @@ public void export(XWikiContext context) throws IOException, XWikiException
         }
     }
 
+    /**
+     * Render the pages to export in parallel and write the ZIP package to a file instead of the response. The rendered
+     * pages and the files they need are kept in the passed working directory so that an interrupted export can be
+     * resumed by calling this method again with the same working directory: the pages which have already been rendered
+     * are not rendered again. The pages are rendered with the rights of the current user and the progress is reported
+     * through the {@link JobProgressManager}, one step per page.
+     *
+     * @param zipFile the file where to write the ZIP package
+     * @param workDirectory the directory where to keep the rendered pages and the files they need
+     * @param threads the maximum number of pages to render at the same time
+     * @param canceled indicate if the export has been canceled, checked after each rendered page
+     * @param context the XWiki context used to render pages
+     * @return {@code true} if the ZIP package has been written, {@code false} if the export has been canceled
+     * @throws IOException error when creating the package
+     * @throws XWikiException error when rendering the pages
+     * @since 12.6RC1
+     */
+    @Unstable
+    public boolean export(File zipFile, File workDirectory, int threads, BooleanSupplier canceled,
+        XWikiContext context) throws IOException, XWikiException
+    {
+        File exportDirectory = new File(workDirectory, "export");
+        new File(exportDirectory, "attachment").mkdirs();
+
+        Set<String> neededSkins = new LinkedHashSet<>();
+        Set<String> exportedSkinFiles = new LinkedHashSet<>();
+
+        // Each worker thread has its own URL factory since the export context holds the state of the page being
+        // rendered. The skins and skin files they find are saved next to each rendered page and merged when writing
+        // the ZIP package.
+        BlockingQueue<ExportURLFactory> urlFactories = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; ++i) {
+            ExportURLFactory urlf = new ExportURLFactory();
+            urlf.init(this.pageReferences, exportDirectory, new FilesystemExportContext(), context);
+            urlFactories.add(urlf);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new BasicThreadFactory.Builder().namingPattern("HTML export worker-%d").daemon(true).build());
+
+        this.progressManager.pushLevelProgress(this.pageReferences.size() + 1, this);
+
+        try {
+            List<Future<RenderedPage>> futures = new ArrayList<>(this.pageReferences.size());
+            for (DocumentReference pageReference : this.pageReferences) {
+                futures.add(executor
+                    .submit(() -> renderDocument(pageReference, workDirectory, urlFactories, context)));
+            }
+
+            // Collect the results in the order of the pages to report a consistent progress
+            List<String> renderedPages = new ArrayList<>(futures.size());
+            for (Future<RenderedPage> future : futures) {
+                this.progressManager.startStep(this);
+
+                RenderedPage renderedPage = getRenderedPage(future);
+                if (renderedPage != null) {
+                    renderedPages.add(renderedPage.zipName);
+                    neededSkins.addAll(renderedPage.neededSkins);
+                    exportedSkinFiles.addAll(renderedPage.exportedSkinFiles);
+                }
+
+                this.progressManager.endStep(this);
+
+                if (canceled.getAsBoolean()) {
+                    return false;
+                }
+            }
+
+            this.progressManager.startStep(this);
+
+            writeZip(zipFile, workDirectory, exportDirectory, renderedPages, neededSkins, exportedSkinFiles,
+                context);
+
+            this.progressManager.endStep(this);
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+
+            this.progressManager.popLevelProgress(this);
+        }
+
+        return true;
+    }
+
+    private RenderedPage renderDocument(DocumentReference pageReference, File workDirectory,
+        BlockingQueue<ExportURLFactory> urlFactories, XWikiContext context) throws XWikiException, IOException,
+        InterruptedException
+    {
+        ExecutionContextManager ecm = Utils.getComponent(ExecutionContextManager.class);
+        ExportURLFactory urlf = urlFactories.take();
+        try {
+            // Isolate and initialize Contexts
+            FilesystemExportContext exportContext = urlf.getFilesystemExportContext();
+            XWikiContext renderContext = initializeContexts(ecm, urlf, exportContext, context);
+
+            XWikiDocument doc = renderContext.getWiki().getDocument(pageReference, renderContext);
+            if (doc.isNew()) {
+                // Skip non-existing documents.
+                return null;
+            }
+
+            RenderedPage renderedPage = new RenderedPage(getZipEntryName(doc));
+            File pageFile = new File(workDirectory, renderedPage.zipName);
+            File stateFile = new File(pageFile.getParentFile(), pageFile.getName() + STATE_FILE_SUFFIX);
+            if (pageFile.exists()) {
+                // Rendered before the export was interrupted
+                readState(stateFile, renderedPage);
+            } else {
+                byte[] content = renderDocumentContent(doc, exportContext, renderContext);
+
+                renderedPage.neededSkins.addAll(exportContext.getNeededSkins());
+                renderedPage.exportedSkinFiles.addAll(exportContext.getExportedSkinFiles());
+
+                // Write the skins needed by the page before the page itself so that they are known when resuming
+                writeState(stateFile, renderedPage);
+
+                // Write the page atomically so that a partially written page is never reused when resuming
+                writeAtomically(pageFile, content);
+            }
+
+            return renderedPage;
+        } catch (ExecutionContextException e) {
+            throw new XWikiException(XWikiException.MODULE_XWIKI_EXPORT, XWikiException.ERROR_XWIKI_INIT_FAILED,
+                "Failed to initialize Execution Context", e);
+        } finally {
+            // Clean up context
+            ecm.popContext();
+            urlFactories.add(urlf);
+        }
+    }
+
+    private RenderedPage getRenderedPage(Future<RenderedPage> future) throws IOException, XWikiException
+    {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while waiting for the rendering of a page", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof XWikiException) {
+                throw (XWikiException) e.getCause();
+            }
+
+            throw new IOException("Failed to render a page for HTML export", e.getCause());
+        }
+    }
+
+    private void writeZip(File zipFile, File workDirectory, File exportDirectory, List<String> renderedPages,
+        Set<String> neededSkins, Set<String> exportedSkinFiles, XWikiContext context) throws IOException
+    {
+        File tmpFile = new File(zipFile.getParentFile(), zipFile.getName() + TMP_FILE_SUFFIX);
+
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(tmpFile))) {
+            // Add the rendered pages
+            for (String renderedPage : renderedPages) {
+                zos.putNextEntry(new ZipEntry(renderedPage));
+                try {
+                    FileUtils.copyFile(new File(workDirectory, renderedPage), zos);
+                } finally {
+                    zos.closeEntry();
+                }
+            }
+
+            // Add required skins to ZIP file
+            for (String skinName : neededSkins) {
+                addSkinToZip(skinName, zos, exportedSkinFiles, context);
+            }
+
+            // Copy generated files in the ZIP file.
+            addDirToZip(exportDirectory, TrueFileFilter.TRUE, zos, "", null);
+
+            // Generate an index page
+            generateIndexPage(zos, context);
+
+            zos.setComment(this.description);
+        }
+
+        Files.move(tmpFile.toPath(), zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void readState(File stateFile, RenderedPage renderedPage) throws IOException
+    {
+        if (stateFile.exists()) {
+            for (String line : FileUtils.readLines(stateFile, StandardCharsets.UTF_8)) {
+                if (line.startsWith(STATE_SKIN)) {
+                    renderedPage.neededSkins.add(line.substring(STATE_SKIN.length()));
+                } else if (line.startsWith(STATE_SKIN_FILE)) {
+                    renderedPage.exportedSkinFiles.add(line.substring(STATE_SKIN_FILE.length()));
+                }
+            }
+        }
+    }
+
+    private static void writeState(File stateFile, RenderedPage renderedPage) throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        renderedPage.neededSkins.forEach(skin -> builder.append(STATE_SKIN).append(skin).append('\n'));
+        renderedPage.exportedSkinFiles
+            .forEach(skinFile -> builder.append(STATE_SKIN_FILE).append(skinFile).append('\n'));
+
+        writeAtomically(stateFile, builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeAtomically(File file, byte[] content) throws IOException
+    {
+        File tmpFile = new File(file.getParentFile(), file.getName() + TMP_FILE_SUFFIX);
+        FileUtils.writeByteArrayToFile(tmpFile, content);
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void awaitTermination(ExecutorService executor)
+    {
+        try {
+            if (!executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("Some pages of the HTML export are still being rendered after [{}] seconds.",
+                    TERMINATION_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void generateIndexPage(ZipOutputStream zos, XWikiContext context) throws IOException
     {
         StringBuilder builder = new StringBuilder();
@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.export;
+
+import java.io.File;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.io.FileUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.annotation.InstantiationStrategy;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.environment.Environment;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.job.Request;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.export.html.HtmlPackager;
+
+/**
+ * Render a set of pages in parallel in the background and write the resulting HTML export package in a temporary
+ * file, see {@link #getZipFile(Environment, List)}. The pages which have already been rendered are kept when the job
+ * is canceled or fails so that running the same request again resumes the export.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component
+@InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
+@Named(HtmlExportJob.JOBTYPE)
+public class HtmlExportJob extends AbstractJob<HtmlExportRequest, DefaultJobStatus<HtmlExportRequest>>
+{
+    /**
+     * The type of the job.
+     */
+    public static final String JOBTYPE = "export.html";
+
+    private static final String WORK_DIRECTORY = "work";
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Environment environment;
+
+    /**
+     * @param environment the environment providing the temporary directory
+     * @param jobId the identifier of the export job
+     * @return the file containing the package once the export is finished
+     */
+    public static File getZipFile(Environment environment, List<String> jobId)
+    {
+        return new File(getDirectory(environment, jobId), "export.zip");
+    }
+
+    private static File getDirectory(Environment environment, List<String> jobId)
+    {
+        return new File(environment.getTemporaryDirectory(), String.join(File.separator, jobId));
+    }
+
+    @Override
+    protected HtmlExportRequest castRequest(Request request)
+    {
+        HtmlExportRequest exportRequest;
+        if (request instanceof HtmlExportRequest) {
+            exportRequest = (HtmlExportRequest) request;
+        } else {
+            exportRequest = new HtmlExportRequest(request);
+        }
+
+        return exportRequest;
+    }
+
+    @Override
+    public String getType()
+    {
+        return JOBTYPE;
+    }
+
+    @Override
+    protected void runInternal() throws Exception
+    {
+        getStatus().setCancelable(true);
+
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        HtmlPackager packager = new HtmlPackager();
+        packager.setName(getRequest().getName());
+        if (getRequest().getDescription() != null) {
+            packager.setDescription(getRequest().getDescription());
+        }
+        packager.addPageReferences(getRequest().getPages());
+
+        int threads = (int) xcontext.getWiki().ParamAsLong("xwiki.action.export.html.threads",
+            Runtime.getRuntime().availableProcessors());
+
+        File workDirectory = new File(getDirectory(this.environment, getRequest().getId()), WORK_DIRECTORY);
+        if (packager.export(getZipFile(this.environment, getRequest().getId()), workDirectory, Math.max(threads, 1),
+            getStatus()::isCanceled, xcontext)) {
+            FileUtils.deleteDirectory(workDirectory);
+        } else {
+            this.logger.info("HTML export canceled, run it again to resume it");
+        }
+    }
+}
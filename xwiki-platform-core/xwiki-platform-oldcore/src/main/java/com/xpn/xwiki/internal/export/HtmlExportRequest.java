@@ -0,0 +1,101 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.export;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.job.Request;
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * Request for the {@link HtmlExportJob}.
+ * <p>
+ * The identifier of the request is computed from the exported pages, the name of the package and the user requesting
+ * the export so that requesting the same export again resumes the previous one if it has been interrupted.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class HtmlExportRequest extends AbstractRequest
+{
+    private static final String PROPERTY_PAGES = "pages";
+
+    private static final String PROPERTY_NAME = "name";
+
+    private static final String PROPERTY_DESCRIPTION = "description";
+
+    /**
+     * @param pages the pages to export
+     * @param name the name of the package
+     * @param description the description of the package
+     * @param userReference the user requesting the export
+     */
+    public HtmlExportRequest(Collection<DocumentReference> pages, String name, String description,
+        DocumentReference userReference)
+    {
+        setProperty(PROPERTY_PAGES, new ArrayList<>(pages));
+        setProperty(PROPERTY_NAME, name);
+        setProperty(PROPERTY_DESCRIPTION, description);
+
+        StringBuilder key = new StringBuilder();
+        key.append(userReference).append('\n').append(name).append('\n').append(description);
+        pages.stream().map(DocumentReference::toString).sorted().forEach(page -> key.append('\n').append(page));
+        setId(Arrays.asList("export", "html", DigestUtils.sha256Hex(key.toString())));
+
+        setInteractive(false);
+    }
+
+    /**
+     * @param request the request to copy
+     */
+    public HtmlExportRequest(Request request)
+    {
+        super(request);
+    }
+
+    /**
+     * @return the pages to export
+     */
+    public List<DocumentReference> getPages()
+    {
+        return getProperty(PROPERTY_PAGES);
+    }
+
+    /**
+     * @return the name of the package
+     */
+    public String getName()
+    {
+        return getProperty(PROPERTY_NAME);
+    }
+
+    /**
+     * @return the description of the package
+     */
+    public String getDescription()
+    {
+        return getProperty(PROPERTY_DESCRIPTION);
+    }
+}
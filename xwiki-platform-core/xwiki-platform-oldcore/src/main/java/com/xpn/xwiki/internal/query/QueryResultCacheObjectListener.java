@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.query;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.query.internal.QueryResultCache;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Invalidate the cached query results depending on a class when a document holding (or which used to hold) an object
+ * of this class is created, updated or deleted.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component
+@Named(QueryResultCacheObjectListener.NAME)
+@Singleton
+public class QueryResultCacheObjectListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "QueryResultCacheObjectListener";
+
+    private static final List<Event> EVENTS =
+        Arrays.<Event>asList(new DocumentCreatedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent());
+
+    @Inject
+    private Provider<QueryResultCache> cacheProvider;
+
+    /**
+     * Default constructor.
+     */
+    public QueryResultCacheObjectListener()
+    {
+        super(NAME, EVENTS);
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiDocument document = (XWikiDocument) source;
+
+        Set<DocumentReference> classReferences = new HashSet<>(document.getXObjects().keySet());
+        if (document.getOriginalDocument() != null) {
+            classReferences.addAll(document.getOriginalDocument().getXObjects().keySet());
+        }
+
+        if (!classReferences.isEmpty()) {
+            QueryResultCache cache = this.cacheProvider.get();
+            for (DocumentReference classReference : classReferences) {
+                cache.invalidateClass(classReference);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.annotation.InstantiationStrategy;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.job.Request;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocumentArchive;
+import com.xpn.xwiki.store.XWikiVersioningStoreInterface;
+
+/**
+ * Rewrite the existing document archives so that any version can be rebuilt by applying a bounded number of diffs
+ * (see {@link XWikiDocumentArchive#compact(XWikiContext)}). The archives are loaded and saved one by one so the job
+ * can run in the background while the wiki is used.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component
+@InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
+@Named(DocumentArchiveCompactionJob.JOBTYPE)
+public class DocumentArchiveCompactionJob
+    extends AbstractJob<DocumentArchiveCompactionRequest, DefaultJobStatus<DocumentArchiveCompactionRequest>>
+{
+    /**
+     * The type of the job.
+     */
+    public static final String JOBTYPE = "store.archive.compaction";
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String DOCUMENT_IDS_QUERY = "select distinct rcs.id.docId from XWikiRCSNodeInfo rcs "
+        + "where rcs.id.docId > :lastId order by rcs.id.docId";
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Override
+    protected DocumentArchiveCompactionRequest castRequest(Request request)
+    {
+        DocumentArchiveCompactionRequest compactionRequest;
+        if (request instanceof DocumentArchiveCompactionRequest) {
+            compactionRequest = (DocumentArchiveCompactionRequest) request;
+        } else {
+            compactionRequest = new DocumentArchiveCompactionRequest(request);
+        }
+
+        return compactionRequest;
+    }
+
+    @Override
+    public String getType()
+    {
+        return JOBTYPE;
+    }
+
+    @Override
+    protected void runInternal() throws Exception
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        Collection<String> wikis = getRequest().getWikis();
+        if (wikis.isEmpty()) {
+            wikis = xcontext.getWiki().getVirtualWikisDatabaseNames(xcontext);
+        }
+
+        this.progressManager.pushLevelProgress(wikis.size(), this);
+
+        String currentWiki = xcontext.getWikiId();
+        try {
+            for (String wiki : wikis) {
+                this.progressManager.startStep(this);
+
+                xcontext.setWikiId(wiki);
+                compact(wiki, xcontext);
+
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            xcontext.setWikiId(currentWiki);
+
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private void compact(String wiki, XWikiContext xcontext) throws QueryException
+    {
+        this.logger.info("Compacting the document archives of wiki [{}]", wiki);
+
+        XWikiVersioningStoreInterface versioningStore = xcontext.getWiki().getVersioningStore();
+
+        int compacted = 0;
+        long lastId = Long.MIN_VALUE;
+        List<Long> ids;
+        do {
+            Query query = this.queryManager.createQuery(DOCUMENT_IDS_QUERY, Query.HQL);
+            query.setWiki(wiki);
+            query.bindValue("lastId", lastId);
+            query.setLimit(BATCH_SIZE);
+            ids = new ArrayList<>(query.<Long>execute());
+
+            for (Long id : ids) {
+                if (compact(id, versioningStore, xcontext)) {
+                    compacted++;
+                }
+                lastId = id;
+            }
+        } while (ids.size() == BATCH_SIZE);
+
+        this.logger.info("Compacted [{}] document archives in wiki [{}]", compacted, wiki);
+    }
+
+    private boolean compact(long documentId, XWikiVersioningStoreInterface versioningStore, XWikiContext xcontext)
+    {
+        try {
+            XWikiDocumentArchive archive = new XWikiDocumentArchive(documentId);
+            versioningStore.loadXWikiDocArchive(archive, true, xcontext);
+            if (archive.compact(xcontext)) {
+                versioningStore.saveXWikiDocArchive(archive, true, xcontext);
+
+                return true;
+            }
+        } catch (XWikiException e) {
+            this.logger.warn("Failed to compact the archive of the document with id [{}]: {}", documentId,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return false;
+    }
+}
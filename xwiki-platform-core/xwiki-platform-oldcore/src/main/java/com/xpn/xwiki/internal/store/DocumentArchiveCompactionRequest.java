@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.job.Request;
+
+/**
+ * Request for the {@link DocumentArchiveCompactionJob}.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class DocumentArchiveCompactionRequest extends AbstractRequest
+{
+    private static final String PROPERTY_WIKIS = "wikis";
+
+    /**
+     * Create a request for all the wikis.
+     */
+    public DocumentArchiveCompactionRequest()
+    {
+        setId(Arrays.asList("store", "archive", "compaction"));
+        setInteractive(false);
+    }
+
+    /**
+     * @param request the request to copy
+     */
+    public DocumentArchiveCompactionRequest(Request request)
+    {
+        super(request);
+    }
+
+    /**
+     * @return the identifiers of the wikis whose document archives should be compacted, all the wikis if empty
+     */
+    public Collection<String> getWikis()
+    {
+        Collection<String> wikis = getProperty(PROPERTY_WIKIS);
+
+        return wikis != null ? wikis : Collections.emptyList();
+    }
+
+    /**
+     * @param wikis the identifiers of the wikis whose document archives should be compacted, all the wikis if empty
+     */
+    public void setWikis(Collection<String> wikis)
+    {
+        setProperty(PROPERTY_WIKIS, wikis);
+    }
+}
@@ -128,6 +128,16 @@ public boolean isExitAfterMigration()
         return this.xwikiConfiguration.getProperty("xwiki.store.migration.exitAfterEnd", 0) == 1;
     }
 
+    /**
+     * @return the number of rows to fetch at once from the database when iterating the results of a query without
+     *         loading them all in memory
+     * @since 12.6RC1
+     */
+    public int getScrollFetchSize()
+    {
+        return this.xwikiConfiguration.getProperty("xwiki.store.hibernate.scrollFetchSize", 1000);
+    }
+
     private List<String> getList(String key)
     {
         return Arrays.asList(StringUtils.split(this.xwikiConfiguration.getProperty(key, ""), " ,"));
@@ -0,0 +1,85 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store.hibernate;
+
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Expose the statistics of the current Hibernate session factory.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class HibernateQueryStatistics implements HibernateQueryStatisticsMBean
+{
+    private final Supplier<SessionFactory> sessionFactory;
+
+    /**
+     * @param sessionFactory provide the current session factory (it changes when the store is reconfigured)
+     */
+    public HibernateQueryStatistics(Supplier<SessionFactory> sessionFactory)
+    {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private Statistics getStatistics()
+    {
+        return this.sessionFactory.get().getStatistics();
+    }
+
+    @Override
+    public boolean isStatisticsEnabled()
+    {
+        return getStatistics().isStatisticsEnabled();
+    }
+
+    @Override
+    public long getQueryPlanCacheHitCount()
+    {
+        return getStatistics().getQueryPlanCacheHitCount();
+    }
+
+    @Override
+    public long getQueryPlanCacheMissCount()
+    {
+        return getStatistics().getQueryPlanCacheMissCount();
+    }
+
+    @Override
+    public long getQueryExecutionCount()
+    {
+        return getStatistics().getQueryExecutionCount();
+    }
+
+    @Override
+    public long getQueryExecutionMaxTime()
+    {
+        return getStatistics().getQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getQueryExecutionMaxTimeQueryString()
+    {
+        return getStatistics().getQueryExecutionMaxTimeQueryString();
+    }
+}
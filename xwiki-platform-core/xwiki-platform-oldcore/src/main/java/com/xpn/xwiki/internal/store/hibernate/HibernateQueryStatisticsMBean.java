@@ -0,0 +1,60 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store.hibernate;
+
+/**
+ * Management interface exposing the Hibernate query statistics, in particular the efficiency of the query plan cache.
+ * Only available when {@code hibernate.generate_statistics} is enabled.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public interface HibernateQueryStatisticsMBean
+{
+    /**
+     * @return whether the statistics are collected
+     */
+    boolean isStatisticsEnabled();
+
+    /**
+     * @return the number of times a query plan was found in the plan cache
+     */
+    long getQueryPlanCacheHitCount();
+
+    /**
+     * @return the number of times a query had to be parsed because its plan was not in the plan cache
+     */
+    long getQueryPlanCacheMissCount();
+
+    /**
+     * @return the number of executed queries
+     */
+    long getQueryExecutionCount();
+
+    /**
+     * @return the time taken by the slowest query, in milliseconds
+     */
+    long getQueryExecutionMaxTime();
+
+    /**
+     * @return the slowest query
+     */
+    String getQueryExecutionMaxTimeQueryString();
+}
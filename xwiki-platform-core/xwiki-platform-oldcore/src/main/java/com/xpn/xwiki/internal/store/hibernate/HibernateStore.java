@@ -21,6 +21,7 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
@@ -29,7 +30,9 @@
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.function.Function;
 
@@ -37,6 +40,8 @@
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -119,6 +124,8 @@ public class HibernateStore implements Disposable, Integrator, Initializable
      */
     private static final String PROPERTY_TIMEZONE = "timezone";
 
+    private static final String STATISTICS_MBEAN_NAME = "org.xwiki:type=store,name=hibernateQueries";
+
     @Inject
     private Logger logger;
 
@@ -290,6 +297,22 @@ public void build()
 
         // Create a new session factory
         this.sessionFactory = this.configuration.buildSessionFactory(standardServiceRegistry);
+
+        registerStatistics();
+    }
+
+    private void registerStatistics()
+    {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(STATISTICS_MBEAN_NAME);
+            if (!mbs.isRegistered(name)) {
+                mbs.registerMBean(new HibernateQueryStatistics(this::getSessionFactory), name);
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to register the Hibernate query statistics against the JMX Server: {}",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
     }
 
     private void disposeInternal()
@@ -306,6 +329,17 @@ private void disposeInternal()
     public void dispose() throws ComponentLifecycleException
     {
         disposeInternal();
+
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(STATISTICS_MBEAN_NAME);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to unregister the Hibernate query statistics from the JMX Server: {}",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
     }
 
     /**
@@ -637,42 +671,168 @@ public void setWiki(Session session) throws XWikiException
     public void setWiki(Session session, String wikiId) throws XWikiException
     {
         try {
-            this.logger.debug("Set the right catalog in the session [{}]", wikiId);
+            setWikiInternal(session, wikiId);
+        } catch (Exception e) {
+            // close session with rollback to avoid further usage
+            endTransaction(false);
 
-            // Switch the database only if we did not switched on it last time
-            if (wikiId != null) {
-                String databaseName = getDatabaseFromWikiName(wikiId);
-                String escapedDatabaseName = escapeDatabaseName(databaseName);
+            Object[] args = { wikiId };
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_SWITCH_DATABASE, "Exception while switching to database {0}",
+                e, args);
+        }
+    }
 
-                DatabaseProduct product = getDatabaseProductName();
-                if (DatabaseProduct.ORACLE == product) {
-                    executeStatement("alter session set current_schema = " + escapedDatabaseName, session);
-                } else if (DatabaseProduct.DERBY == product || DatabaseProduct.HSQLDB == product
-                    || DatabaseProduct.DB2 == product || DatabaseProduct.H2 == product) {
-                    executeStatement("SET SCHEMA " + escapedDatabaseName, session);
-                } else if (DatabaseProduct.POSTGRESQL == product && isConfiguredInSchemaMode()) {
-                    executeStatement("SET search_path TO " + escapedDatabaseName, session);
-                } else {
-                    session.doWork(connection -> {
-                        String catalog = connection.getCatalog();
-                        catalog = (catalog == null) ? null : catalog.replace('_', '-');
-                        if (!databaseName.equals(catalog)) {
-                            connection.setCatalog(databaseName);
-                        }
-                    });
-                }
+    private void setWikiInternal(Session session, String wikiId) throws Exception
+    {
+        this.logger.debug("Set the right catalog in the session [{}]", wikiId);
+
+        // Switch the database only if we did not switched on it last time
+        if (wikiId != null) {
+            String databaseName = getDatabaseFromWikiName(wikiId);
+            String escapedDatabaseName = escapeDatabaseName(databaseName);
+
+            DatabaseProduct product = getDatabaseProductName();
+            if (DatabaseProduct.ORACLE == product) {
+                executeStatement("alter session set current_schema = " + escapedDatabaseName, session);
+            } else if (DatabaseProduct.DERBY == product || DatabaseProduct.HSQLDB == product
+                || DatabaseProduct.DB2 == product || DatabaseProduct.H2 == product) {
+                executeStatement("SET SCHEMA " + escapedDatabaseName, session);
+            } else if (DatabaseProduct.POSTGRESQL == product && isConfiguredInSchemaMode()) {
+                executeStatement("SET search_path TO " + escapedDatabaseName, session);
+            } else {
+                session.doWork(connection -> {
+                    String catalog = connection.getCatalog();
+                    catalog = (catalog == null) ? null : catalog.replace('_', '-');
+                    if (!databaseName.equals(catalog)) {
+                        connection.setCatalog(databaseName);
+                    }
+                });
             }
+        }
 
-            getDataMigrationManager().checkDatabase();
+        getDataMigrationManager().checkDatabase();
+    }
+
+    /**
+     * Open a new read-only session, independent from the one associated with the current execution context, and begin
+     * a transaction in it. This is useful to keep a cursor open on the results of a query while the current thread
+     * keeps using the store. It is the responsibility of the caller to close the session (with
+     * {@link #closeIndependentSession(Session)}).
+     *
+     * @param wikiId the id of the wiki on which the session should be positioned
+     * @return the new session
+     * @throws XWikiException when failing to switch to the wiki
+     * @since 12.6RC1
+     */
+    public Session openIndependentSession(String wikiId) throws XWikiException
+    {
+        Session session = getSessionFactory().openSession();
+
+        // Put back legacy feature to the Hibernate session
+        if (session instanceof SessionImplementor) {
+            session = new LegacySessionImplementor((SessionImplementor) session, this.loggerConfiguration);
+        }
+
+        try {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            session.beginTransaction();
+
+            setWikiInternal(session, wikiId);
         } catch (Exception e) {
-            // close session with rollback to avoid further usage
-            endTransaction(false);
+            closeIndependentSession(session);
 
             Object[] args = { wikiId };
             throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
                 XWikiException.ERROR_XWIKI_STORE_HIBERNATE_SWITCH_DATABASE, "Exception while switching to database {0}",
                 e, args);
         }
+
+        return session;
+    }
+
+    /**
+     * Rollback the transaction of a session opened with {@link #openIndependentSession(String)} and close it.
+     *
+     * @param session the session to close
+     * @since 12.6RC1
+     */
+    public void closeIndependentSession(Session session)
+    {
+        try {
+            Transaction transaction = session.getTransaction();
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+        } catch (HibernateException e) {
+            this.logger.warn("Failed to rollback the transaction of the session [{}]: {}", session,
+                ExceptionUtils.getRootCauseMessage(e));
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /**
+     * @return the JDBC fetch size to use when scrolling the results of a query
+     * @since 12.6RC1
+     */
+    public int getScrollFetchSize()
+    {
+        // MySQL Connector/J only streams the results (instead of loading them all in memory) with this special value
+        if (getDatabaseProductName() == DatabaseProduct.MYSQL) {
+            return Integer.MIN_VALUE;
+        }
+
+        return this.hibernateConfiguration.getScrollFetchSize();
+    }
+
+    /**
+     * Build the HQL condition selecting the rows located after a key in the (ascending) order of the passed
+     * properties. Combined with an {@code order by} on the same properties and a limit, it allows to paginate a result
+     * set by key instead of offset (keyset pagination): the cost of fetching a page then does not depend on its
+     * position when the properties are indexed. The values of the last row of the previous page are bound to the
+     * parameters named {@code <parameterPrefix><index of the property>}, see
+     * {@link #getKeysetParameters(String, Object...)}.
+     *
+     * @param parameterPrefix the prefix of the named parameters holding the key
+     * @param properties the properties the results are ordered by, e.g. {@code doc.space} and {@code doc.name}
+     * @return the condition, e.g. {@code ((doc.space > :key0) or (doc.space = :key0 and doc.name > :key1))}
+     * @since 12.6RC1
+     */
+    public static String getKeysetCondition(String parameterPrefix, String... properties)
+    {
+        StringBuilder condition = new StringBuilder("(");
+        for (int i = 0; i < properties.length; ++i) {
+            if (i > 0) {
+                condition.append(" or ");
+            }
+            condition.append('(');
+            for (int j = 0; j < i; ++j) {
+                condition.append(properties[j]).append(" = :").append(parameterPrefix).append(j).append(" and ");
+            }
+            condition.append(properties[i]).append(" > :").append(parameterPrefix).append(i);
+            condition.append(')');
+        }
+        condition.append(')');
+
+        return condition.toString();
+    }
+
+    /**
+     * @param parameterPrefix the prefix of the named parameters holding the key
+     * @param values the values of the last row of the previous page, in the order of the properties
+     * @return the parameters to bind to the condition produced by {@link #getKeysetCondition(String, String...)}
+     * @since 12.6RC1
+     */
+    public static Map<String, Object> getKeysetParameters(String parameterPrefix, Object... values)
+    {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; ++i) {
+            parameters.put(parameterPrefix + i, values[i]);
+        }
+
+        return parameters;
     }
 
     /**
@@ -0,0 +1,141 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store.hibernate.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import com.xpn.xwiki.internal.store.hibernate.HibernateStore;
+
+/**
+ * Iterate the results of a Hibernate query using a forward-only cursor, so that only a chunk of the results is kept in
+ * memory at a time. The Hibernate session is cleared before fetching each chunk (the entities of the previous chunk
+ * are thus detached) and closed once the last result has been read or when {@link #close()} is called.
+ *
+ * @param <T> the type of the results
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class ScrollableResultsIterator<T> implements Iterator<T>, AutoCloseable
+{
+    private final HibernateStore store;
+
+    private final Session session;
+
+    private final ScrollableResults results;
+
+    private final int chunkSize;
+
+    private final UnaryOperator<List<T>> chunkFilter;
+
+    private Iterator<T> chunk = Collections.emptyIterator();
+
+    private boolean closed;
+
+    /**
+     * @param store the store used to close the session
+     * @param session the session, opened with {@link HibernateStore#openIndependentSession(String)}, in which the
+     *            query is executed
+     * @param results the cursor on the results of the query
+     * @param chunkSize the number of results to read from the cursor at once
+     * @param chunkFilter called on each chunk of results before they are returned
+     */
+    public ScrollableResultsIterator(HibernateStore store, Session session, ScrollableResults results, int chunkSize,
+        UnaryOperator<List<T>> chunkFilter)
+    {
+        this.store = store;
+        this.session = session;
+        this.results = results;
+        this.chunkSize = chunkSize;
+        this.chunkFilter = chunkFilter;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (!this.chunk.hasNext() && !this.closed) {
+            fetchChunk();
+        }
+
+        return this.chunk.hasNext();
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return this.chunk.next();
+    }
+
+    private void fetchChunk()
+    {
+        // Forget the entities of the previous chunk so that the memory used does not grow with the number of results
+        this.session.clear();
+
+        List<T> rows = new ArrayList<>(this.chunkSize);
+        try {
+            while (rows.size() < this.chunkSize && this.results.next()) {
+                rows.add(getRow());
+            }
+        } catch (RuntimeException e) {
+            close();
+
+            throw e;
+        }
+
+        if (rows.size() < this.chunkSize) {
+            close();
+        }
+
+        this.chunk = this.chunkFilter.apply(rows).iterator();
+    }
+
+    private T getRow()
+    {
+        Object[] row = this.results.get();
+
+        // Behave like Query#list(), which returns the value directly when a single column is selected
+        return (T) (row.length == 1 ? row[0] : row);
+    }
+
+    @Override
+    public void close()
+    {
+        if (!this.closed) {
+            this.closed = true;
+
+            try {
+                this.results.close();
+            } finally {
+                this.store.closeIndependentSession(this.session);
+            }
+        }
+    }
+}
@@ -32,6 +32,7 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -44,6 +45,14 @@
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
+import org.xwiki.bridge.event.AbstractDocumentEvent;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
@@ -51,6 +60,9 @@
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.environment.Environment;
+import org.xwiki.extension.event.ExtensionInstalledEvent;
+import org.xwiki.extension.event.ExtensionUninstalledEvent;
+import org.xwiki.extension.event.ExtensionUpgradedEvent;
 import org.xwiki.filter.input.InputSource;
 import org.xwiki.filter.input.InputStreamInputSource;
 import org.xwiki.filter.input.ReaderInputSource;
@@ -58,6 +70,9 @@
 import org.xwiki.job.event.status.JobProgressManager;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
 import org.xwiki.properties.BeanManager;
 import org.xwiki.properties.ConverterManager;
 import org.xwiki.properties.PropertyException;
@@ -83,11 +98,16 @@
 import org.xwiki.skin.Skin;
 import org.xwiki.template.Template;
 import org.xwiki.template.TemplateContent;
+import org.xwiki.template.event.TemplateDeletedEvent;
+import org.xwiki.template.event.TemplateUpdatedEvent;
 
 import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.skin.AbstractEnvironmentResource;
 import com.xpn.xwiki.internal.skin.InternalSkinManager;
 import com.xpn.xwiki.internal.skin.WikiResource;
+import com.xpn.xwiki.internal.skin.WikiSkinUtils;
 import com.xpn.xwiki.user.api.XWikiRightService;
 
 /**
@@ -110,6 +130,8 @@ public class InternalTemplateManager implements Initializable
 
     private static final String TEMPLATE_RESOURCE_SUFFIX = "/templates/";
 
+    private static final String CACHE_KEY_SEPARATOR = ":";
+
     @Inject
     private Environment environment;
 
@@ -163,16 +185,30 @@ public class InternalTemplateManager implements Initializable
     @Inject
     private VelocityTemplateEvaluator evaluator;
 
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private ObservationManager observation;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
     @Inject
     private Logger logger;
 
     private String templateRootURL;
 
+    /**
+     * The resolved templates (or the absence of template) indexed by wiki, skin and template name.
+     */
+    private Cache<Optional<Template>> templateCache;
+
     private static abstract class AbtractTemplate<T extends TemplateContent, R extends Resource<?>> implements Template
     {
         protected R resource;
 
-        protected T content;
+        protected volatile T content;
 
         public AbtractTemplate(R resource)
         {
@@ -314,6 +350,11 @@ private class DefaultTemplateContent implements RawProperties, TemplateContent
 
         protected Map<String, Object> properties = new HashMap<>();
 
+        /**
+         * The result of the parsing of the content, only used when a source syntax is provided.
+         */
+        private volatile XDOM xdom;
+
         DefaultTemplateContent(String content)
         {
             this.content = content;
@@ -526,6 +567,50 @@ public void setPrivileged(boolean privileged)
     public void initialize() throws InitializationException
     {
         getTemplateRootPath();
+
+        // Initialize cache
+        try {
+            this.templateCache =
+                this.cacheManager.createNewCache(new LRUCacheConfiguration("templates.resolution", 10000, 86400));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to initialize cache", e);
+        }
+
+        // Initialize listener
+        this.observation.addListener(new AbstractEventListener("templates.resolution", new TemplateUpdatedEvent(),
+            new TemplateDeletedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent(),
+            new DocumentCreatedEvent(), new ExtensionInstalledEvent(), new ExtensionUninstalledEvent(),
+            new ExtensionUpgradedEvent())
+        {
+            @Override
+            public void onEvent(Event event, Object source, Object data)
+            {
+                if (event instanceof AbstractDocumentEvent) {
+                    XWikiDocument document = (XWikiDocument) source;
+                    XWikiDocument originalDocument = document.getOriginalDocument();
+
+                    // Templates can be added to or removed from a skin, and the parent of the skin can change
+                    if (document.getXObject(WikiSkinUtils.SKINCLASS_REFERENCE) == null && (originalDocument == null
+                        || originalDocument.getXObject(WikiSkinUtils.SKINCLASS_REFERENCE) == null)) {
+                        return;
+                    }
+                }
+
+                // Templates can be added or removed with extensions (classloader templates) and the content of the
+                // wiki templates is cached with them
+                flushCache();
+            }
+        });
+    }
+
+    /**
+     * Forget all the resolved templates.
+     *
+     * @since 12.6RC1
+     */
+    public void flushCache()
+    {
+        this.templateCache.removeAll();
     }
 
     private String getTemplateRootPath()
@@ -651,7 +736,7 @@ private XDOM getXDOM(Template template, TemplateContent content) throws Exceptio
         XDOM xdom;
 
         if (content.getSourceSyntax() != null) {
-            xdom = this.parser.parse(content.getContent(), content.getSourceSyntax());
+            xdom = parse(content);
         } else {
             String result = evaluateContent(template, content);
             if (StringUtils.isEmpty(result)) {
@@ -665,6 +750,23 @@ private XDOM getXDOM(Template template, TemplateContent content) throws Exceptio
         return xdom;
     }
 
+    private XDOM parse(TemplateContent content) throws Exception
+    {
+        if (content instanceof DefaultTemplateContent) {
+            DefaultTemplateContent defaultContent = (DefaultTemplateContent) content;
+
+            // Parse the content only once (the template content is cached with the template)
+            if (defaultContent.xdom == null) {
+                defaultContent.xdom = this.parser.parse(content.getContent(), content.getSourceSyntax());
+            }
+
+            // The XDOM is going to be modified by the transformations
+            return defaultContent.xdom.clone();
+        }
+
+        return this.parser.parse(content.getContent(), content.getSourceSyntax());
+    }
+
     public XDOM getXDOM(String templateName) throws Exception
     {
         Template template = getTemplate(templateName);
@@ -935,21 +1037,51 @@ public Template getTemplate(String templateName, ResourceRepository repository)
     }
 
     public Template getTemplate(String templateName)
+    {
+        Skin skin = this.skins.getCurrentSkin(false);
+        Skin baseSkin = skin == null ? this.skins.getCurrentParentSkin(false) : null;
+
+        String cacheKey = getCacheKey(templateName, skin, baseSkin);
+
+        Optional<Template> cachedTemplate = this.templateCache.get(cacheKey);
+        if (cachedTemplate == null) {
+            cachedTemplate = Optional.ofNullable(resolveTemplate(templateName, skin, baseSkin));
+            this.templateCache.set(cacheKey, cachedTemplate);
+        }
+
+        return cachedTemplate.orElse(null);
+    }
+
+    private String getCacheKey(String templateName, Skin skin, Skin baseSkin)
+    {
+        // Wiki skins and classloader templates depend on the current wiki
+        XWikiContext xcontext = this.xcontextProvider.get();
+        String wiki = xcontext != null ? xcontext.getWikiId() : null;
+
+        StringBuilder key = new StringBuilder();
+        key.append(wiki);
+        key.append(CACHE_KEY_SEPARATOR);
+        key.append(skin != null ? skin.getId() : null);
+        key.append(CACHE_KEY_SEPARATOR);
+        key.append(baseSkin != null ? baseSkin.getId() : null);
+        key.append(CACHE_KEY_SEPARATOR);
+        key.append(templateName);
+
+        return key.toString();
+    }
+
+    private Template resolveTemplate(String templateName, Skin skin, Skin baseSkin)
     {
         Template template = null;
 
         // Try from skin
-        Skin skin = this.skins.getCurrentSkin(false);
         if (skin != null) {
             template = getTemplate(templateName, skin);
         }
 
         // Try from base skin if no skin is set
-        if (skin == null) {
-            Skin baseSkin = this.skins.getCurrentParentSkin(false);
-            if (baseSkin != null) {
-                template = getTemplate(templateName, baseSkin);
-            }
+        if (baseSkin != null) {
+            template = getTemplate(templateName, baseSkin);
         }
 
         // Try from /templates/ environment resources
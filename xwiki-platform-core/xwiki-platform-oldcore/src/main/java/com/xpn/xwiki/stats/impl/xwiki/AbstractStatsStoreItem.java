@@ -82,6 +82,17 @@ public AbstractStatsStoreItem(String name, Date periodDate, PeriodType periodTyp
 
     @Override
     public void store(List<XWikiStatsStoreItem> statsList)
+    {
+        store(StatsStoreItemAggregate.of(statsList));
+    }
+
+    /**
+     * Store the provided aggregated statistics into the database.
+     *
+     * @param aggregate the statistics collected since the last time they were stored
+     * @since 12.6RC1
+     */
+    public void store(StatsStoreItemAggregate aggregate)
     {
         ExecutionContext econtext = Utils.getComponent(Execution.class).getContext();
 
@@ -90,17 +101,48 @@ public void store(List<XWikiStatsStoreItem> statsList)
         try {
             econtext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, this.context);
 
-            storeInternal(statsList);
+            storeInternal(aggregate);
         } finally {
             econtext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, currentContext);
         }
     }
 
+    /**
+     * @return the XWiki context clone made when this statistics event occurred
+     * @since 12.6RC1
+     */
+    XWikiContext getContext()
+    {
+        return this.context;
+    }
+
+    /**
+     * @return {@code true} if this statistics event is the first one of a user visit
+     * @since 12.6RC1
+     */
+    boolean isVisit()
+    {
+        return false;
+    }
+
     /**
      * Store provided statistics into the database.
      *
      * @param statsList the list of statistics item to store.
      * @since 2.2.4
+     * @deprecated since 12.6RC1, use {@link #storeInternal(StatsStoreItemAggregate)} instead
+     */
+    @Deprecated
+    protected void storeInternal(List<XWikiStatsStoreItem> statsList)
+    {
+        storeInternal(StatsStoreItemAggregate.of(statsList));
+    }
+
+    /**
+     * Store the provided aggregated statistics into the database.
+     *
+     * @param aggregate the statistics collected since the last time they were stored
+     * @since 12.6RC1
      */
-    protected abstract void storeInternal(List<XWikiStatsStoreItem> statsList);
+    protected abstract void storeInternal(StatsStoreItemAggregate aggregate);
 }
@@ -20,7 +20,6 @@
 package com.xpn.xwiki.stats.impl.xwiki;
 
 import java.util.Date;
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,9 +84,15 @@ public String getId()
     }
 
     @Override
-    public void storeInternal(List<XWikiStatsStoreItem> stats)
+    boolean isVisit()
     {
-        DocumentStatsStoreItem lastItem = (DocumentStatsStoreItem) stats.get(stats.size() - 1);
+        return this.isVisit;
+    }
+
+    @Override
+    protected void storeInternal(StatsStoreItemAggregate aggregate)
+    {
+        DocumentStatsStoreItem lastItem = (DocumentStatsStoreItem) aggregate.getLastItem();
 
         XWikiHibernateStore store = this.context.getWiki().getHibernateStore();
         if (store == null) {
@@ -108,14 +113,8 @@ public void storeInternal(List<XWikiStatsStoreItem> stats)
         }
 
         // Increment counters
-        documentStat.setIntValue("pageViews", documentStat.getPageViews() + stats.size());
-        for (XWikiStatsStoreItem statItem : stats) {
-            DocumentStatsStoreItem docStat = (DocumentStatsStoreItem) statItem;
-
-            if (docStat.isVisit) {
-                documentStat.incVisits();
-            }
-        }
+        documentStat.setIntValue("pageViews", documentStat.getPageViews() + (int) aggregate.getCount());
+        documentStat.setIntValue("visits", documentStat.getVisits() + (int) aggregate.getVisits());
 
         // Re-save statistics object
         try {
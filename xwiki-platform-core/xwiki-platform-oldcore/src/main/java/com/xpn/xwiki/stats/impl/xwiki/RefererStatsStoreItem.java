@@ -20,7 +20,6 @@
 package com.xpn.xwiki.stats.impl.xwiki;
 
 import java.util.Date;
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,9 +72,9 @@ public String getId()
     }
 
     @Override
-    public void storeInternal(List<XWikiStatsStoreItem> stats)
+    protected void storeInternal(StatsStoreItemAggregate aggregate)
     {
-        RefererStatsStoreItem lastItem = (RefererStatsStoreItem) stats.get(stats.size() - 1);
+        RefererStatsStoreItem lastItem = (RefererStatsStoreItem) aggregate.getLastItem();
 
         XWikiHibernateStore store = this.context.getWiki().getHibernateStore();
         if (store == null) {
@@ -96,7 +95,7 @@ public void storeInternal(List<XWikiStatsStoreItem> stats)
         }
 
         // Increment counters
-        refererStat.setIntValue("pageViews", refererStat.getPageViews() + stats.size());
+        refererStat.setIntValue("pageViews", refererStat.getPageViews() + (int) aggregate.getCount());
 
         // Re-save statistics object
         try {
@@ -0,0 +1,111 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.stats.impl.xwiki;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics collected in memory for a given {@link XWikiStatsStoreItem#getId() identifier} since the last time
+ * they were stored. Hits are only counted (instead of being kept in a list) so that the memory used does not depend on
+ * the traffic, and the counters can be incremented concurrently without contention.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class StatsStoreItemAggregate
+{
+    private final XWikiStatsStoreItem firstItem;
+
+    private volatile XWikiStatsStoreItem lastItem;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder visits = new LongAdder();
+
+    /**
+     * @param firstItem the first item collected for this identifier
+     */
+    public StatsStoreItemAggregate(XWikiStatsStoreItem firstItem)
+    {
+        this.firstItem = firstItem;
+        this.lastItem = firstItem;
+    }
+
+    /**
+     * @param items the items to aggregate, with the same identifier
+     * @return the aggregate of the passed items
+     */
+    public static StatsStoreItemAggregate of(List<XWikiStatsStoreItem> items)
+    {
+        StatsStoreItemAggregate aggregate = new StatsStoreItemAggregate(items.get(0));
+        for (XWikiStatsStoreItem item : items) {
+            aggregate.add(item);
+        }
+
+        return aggregate;
+    }
+
+    /**
+     * Count a new item.
+     *
+     * @param item the item to count
+     */
+    public void add(XWikiStatsStoreItem item)
+    {
+        this.lastItem = item;
+        this.count.increment();
+        if (item instanceof AbstractStatsStoreItem && ((AbstractStatsStoreItem) item).isVisit()) {
+            this.visits.increment();
+        }
+    }
+
+    /**
+     * @return the first item collected for this identifier
+     */
+    public XWikiStatsStoreItem getFirstItem()
+    {
+        return this.firstItem;
+    }
+
+    /**
+     * @return the last item collected for this identifier
+     */
+    public XWikiStatsStoreItem getLastItem()
+    {
+        return this.lastItem;
+    }
+
+    /**
+     * @return the number of items collected for this identifier
+     */
+    public long getCount()
+    {
+        return this.count.sum();
+    }
+
+    /**
+     * @return the number of collected items which are part of a new visit
+     */
+    public long getVisits()
+    {
+        return this.visits.sum();
+    }
+}
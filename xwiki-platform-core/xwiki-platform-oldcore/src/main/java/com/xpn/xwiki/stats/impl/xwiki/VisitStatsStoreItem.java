@@ -20,7 +20,6 @@
 package com.xpn.xwiki.stats.impl.xwiki;
 
 import java.util.Date;
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,12 +70,12 @@ public String getId()
     }
 
     @Override
-    public void storeInternal(List<XWikiStatsStoreItem> stats)
+    protected void storeInternal(StatsStoreItemAggregate aggregate)
     {
-        VisitStatsStoreItem firstItem = (VisitStatsStoreItem) stats.get(0);
+        VisitStatsStoreItem firstItem = (VisitStatsStoreItem) aggregate.getFirstItem();
         VisitStats oldVisitStats = firstItem.visitStats.getOldObject();
 
-        VisitStatsStoreItem lastItem = (VisitStatsStoreItem) stats.get(stats.size() - 1);
+        VisitStatsStoreItem lastItem = (VisitStatsStoreItem) aggregate.getLastItem();
         VisitStats newVisitStats = lastItem.visitStats;
 
         XWikiHibernateStore store = this.context.getWiki().getHibernateStore();
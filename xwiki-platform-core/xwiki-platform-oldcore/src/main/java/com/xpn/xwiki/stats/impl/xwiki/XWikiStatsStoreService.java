@@ -20,27 +20,41 @@
 package com.xpn.xwiki.stats.impl.xwiki;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.stats.impl.StatsUtil;
 import com.xpn.xwiki.stats.impl.VisitStats;
+import com.xpn.xwiki.store.XWikiHibernateStore;
 import com.xpn.xwiki.util.AbstractXWikiRunnable;
 import com.xpn.xwiki.web.DownloadAction;
 import com.xpn.xwiki.web.SaveAction;
+import com.xpn.xwiki.web.Utils;
 import com.xpn.xwiki.web.ViewAction;
 
 /**
  * Back-end statistics storing service.
+ * <p>
+ * Since 12.6RC1 the statistics are aggregated in memory (one counter per period row) and stored periodically, in one
+ * transaction per wiki. The number of database writes thus depends on the number of distinct statistics rows modified
+ * during a flush interval, and not on the number of hits. The statistics are stored before the end of the interval
+ * when the number of pending rows reaches {@code stats.queue.size}.
  *
  * @version $Id$
  * @since 1.4M2
@@ -53,9 +67,34 @@ public class XWikiStatsStoreService extends AbstractXWikiRunnable
     private static final Logger LOGGER = LoggerFactory.getLogger(XWikiStatsStoreService.class);
 
     /**
-     * The queue containing the statistics to store.
+     * The statistics collected since the last flush, indexed by {@link XWikiStatsStoreItem#getId()}.
      */
-    private ArrayBlockingQueue<XWikiStatsStoreItem> queue;
+    private Map<String, StatsStoreItemAggregate> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * Allow adding statistics concurrently while preventing it during the swap of the aggregated statistics map.
+     */
+    private final StampedLock aggregatesLock = new StampedLock();
+
+    /**
+     * The number of milliseconds between two flushes of the aggregated statistics.
+     */
+    private final long flushInterval;
+
+    /**
+     * The maximum number of distinct statistics rows to keep in memory before storing them.
+     */
+    private final long maxPendingSize;
+
+    /**
+     * Released to store the pending statistics without waiting for the end of the flush interval.
+     */
+    private final Semaphore flushRequests = new Semaphore(0);
+
+    /**
+     * Indicate if the service has been asked to stop.
+     */
+    private volatile boolean stopped;
 
     /**
      * The thread on which the storing service is running.
@@ -68,15 +107,16 @@ public class XWikiStatsStoreService extends AbstractXWikiRunnable
     private XWikiContext xwikiContext;
 
     /**
-     * Create new instance of XWikiStatsRegister and init statistics queue.
+     * Create new instance of XWikiStatsRegister.
      *
      * @param context the XWiki context.
      */
     public XWikiStatsStoreService(XWikiContext context)
     {
         this.xwikiContext = context.clone();
-        long queueSize = context.getWiki().ParamAsLong("stats.queue.size", 200);
-        this.queue = new ArrayBlockingQueue<>((int) queueSize);
+        this.flushInterval =
+            TimeUnit.SECONDS.toMillis(context.getWiki().ParamAsLong("xwiki.stats.flushInterval", 10));
+        this.maxPendingSize = context.getWiki().ParamAsLong("stats.queue.size", 200);
     }
 
     @Override
@@ -100,19 +140,20 @@ public void start()
     }
 
     /**
-     * Stop storing thread.
+     * Stop storing thread, after storing the statistics collected since the last flush.
      */
     public void stop()
     {
-        this.queue.clear();
+        this.stopped = true;
+        this.flushRequests.release();
         try {
-            this.queue.put(new StopStatsRegisterObject());
             this.thread.join();
             this.thread = null;
         } catch (InterruptedException e) {
             if (LOGGER.isWarnEnabled()) {
                 LOGGER.warn("Thread join has been interrupted", e);
             }
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -120,57 +161,123 @@ public void stop()
     public void runInternal() throws InterruptedException
     {
         try {
-            while (true) {
-                register();
+            while (!this.stopped) {
+                // Wait for the end of the flush interval, unless too many statistics are pending or the service is
+                // stopped
+                this.flushRequests.tryAcquire(this.flushInterval, TimeUnit.MILLISECONDS);
+                this.flushRequests.drainPermits();
+
+                flush();
             }
         } catch (InterruptedException e) {
             if (LOGGER.isWarnEnabled()) {
                 LOGGER.warn("Statistics storing thread has been interrupted.", e);
             }
             throw e;
-        } catch (StopStatsStoreException e) {
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.warn("Statistics storing thread received stop order.", e);
-            }
         }
+
+        LOGGER.info("Statistics storing thread received stop order.");
     }
 
     /**
-     * Store the statistics in the queue.
-     *
-     * @throws InterruptedException thread has been interrupted.
-     * @throws StopStatsStoreException service received stop order.
+     * Store the statistics collected since the last flush.
      */
-    private void register() throws InterruptedException, StopStatsStoreException
+    void flush()
     {
-        XWikiStatsStoreItem stat = this.queue.take();
+        Map<String, StatsStoreItemAggregate> flushed;
+        long stamp = this.aggregatesLock.writeLock();
+        try {
+            flushed = this.aggregates;
+            this.aggregates = new ConcurrentHashMap<>();
+        } finally {
+            this.aggregatesLock.unlockWrite(stamp);
+        }
+
+        // Group the statistics by wiki to store them in one transaction per wiki
+        Map<String, List<StatsStoreItemAggregate>> aggregatesByWiki = new HashMap<>();
+        for (StatsStoreItemAggregate aggregate : flushed.values()) {
+            aggregatesByWiki.computeIfAbsent(getWikiId(aggregate.getFirstItem()), k -> new ArrayList<>())
+                .add(aggregate);
+        }
+
+        for (List<StatsStoreItemAggregate> wikiAggregates : aggregatesByWiki.values()) {
+            store(wikiAggregates);
+        }
+    }
 
-        List<List<XWikiStatsStoreItem>> statsList = new ArrayList<>();
-        Map<String, List<XWikiStatsStoreItem>> statsMap = new HashMap<>();
+    private String getWikiId(XWikiStatsStoreItem item)
+    {
+        return item instanceof AbstractStatsStoreItem ? ((AbstractStatsStoreItem) item).getContext().getWikiId()
+            : null;
+    }
 
-        do {
-            if (stat instanceof StopStatsRegisterObject) {
-                throw new StopStatsStoreException();
+    private void store(List<StatsStoreItemAggregate> wikiAggregates)
+    {
+        if (!storeInTransaction(wikiAggregates) && wikiAggregates.size() > 1) {
+            // Nothing was committed: store each row in its own transaction so that a single failing row does not make
+            // us lose the statistics of the whole wiki
+            for (StatsStoreItemAggregate aggregate : wikiAggregates) {
+                storeInTransaction(Collections.singletonList(aggregate));
             }
+        }
+    }
 
-            String statId = stat.getId();
+    /**
+     * @return {@code false} if the transaction could not be committed
+     */
+    private boolean storeInTransaction(List<StatsStoreItemAggregate> wikiAggregates)
+    {
+        XWikiStatsStoreItem firstItem = wikiAggregates.get(0).getFirstItem();
+        XWikiContext context =
+            firstItem instanceof AbstractStatsStoreItem ? ((AbstractStatsStoreItem) firstItem).getContext() : null;
+        XWikiHibernateStore store = context != null ? context.getWiki().getHibernateStore() : null;
 
-            List<XWikiStatsStoreItem> stats = statsMap.get(statId);
+        ExecutionContext econtext = Utils.getComponent(Execution.class).getContext();
+        XWikiContext currentContext = (XWikiContext) econtext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
 
-            if (stats == null) {
-                stats = new ArrayList<>();
+        boolean committed = true;
+        boolean transaction = false;
+        try {
+            if (store != null) {
+                econtext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, context);
+                // The items reuse the current transaction
+                transaction = store.beginTransaction(context);
+            }
 
-                statsMap.put(statId, stats);
-                statsList.add(stats);
+            for (StatsStoreItemAggregate aggregate : wikiAggregates) {
+                try {
+                    store(aggregate);
+                } catch (Exception e) {
+                    LOGGER.error("Failed to store the statistics [{}]", aggregate.getFirstItem().getId(), e);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to store the statistics of wiki [{}]", getWikiId(firstItem), e);
+            committed = false;
+        } finally {
+            if (transaction) {
+                try {
+                    store.endTransaction(context, true);
+                } catch (Exception e) {
+                    LOGGER.warn("Failed to commit the statistics of wiki [{}]: {}", getWikiId(firstItem),
+                        ExceptionUtils.getRootCauseMessage(e));
+                    committed = false;
+                }
             }
 
-            stats.add(stat);
+            econtext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, currentContext);
+        }
 
-            stat = this.queue.poll();
-        } while (stat != null);
+        return committed;
+    }
 
-        for (List<XWikiStatsStoreItem> stats : statsList) {
-            stats.get(0).store(stats);
+    private void store(StatsStoreItemAggregate aggregate)
+    {
+        XWikiStatsStoreItem item = aggregate.getFirstItem();
+        if (item instanceof AbstractStatsStoreItem) {
+            ((AbstractStatsStoreItem) item).store(aggregate);
+        } else {
+            item.store(Arrays.asList(aggregate.getFirstItem(), aggregate.getLastItem()));
         }
     }
 
@@ -185,10 +292,19 @@ private void register() throws InterruptedException, StopStatsStoreException
      */
     public void add(XWikiStatsStoreItem statsRegisterItem)
     {
+        // Several threads can add statistics at the same time, but not while the aggregated statistics are flushed
+        long stamp = this.aggregatesLock.readLock();
         try {
-            this.queue.put(statsRegisterItem);
-        } catch (InterruptedException e) {
-            LOGGER.error("Statistics storage thread has been interrupted", e);
+            this.aggregates
+                .computeIfAbsent(statsRegisterItem.getId(), k -> new StatsStoreItemAggregate(statsRegisterItem))
+                .add(statsRegisterItem);
+
+            // Don't wait for the end of the flush interval to store the statistics when there are too many
+            if (this.aggregates.size() >= this.maxPendingSize) {
+                this.flushRequests.release();
+            }
+        } finally {
+            this.aggregatesLock.unlockRead(stamp);
         }
     }
 
@@ -281,31 +397,3 @@ private void addRefererStats(XWikiDocument doc, XWikiContext context)
     }
 }
 
-/**
- * Item used to stop the statistics storing.
- *
- * @version $Id$
- */
-class StopStatsRegisterObject implements XWikiStatsStoreItem
-{
-    @Override
-    public String getId()
-    {
-        return null;
-    }
-
-    @Override
-    public void store(List<XWikiStatsStoreItem> register)
-    {
-    }
-}
-
-/**
- * Used to order stopping storing thread.
- *
- * @version $Id$
- */
-class StopStatsStoreException extends Exception
-{
-
-}
@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -26,10 +27,13 @@
 
 import javax.inject.Named;
 import javax.inject.Singleton;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,6 +65,12 @@ public class XWikiHibernateVersioningStore extends XWikiHibernateBaseStore imple
 
     private static final String FIELD_DOCID = "docId";
 
+    private static final String FIELD_VERSION1 = "version1";
+
+    private static final String FIELD_VERSION2 = "version2";
+
+    private static final String FIELD_DIFF = "diff";
+
     /**
      * This allows to initialize our storage engine. The hibernate config file path is taken from xwiki.cfg or directly
      * in the WEB-INF directory.
@@ -157,6 +167,99 @@ public XWikiDocumentArchive getXWikiDocumentArchive(XWikiDocument doc, XWikiCont
         return archiveDoc;
     }
 
+    @Override
+    public List<XWikiRCSNodeInfo> getXWikiDocVersionInfos(XWikiDocument doc, Version olderThan, int limit,
+        XWikiContext inputxcontext) throws XWikiException
+    {
+        // Reuse the complete archive when it's already loaded
+        XWikiDocumentArchive archiveDoc = doc.getDocumentArchive();
+        if (archiveDoc != null) {
+            return archiveDoc.getOlderNodes(olderThan, limit);
+        }
+
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        String db = context.getWikiId();
+        try {
+            if (doc.getDatabase() != null) {
+                context.setWikiId(doc.getDatabase());
+            }
+
+            // Don't cache the result in the document since it's only a part of the history
+            return loadRCSNodeInfos(context, doc.getId(), olderThan, limit);
+        } catch (Exception e) {
+            Object[] args = { doc.getFullName() };
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_REVISIONS,
+                "Exception while reading document {0} revisions", e, args);
+        } finally {
+            context.setWikiId(db);
+
+            restoreExecutionXContext();
+        }
+    }
+
+    @Override
+    public List<XWikiRCSNodeInfo> getXWikiDocVersionInfos(XWikiDocument doc, boolean includeMinorVersions, int offset,
+        int limit, XWikiContext inputxcontext) throws XWikiException
+    {
+        XWikiDocumentArchive archiveDoc = doc.getDocumentArchive();
+        if (archiveDoc != null) {
+            return XWikiVersioningStoreInterface.super.getXWikiDocVersionInfos(doc, includeMinorVersions, offset,
+                limit, inputxcontext);
+        }
+
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        String db = context.getWikiId();
+        try {
+            if (doc.getDatabase() != null) {
+                context.setWikiId(doc.getDatabase());
+            }
+
+            return loadRCSNodeInfos(context, doc.getId(), includeMinorVersions, offset, limit);
+        } catch (Exception e) {
+            Object[] args = { doc.getFullName() };
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_REVISIONS,
+                "Exception while reading document {0} revisions", e, args);
+        } finally {
+            context.setWikiId(db);
+
+            restoreExecutionXContext();
+        }
+    }
+
+    @Override
+    public long countXWikiDocVersions(XWikiDocument doc, boolean includeMinorVersions, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        XWikiDocumentArchive archiveDoc = doc.getDocumentArchive();
+        if (archiveDoc != null) {
+            return archiveDoc.getNodes(includeMinorVersions).size();
+        }
+
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        String db = context.getWikiId();
+        try {
+            if (doc.getDatabase() != null) {
+                context.setWikiId(doc.getDatabase());
+            }
+
+            return countRCSNodeInfos(context, doc.getId(), includeMinorVersions);
+        } catch (Exception e) {
+            Object[] args = { doc.getFullName() };
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_REVISIONS,
+                "Exception while reading document {0} revisions", e, args);
+        } finally {
+            context.setWikiId(db);
+
+            restoreExecutionXContext();
+        }
+    }
+
     @Override
     public void loadXWikiDocArchive(XWikiDocumentArchive archivedoc, boolean bTransaction, XWikiContext context)
         throws XWikiException
@@ -313,6 +416,101 @@ protected List<XWikiRCSNodeInfo> loadAllRCSNodeInfo(XWikiContext context, final
         });
     }
 
+    private List<XWikiRCSNodeInfo> loadRCSNodeInfos(XWikiContext context, long id, Version olderThan, int limit)
+        throws XWikiException
+    {
+        return executeRead(context, session -> {
+            CriteriaBuilder builder = session.getCriteriaBuilder();
+            CriteriaQuery<XWikiRCSNodeInfo> query = builder.createQuery(XWikiRCSNodeInfo.class);
+            Root<XWikiRCSNodeInfo> root = query.from(XWikiRCSNodeInfo.class);
+
+            query.select(root);
+
+            Path<Integer> version1 = root.get("id").get(FIELD_VERSION1);
+            Path<Integer> version2 = root.get("id").get(FIELD_VERSION2);
+
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.equal(root.get("id").get(FIELD_DOCID), id));
+            predicates.add(builder.isNotNull(root.get(FIELD_DIFF)));
+            if (olderThan != null) {
+                // Seek directly to the requested page using the version index instead of skipping rows
+                predicates.add(builder.or(builder.lessThan(version1, olderThan.at(0)),
+                    builder.and(builder.equal(version1, olderThan.at(0)),
+                        builder.lessThan(version2, olderThan.at(1)))));
+            }
+            query.where(predicates.toArray(new Predicate[0]));
+            query.orderBy(builder.desc(version1), builder.desc(version2));
+
+            TypedQuery<XWikiRCSNodeInfo> typedQuery = session.createQuery(query);
+            if (limit > 0) {
+                typedQuery.setMaxResults(limit);
+            }
+
+            return typedQuery.getResultList();
+        });
+    }
+
+    private List<XWikiRCSNodeInfo> loadRCSNodeInfos(XWikiContext context, long id, boolean includeMinorVersions,
+        int offset, int limit) throws XWikiException
+    {
+        return executeRead(context, session -> {
+            CriteriaBuilder builder = session.getCriteriaBuilder();
+            CriteriaQuery<XWikiRCSNodeInfo> query = builder.createQuery(XWikiRCSNodeInfo.class);
+            Root<XWikiRCSNodeInfo> root = query.from(XWikiRCSNodeInfo.class);
+
+            query.select(root);
+            query.where(getVersionPredicates(builder, query, root, id, includeMinorVersions));
+            query.orderBy(builder.desc(root.get("id").get(FIELD_VERSION1)),
+                builder.desc(root.get("id").get(FIELD_VERSION2)));
+
+            TypedQuery<XWikiRCSNodeInfo> typedQuery = session.createQuery(query);
+            if (offset > 0) {
+                typedQuery.setFirstResult(offset);
+            }
+            if (limit > 0) {
+                typedQuery.setMaxResults(limit);
+            }
+
+            return typedQuery.getResultList();
+        });
+    }
+
+    private long countRCSNodeInfos(XWikiContext context, long id, boolean includeMinorVersions)
+        throws XWikiException
+    {
+        return executeRead(context, session -> {
+            CriteriaBuilder builder = session.getCriteriaBuilder();
+            CriteriaQuery<Long> query = builder.createQuery(Long.class);
+            Root<XWikiRCSNodeInfo> root = query.from(XWikiRCSNodeInfo.class);
+
+            query.select(builder.count(root));
+            query.where(getVersionPredicates(builder, query, root, id, includeMinorVersions));
+
+            return session.createQuery(query).getSingleResult();
+        });
+    }
+
+    private Predicate[] getVersionPredicates(CriteriaBuilder builder, CriteriaQuery<?> query,
+        Root<XWikiRCSNodeInfo> root, long id, boolean includeMinorVersions)
+    {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.equal(root.get("id").get(FIELD_DOCID), id));
+        predicates.add(builder.isNotNull(root.get(FIELD_DIFF)));
+        if (!includeMinorVersions) {
+            // Only keep the last version of each major version, i.e. hide the versions followed by a minor edit
+            Subquery<Integer> newer = query.subquery(Integer.class);
+            Root<XWikiRCSNodeInfo> newerRoot = newer.from(XWikiRCSNodeInfo.class);
+            newer.select(newerRoot.get("id").get(FIELD_VERSION2));
+            newer.where(builder.equal(newerRoot.get("id").get(FIELD_DOCID), id),
+                builder.isNotNull(newerRoot.get(FIELD_DIFF)),
+                builder.equal(newerRoot.get("id").get(FIELD_VERSION1), root.get("id").get(FIELD_VERSION1)),
+                builder.greaterThan(newerRoot.get("id").get(FIELD_VERSION2), root.get("id").get(FIELD_VERSION2)));
+            predicates.add(builder.not(builder.exists(newer)));
+        }
+
+        return predicates.toArray(new Predicate[0]);
+    }
+
     @Override
     public XWikiRCSNodeContent loadRCSNodeContent(final XWikiRCSNodeId id, boolean bTransaction, XWikiContext context)
         throws XWikiException
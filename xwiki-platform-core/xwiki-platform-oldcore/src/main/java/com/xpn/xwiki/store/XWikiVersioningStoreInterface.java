@@ -19,6 +19,8 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.List;
+
 import org.suigeneris.jrcs.rcs.Version;
 import org.xwiki.component.annotation.Role;
 
@@ -28,6 +30,7 @@
 import com.xpn.xwiki.doc.XWikiDocumentArchive;
 import com.xpn.xwiki.doc.rcs.XWikiRCSNodeContent;
 import com.xpn.xwiki.doc.rcs.XWikiRCSNodeId;
+import com.xpn.xwiki.doc.rcs.XWikiRCSNodeInfo;
 
 /**
  * Interface for manipulate document history.
@@ -53,6 +56,63 @@ void saveXWikiDocArchive(XWikiDocumentArchive archivedoc, boolean bTransaction,
 
     XWikiDocumentArchive getXWikiDocumentArchive(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
+    /**
+     * Get a page of the history of a document, starting from the most recent versions. Unlike
+     * {@link #getXWikiDocumentArchive(XWikiDocument, XWikiContext)}, implementations should avoid loading the whole
+     * history of the document when only a few versions are requested.
+     *
+     * @param doc the document for which to get the history
+     * @param olderThan only the versions older than this one are returned, {@code null} to start with the latest
+     *            version
+     * @param limit the maximum number of versions to return, 0 or less for no limit
+     * @param context the XWiki context
+     * @return the information about the versions, ordered from the most recent to the oldest
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    default List<XWikiRCSNodeInfo> getXWikiDocVersionInfos(XWikiDocument doc, Version olderThan, int limit,
+        XWikiContext context) throws XWikiException
+    {
+        return getXWikiDocumentArchive(doc, context).getOlderNodes(olderThan, limit);
+    }
+
+    /**
+     * Get a numbered page of the history of a document, starting from the most recent versions. Implementations should
+     * avoid loading the whole history of the document.
+     *
+     * @param doc the document for which to get the history
+     * @param includeMinorVersions {@code false} to keep only the last version of each major version
+     * @param offset the number of versions to skip
+     * @param limit the maximum number of versions to return, 0 or less for no limit
+     * @param context the XWiki context
+     * @return the information about the versions, ordered from the most recent to the oldest
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    default List<XWikiRCSNodeInfo> getXWikiDocVersionInfos(XWikiDocument doc, boolean includeMinorVersions, int offset,
+        int limit, XWikiContext context) throws XWikiException
+    {
+        List<XWikiRCSNodeInfo> nodes = getXWikiDocumentArchive(doc, context).getNodes(includeMinorVersions);
+        int fromIndex = Math.min(Math.max(offset, 0), nodes.size());
+        int toIndex = limit > 0 ? Math.min(fromIndex + limit, nodes.size()) : nodes.size();
+
+        return nodes.subList(fromIndex, toIndex);
+    }
+
+    /**
+     * @param doc the document for which to count the versions
+     * @param includeMinorVersions {@code false} to count only the last version of each major version
+     * @param context the XWiki context
+     * @return the number of versions of the document
+     * @throws XWikiException if any error
+     * @since 12.6RC1
+     */
+    default long countXWikiDocVersions(XWikiDocument doc, boolean includeMinorVersions, XWikiContext context)
+        throws XWikiException
+    {
+        return getXWikiDocumentArchive(doc, context).getNodes(includeMinorVersions).size();
+    }
+
     /**
      * Delete all history for a document.
      *
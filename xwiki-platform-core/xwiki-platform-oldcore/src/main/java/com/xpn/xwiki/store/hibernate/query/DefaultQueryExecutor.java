@@ -20,6 +20,7 @@
 package com.xpn.xwiki.store.hibernate.query;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -51,4 +52,10 @@ public <T> List<T> execute(final Query query) throws QueryException
     {
         return this.executor.execute(query);
     }
+
+    @Override
+    public <T> Stream<T> stream(Query query) throws QueryException
+    {
+        return this.executor.stream(query);
+    }
 }
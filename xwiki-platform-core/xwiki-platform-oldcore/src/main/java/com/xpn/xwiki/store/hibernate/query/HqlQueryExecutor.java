@@ -25,6 +25,10 @@
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -32,6 +36,8 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.engine.spi.NamedQueryDefinition;
@@ -56,8 +62,10 @@
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.internal.store.hibernate.HibernateConfiguration;
 import com.xpn.xwiki.internal.store.hibernate.HibernateStore;
 import com.xpn.xwiki.internal.store.hibernate.query.HqlQueryUtils;
+import com.xpn.xwiki.internal.store.hibernate.query.ScrollableResultsIterator;
 import com.xpn.xwiki.store.XWikiHibernateStore;
 import com.xpn.xwiki.util.Util;
 
@@ -94,6 +102,9 @@ public class HqlQueryExecutor implements QueryExecutor, Initializable
     @Inject
     private JobProgressManager progress;
 
+    @Inject
+    private HibernateConfiguration hibernateConfiguration;
+
     @Inject
     @Named("context")
     private Provider<ComponentManager> componentManagerProvider;
@@ -187,6 +198,70 @@ public <T> List<T> execute(final Query query) throws QueryException
         }
     }
 
+    @Override
+    public <T> Stream<T> stream(Query query) throws QueryException
+    {
+        // Make sure the query is allowed in the current context
+        checkAllowed(query);
+
+        XWikiContext xcontext = getContext();
+        String oldDatabase = xcontext.getWikiId();
+        String wiki = query.getWiki() != null ? query.getWiki() : oldDatabase;
+
+        // The results are read from a dedicated session so that the cursor stays open while the caller keeps using the
+        // store from the current thread
+        Session session;
+        try {
+            session = this.hibernate.openIndependentSession(wiki);
+        } catch (XWikiException e) {
+            throw new QueryException("Exception while opening a session to stream the query results", query, e);
+        }
+
+        ScrollableResultsIterator<T> iterator;
+        try {
+            // The filters might depend on the current wiki
+            xcontext.setWikiId(wiki);
+
+            org.hibernate.query.Query<T> hquery = createHibernateQuery(session, query);
+            hquery.setReadOnly(true);
+            hquery.setCacheMode(CacheMode.IGNORE);
+            hquery.setFetchSize(this.hibernate.getScrollFetchSize());
+
+            iterator = new ScrollableResultsIterator<>(this.hibernate, session, hquery.scroll(ScrollMode.FORWARD_ONLY),
+                this.hibernateConfiguration.getScrollFetchSize(), results -> filterResults(query, wiki, results));
+        } catch (Exception e) {
+            this.hibernate.closeIndependentSession(session);
+
+            throw new QueryException("Exception while streaming query", query, e);
+        } finally {
+            xcontext.setWikiId(oldDatabase);
+        }
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(iterator::close);
+    }
+
+    private <T> List<T> filterResults(Query query, String wiki, List<T> results)
+    {
+        List<T> filteredResults = results;
+
+        if (query.getFilters() != null && !query.getFilters().isEmpty()) {
+            XWikiContext xcontext = getContext();
+            String oldDatabase = xcontext.getWikiId();
+            try {
+                xcontext.setWikiId(wiki);
+
+                for (QueryFilter filter : query.getFilters()) {
+                    filteredResults = filter.filterResults(filteredResults);
+                }
+            } finally {
+                xcontext.setWikiId(oldDatabase);
+            }
+        }
+
+        return filteredResults;
+    }
+
     protected <T> org.hibernate.query.Query<T> createHibernateQuery(Session session, Query query)
     {
         org.hibernate.query.Query<T> hquery;
@@ -19,13 +19,20 @@
  */
 package com.xpn.xwiki.web;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.xwiki.environment.Environment;
 import org.xwiki.filter.FilterException;
 import org.xwiki.filter.input.InputFilterStream;
 import org.xwiki.filter.input.InputFilterStreamFactory;
@@ -36,6 +43,8 @@
 import org.xwiki.filter.output.OutputFilterStreamFactory;
 import org.xwiki.filter.type.FilterStreamType;
 import org.xwiki.filter.xar.output.XAROutputProperties;
+import org.xwiki.job.JobException;
+import org.xwiki.job.JobExecutor;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.EntityReferenceSet;
@@ -47,7 +56,10 @@
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.export.html.HtmlPackager;
+import com.xpn.xwiki.job.JobRequestContext;
 import com.xpn.xwiki.internal.export.DocumentSelectionResolver;
+import com.xpn.xwiki.internal.export.HtmlExportJob;
+import com.xpn.xwiki.internal.export.HtmlExportRequest;
 import com.xpn.xwiki.internal.export.OfficeExporter;
 import com.xpn.xwiki.internal.export.OfficeExporterURLFactory;
 import com.xpn.xwiki.pdf.api.PdfExport;
@@ -105,9 +117,10 @@ public String render(XWikiContext context) throws XWikiException
      * @return always return null.
      * @throws XWikiException error when exporting HTML ZIP package.
      * @throws IOException error when exporting HTML ZIP package.
+     * @throws JobException error when starting the HTML export job.
      * @since XWiki Platform 1.3M1
      */
-    private String exportHTML(XWikiContext context) throws XWikiException, IOException
+    private String exportHTML(XWikiContext context) throws XWikiException, IOException, JobException
     {
         DocumentSelectionResolver documentSelectionResolver = getDocumentSelectionResover();
         // Fallback on the current document if there's no selection specified on the request.
@@ -118,7 +131,7 @@ private String exportHTML(XWikiContext context) throws XWikiException, IOExcepti
         // HTML export can be done by simple users so we need to check view right.
         ContextualAuthorizationManager authorization = Utils.getComponent(ContextualAuthorizationManager.class);
         pageList = pageList.stream().filter(documentReference -> authorization.hasAccess(Right.VIEW, documentReference))
-            .collect(Collectors.toSet());
+            .collect(Collectors.toCollection(LinkedHashSet::new));
 
         if (pageList.isEmpty()) {
             return null;
@@ -137,6 +150,10 @@ private String exportHTML(XWikiContext context) throws XWikiException, IOExcepti
             packager.setDescription(description);
         }
 
+        if (Boolean.parseBoolean(context.getRequest().get("async"))) {
+            return exportHTMLAsync(pageList, name, description, context);
+        }
+
         packager.addPageReferences(pageList);
 
         packager.export(context);
@@ -144,6 +161,57 @@ private String exportHTML(XWikiContext context) throws XWikiException, IOExcepti
         return null;
     }
 
+    /**
+     * Render the pages in a background job. The first request starts the job and returns its identifier so that its
+     * progress can be followed using the job status REST resource. The same request sent once the job is finished
+     * returns the ZIP package. Sending it again after the job has been canceled resumes the export.
+     */
+    private String exportHTMLAsync(Collection<DocumentReference> pageList, String name, String description,
+        XWikiContext context) throws JobException, IOException
+    {
+        HtmlExportRequest exportRequest =
+            new HtmlExportRequest(pageList, name, description, context.getUserReference());
+
+        File zipFile = HtmlExportJob.getZipFile(Utils.getComponent(Environment.class), exportRequest.getId());
+        File downloadedFile = new File(zipFile.getParentFile(), RandomStringUtils.randomAlphanumeric(8) + ".zip");
+
+        XWikiResponse response = context.getResponse();
+
+        synchronized (HtmlExportJob.class) {
+            if (!zipFile.renameTo(downloadedFile)) {
+                JobExecutor jobExecutor = Utils.getComponent(JobExecutor.class);
+                boolean running = jobExecutor.getJob(exportRequest.getId()) != null;
+                // The job may have finished between the check of the package and the lookup of the job, in which case
+                // the package is ready and there is no need to start the export again
+                if (running || !zipFile.renameTo(downloadedFile)) {
+                    if (!running) {
+                        JobRequestContext.set(exportRequest, context);
+                        jobExecutor.execute(HtmlExportJob.JOBTYPE, exportRequest);
+                    }
+
+                    response.setStatus(HttpServletResponse.SC_ACCEPTED);
+                    response.setContentType("text/plain");
+                    response.getWriter().write(String.join("/", exportRequest.getId()));
+                    context.setFinished(true);
+
+                    return null;
+                }
+            }
+        }
+
+        try {
+            response.setContentType("application/zip");
+            response.addHeader("Content-disposition",
+                "attachment; filename=" + Util.encodeURI(name, context) + ".zip");
+            FileUtils.copyFile(downloadedFile, response.getOutputStream());
+            context.setFinished(true);
+        } finally {
+            downloadedFile.delete();
+        }
+
+        return null;
+    }
+
     private String export(String format, XWikiContext context) throws XWikiException, IOException
     {
         // We currently use the PDF export infrastructure but we have to redesign the export code.
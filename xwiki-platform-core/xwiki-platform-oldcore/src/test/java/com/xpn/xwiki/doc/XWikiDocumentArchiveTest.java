@@ -20,7 +20,9 @@
 package com.xpn.xwiki.doc;
 
 import java.util.Date;
+import java.util.List;
 
+import org.apache.commons.lang3.StringUtils;
 import org.jmock.Mock;
 import org.suigeneris.jrcs.rcs.Version;
 import org.xwiki.model.reference.DocumentReference;
@@ -29,6 +31,7 @@
 import com.xpn.xwiki.XWikiConfig;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.rcs.XWikiRCSNodeInfo;
 import com.xpn.xwiki.test.AbstractBridgedXWikiComponentTestCase;
 import com.xpn.xwiki.user.api.XWikiRightService;
 
@@ -43,6 +46,8 @@ public class XWikiDocumentArchiveTest extends AbstractBridgedXWikiComponentTestC
 
     private Mock mockXWiki;
 
+    private XWikiConfig config;
+
     @Override
     protected void setUp() throws Exception
     {
@@ -50,7 +55,8 @@ protected void setUp() throws Exception
 
         this.mockXWiki = mock(XWiki.class);
         this.mockXWiki.stubs().method("getEncoding").will(returnValue("iso-8859-1"));
-        this.mockXWiki.stubs().method("getConfig").will(returnValue(new XWikiConfig()));
+        this.config = new XWikiConfig();
+        this.mockXWiki.stubs().method("getConfig").will(returnValue(this.config));
 
         this.context = new XWikiContext();
         this.context.setWiki((XWiki) this.mockXWiki.proxy());
@@ -326,6 +332,119 @@ public void testVerifyDiffAndFullRevisionAlgorithm() throws Exception
         assertFalse(archive.getNode(new Version(6, 1)).isDiff());
     }
 
+    public void testFullRevisionWhenDiffsAreTooLarge() throws Exception
+    {
+        this.config.setProperty("xwiki.store.rcs.nodesPerFull", "0");
+        this.config.setProperty("xwiki.store.rcs.maxDiffSizePerFull", "1");
+
+        XWikiDocument doc = new XWikiDocument(new DocumentReference("Test", "Test", "Test"));
+        XWikiDocumentArchive archive = new XWikiDocumentArchive(doc.getId());
+        doc.setDocumentArchive(archive);
+        String author = "XWiki.some author";
+
+        addRevisionToHistory(archive, doc, StringUtils.repeat('a', 700), author, "1.1");
+        addRevisionToHistory(archive, doc, StringUtils.repeat('b', 700), author, "2.1");
+        assertTrue(archive.getNode(new Version(1, 1)).isDiff());
+
+        // Replacing the 2.1 revision by a diff would require to apply more than 1KB of diffs to get the 1.1 revision
+        addRevisionToHistory(archive, doc, StringUtils.repeat('c', 700), author, "3.1");
+        assertTrue(archive.getNode(new Version(1, 1)).isDiff());
+        assertFalse(archive.getNode(new Version(2, 1)).isDiff());
+        assertFalse(archive.getNode(new Version(3, 1)).isDiff());
+
+        assertEquals(StringUtils.repeat('a', 700), archive.loadDocument(new Version(1, 1), context).getContent());
+    }
+
+    public void testCompact() throws Exception
+    {
+        XWikiDocument doc = new XWikiDocument(new DocumentReference("Test", "Test", "Test"));
+        XWikiDocumentArchive archive = new XWikiDocumentArchive(doc.getId());
+        doc.setDocumentArchive(archive);
+        String author = "XWiki.some author";
+
+        // Only keep the latest revision full
+        this.config.setProperty("xwiki.store.rcs.nodesPerFull", "0");
+        for (int i = 1; i <= 7; i++) {
+            addRevisionToHistory(archive, doc, "content " + i + ".1", author, i + ".1");
+        }
+        assertFalse(archive.compact(context));
+        archive.getUpdatedNodeContents().clear();
+
+        this.config.setProperty("xwiki.store.rcs.nodesPerFull", "3");
+        assertTrue(archive.compact(context));
+
+        assertFalse(archive.getNode(new Version(7, 1)).isDiff());
+        assertTrue(archive.getNode(new Version(6, 1)).isDiff());
+        assertTrue(archive.getNode(new Version(5, 1)).isDiff());
+        assertFalse(archive.getNode(new Version(4, 1)).isDiff());
+        assertTrue(archive.getNode(new Version(3, 1)).isDiff());
+        assertTrue(archive.getNode(new Version(2, 1)).isDiff());
+        assertFalse(archive.getNode(new Version(1, 1)).isDiff());
+        assertEquals(2, archive.getUpdatedNodeContents().size());
+
+        for (int i = 1; i <= 7; i++) {
+            assertEquals("content " + i + ".1", archive.loadDocument(new Version(i, 1), context).getContent());
+        }
+
+        // The archive already follows the policy
+        assertFalse(archive.compact(context));
+    }
+
+    public void testGetOlderNodes() throws Exception
+    {
+        XWikiDocument doc = new XWikiDocument(new DocumentReference("Test", "Test", "Test"));
+        XWikiDocumentArchive archive = new XWikiDocumentArchive(doc.getId());
+        doc.setDocumentArchive(archive);
+        String author = "XWiki.some author";
+
+        for (int i = 1; i <= 5; i++) {
+            addRevisionToHistory(archive, doc, "content " + i + ".1", author, i + ".1");
+        }
+
+        List<XWikiRCSNodeInfo> nodes = archive.getOlderNodes(null, 2);
+        assertEquals(2, nodes.size());
+        assertEquals(new Version(5, 1), nodes.get(0).getVersion());
+        assertEquals(new Version(4, 1), nodes.get(1).getVersion());
+
+        nodes = archive.getOlderNodes(nodes.get(1).getVersion(), 2);
+        assertEquals(2, nodes.size());
+        assertEquals(new Version(3, 1), nodes.get(0).getVersion());
+        assertEquals(new Version(2, 1), nodes.get(1).getVersion());
+
+        nodes = archive.getOlderNodes(nodes.get(1).getVersion(), 2);
+        assertEquals(1, nodes.size());
+        assertEquals(new Version(1, 1), nodes.get(0).getVersion());
+
+        assertEquals(5, archive.getOlderNodes(null, 0).size());
+        assertTrue(archive.getOlderNodes(new Version(1, 1), 0).isEmpty());
+    }
+
+    public void testGetNodesWithoutMinorVersions() throws Exception
+    {
+        XWikiDocument doc = new XWikiDocument(new DocumentReference("Test", "Test", "Test"));
+        XWikiDocumentArchive archive = new XWikiDocumentArchive(doc.getId());
+        doc.setDocumentArchive(archive);
+        String author = "XWiki.some author";
+
+        // 1.1, 1.2, 2.1, 2.2, 2.3, 3.1
+        boolean[] minorEdits = { false, true, false, true, true, false };
+        for (boolean minorEdit : minorEdits) {
+            doc.setMinorEdit(minorEdit);
+            addRevisionToHistory(archive, doc, "content", author, "comment");
+        }
+
+        List<XWikiRCSNodeInfo> nodes = archive.getNodes(false);
+        assertEquals(3, nodes.size());
+        assertEquals(new Version(3, 1), nodes.get(0).getVersion());
+        assertEquals(new Version(2, 3), nodes.get(1).getVersion());
+        assertEquals(new Version(1, 2), nodes.get(2).getVersion());
+
+        nodes = archive.getNodes(true);
+        assertEquals(6, nodes.size());
+        assertEquals(new Version(3, 1), nodes.get(0).getVersion());
+        assertEquals(new Version(1, 1), nodes.get(5).getVersion());
+    }
+
     private void addRevisionToHistory(XWikiDocumentArchive archive, XWikiDocument document, String content,
         String author, String comment) throws XWikiException
     {
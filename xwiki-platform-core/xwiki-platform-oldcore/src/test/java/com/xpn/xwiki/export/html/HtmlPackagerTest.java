@@ -0,0 +1,224 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.export.html;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.job.event.status.JobProgressManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.url.URLContextManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.model.LegacySpaceResolver;
+import com.xpn.xwiki.plugin.XWikiPluginManager;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.test.reference.ReferenceComponentList;
+import com.xpn.xwiki.web.XWikiServletRequestStub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the parallel export of {@link HtmlPackager}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+@ReferenceComponentList
+public class HtmlPackagerTest
+{
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    private final List<DocumentReference> pages = new ArrayList<>();
+
+    private final Map<String, AtomicInteger> renderings = new ConcurrentHashMap<>();
+
+    private File zipFile;
+
+    private File workDirectory;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        this.oldcore.registerMockEnvironment();
+        this.oldcore.getMocker().registerMockComponent(ExecutionContextManager.class);
+        this.oldcore.getMocker().registerMockComponent(URLContextManager.class);
+        this.oldcore.getMocker().registerMockComponent(JobProgressManager.class);
+        this.oldcore.getMocker().registerMockComponent(LegacySpaceResolver.class);
+        this.oldcore.getMocker().registerMockComponent(EntityReferenceSerializer.TYPE_STRING, "fspath");
+        EntityReferenceSerializer<String> pathSerializer =
+            this.oldcore.getMocker().registerMockComponent(EntityReferenceSerializer.TYPE_STRING, "path");
+        when(pathSerializer.serialize(any()))
+            .then(invocation -> "Space/" + ((DocumentReference) invocation.getArgument(0)).getName());
+
+        XWikiContext xcontext = this.oldcore.getXWikiContext();
+        xcontext.setRequest(new XWikiServletRequestStub(new URL("http://localhost:8080/xwiki/bin/export/Space/WebHome"),
+            null));
+        doReturn("xwiki/").when(this.oldcore.getSpyXWiki()).getWebAppPath(any());
+        doReturn("UTF-8").when(this.oldcore.getSpyXWiki()).getEncoding();
+
+        XWikiPluginManager pluginManager = mock(XWikiPluginManager.class);
+        when(pluginManager.endParsing(anyString(), any())).then(invocation -> invocation.getArgument(0));
+        doReturn(pluginManager).when(this.oldcore.getSpyXWiki()).getPluginManager();
+
+        // The first pages are the slowest to render so that the pages are rendered in a different order than the one
+        // in which they are listed
+        doAnswer(invocation -> {
+            String name = ((XWikiContext) invocation.getArgument(1)).getDoc().getDocumentReference().getName();
+            Thread.sleep(10L * (this.pages.size() - Integer.parseInt(name.substring(4))));
+            // Only count the pages which are fully rendered (the rendering is interrupted when the export is canceled)
+            this.renderings.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+            return "<p>" + name + "</p>";
+        }).when(this.oldcore.getSpyXWiki()).evaluateTemplate(eq("view.vm"), any());
+
+        for (int i = 0; i < 5; i++) {
+            DocumentReference pageReference = new DocumentReference("xwiki", "Space", "Page" + i);
+            XWikiDocument document = mock(XWikiDocument.class, pageReference.getName());
+            when(document.getDocumentReference()).thenReturn(pageReference);
+            when(document.getLanguage()).thenReturn("");
+            when(document.getTranslatedDocument(any(XWikiContext.class))).thenReturn(document);
+            doReturn(document).when(this.oldcore.getSpyXWiki()).getDocument(eq(pageReference), any(XWikiContext.class));
+            this.pages.add(pageReference);
+        }
+
+        File directory = new File(this.oldcore.getTemporaryDirectory(), "htmlexport");
+        this.zipFile = new File(directory, "export.zip");
+        this.workDirectory = new File(directory, "work");
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private boolean export(int threads, BooleanSupplierStub canceled) throws Exception
+    {
+        HtmlPackager packager = new HtmlPackager();
+        packager.addPageReferences(this.pages);
+
+        return packager.export(this.zipFile, this.workDirectory, threads, canceled::isCanceled,
+            this.oldcore.getXWikiContext());
+    }
+
+    private Map<String, String> readZip() throws Exception
+    {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(this.zipFile))) {
+            for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                entries.put(entry.getName(), IOUtils.toString(zis, StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    public void exportInParallelKeepsThePageOrder() throws Exception
+    {
+        assertTrue(export(3, new BooleanSupplierStub(Integer.MAX_VALUE)));
+
+        List<String> entryNames = new ArrayList<>(readZip().keySet());
+        assertEquals(Arrays.asList("pages/Space/Page0.html", "pages/Space/Page1.html", "pages/Space/Page2.html",
+            "pages/Space/Page3.html", "pages/Space/Page4.html", "index.html"), entryNames);
+        assertEquals("<p>Page3</p>", readZip().get("pages/Space/Page3.html"));
+
+        String index = readZip().get("index.html");
+        assertTrue(index.indexOf("Page0") < index.indexOf("Page1"));
+        assertTrue(index.indexOf("Page3") < index.indexOf("Page4"));
+    }
+
+    @Test
+    public void exportResumesAnExistingWorkDirectory() throws Exception
+    {
+        // Page rendered before the export was interrupted
+        FileUtils.write(new File(this.workDirectory, "pages/Space/Page2.html"), "<p>Previous</p>",
+            StandardCharsets.UTF_8);
+
+        assertTrue(export(2, new BooleanSupplierStub(Integer.MAX_VALUE)));
+
+        assertEquals("<p>Previous</p>", readZip().get("pages/Space/Page2.html"));
+        assertEquals("<p>Page1</p>", readZip().get("pages/Space/Page1.html"));
+        assertFalse(this.renderings.containsKey("Page2"));
+        assertEquals(4, this.renderings.size());
+    }
+
+    @Test
+    public void exportCanceledAndResumed() throws Exception
+    {
+        // Cancel the export once the first page has been collected
+        assertFalse(export(1, new BooleanSupplierStub(0)));
+
+        assertFalse(this.zipFile.exists());
+        assertTrue(new File(this.workDirectory, "pages/Space/Page0.html").exists());
+        assertEquals(1, this.renderings.get("Page0").get());
+
+        // Running the export again only renders the pages which were not rendered before
+        assertTrue(export(2, new BooleanSupplierStub(Integer.MAX_VALUE)));
+
+        assertEquals(6, readZip().size());
+        assertEquals("<p>Page0</p>", readZip().get("pages/Space/Page0.html"));
+        for (AtomicInteger count : this.renderings.values()) {
+            assertEquals(1, count.get());
+        }
+    }
+
+    /**
+     * Cancel the export after a given number of checks.
+     */
+    private static final class BooleanSupplierStub
+    {
+        private final AtomicInteger remainingChecks;
+
+        BooleanSupplierStub(int checks)
+        {
+            this.remainingChecks = new AtomicInteger(checks);
+        }
+
+        boolean isCanceled()
+        {
+            return this.remainingChecks.getAndDecrement() <= 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.export;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Unit tests for {@link HtmlExportRequest}.
+ *
+ * @version $Id$
+ */
+public class HtmlExportRequestTest
+{
+    private static final DocumentReference ALICE = new DocumentReference("wiki", "XWiki", "Alice");
+
+    private static final DocumentReference BOB = new DocumentReference("wiki", "XWiki", "Bob");
+
+    private static final DocumentReference PAGE1 = new DocumentReference("wiki", "Space", "Page1");
+
+    private static final DocumentReference PAGE2 = new DocumentReference("wiki", "Space", "Page2");
+
+    @Test
+    public void sameExportHasSameId()
+    {
+        HtmlExportRequest request = new HtmlExportRequest(Arrays.asList(PAGE1, PAGE2), "name", null, ALICE);
+
+        assertEquals(Arrays.asList(PAGE1, PAGE2), request.getPages());
+        assertEquals("name", request.getName());
+        assertEquals(3, request.getId().size());
+        assertEquals(request.getId(),
+            new HtmlExportRequest(Arrays.asList(PAGE2, PAGE1), "name", null, ALICE).getId());
+    }
+
+    @Test
+    public void differentExportsHaveDifferentIds()
+    {
+        HtmlExportRequest request = new HtmlExportRequest(Arrays.asList(PAGE1, PAGE2), "name", null, ALICE);
+
+        assertNotEquals(request.getId(),
+            new HtmlExportRequest(Arrays.asList(PAGE1, PAGE2), "name", null, BOB).getId());
+        assertNotEquals(request.getId(),
+            new HtmlExportRequest(Arrays.asList(PAGE1), "name", null, ALICE).getId());
+        assertNotEquals(request.getId(),
+            new HtmlExportRequest(Arrays.asList(PAGE1, PAGE2), "other", null, ALICE).getId());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.query;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.internal.QueryResultCache;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link QueryResultCacheObjectListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class QueryResultCacheObjectListenerTest
+{
+    private static final DocumentReference CLASS_REFERENCE = new DocumentReference("wiki", "Space", "Class");
+
+    private static final DocumentReference OTHER_CLASS_REFERENCE = new DocumentReference("wiki", "Space", "Other");
+
+    @InjectMockComponents
+    private QueryResultCacheObjectListener listener;
+
+    @MockComponent
+    private QueryResultCache cache;
+
+    @Test
+    public void onDocumentUpdated()
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        XWikiDocument originalDocument = mock(XWikiDocument.class);
+        when(document.getOriginalDocument()).thenReturn(originalDocument);
+        when(document.getXObjects())
+            .thenReturn(Collections.singletonMap(CLASS_REFERENCE, Collections.singletonList(mock(BaseObject.class))));
+        when(originalDocument.getXObjects()).thenReturn(
+            Collections.singletonMap(OTHER_CLASS_REFERENCE, Collections.singletonList(mock(BaseObject.class))));
+
+        this.listener.onEvent(new DocumentUpdatedEvent(), document, null);
+
+        verify(this.cache).invalidateClass(CLASS_REFERENCE);
+        // The object of this class was removed
+        verify(this.cache).invalidateClass(OTHER_CLASS_REFERENCE);
+    }
+
+    @Test
+    public void onDocumentWithoutObjectDeleted()
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        XWikiDocument originalDocument = mock(XWikiDocument.class);
+        when(document.getOriginalDocument()).thenReturn(originalDocument);
+        when(document.getXObjects()).thenReturn(Collections.emptyMap());
+        when(originalDocument.getXObjects()).thenReturn(Collections.emptyMap());
+
+        this.listener.onEvent(new DocumentDeletedEvent(), document, null);
+
+        verify(this.cache, never()).invalidateClass(any());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store.hibernate.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.xpn.xwiki.internal.store.hibernate.HibernateStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link ScrollableResultsIterator}.
+ *
+ * @version $Id$
+ */
+public class ScrollableResultsIteratorTest
+{
+    private HibernateStore store = mock(HibernateStore.class);
+
+    private Session session = mock(Session.class);
+
+    private ScrollableResults results = mock(ScrollableResults.class);
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        when(this.results.next()).thenReturn(true, true, true, true, true, false);
+        when(this.results.get()).thenReturn(new Object[] { "A" }, new Object[] { "B" }, new Object[] { "C" },
+            new Object[] { "D" }, new Object[] { "E" });
+    }
+
+    @Test
+    public void iterateByChunks()
+    {
+        List<Integer> chunkSizes = new ArrayList<>();
+        UnaryOperator<List<String>> filter = chunk -> {
+            chunkSizes.add(chunk.size());
+            return chunk;
+        };
+
+        ScrollableResultsIterator<String> iterator =
+            new ScrollableResultsIterator<>(this.store, this.session, this.results, 2, filter);
+
+        List<String> values = new ArrayList<>();
+        iterator.forEachRemaining(values::add);
+
+        assertEquals(Arrays.asList("A", "B", "C", "D", "E"), values);
+        assertEquals(Arrays.asList(2, 2, 1), chunkSizes);
+        verify(this.session, times(3)).clear();
+        verify(this.results).close();
+        verify(this.store).closeIndependentSession(this.session);
+    }
+
+    @Test
+    public void filterChunks()
+    {
+        UnaryOperator<List<String>> filter = chunk -> chunk.stream()
+            .filter(value -> !value.equals("B") && !value.equals("C")).collect(Collectors.toList());
+
+        ScrollableResultsIterator<String> iterator =
+            new ScrollableResultsIterator<>(this.store, this.session, this.results, 2, filter);
+
+        List<String> values = new ArrayList<>();
+        iterator.forEachRemaining(values::add);
+
+        assertEquals(Arrays.asList("A", "D", "E"), values);
+    }
+
+    @Test
+    public void closeBeforeTheEnd()
+    {
+        ScrollableResultsIterator<String> iterator =
+            new ScrollableResultsIterator<>(this.store, this.session, this.results, 2, UnaryOperator.identity());
+
+        assertEquals("A", iterator.next());
+        verify(this.store, never()).closeIndependentSession(this.session);
+
+        iterator.close();
+        iterator.close();
+
+        verify(this.results).close();
+        verify(this.store).closeIndependentSession(this.session);
+        assertEquals("B", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+}
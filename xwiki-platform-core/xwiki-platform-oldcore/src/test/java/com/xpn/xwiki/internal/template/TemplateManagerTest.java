@@ -61,6 +61,7 @@
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -184,4 +185,23 @@ public void testRenderClassloaderTemplate() throws Exception
 
         assertEquals("OK", this.templateManager.render("classloader_template.vm"));
     }
+
+    @Test
+    public void testTemplateResolutionIsCached() throws Exception
+    {
+        mockVelocity("source", "OK");
+
+        setTemplateContent("source");
+
+        assertEquals("OK", this.templateManager.render("template"));
+        assertEquals("OK", this.templateManager.render("template"));
+
+        assertEquals("", this.templateManager.render("missing"));
+        assertEquals("", this.templateManager.render("missing"));
+
+        // The templates are resolved and read only once
+        verify(this.environmentMock).getResource("/templates/template");
+        verify(this.environmentMock).getResourceAsStream("/templates/template");
+        verify(this.environmentMock).getResource("/templates/missing");
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.stats.impl.xwiki;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.stats.impl.StatsUtil.PeriodType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link StatsStoreItemAggregate}.
+ *
+ * @version $Id$
+ */
+public class StatsStoreItemAggregateTest
+{
+    private XWikiContext context = mock(XWikiContext.class);
+
+    private DocumentStatsStoreItem newItem(boolean visit)
+    {
+        return new DocumentStatsStoreItem("Space.Page", new Date(), PeriodType.DAY, "view", visit, this.context);
+    }
+
+    @Test
+    public void add()
+    {
+        DocumentStatsStoreItem first = newItem(true);
+        DocumentStatsStoreItem second = newItem(false);
+        DocumentStatsStoreItem third = newItem(true);
+
+        StatsStoreItemAggregate aggregate = new StatsStoreItemAggregate(first);
+        aggregate.add(first);
+        aggregate.add(second);
+        aggregate.add(third);
+
+        assertSame(first, aggregate.getFirstItem());
+        assertSame(third, aggregate.getLastItem());
+        assertEquals(3, aggregate.getCount());
+        assertEquals(2, aggregate.getVisits());
+    }
+
+    @Test
+    public void of()
+    {
+        DocumentStatsStoreItem first = newItem(false);
+        DocumentStatsStoreItem second = newItem(false);
+
+        StatsStoreItemAggregate aggregate = StatsStoreItemAggregate.of(Arrays.<XWikiStatsStoreItem>asList(first, second));
+
+        assertSame(first, aggregate.getFirstItem());
+        assertSame(second, aggregate.getLastItem());
+        assertEquals(2, aggregate.getCount());
+        assertEquals(0, aggregate.getVisits());
+    }
+}
@@ -19,9 +19,13 @@
  */
 package org.xwiki.query;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.stability.Unstable;
 
 /**
@@ -189,10 +193,88 @@ default QueryParameter bindValue(String var)
      */
     int getOffset();
 
+    /**
+     * Allow the results of this query to be kept in a short-lived cache. Only read-only queries whose results are not
+     * modified by the caller should be cacheable. The cached results are dropped as soon as a document of the wiki on
+     * which the query is executed is saved or deleted, unless narrower {@link #setCacheDependencies(Collection)
+     * dependencies} are declared.
+     *
+     * @param cacheable {@code true} if the results of this query can be taken from (and put in) the query cache
+     * @return this query
+     * @since 12.6RC1
+     */
+    @Unstable
+    default Query setCacheable(boolean cacheable)
+    {
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the results of this query can be taken from (and put in) the query cache
+     * @see #setCacheable(boolean)
+     * @since 12.6RC1
+     */
+    @Unstable
+    default boolean isCacheable()
+    {
+        return false;
+    }
+
+    /**
+     * Declare the entities which are read by this query, so that its cached results are only dropped when one of them
+     * is modified instead of when any document of the wiki is modified:
+     * <ul>
+     * <li>a wiki or a space: any document it contains (including in the nested spaces)</li>
+     * <li>a document: the document itself and, if the document defines a class, any document holding an object of this
+     * class</li>
+     * </ul>
+     *
+     * @param dependencies the entities on which the results of this query depend, empty for the whole wiki
+     * @return this query
+     * @see #setCacheable(boolean)
+     * @since 12.6RC1
+     */
+    @Unstable
+    default Query setCacheDependencies(Collection<? extends EntityReference> dependencies)
+    {
+        return this;
+    }
+
+    /**
+     * @return the entities on which the cached results of this query depend, empty for the whole wiki
+     * @see #setCacheDependencies(Collection)
+     * @since 12.6RC1
+     */
+    @Unstable
+    default Collection<EntityReference> getCacheDependencies()
+    {
+        return Collections.emptyList();
+    }
+
     /**
      * @param <T> expected type of elements in the result list.
      * @return result list of the query. If several fields are selected then T=Object[].
      * @throws QueryException if something goes wrong.
      */
     <T> List<T> execute() throws QueryException;
+
+    /**
+     * Execute the query and return its results as a stream fetching them from the storage progressively, so that large
+     * result sets can be iterated without being loaded in memory all at once. The stream holds storage resources (for
+     * example a database connection) until it is fully consumed or closed, so it should be used in a
+     * try-with-resources block. The {@link QueryFilter#filterResults(List) result filters} are applied on successive
+     * chunks of results instead of the whole list.
+     * <p>
+     * The default implementation executes the query and streams the resulting list.
+     *
+     * @param <T> expected type of elements in the result stream. If several fields are selected then T=Object[].
+     * @return the results of the query
+     * @throws QueryException if something goes wrong
+     * @since 12.6RC1
+     */
+    @Unstable
+    default <T> Stream<T> stream() throws QueryException
+    {
+        return this.<T>execute().stream();
+    }
 }
@@ -20,8 +20,10 @@
 package org.xwiki.query;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Execute a query for a given language (one implementation per language).
@@ -41,4 +43,18 @@
      * @see Query#execute()
      */
     <T> List<T> execute(Query query) throws QueryException;
+
+    /**
+     * @param <T> expected type of elements in the result stream
+     * @param query query to execute
+     * @return the results of the query, fetched progressively when the executor supports it
+     * @throws QueryException if something goes wrong
+     * @see Query#stream()
+     * @since 12.6RC1
+     */
+    @Unstable
+    default <T> Stream<T> stream(Query query) throws QueryException
+    {
+        return this.<T>execute(query).stream();
+    }
 }
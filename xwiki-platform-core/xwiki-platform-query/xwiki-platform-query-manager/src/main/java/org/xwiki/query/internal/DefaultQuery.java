@@ -20,13 +20,17 @@
 package org.xwiki.query.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryExecutor;
@@ -99,6 +103,16 @@ public class DefaultQuery implements SecureQuery
      */
     private boolean checkCurrentUser;
 
+    /**
+     * field for {@link #isCacheable()}.
+     */
+    private boolean cacheable;
+
+    /**
+     * field for {@link #getCacheDependencies()}.
+     */
+    private List<EntityReference> cacheDependencies = Collections.emptyList();
+
     /**
      * field for {@link #getFilters()}.
      */
@@ -242,6 +256,32 @@ public Query setOffset(int offset)
         return this;
     }
 
+    @Override
+    public Query setCacheable(boolean cacheable)
+    {
+        this.cacheable = cacheable;
+        return this;
+    }
+
+    @Override
+    public boolean isCacheable()
+    {
+        return this.cacheable;
+    }
+
+    @Override
+    public Query setCacheDependencies(Collection<? extends EntityReference> dependencies)
+    {
+        this.cacheDependencies = new ArrayList<>(dependencies);
+        return this;
+    }
+
+    @Override
+    public Collection<EntityReference> getCacheDependencies()
+    {
+        return this.cacheDependencies;
+    }
+
     @Override
     public boolean isCurrentAuthorChecked()
     {
@@ -306,6 +346,12 @@ public <T> List<T> execute() throws QueryException
         return getExecuter().execute(this);
     }
 
+    @Override
+    public <T> Stream<T> stream() throws QueryException
+    {
+        return getExecuter().stream(this);
+    }
+
     /**
      * @return QueryExecutor interface for execute the query.
      */
@@ -0,0 +1,420 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheEntry;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryEvent;
+import org.xwiki.cache.event.CacheEntryListener;
+import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.ModelContext;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.SecureQuery;
+
+/**
+ * Short-lived cache of the results of the queries marked as {@link Query#isCacheable() cacheable}.
+ * <p>
+ * The key of an entry contains everything which can change the result of the query: statement, language, bound
+ * parameters, offset, limit, filters, target wiki, current user and current author. The entries are indexed by the
+ * entities they depend on (see {@link Query#setCacheDependencies(Collection)}, the target wiki by default) and are
+ * removed when one of these entities is modified (see {@link QueryResultCacheListener}).
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component(roles = QueryResultCache.class)
+@Singleton
+public class QueryResultCache implements Initializable, Disposable, CacheEntryListener<QueryResultCache.Entry>
+{
+    private static final String CONFIGURATION_PREFIX = "query.resultCache.";
+
+    private static final int DEFAULT_SIZE = 500;
+
+    private static final int DEFAULT_TIME_TO_LIVE = 60;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private ConfigurationSource configuration;
+
+    @Inject
+    private ModelContext modelContext;
+
+    @Inject
+    private DocumentAccessBridge documentAccessBridge;
+
+    private Cache<Entry> entries;
+
+    /**
+     * The keys of the cached entries depending on each entity.
+     */
+    private final Map<EntityReference, Set<String>> dependencyMapping = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented for each modification, to detect the results computed while an entity was modified.
+     */
+    private final AtomicLong modifications = new AtomicLong();
+
+    /**
+     * The key of a query in a given context.
+     *
+     * @version $Id$
+     */
+    public static final class Key
+    {
+        private final List<Object> values;
+
+        private final String id;
+
+        private final Set<EntityReference> dependencies;
+
+        private final long modifications;
+
+        Key(List<Object> values, Set<EntityReference> dependencies, long modifications)
+        {
+            this.values = values;
+            this.id = toCacheKey(values);
+            this.dependencies = dependencies;
+            this.modifications = modifications;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return obj instanceof Key && this.values.equals(((Key) obj).values);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.values.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.id;
+        }
+    }
+
+    /**
+     * A cached result.
+     *
+     * @version $Id$
+     */
+    static final class Entry
+    {
+        private final List<Object> values;
+
+        private final List<Object> results;
+
+        private final Set<EntityReference> dependencies;
+
+        Entry(Key key, List<Object> results)
+        {
+            this.values = key.values;
+            this.results = results;
+            this.dependencies = key.dependencies;
+        }
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        int size = this.configuration.getProperty(CONFIGURATION_PREFIX + "size", DEFAULT_SIZE);
+        int timeToLive = this.configuration.getProperty(CONFIGURATION_PREFIX + "timeToLive", DEFAULT_TIME_TO_LIVE);
+
+        if (size > 0 && timeToLive > 0) {
+            CacheConfiguration cacheConfiguration = new CacheConfiguration("query.results");
+            LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
+            lru.setMaxEntries(size);
+            lru.setLifespan(timeToLive);
+            cacheConfiguration.put(LRUEvictionConfiguration.CONFIGURATIONID, lru);
+
+            try {
+                this.entries = this.cacheManager.createNewCache(cacheConfiguration);
+            } catch (CacheException e) {
+                throw new InitializationException("Failed to create the query result cache", e);
+            }
+
+            this.entries.addCacheEntryListener(this);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.entries != null) {
+            this.entries.dispose();
+        }
+    }
+
+    /**
+     * @return {@code true} if the cache can hold entries
+     */
+    public boolean isEnabled()
+    {
+        return this.entries != null;
+    }
+
+    private static String toCacheKey(List<?> values)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        for (Object value : values) {
+            String element = value instanceof List ? toCacheKey((List<?>) value) : String.valueOf(value);
+            builder.append(element.length()).append(':').append(element);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Compute the key of a query in the current context. The key must be computed <strong>before</strong> executing
+     * the query so that a modification happening during the execution prevents storing the results.
+     *
+     * @param query the query to execute
+     * @return the key of the query or {@code null} if the results of the query cannot be cached (for example because
+     *         one of its parameters has an unknown type)
+     */
+    public Key getKey(Query query)
+    {
+        long currentModifications = this.modifications.get();
+
+        List<Object> namedParameters = getParametersKey(new TreeMap<>(query.getNamedParameters()));
+        List<Object> positionalParameters = getParametersKey(new TreeMap<>(query.getPositionalParameters()));
+        String wiki = getWiki(query);
+        if (namedParameters == null || positionalParameters == null || wiki == null) {
+            return null;
+        }
+
+        // Filters are compared by identity: the filter components are singletons while the filters holding a state
+        // are usually created for a single query
+        List<QueryFilter> filters = new ArrayList<>(query.getFilters());
+
+        boolean authorChecked = query instanceof SecureQuery && ((SecureQuery) query).isCurrentAuthorChecked();
+        boolean userChecked = query instanceof SecureQuery && ((SecureQuery) query).isCurrentUserChecked();
+
+        List<Object> values = Arrays.asList(wiki, query.isNamed(), query.getLanguage(), query.getStatement(),
+            namedParameters, positionalParameters, query.getOffset(), query.getLimit(), filters,
+            this.documentAccessBridge.getCurrentUserReference(), this.documentAccessBridge.getCurrentAuthorReference(),
+            authorChecked, userChecked);
+
+        Set<EntityReference> dependencies = new HashSet<>(query.getCacheDependencies());
+        if (dependencies.isEmpty()) {
+            dependencies.add(new WikiReference(wiki));
+        }
+
+        return new Key(values, dependencies, currentModifications);
+    }
+
+    /**
+     * @param <T> the type of the results
+     * @param key the key of the query, see {@link #getKey(Query)}
+     * @return a copy of the cached results or {@code null} if there is no valid entry for this key
+     */
+    public <T> List<T> get(Key key)
+    {
+        Entry entry = this.entries.get(key.id);
+
+        // The identifier is only a textual representation of the key: make sure it's really the same key
+        if (entry == null || !entry.values.equals(key.values)) {
+            return null;
+        }
+
+        return new ArrayList<>((List<T>) entry.results);
+    }
+
+    /**
+     * @param key the key of the query, see {@link #getKey(Query)}
+     * @param results the results of the query
+     */
+    public void set(Key key, List<?> results)
+    {
+        // Don't store results which may have been computed from entities modified during the execution of the query
+        if (key.modifications == this.modifications.get()) {
+            this.entries.set(key.id, new Entry(key, Collections.unmodifiableList(new ArrayList<>(results))));
+
+            // An entity might have been modified before the entry was indexed
+            if (key.modifications != this.modifications.get()) {
+                this.entries.remove(key.id);
+            }
+        }
+    }
+
+    /**
+     * Remove the entries depending on the passed entity or on one of its parents.
+     *
+     * @param reference the modified entity
+     */
+    public void invalidate(EntityReference reference)
+    {
+        this.modifications.incrementAndGet();
+
+        for (EntityReference current = reference; current != null; current = current.getParent()) {
+            remove(this.dependencyMapping.remove(current));
+        }
+    }
+
+    /**
+     * Remove the entries depending on the passed class, after the modification of an object of this class.
+     *
+     * @param classReference the reference of the class
+     */
+    public void invalidateClass(EntityReference classReference)
+    {
+        this.modifications.incrementAndGet();
+
+        remove(this.dependencyMapping.remove(classReference));
+    }
+
+    private void remove(Set<String> keys)
+    {
+        if (keys != null && this.entries != null) {
+            for (String key : keys) {
+                this.entries.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void cacheEntryAdded(CacheEntryEvent<Entry> event)
+    {
+        CacheEntry<Entry> entry = event.getEntry();
+
+        for (EntityReference dependency : entry.getValue().dependencies) {
+            this.dependencyMapping.computeIfAbsent(dependency, k -> ConcurrentHashMap.newKeySet())
+                .add(entry.getKey());
+        }
+    }
+
+    @Override
+    public void cacheEntryRemoved(CacheEntryEvent<Entry> event)
+    {
+        CacheEntry<Entry> entry = event.getEntry();
+
+        for (EntityReference dependency : entry.getValue().dependencies) {
+            Set<String> keys = this.dependencyMapping.get(dependency);
+            if (keys != null) {
+                keys.remove(entry.getKey());
+
+                if (keys.isEmpty()) {
+                    this.dependencyMapping.remove(dependency);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void cacheEntryModified(CacheEntryEvent<Entry> event)
+    {
+        cacheEntryAdded(event);
+    }
+
+    private String getWiki(Query query)
+    {
+        if (query.getWiki() != null) {
+            return query.getWiki();
+        }
+
+        EntityReference currentReference = this.modelContext.getCurrentEntityReference();
+
+        return currentReference != null ? currentReference.extractReference(EntityType.WIKI).getName() : null;
+    }
+
+    private List<Object> getParametersKey(Map<?, Object> parameters)
+    {
+        List<Object> key = new ArrayList<>(parameters.size() * 2);
+        for (Map.Entry<?, Object> parameter : parameters.entrySet()) {
+            Object value = getValueKey(parameter.getValue());
+            if (value == null && parameter.getValue() != null) {
+                return null;
+            }
+            key.add(parameter.getKey());
+            key.add(value);
+        }
+
+        return key;
+    }
+
+    private Object getValueKey(Object value)
+    {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+            || value instanceof Character || value instanceof Enum || value instanceof EntityReference) {
+            return value;
+        } else if (value instanceof Date) {
+            // Date is mutable
+            return Arrays.asList(Date.class, ((Date) value).getTime());
+        } else if (value instanceof DefaultQueryParameter) {
+            List<Object> parts = new ArrayList<>();
+            for (ParameterPart part : ((DefaultQueryParameter) value).getParts()) {
+                parts.add(part.getClass());
+                parts.add(part.getValue());
+            }
+
+            return parts;
+        } else if (value instanceof Collection) {
+            List<Object> values = new ArrayList<>(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                Object elementKey = getValueKey(element);
+                if (elementKey == null && element != null) {
+                    return null;
+                }
+                values.add(elementKey);
+            }
+
+            return values;
+        }
+
+        // Unknown (and possibly mutable) value
+        return null;
+    }
+}
@@ -25,6 +25,7 @@
 import org.slf4j.LoggerFactory;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryFilter;
@@ -32,8 +33,10 @@
 import org.xwiki.query.QueryParameter;
 import org.xwiki.query.SecureQuery;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Query wrapper that allows to set filter from the filter component hint.
@@ -107,6 +110,8 @@ public long count()
             QueryManager queryManager = this.componentManager.getInstance(QueryManager.class);
             Query countQuery = queryManager.createQuery(getStatement(), getLanguage());
             countQuery.setWiki(getWiki());
+            countQuery.setCacheable(isCacheable());
+            countQuery.setCacheDependencies(getCacheDependencies());
             for (Map.Entry<Integer, Object> entry : getPositionalParameters().entrySet()) {
                 countQuery.bindValue(entry.getKey(), entry.getValue());
             }
@@ -248,12 +253,44 @@ public int getOffset()
         return this.query.getOffset();
     }
 
+    @Override
+    public Query setCacheable(boolean cacheable)
+    {
+        this.query.setCacheable(cacheable);
+        return this;
+    }
+
+    @Override
+    public boolean isCacheable()
+    {
+        return this.query.isCacheable();
+    }
+
+    @Override
+    public Query setCacheDependencies(Collection<? extends EntityReference> dependencies)
+    {
+        this.query.setCacheDependencies(dependencies);
+        return this;
+    }
+
+    @Override
+    public Collection<EntityReference> getCacheDependencies()
+    {
+        return this.query.getCacheDependencies();
+    }
+
     @Override
     public <T> List<T> execute() throws QueryException
     {
         return this.query.execute();
     }
 
+    @Override
+    public <T> Stream<T> stream() throws QueryException
+    {
+        return this.query.stream();
+    }
+
     @Override
     public boolean isCurrentAuthorChecked()
     {
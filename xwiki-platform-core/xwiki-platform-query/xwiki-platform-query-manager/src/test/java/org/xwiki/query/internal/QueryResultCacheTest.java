@@ -0,0 +1,186 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.internal.MapCache;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.model.ModelContext;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link QueryResultCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class QueryResultCacheTest
+{
+    @InjectMockComponents
+    private QueryResultCache cache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private ConfigurationSource configuration;
+
+    @MockComponent
+    private ModelContext modelContext;
+
+    @MockComponent
+    private DocumentAccessBridge documentAccessBridge;
+
+    @BeforeComponent
+    public void beforeComponent() throws CacheException
+    {
+        when(this.cacheManager.createNewCache(any())).thenReturn(new MapCache<>());
+        when(this.configuration.getProperty(eq("query.resultCache.size"), any(Integer.class))).thenReturn(2);
+        when(this.configuration.getProperty(eq("query.resultCache.timeToLive"), any(Integer.class))).thenReturn(60);
+    }
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        when(this.modelContext.getCurrentEntityReference()).thenReturn(new WikiReference("wiki"));
+        when(this.documentAccessBridge.getCurrentUserReference())
+            .thenReturn(new DocumentReference("wiki", "XWiki", "user"));
+    }
+
+    private Query createQuery(String statement)
+    {
+        return new DefaultQuery(statement, Query.HQL, null).setCacheable(true);
+    }
+
+    @Test
+    public void setAndGet()
+    {
+        assertTrue(this.cache.isEnabled());
+
+        QueryResultCache.Key key = this.cache.getKey(createQuery("select doc.name from Document doc"));
+        assertNull(this.cache.get(key));
+
+        this.cache.set(key, Arrays.asList("A", "B"));
+
+        assertEquals(Arrays.asList("A", "B"),
+            this.cache.get(this.cache.getKey(createQuery("select doc.name from Document doc"))));
+
+        // The caller gets a copy
+        this.cache.<String>get(key).clear();
+        assertEquals(Arrays.asList("A", "B"), this.cache.get(key));
+    }
+
+    @Test
+    public void keyDependsOnContextAndParameters()
+    {
+        Query query = createQuery("where doc.space = :space").bindValue("space", "Space");
+        QueryResultCache.Key key = this.cache.getKey(query);
+
+        assertEquals(key, this.cache.getKey(createQuery("where doc.space = :space").bindValue("space", "Space")));
+        assertNotEquals(key, this.cache.getKey(createQuery("where doc.space = :space").bindValue("space", "Other")));
+        assertNotEquals(key, this.cache.getKey(query.setWiki("otherwiki")));
+
+        when(this.documentAccessBridge.getCurrentUserReference())
+            .thenReturn(new DocumentReference("wiki", "XWiki", "otheruser"));
+        assertNotEquals(key, this.cache.getKey(createQuery("where doc.space = :space").bindValue("space", "Space")));
+    }
+
+    @Test
+    public void getKeyWithUnsupportedParameter()
+    {
+        assertNull(this.cache.getKey(createQuery("where doc.date > :date").bindValue("date", new Object())));
+        assertEquals(this.cache.getKey(createQuery("where doc.date > :date").bindValue("date", new Date(42))),
+            this.cache.getKey(createQuery("where doc.date > :date").bindValue("date", new Date(42))));
+    }
+
+    @Test
+    public void invalidateWiki()
+    {
+        Query query = createQuery("select doc.name from Document doc");
+        this.cache.set(this.cache.getKey(query), Arrays.asList("A"));
+
+        this.cache.invalidate(new DocumentReference("otherwiki", "Space", "Page"));
+        assertEquals(Arrays.asList("A"), this.cache.get(this.cache.getKey(query)));
+
+        this.cache.invalidate(new DocumentReference("wiki", "Space", "Page"));
+        assertNull(this.cache.get(this.cache.getKey(query)));
+    }
+
+    @Test
+    public void invalidateDependencies()
+    {
+        DocumentReference classReference = new DocumentReference("wiki", "Space", "Class");
+        Query classQuery = createQuery("select obj.name from BaseObject obj where obj.className = 'Space.Class'")
+            .setCacheDependencies(Collections.singletonList(classReference));
+        this.cache.set(this.cache.getKey(classQuery), Arrays.asList("A"));
+        Query spaceQuery = createQuery("select doc.name from Document doc where doc.space = 'Space'")
+            .setCacheDependencies(Collections.singletonList(new SpaceReference("wiki", "Space")));
+        this.cache.set(this.cache.getKey(spaceQuery), Arrays.asList("B"));
+
+        // Modifying a document of another space doesn't have any impact
+        this.cache.invalidate(new DocumentReference("wiki", "Other", "Page"));
+        assertEquals(Arrays.asList("A"), this.cache.get(this.cache.getKey(classQuery)));
+        assertEquals(Arrays.asList("B"), this.cache.get(this.cache.getKey(spaceQuery)));
+
+        // Modifying an object of the class only invalidates the results depending on the class
+        this.cache.invalidateClass(classReference);
+        assertNull(this.cache.get(this.cache.getKey(classQuery)));
+        assertEquals(Arrays.asList("B"), this.cache.get(this.cache.getKey(spaceQuery)));
+
+        this.cache.invalidate(new DocumentReference("wiki", "Space", "Page"));
+        assertNull(this.cache.get(this.cache.getKey(spaceQuery)));
+    }
+
+    @Test
+    public void setAfterModification()
+    {
+        Query query = createQuery("select doc.name from Document doc");
+        QueryResultCache.Key key = this.cache.getKey(query);
+
+        // A document is modified while the query is executed
+        this.cache.invalidate(new DocumentReference("otherwiki", "Space", "Page"));
+
+        this.cache.set(key, Arrays.asList("A"));
+        assertNull(this.cache.get(this.cache.getKey(query)));
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.xwiki.query.xwql.internal;
 
+import java.util.Collection;
+
 import org.xwiki.component.annotation.Role;
 
 @Role
@@ -27,4 +29,16 @@
     String getOutputLanguage();
 
     String translate(String statement) throws Exception;
+
+    /**
+     * @param statement the statement to translate
+     * @param classNames filled with the names of the classes on which the translation depends
+     * @return the translated statement
+     * @throws Exception when failing to translate the statement
+     * @since 12.6RC1
+     */
+    default String translate(String statement, Collection<String> classNames) throws Exception
+    {
+        return translate(statement);
+    }
 }
@@ -19,11 +19,14 @@
  */
 package org.xwiki.query.xwql.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
@@ -60,6 +63,9 @@ public class XWQLQueryExecutor implements QueryExecutor
     @Inject
     private JobProgressManager progress;
 
+    @Inject
+    private Provider<XWQLTranslationCache> translationCacheProvider;
+
     public QueryManager getQueryManager() throws ComponentLookupException
     {
         // We can't inject QueryManager because of cyclic dependency.
@@ -75,8 +81,30 @@ public static boolean isShortFormStatement(String statement)
         return StringUtils.startsWithAny(statement.trim().toLowerCase(), ",", "from", "where", "order");
     }
 
+    /**
+     * Execution of the translated query.
+     *
+     * @param <R> the type of the results
+     */
+    @FunctionalInterface
+    private interface NativeQueryExecution<R>
+    {
+        R execute(Query nativeQuery) throws QueryException;
+    }
+
     @Override
     public <T> List<T> execute(Query query) throws QueryException
+    {
+        return execute(query, nativeQuery -> nativeQuery.<T>execute());
+    }
+
+    @Override
+    public <T> Stream<T> stream(Query query) throws QueryException
+    {
+        return execute(query, nativeQuery -> nativeQuery.<T>stream());
+    }
+
+    private <R> R execute(Query query, NativeQueryExecution<R> execution) throws QueryException
     {
         EntityReference currentEntityReference = this.context.getCurrentEntityReference();
 
@@ -93,9 +121,8 @@ public <T> List<T> execute(Query query) throws QueryException
                 }
             }
 
-            nativeQuery =
-                getQueryManager().createQuery(this.translator.translate(query.getStatement()),
-                    this.translator.getOutputLanguage());
+            nativeQuery = getQueryManager().createQuery(translate(query.getStatement()),
+                this.translator.getOutputLanguage());
             nativeQuery.setLimit(query.getLimit());
             nativeQuery.setOffset(query.getOffset());
             nativeQuery.setWiki(query.getWiki());
@@ -121,7 +148,7 @@ public <T> List<T> execute(Query query) throws QueryException
                 ((SecureQuery) nativeQuery).checkCurrentUser(((SecureQuery) query).isCurrentUserChecked());
             }
 
-            return nativeQuery.execute();
+            return execution.execute(nativeQuery);
         } catch (QueryException qe) {
             throw qe;
         } catch (Exception e) {
@@ -134,6 +161,24 @@ public <T> List<T> execute(Query query) throws QueryException
         }
     }
 
+    private String translate(String statement) throws Exception
+    {
+        EntityReference currentReference = this.context.getCurrentEntityReference();
+        EntityReference wikiReference =
+            currentReference != null ? currentReference.extractReference(EntityType.WIKI) : null;
+        String wiki = wikiReference != null ? wikiReference.getName() : null;
+
+        XWQLTranslationCache cache = this.translationCacheProvider.get();
+        String translatedStatement = cache.get(wiki, statement);
+        if (translatedStatement == null) {
+            List<String> classNames = new ArrayList<>();
+            translatedStatement = this.translator.translate(statement, classNames);
+            cache.set(wiki, statement, translatedStatement, classNames);
+        }
+
+        return translatedStatement;
+    }
+
     public QueryTranslator getTranslator()
     {
         return this.translator;
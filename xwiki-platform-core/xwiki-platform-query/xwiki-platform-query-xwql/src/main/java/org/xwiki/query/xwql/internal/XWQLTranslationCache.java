@@ -0,0 +1,280 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.xwql.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheEntry;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.cache.event.CacheEntryEvent;
+import org.xwiki.cache.event.CacheEntryListener;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+
+/**
+ * Bounded cache of the XWQL statements translated to HQL. The translation of a statement depends on the wiki in which
+ * it's executed and on the definition of the classes it uses, so the entries are indexed by wiki and invalidated when
+ * one of these classes is modified.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component(roles = XWQLTranslationCache.class)
+@Singleton
+public class XWQLTranslationCache implements XWQLTranslationCacheMBean,
+    CacheEntryListener<XWQLTranslationCache.Translation>, Initializable, Disposable
+{
+    private static final String MBEAN_NAME = "org.xwiki:type=query,name=xwqlTranslationCache";
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private ConfigurationSource configuration;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> resolver;
+
+    @Inject
+    private Logger logger;
+
+    private Cache<Translation> translations;
+
+    /**
+     * The keys of the cached translations depending on each class, so that modifying a class only costs the number of
+     * translations using it.
+     */
+    private final Map<DocumentReference, Set<String>> classMapping = new ConcurrentHashMap<>();
+
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * A cached translation.
+     *
+     * @version $Id$
+     */
+    static final class Translation
+    {
+        private final String statement;
+
+        private final Set<DocumentReference> classes;
+
+        Translation(String statement, Set<DocumentReference> classes)
+        {
+            this.statement = statement;
+            this.classes = classes;
+        }
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        int maxSize = this.configuration.getProperty("query.xwql.translationCacheSize", 1000);
+
+        try {
+            this.translations =
+                this.cacheManager.createNewCache(new LRUCacheConfiguration("query.xwql.translation", maxSize));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to initialize the XWQL translation cache", e);
+        }
+
+        this.translations.addCacheEntryListener(this);
+
+        // Expose the cache statistics
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            // Replace the MBean of a previous instance of the component (e.g. when the extension is reloaded)
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception e) {
+            this.logger.warn("Failed to register the XWQL translation cache against the JMX Server: {}",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to unregister the XWQL translation cache from the JMX Server: {}",
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        this.translations.dispose();
+    }
+
+    private String getKey(String wiki, String statement)
+    {
+        return wiki + ':' + statement;
+    }
+
+    /**
+     * @param wiki the wiki in which the statement is executed
+     * @param statement the XWQL statement
+     * @return the cached translation of the statement or {@code null} if there is none
+     */
+    public String get(String wiki, String statement)
+    {
+        Translation translation = this.translations.get(getKey(wiki, statement));
+        if (translation != null) {
+            this.hits.increment();
+
+            return translation.statement;
+        }
+
+        this.misses.increment();
+
+        return null;
+    }
+
+    /**
+     * Cache the translation of a statement. Must be called with the wiki in which the statement is executed as current
+     * wiki.
+     *
+     * @param wiki the wiki in which the statement is executed
+     * @param statement the XWQL statement
+     * @param translatedStatement the translated statement
+     * @param classNames the names of the classes on which the translation depends
+     */
+    public void set(String wiki, String statement, String translatedStatement, Collection<String> classNames)
+    {
+        Set<DocumentReference> classes = new HashSet<>(classNames.size());
+        for (String className : classNames) {
+            classes.add(this.resolver.resolve(className));
+        }
+
+        this.translations.set(getKey(wiki, statement), new Translation(translatedStatement, classes));
+    }
+
+    /**
+     * Remove the translations which depend on the passed class.
+     *
+     * @param classReference the reference of the modified class
+     */
+    public void invalidate(DocumentReference classReference)
+    {
+        Set<String> classKeys = this.classMapping.remove(classReference);
+        if (classKeys != null) {
+            for (String key : classKeys) {
+                this.translations.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void cacheEntryAdded(CacheEntryEvent<Translation> event)
+    {
+        CacheEntry<Translation> entry = event.getEntry();
+        String key = entry.getKey();
+
+        this.keys.add(key);
+        for (DocumentReference classReference : entry.getValue().classes) {
+            this.classMapping.computeIfAbsent(classReference, k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    @Override
+    public void cacheEntryRemoved(CacheEntryEvent<Translation> event)
+    {
+        CacheEntry<Translation> entry = event.getEntry();
+        String key = entry.getKey();
+
+        this.keys.remove(key);
+        for (DocumentReference classReference : entry.getValue().classes) {
+            Set<String> classKeys = this.classMapping.get(classReference);
+            if (classKeys != null) {
+                classKeys.remove(key);
+
+                if (classKeys.isEmpty()) {
+                    this.classMapping.remove(classReference);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void cacheEntryModified(CacheEntryEvent<Translation> event)
+    {
+        cacheEntryAdded(event);
+    }
+
+    @Override
+    public int getSize()
+    {
+        return this.keys.size();
+    }
+
+    @Override
+    public long getHitCount()
+    {
+        return this.hits.sum();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return this.misses.sum();
+    }
+
+    @Override
+    public void clear()
+    {
+        this.translations.removeAll();
+        this.keys.clear();
+        this.classMapping.clear();
+    }
+}
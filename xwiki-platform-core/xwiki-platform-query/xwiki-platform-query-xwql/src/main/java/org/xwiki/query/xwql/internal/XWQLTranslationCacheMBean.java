@@ -0,0 +1,49 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.xwql.internal;
+
+/**
+ * Management interface of the cache of XWQL statements translated to HQL.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public interface XWQLTranslationCacheMBean
+{
+    /**
+     * @return the number of translations currently cached
+     */
+    int getSize();
+
+    /**
+     * @return the number of times a cached translation was reused
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of times a statement had to be translated
+     */
+    long getMissCount();
+
+    /**
+     * Remove all the cached translations.
+     */
+    void clear();
+}
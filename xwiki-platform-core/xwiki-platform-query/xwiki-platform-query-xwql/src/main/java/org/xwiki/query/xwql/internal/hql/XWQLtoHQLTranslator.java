@@ -19,6 +19,8 @@
  */
 package org.xwiki.query.xwql.internal.hql;
 
+import java.util.Collection;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -43,7 +45,13 @@ public class XWQLtoHQLTranslator implements QueryTranslator
     @Override
     public String translate(String input) throws Exception
     {
-        input = input.trim();
+        return translate(input, null);
+    }
+
+    @Override
+    public String translate(String statement, Collection<String> classNames) throws Exception
+    {
+        String input = statement.trim();
         String lcInput = input.toLowerCase();
         String addition = "select doc.fullName from Document as doc ";
         if (lcInput.startsWith("where") || lcInput.startsWith("order") || lcInput.length() == 0) {
@@ -57,6 +65,13 @@ public String translate(String input) throws Exception
         // analyze query and store info in context
         tree.apply(new QueryAnalyzer(context));
 
+        // The translation depends on the definition of the classes of the objects used in the query
+        if (classNames != null) {
+            for (QueryContext.ObjectInfo object : context.getObjects()) {
+                classNames.add(object.className);
+            }
+        }
+
         Printer printer = getPrinter(context);
         return printer.print();
     }
@@ -0,0 +1,124 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.xwql.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.internal.MapCache;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link XWQLTranslationCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class XWQLTranslationCacheTest
+{
+    private static final String STATEMENT = "from doc.object(XWiki.XWikiUsers) as user";
+
+    private static final String HQL = "select doc.fullName from XWikiDocument as doc, BaseObject as user";
+
+    private static final DocumentReference USERS_CLASS = new DocumentReference("wiki", "XWiki", "XWikiUsers");
+
+    @InjectMockComponents
+    private XWQLTranslationCache cache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private ConfigurationSource configuration;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> resolver;
+
+    @BeforeComponent
+    public void beforeComponent() throws CacheException
+    {
+        when(this.cacheManager.createNewCache(any())).thenReturn(new MapCache<>());
+        when(this.configuration.getProperty("query.xwql.translationCacheSize", 1000)).thenReturn(1000);
+    }
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        when(this.resolver.resolve("XWiki.XWikiUsers")).thenReturn(USERS_CLASS);
+    }
+
+    @Test
+    public void getAndSet()
+    {
+        assertNull(this.cache.get("wiki", STATEMENT));
+
+        this.cache.set("wiki", STATEMENT, HQL, Arrays.asList("XWiki.XWikiUsers"));
+
+        assertEquals(HQL, this.cache.get("wiki", STATEMENT));
+        assertNull(this.cache.get("otherwiki", STATEMENT));
+
+        assertEquals(1, this.cache.getSize());
+        assertEquals(1, this.cache.getHitCount());
+        assertEquals(2, this.cache.getMissCount());
+    }
+
+    @Test
+    public void invalidate()
+    {
+        this.cache.set("wiki", STATEMENT, HQL, Arrays.asList("XWiki.XWikiUsers"));
+        this.cache.set("wiki", "", "select doc.fullName from XWikiDocument as doc", Collections.emptyList());
+
+        this.cache.invalidate(new DocumentReference("wiki", "XWiki", "Other"));
+        assertEquals(2, this.cache.getSize());
+
+        this.cache.invalidate(USERS_CLASS);
+        assertNull(this.cache.get("wiki", STATEMENT));
+        assertEquals(1, this.cache.getSize());
+    }
+
+    @Test
+    public void clear()
+    {
+        this.cache.set("wiki", STATEMENT, HQL, Arrays.asList("XWiki.XWikiUsers"));
+
+        this.cache.clear();
+
+        assertEquals(0, this.cache.getSize());
+        assertNull(this.cache.get("wiki", STATEMENT));
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.xwiki.refactoring.internal;
 
+import java.util.Map;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.DocumentReference;
 
@@ -41,6 +43,21 @@
     void renameLinks(DocumentReference documentReference, DocumentReference oldLinkTarget,
         DocumentReference newLinkTarget);
 
+    /**
+     * Renames the links targeting several documents from the content of the specified document, loading and saving it
+     * only once.
+     * 
+     * @param documentReference the document whose content needs to be updated
+     * @param renamedLinkTargets the new link targets, indexed by the link targets that need to be replaced
+     * @since 12.6RC1
+     */
+    default void renameLinks(DocumentReference documentReference,
+        Map<DocumentReference, DocumentReference> renamedLinkTargets)
+    {
+        renamedLinkTargets.forEach((oldLinkTarget, newLinkTarget) -> renameLinks(documentReference, oldLinkTarget,
+            newLinkTarget));
+    }
+
     /**
      * Updates the relative links from the content of a document after it has been renamed or moved. This ensures that
      * the links from the content of the renamed/moved document are relative to the new reference.
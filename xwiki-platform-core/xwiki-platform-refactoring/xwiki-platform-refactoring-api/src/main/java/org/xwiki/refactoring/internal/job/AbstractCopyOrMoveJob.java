@@ -259,6 +259,8 @@ protected boolean copyOrMove(DocumentReference oldReference, DocumentReference n
             this.observationManager.notify(afterEvent, this, this.getRequest());
             this.progressManager.endStep(this);
 
+            this.status.documentProcessed();
+
             return true;
         } finally {
             this.progressManager.popLevelProgress(this);
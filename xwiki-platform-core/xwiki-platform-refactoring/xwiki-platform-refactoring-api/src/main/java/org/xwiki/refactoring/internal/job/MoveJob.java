@@ -20,6 +20,9 @@
 package org.xwiki.refactoring.internal.job;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.inject.Named;
 
@@ -44,6 +47,8 @@
 @Named(RefactoringJobs.MOVE)
 public class MoveJob extends AbstractCopyOrMoveJob<MoveRequest>
 {
+    private final Map<DocumentReference, DocumentReference> renamedDocuments = new LinkedHashMap<>();
+
     @Override
     public String getType()
     {
@@ -65,13 +70,17 @@ protected void runInternal() throws Exception
             this.progressManager.endStep(this);
 
             this.progressManager.startStep(this);
-            super.runInternal();
-            this.progressManager.endStep(this);
-
-            this.progressManager.startStep(this);
-            EntitiesRenamedEvent entitiesRenamedEvent = new EntitiesRenamedEvent();
-            this.observationManager.notify(entitiesRenamedEvent, this, this.getRequest());
-            this.progressManager.endStep(this);
+            try {
+                super.runInternal();
+                this.progressManager.endStep(this);
+            } finally {
+                // Notify even if the job fails so that the listeners (e.g. the back-links updater) can take into
+                // account the documents that have been renamed before the failure.
+                this.progressManager.startStep(this);
+                EntitiesRenamedEvent entitiesRenamedEvent = new EntitiesRenamedEvent();
+                this.observationManager.notify(entitiesRenamedEvent, this, this.getRequest());
+                this.progressManager.endStep(this);
+            }
         } finally {
             this.progressManager.popLevelProgress(this);
         }
@@ -104,7 +113,18 @@ protected void performRefactoring(DocumentReference oldReference, DocumentRefere
     {
         DocumentRenamingEvent documentRenamingEvent = new DocumentRenamingEvent(oldReference, newReference);
         DocumentRenamedEvent documentRenamedEvent = new DocumentRenamedEvent(oldReference, newReference);
-        copyOrMove(oldReference, newReference, documentRenamingEvent, documentRenamedEvent);
+        if (copyOrMove(oldReference, newReference, documentRenamingEvent, documentRenamedEvent)) {
+            this.renamedDocuments.put(oldReference, newReference);
+        }
+    }
+
+    /**
+     * @return the new references of the documents successfully renamed so far, indexed by their previous reference
+     * @since 12.6RC1
+     */
+    public Map<DocumentReference, DocumentReference> getRenamedDocuments()
+    {
+        return Collections.unmodifiableMap(this.renamedDocuments);
     }
 
     @Override
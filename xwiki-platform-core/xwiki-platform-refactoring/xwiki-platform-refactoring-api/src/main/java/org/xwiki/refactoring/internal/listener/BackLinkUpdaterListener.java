@@ -21,7 +21,11 @@
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import javax.inject.Inject;
@@ -36,6 +40,7 @@
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.event.Event;
 import org.xwiki.refactoring.event.DocumentRenamedEvent;
+import org.xwiki.refactoring.event.EntitiesRenamedEvent;
 import org.xwiki.refactoring.internal.LinkRefactoring;
 import org.xwiki.refactoring.internal.ModelBridge;
 import org.xwiki.refactoring.internal.job.MoveJob;
@@ -47,6 +52,10 @@
 
 /**
  * Updates the back-links after a document has been renamed.
+ * <p>
+ * When several documents are moved by the same job (e.g. a whole space) the back-links are updated at the end of the
+ * job, for all the renamed documents at once, so that each document linking to the moved documents is loaded, parsed
+ * and saved only once.
  * 
  * @version $Id$
  * @since 11.1RC1
@@ -84,13 +93,17 @@ public class BackLinkUpdaterListener extends AbstractEventListener
      */
     public BackLinkUpdaterListener()
     {
-        super(NAME, new DocumentRenamedEvent());
+        super(NAME, new DocumentRenamedEvent(), new EntitiesRenamedEvent());
     }
 
     @Override
     public void onEvent(Event event, Object source, Object data)
     {
-        if (event instanceof DocumentRenamedEvent) {
+        if (event instanceof EntitiesRenamedEvent) {
+            if (source instanceof MoveJob && isBatch((MoveRequest) data)) {
+                onEntitiesRenamed((MoveJob) source, (MoveRequest) data);
+            }
+        } else if (event instanceof DocumentRenamedEvent) {
             boolean updateLinks = true;
             boolean updateLinksOnFarm = true;
             Predicate<EntityReference> canEdit =
@@ -98,6 +111,10 @@ public void onEvent(Event event, Object source, Object data)
 
             if (source instanceof MoveJob) {
                 MoveRequest request = (MoveRequest) data;
+                if (isBatch(request)) {
+                    // The back-links will be updated at the end of the job
+                    return;
+                }
                 updateLinks = request.isUpdateLinks();
                 updateLinksOnFarm = request.isUpdateLinksOnFarm();
                 // Check access rights taking into account the move request.
@@ -110,18 +127,80 @@ public void onEvent(Event event, Object source, Object data)
         }
     }
 
-    private void updateBackLinks(DocumentRenamedEvent event, Predicate<EntityReference> canEdit,
-        boolean updateLinksOnFarm)
+    private boolean isBatch(MoveRequest request)
+    {
+        return request != null && (request.isDeep() || request.getEntityReferences().size() > 1);
+    }
+
+    private void onEntitiesRenamed(MoveJob job, MoveRequest request)
+    {
+        Map<DocumentReference, DocumentReference> renamedDocuments = job.getRenamedDocuments();
+
+        if (request.isUpdateLinks() && !renamedDocuments.isEmpty()) {
+            Set<String> sourceWikiIds = new LinkedHashSet<>();
+            for (DocumentReference oldReference : renamedDocuments.keySet()) {
+                sourceWikiIds.add(oldReference.getWikiReference().getName());
+            }
+
+            Collection<String> wikiIds = getWikiIds(sourceWikiIds, request.isUpdateLinksOnFarm());
+
+            // Group the link updates by linking document
+            Map<DocumentReference, Map<DocumentReference, DocumentReference>> backLinkUpdates = new LinkedHashMap<>();
+            for (String wikiId : wikiIds) {
+                for (Map.Entry<DocumentReference, DocumentReference> entry : renamedDocuments.entrySet()) {
+                    for (DocumentReference backlinkDocumentReference : this.modelBridge
+                        .getBackLinkedReferences(entry.getKey(), wikiId)) {
+                        backLinkUpdates.computeIfAbsent(backlinkDocumentReference, k -> new LinkedHashMap<>())
+                            .put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            this.logger.info("Updating the back-links of [{}] renamed documents in [{}] documents.",
+                renamedDocuments.size(), backLinkUpdates.size());
+
+            updateBackLinks(backLinkUpdates, entityReference -> job.hasAccess(Right.EDIT, entityReference));
+        }
+    }
+
+    private void updateBackLinks(Map<DocumentReference, Map<DocumentReference, DocumentReference>> backLinkUpdates,
+        Predicate<EntityReference> canEdit)
+    {
+        this.progressManager.pushLevelProgress(backLinkUpdates.size(), this);
+
+        try {
+            for (Map.Entry<DocumentReference, Map<DocumentReference, DocumentReference>> entry : backLinkUpdates
+                .entrySet()) {
+                this.progressManager.startStep(this);
+                if (canEdit.test(entry.getKey())) {
+                    this.linkRefactoring.renameLinks(entry.getKey(), entry.getValue());
+                }
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private Collection<String> getWikiIds(Collection<String> sourceWikiIds, boolean updateLinksOnFarm)
     {
-        Collection<String> wikiIds = Collections.singleton(event.getSourceReference().getWikiReference().getName());
         if (updateLinksOnFarm) {
             try {
-                wikiIds = this.wikiDescriptorManager.getAllIds();
+                return this.wikiDescriptorManager.getAllIds();
             } catch (WikiManagerException e) {
                 this.logger.error("Failed to retrieve the list of wikis.", e);
             }
         }
 
+        return sourceWikiIds;
+    }
+
+    private void updateBackLinks(DocumentRenamedEvent event, Predicate<EntityReference> canEdit,
+        boolean updateLinksOnFarm)
+    {
+        Collection<String> wikiIds = getWikiIds(
+            Collections.singleton(event.getSourceReference().getWikiReference().getName()), updateLinksOnFarm);
+
         if (!wikiIds.isEmpty()) {
             this.progressManager.pushLevelProgress(wikiIds.size(), this);
 
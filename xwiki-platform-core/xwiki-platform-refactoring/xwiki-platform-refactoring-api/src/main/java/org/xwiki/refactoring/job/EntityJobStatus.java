@@ -19,6 +19,9 @@
  */
 package org.xwiki.refactoring.job;
 
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.xwiki.job.DefaultJobStatus;
 import org.xwiki.job.event.status.JobStatus;
 import org.xwiki.logging.LoggerManager;
@@ -33,6 +36,8 @@
  */
 public class EntityJobStatus<T extends EntityRequest> extends DefaultJobStatus<T>
 {
+    private final AtomicLong processedDocuments = new AtomicLong();
+
     /**
      * Creates a new instance.
      * 
@@ -67,4 +72,40 @@ public EntityJobStatus(String jobType, T request, ObservationManager observation
 
         setCancelable(true);
     }
+
+    /**
+     * @return the number of documents processed so far
+     * @since 12.6RC1
+     */
+    public long getProcessedDocuments()
+    {
+        return this.processedDocuments.get();
+    }
+
+    /**
+     * Indicate that one more document has been processed.
+     * 
+     * @since 12.6RC1
+     */
+    public void documentProcessed()
+    {
+        this.processedDocuments.incrementAndGet();
+    }
+
+    /**
+     * @return the average number of documents processed per second since the job started
+     * @since 12.6RC1
+     */
+    public double getThroughput()
+    {
+        Date startDate = getStartDate();
+        if (startDate == null) {
+            return 0;
+        }
+
+        Date endDate = getEndDate() != null ? getEndDate() : new Date();
+        long duration = endDate.getTime() - startDate.getTime();
+
+        return duration > 0 ? getProcessedDocuments() * 1000D / duration : 0;
+    }
 }
@@ -42,6 +42,7 @@
 import org.xwiki.refactoring.event.EntitiesRenamedEvent;
 import org.xwiki.refactoring.event.EntitiesRenamingEvent;
 import org.xwiki.refactoring.internal.job.AbstractEntityJob.Visitor;
+import org.xwiki.refactoring.job.EntityJobStatus;
 import org.xwiki.refactoring.job.MoveRequest;
 import org.xwiki.refactoring.job.RefactoringJobs;
 import org.xwiki.refactoring.job.question.EntitySelection;
@@ -49,6 +50,7 @@
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
@@ -474,6 +476,62 @@ public void moveSpaceToSpaceHome() throws Throwable
         verify(this.modelBridge).rename(sourceDoc, new DocumentReference("wiki", Arrays.asList("C", "B"), "X"));
     }
 
+    @Test
+    public void moveSpaceRecordsRenamedDocuments() throws Throwable
+    {
+        SpaceReference sourceSpace = new SpaceReference("wiki", "A");
+        DocumentReference alice = new DocumentReference("Alice", sourceSpace);
+        DocumentReference bob = new DocumentReference("Bob", sourceSpace);
+        when(this.modelBridge.getDocumentReferences(sourceSpace)).thenReturn(Arrays.asList(alice, bob));
+        when(this.modelBridge.exists(alice)).thenReturn(true);
+        when(this.modelBridge.exists(bob)).thenReturn(true);
+
+        DocumentReference newAlice = new DocumentReference("wiki", Arrays.asList("B", "A"), "Alice");
+        DocumentReference newBob = new DocumentReference("wiki", Arrays.asList("B", "A"), "Bob");
+        when(this.modelBridge.rename(alice, newAlice)).thenReturn(true);
+        // Bob fails to be renamed
+
+        MoveRequest request = createRequest(sourceSpace, new SpaceReference("wiki", "B"));
+        request.setCheckRights(false);
+        request.setCheckAuthorRights(false);
+        MoveJob job = (MoveJob) run(request);
+
+        verify(this.modelBridge).rename(bob, newBob);
+        assertEquals(Collections.singletonMap(alice, newAlice), job.getRenamedDocuments());
+        assertEquals(1, ((EntityJobStatus<?>) job.getStatus()).getProcessedDocuments());
+    }
+
+    @Test
+    public void moveSpaceNotifiesRenamedDocumentsWhenFailing() throws Throwable
+    {
+        SpaceReference sourceSpace = new SpaceReference("wiki", "A");
+        DocumentReference alice = new DocumentReference("Alice", sourceSpace);
+        DocumentReference bob = new DocumentReference("Bob", sourceSpace);
+        when(this.modelBridge.getDocumentReferences(sourceSpace)).thenReturn(Arrays.asList(alice, bob));
+        when(this.modelBridge.exists(alice)).thenReturn(true);
+        when(this.modelBridge.exists(bob)).thenReturn(true);
+
+        DocumentReference newAlice = new DocumentReference("wiki", Arrays.asList("B", "A"), "Alice");
+        DocumentReference newBob = new DocumentReference("wiki", Arrays.asList("B", "A"), "Bob");
+        when(this.modelBridge.rename(alice, newAlice)).thenReturn(true);
+        RuntimeException failure = new RuntimeException("Failed to rename Bob");
+        when(this.modelBridge.rename(bob, newBob)).thenThrow(failure);
+
+        MoveRequest request = createRequest(sourceSpace, new SpaceReference("wiki", "B"));
+        request.setCheckRights(false);
+        request.setCheckAuthorRights(false);
+
+        MoveJob job = (MoveJob) getMocker().getComponentUnderTest();
+        job.initialize(request);
+        job.run();
+
+        assertSame(failure, job.getStatus().getError());
+        assertEquals(Collections.singletonMap(alice, newAlice), job.getRenamedDocuments());
+
+        // The job is notified as finished so that the back-links of the documents already moved are updated.
+        verify(this.observationManager).notify(any(EntitiesRenamedEvent.class), same(job), same(request));
+    }
+
     @Test
     public void getGroupPath() throws Exception
     {
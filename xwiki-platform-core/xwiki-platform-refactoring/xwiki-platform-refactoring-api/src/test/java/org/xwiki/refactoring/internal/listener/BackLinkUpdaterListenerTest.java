@@ -20,6 +20,9 @@
 package org.xwiki.refactoring.internal.listener;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,6 +30,7 @@
 import org.mockito.Mock;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.refactoring.event.DocumentRenamedEvent;
+import org.xwiki.refactoring.event.EntitiesRenamedEvent;
 import org.xwiki.refactoring.internal.LinkRefactoring;
 import org.xwiki.refactoring.internal.ModelBridge;
 import org.xwiki.refactoring.internal.job.RenameJob;
@@ -189,6 +193,56 @@ public void onDocumentRenamedWithoutRenameJobAndNoEditRight()
         assertEquals("Updating the back-links for document [foo:Users.Alice] in wiki [bar].", logCapture.getMessage(1));
     }
 
+    @Test
+    public void onDocumentRenamedWithDeepRequest()
+    {
+        renameRequest.setUpdateLinks(true);
+        renameRequest.setDeep(true);
+
+        this.listener.onEvent(documentRenamedEvent, renameJob, renameRequest);
+
+        verify(this.linkRefactoring, never()).renameLinks(any(), any(), any());
+    }
+
+    @Test
+    public void onEntitiesRenamedWithDeepRequest()
+    {
+        renameRequest.setUpdateLinks(true);
+        renameRequest.setUpdateLinksOnFarm(true);
+        renameRequest.setDeep(true);
+
+        DocumentReference erinReference = new DocumentReference("foo", "Users", "Erin");
+        DocumentReference frankReference = new DocumentReference("foo", "Users", "Frank");
+        Map<DocumentReference, DocumentReference> renamedDocuments = new LinkedHashMap<>();
+        renamedDocuments.put(aliceReference, bobReference);
+        renamedDocuments.put(erinReference, frankReference);
+        when(this.renameJob.getRenamedDocuments()).thenReturn(renamedDocuments);
+        when(this.modelBridge.getBackLinkedReferences(erinReference, "foo")).thenReturn(Arrays.asList(carolReference));
+
+        when(this.renameJob.hasAccess(Right.EDIT, carolReference)).thenReturn(true);
+        when(this.renameJob.hasAccess(Right.EDIT, denisReference)).thenReturn(true);
+
+        this.listener.onEvent(new EntitiesRenamedEvent(), renameJob, renameRequest);
+
+        // Carol links to both renamed documents but is updated only once
+        verify(this.linkRefactoring).renameLinks(carolReference, renamedDocuments);
+        verify(this.linkRefactoring).renameLinks(denisReference,
+            Collections.singletonMap(aliceReference, bobReference));
+        verify(this.linkRefactoring, never()).renameLinks(any(), any(), any());
+
+        assertEquals("Updating the back-links of [2] renamed documents in [2] documents.", logCapture.getMessage(0));
+    }
+
+    @Test
+    public void onEntitiesRenamedWithoutDeepRequest()
+    {
+        renameRequest.setUpdateLinks(true);
+
+        this.listener.onEvent(new EntitiesRenamedEvent(), renameJob, renameRequest);
+
+        verify(this.renameJob, never()).getRenamedDocuments();
+    }
+
     @Test
     public void onOtherEvents()
     {
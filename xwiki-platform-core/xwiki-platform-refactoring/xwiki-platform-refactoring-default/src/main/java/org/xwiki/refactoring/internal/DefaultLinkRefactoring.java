@@ -19,8 +19,10 @@
  */
 package org.xwiki.refactoring.internal;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -92,6 +94,13 @@ public class DefaultLinkRefactoring implements LinkRefactoring
     @Override
     public void renameLinks(DocumentReference documentReference, DocumentReference oldLinkTarget,
         DocumentReference newLinkTarget)
+    {
+        renameLinks(documentReference, Collections.singletonMap(oldLinkTarget, newLinkTarget));
+    }
+
+    @Override
+    public void renameLinks(DocumentReference documentReference,
+        Map<DocumentReference, DocumentReference> renamedLinkTargets)
     {
         boolean popLevelProgress = false;
         XWikiContext xcontext = this.xcontextProvider.get();
@@ -106,18 +115,17 @@ public void renameLinks(DocumentReference documentReference, DocumentReference o
 
             // Update the default locale instance.
             this.progressManager.startStep(this);
-            renameLinks(document, oldLinkTarget, newLinkTarget, xcontext, false);
+            renameLinks(document, renamedLinkTargets, xcontext, false);
             this.progressManager.endStep(this);
 
             // Update the translations.
             for (Locale locale : locales) {
                 this.progressManager.startStep(this);
-                renameLinks(document.getTranslatedDocument(locale, xcontext), oldLinkTarget, newLinkTarget, xcontext,
-                    false);
+                renameLinks(document.getTranslatedDocument(locale, xcontext), renamedLinkTargets, xcontext, false);
                 this.progressManager.endStep(this);
             }
         } catch (XWikiException e) {
-            this.logger.error("Failed to rename the links that target [{}] from [{}].", oldLinkTarget,
+            this.logger.error("Failed to rename the links that target [{}] from [{}].", renamedLinkTargets.keySet(),
                 documentReference, e);
         } finally {
             if (popLevelProgress) {
@@ -127,7 +135,7 @@ public void renameLinks(DocumentReference documentReference, DocumentReference o
         }
     }
 
-    private void renameLinks(XWikiDocument document, DocumentReference oldTarget, DocumentReference newTarget,
+    private void renameLinks(XWikiDocument document, Map<DocumentReference, DocumentReference> renamedTargets,
         XWikiContext xcontext, boolean relative) throws XWikiException
     {
         DocumentReference currentDocumentReference = document.getDocumentReference();
@@ -156,12 +164,12 @@ private void renameLinks(XWikiDocument document, DocumentReference oldTarget, Do
         }
 
         // Document content
-        boolean modified = renameLinks(document, oldTarget, newTarget, relative);
+        boolean modified = renameLinks(document, renamedTargets, relative);
 
         // XObjects properties
         for (List<BaseObject> xobjects : document.getXObjects().values()) {
             for (BaseObject xobject : xobjects) {
-                modified |= renameLinks(xobject, document, oldTarget, newTarget, renderer, xcontext, relative);
+                modified |= renameLinks(xobject, document, renamedTargets, renderer, xcontext, relative);
             }
         }
 
@@ -173,8 +181,15 @@ private void renameLinks(XWikiDocument document, DocumentReference oldTarget, Do
             } else {
                 saveDocumentPreservingContentAuthor(document, "Renamed back-links.", false);
 
-                this.logger.info("The links from [{}] that were targeting [{}] have been updated to target [{}].",
-                    document.getDocumentReferenceWithLocale(), oldTarget, newTarget);
+                if (renamedTargets.size() == 1) {
+                    Map.Entry<DocumentReference, DocumentReference> renamedTarget =
+                        renamedTargets.entrySet().iterator().next();
+                    this.logger.info("The links from [{}] that were targeting [{}] have been updated to target [{}].",
+                        document.getDocumentReferenceWithLocale(), renamedTarget.getKey(), renamedTarget.getValue());
+                } else {
+                    this.logger.info("The links from [{}] that were targeting [{}] have been updated to target [{}].",
+                        document.getDocumentReferenceWithLocale(), renamedTargets.keySet(), renamedTargets.values());
+                }
             }
         } else {
             if (relative) {
@@ -185,12 +200,12 @@ private void renameLinks(XWikiDocument document, DocumentReference oldTarget, Do
         }
     }
 
-    private boolean renameLinks(XWikiDocument document, DocumentReference oldTarget, DocumentReference newTarget,
+    private boolean renameLinks(XWikiDocument document, Map<DocumentReference, DocumentReference> renamedTargets,
         boolean relative) throws XWikiException
     {
         XDOM xdom = document.getXDOM();
 
-        if (renameLinks(xdom, document.getDocumentReference(), oldTarget, newTarget, relative)) {
+        if (renameLinks(xdom, document.getDocumentReference(), renamedTargets, relative)) {
             document.setContent(xdom);
 
             return true;
@@ -199,18 +214,25 @@ private boolean renameLinks(XWikiDocument document, DocumentReference oldTarget,
         return false;
     }
 
-    private boolean renameLinks(XDOM xdom, DocumentReference currentDocumentReference, DocumentReference oldTarget,
-        DocumentReference newTarget, boolean relative)
+    private boolean renameLinks(XDOM xdom, DocumentReference currentDocumentReference,
+        Map<DocumentReference, DocumentReference> renamedTargets, boolean relative)
     {
         if (relative) {
-            return this.renamer.updateRelativeReferences(xdom, oldTarget, newTarget);
+            boolean modified = false;
+            for (Map.Entry<DocumentReference, DocumentReference> renamedTarget : renamedTargets.entrySet()) {
+                modified |=
+                    this.renamer.updateRelativeReferences(xdom, renamedTarget.getKey(), renamedTarget.getValue());
+            }
+
+            return modified;
         }
 
-        return this.renamer.renameReferences(xdom, currentDocumentReference, oldTarget, newTarget);
+        return this.renamer.renameReferences(xdom, currentDocumentReference, renamedTargets);
     }
 
-    private boolean renameLinks(BaseObject xobject, XWikiDocument document, DocumentReference oldTarget,
-        DocumentReference newTarget, BlockRenderer renderer, XWikiContext xcontext, boolean relative)
+    private boolean renameLinks(BaseObject xobject, XWikiDocument document,
+        Map<DocumentReference, DocumentReference> renamedTargets, BlockRenderer renderer, XWikiContext xcontext,
+        boolean relative)
     {
         boolean modified = false;
 
@@ -232,7 +254,7 @@ private boolean renameLinks(BaseObject xobject, XWikiDocument document, Document
                             document.getDocumentReference());
 
                         // Rename references
-                        if (renameLinks(xdom, document.getDocumentReference(), oldTarget, newTarget, relative)) {
+                        if (renameLinks(xdom, document.getDocumentReference(), renamedTargets, relative)) {
                             // Serialize property content
                             largeField.setValue(renderXDOM(xdom, renderer));
 
@@ -263,7 +285,8 @@ public void updateRelativeLinks(DocumentReference oldReference, DocumentReferenc
         XWikiContext xcontext = this.xcontextProvider.get();
         try {
             XWikiDocument document = xcontext.getWiki().getDocument(newReference, xcontext);
-            renameLinks(document, oldReference, document.getDocumentReference(), xcontext, true);
+            renameLinks(document, Collections.singletonMap(oldReference, document.getDocumentReference()), xcontext,
+                true);
         } catch (XWikiException e) {
             this.logger.error("Failed to update the relative links from [{}].", newReference, e);
         }
@@ -20,8 +20,10 @@
 package org.xwiki.refactoring.internal;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -84,20 +86,33 @@
      */
     public boolean renameReferences(XDOM xdom, DocumentReference currentDocumentReference, DocumentReference oldTarget,
         DocumentReference newTarget)
+    {
+        return renameReferences(xdom, currentDocumentReference, Collections.singletonMap(oldTarget, newTarget));
+    }
+
+    /**
+     * @param xdom the {@link XDOM} to modify
+     * @param currentDocumentReference the current document reference
+     * @param renamedTargets the new references of the renamed documents, indexed by their previous reference
+     * @return true if the passed {@link XDOM} was modified
+     * @since 12.6RC1
+     */
+    public boolean renameReferences(XDOM xdom, DocumentReference currentDocumentReference,
+        Map<DocumentReference, DocumentReference> renamedTargets)
     {
         List<Block> blocks = this.linkedResourceHelper.getBlocks(xdom);
 
         boolean modified = false;
 
         for (Block block : blocks) {
-            modified |= renameReference(block, currentDocumentReference, oldTarget, newTarget);
+            modified |= renameReference(block, currentDocumentReference, renamedTargets);
         }
 
         return modified;
     }
 
     private boolean renameReference(Block block, DocumentReference currentDocumentReference,
-        DocumentReference oldTarget, DocumentReference newTarget)
+        Map<DocumentReference, DocumentReference> renamedTargets)
     {
         ResourceReference resourceReference = this.linkedResourceHelper.getResourceReference(block);
         if (resourceReference == null) {
@@ -118,11 +133,13 @@ private boolean renameReference(Block block, DocumentReference currentDocumentRe
         // Resolve the document of the reference.
         DocumentReference linkTargetDocumentReference =
             this.defaultReferenceDocumentReferenceResolver.resolve(linkEntityReference);
-        EntityReference newTargetReference = newTarget;
-        ResourceType newResourceType = resourceType;
+        DocumentReference newTarget = renamedTargets.get(linkTargetDocumentReference);
 
         // If the link targets the old (renamed) document reference, we must update it.
-        if (linkTargetDocumentReference.equals(oldTarget)) {
+        if (newTarget != null) {
+            EntityReference newTargetReference = newTarget;
+            ResourceType newResourceType = resourceType;
+
             // If the link was resolved to a space...
             if (EntityType.SPACE.equals(linkEntityReference.getType())) {
                 if (XWiki.DEFAULT_SPACE_HOMEPAGE.equals(newTarget.getName())) {
@@ -20,10 +20,12 @@
 package org.xwiki.rendering.async.internal;
 
 import java.lang.reflect.Type;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
@@ -41,6 +43,7 @@
 import org.xwiki.component.descriptor.DefaultComponentRole;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
 import org.xwiki.security.authorization.AuthorizationManager;
@@ -55,6 +58,30 @@
 @Singleton
 public class AsyncRendererCache implements Initializable, CacheEntryListener<AsyncRendererJobStatus>
 {
+    /**
+     * The reasons for which cache entries can be invalidated.
+     *
+     * @version $Id$
+     * @since 12.6RC1
+     */
+    public enum InvalidationReason
+    {
+        /**
+         * An entity used during the execution was modified.
+         */
+        ENTITY,
+
+        /**
+         * A component used during the execution was registered or unregistered.
+         */
+        COMPONENT,
+
+        /**
+         * The rights of an entity on which a right was checked during the execution were modified.
+         */
+        RIGHT
+    }
+
     @Inject
     private AuthorizationManager authorization;
 
@@ -73,8 +100,20 @@ public class AsyncRendererCache implements Initializable, CacheEntryListener<Asy
 
     private final Map<RightEntry, Set<String>> rightMapping = new ConcurrentHashMap<>();
 
+    private final Map<InvalidationReason, LongAdder> invalidations = new EnumMap<>(InvalidationReason.class);
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /**
+     * Default constructor.
+     */
+    public AsyncRendererCache()
+    {
+        for (InvalidationReason reason : InvalidationReason.values()) {
+            this.invalidations.put(reason, new LongAdder());
+        }
+    }
+
     /**
      * @return the lock the lock
      * @since 10.11.5
@@ -224,6 +263,7 @@ public void cacheEntryRemoved(CacheEntryEvent<AsyncRendererJobStatus> event)
         remove(key, status.getReferences(), this.referenceMapping);
         remove(key, status.getRoleTypes(), this.roleTypeMapping);
         remove(key, status.getRoles(), this.roleMapping);
+        remove(key, status.getRights(), this.rightMapping);
     }
 
     private <T> void remove(String key, Set<T> values, Map<T, Set<String>> mapping)
@@ -253,7 +293,7 @@ public void cacheEntryModified(CacheEntryEvent<AsyncRendererJobStatus> event)
     public void cleanCache(EntityReference reference)
     {
         if (reference != null) {
-            clean(this.referenceMapping.remove(reference));
+            clean(this.referenceMapping.remove(reference), InvalidationReason.ENTITY);
 
             // Also clean entries associated to one of the reference parents
             cleanCache(reference.getParent());
@@ -280,8 +320,8 @@ public void cleanCache(String wiki)
      */
     public void cleanCache(Type roleType, String roleHint)
     {
-        clean(this.roleTypeMapping.remove(roleType));
-        clean(this.roleMapping.remove(new DefaultComponentRole<>(roleType, roleHint)));
+        clean(this.roleTypeMapping.remove(roleType), InvalidationReason.COMPONENT);
+        clean(this.roleMapping.remove(new DefaultComponentRole<>(roleType, roleHint)), InvalidationReason.COMPONENT);
     }
 
     /**
@@ -291,7 +331,57 @@ public void cleanCache(Type roleType, String roleHint)
      */
     public void cleanCacheForRight()
     {
-        this.rightMapping.forEach(this::checkRight);
+        cleanCacheForRight(null);
+    }
+
+    /**
+     * Clean entries for which the right evaluation might have changed following a modification of the rights of the
+     * passed entity (and consequently of all its children).
+     * 
+     * @param scope the entity for which the rights were modified, {@code null} if it's unknown or if the modification
+     *            can affect any entity
+     * @since 12.6RC1
+     */
+    public void cleanCacheForRight(EntityReference scope)
+    {
+        for (Map.Entry<RightEntry, Set<String>> entry : this.rightMapping.entrySet()) {
+            if (scope == null || isInScope(entry.getKey().getEntityReference(), scope)) {
+                checkRight(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private boolean isInScope(EntityReference reference, EntityReference scope)
+    {
+        // A right check without entity is a check on the main wiki
+        if (reference == null) {
+            return scope.getType() == EntityType.WIKI;
+        }
+
+        for (EntityReference current = reference; current != null; current = current.getParent()) {
+            if (current.getType() == scope.getType() && isSameEntity(current, scope)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isSameEntity(EntityReference reference1, EntityReference reference2)
+    {
+        // Ignore the parameters (the locale in the case of documents) since they don't have any impact on rights
+        EntityReference current1 = reference1;
+        EntityReference current2 = reference2;
+        while (current1 != null && current2 != null) {
+            if (current1.getType() != current2.getType() || !current1.getName().equals(current2.getName())) {
+                return false;
+            }
+
+            current1 = current1.getParent();
+            current2 = current2.getParent();
+        }
+
+        return current1 == current2;
     }
 
     private void checkRight(RightEntry right, Set<String> keys)
@@ -304,17 +394,34 @@ private void checkRight(RightEntry right, Set<String> keys)
         //     right.getEntityReference()) != right.isAllowed()) {
         //     clean(keys);
         // }
-        clean(keys);
+        clean(keys, InvalidationReason.RIGHT);
+    }
+
+    /**
+     * @return the number of cache entries invalidated so far, for each reason
+     * @since 12.6RC1
+     */
+    public Map<InvalidationReason, Long> getInvalidations()
+    {
+        Map<InvalidationReason, Long> counters = new EnumMap<>(InvalidationReason.class);
+        this.invalidations.forEach((reason, counter) -> counters.put(reason, counter.sum()));
+
+        return counters;
     }
 
     /**
      * @param keys the keys of the cache entries to remove
+     * @param reason the reason why the entries are removed
      */
-    private void clean(Set<String> keys)
+    private void clean(Set<String> keys, InvalidationReason reason)
     {
         if (keys != null) {
+            LongAdder counter = this.invalidations.get(reason);
             for (String key : keys) {
-                this.longCache.remove(key);
+                if (this.longCache.get(key) != null) {
+                    this.longCache.remove(key);
+                    counter.increment();
+                }
 
                 // Not cleaning the async cache to avoid race condition (cache invalidated between the moment it was
                 // stored and the moment is was used for the first time)
@@ -21,6 +21,7 @@
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.xwiki.bridge.event.DocumentCreatedEvent;
@@ -31,11 +32,15 @@
 import org.xwiki.component.event.ComponentDescriptorAddedEvent;
 import org.xwiki.component.event.ComponentDescriptorEvent;
 import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.event.Event;
 import org.xwiki.security.authorization.event.RightUpdatedEvent;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.event.EntityEvent;
 import com.xpn.xwiki.internal.event.XClassPropertyAddedEvent;
@@ -63,9 +68,22 @@ public class AsyncRendererCacheListener extends AbstractEventListener
      */
     public static final String NAME = "org.xwiki.rendering.async.internal.AsyncRendererCacheListener";
 
+    private static final LocalDocumentReference WIKI_PREFERENCES =
+        new LocalDocumentReference("XWiki", "XWikiPreferences");
+
+    private static final String SPACE_PREFERENCES = "WebPreferences";
+
+    private static final LocalDocumentReference GROUP_CLASS = new LocalDocumentReference("XWiki", "XWikiGroups");
+
+    private static final LocalDocumentReference WIKI_DESCRIPTOR_CLASS =
+        new LocalDocumentReference("XWiki", "XWikiServerClass");
+
     @Inject
     private AsyncRendererCache cache;
 
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
     /**
      * Default constructor.
      */
@@ -82,7 +100,7 @@ public AsyncRendererCacheListener()
     public void onEvent(Event event, Object source, Object data)
     {
         if (event instanceof RightUpdatedEvent) {
-            this.cache.cleanCacheForRight();
+            this.cache.cleanCacheForRight(getRightScope((XWikiDocument) source));
         } else if (event instanceof ComponentDescriptorEvent) {
             ComponentDescriptorEvent componentEvent = ((ComponentDescriptorEvent) event);
             this.cache.cleanCache(componentEvent.getRoleType(), componentEvent.getRoleHint());
@@ -106,6 +124,49 @@ public void onEvent(Event event, Object source, Object data)
         }
     }
 
+    private EntityReference getRightScope(XWikiDocument document)
+    {
+        if (document == null) {
+            return null;
+        }
+
+        DocumentReference documentReference = document.getDocumentReference();
+
+        if (hasXObject(document, WIKI_DESCRIPTOR_CLASS)) {
+            // The owner of a wiki has all the rights on this wiki
+            return null;
+        } else if (WIKI_PREFERENCES.equals(documentReference.getLocalDocumentReference())
+            || hasXObject(document, GROUP_CLASS)) {
+            // The members of a group can have rights on any entity of the wiki, and the global rights and groups of
+            // the main wiki also apply to the main wiki users in the other wikis
+            if (isMainWiki(documentReference.getWikiReference())) {
+                return null;
+            }
+
+            return documentReference.getWikiReference();
+        } else if (SPACE_PREFERENCES.equals(documentReference.getName())) {
+            return documentReference.getParent();
+        }
+
+        return documentReference;
+    }
+
+    private boolean hasXObject(XWikiDocument document, EntityReference classReference)
+    {
+        // Also look at the previous version of the document in case the object was removed
+        XWikiDocument originalDocument = document.getOriginalDocument();
+
+        return document.getXObject(classReference) != null
+            || (originalDocument != null && originalDocument.getXObject(classReference) != null);
+    }
+
+    private boolean isMainWiki(WikiReference wikiReference)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        return xcontext == null || xcontext.isMainWiki(wikiReference.getName());
+    }
+
     private void onEntityEvent(EntityEvent event, XWikiDocument document)
     {
         // Clean entries associated to the entity
@@ -20,6 +20,7 @@
 package org.xwiki.rendering.async.script;
 
 import java.lang.reflect.Type;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,6 +30,7 @@
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.rendering.async.AsyncContext;
 import org.xwiki.rendering.async.internal.AsyncRendererCache;
+import org.xwiki.rendering.async.internal.AsyncRendererCache.InvalidationReason;
 import org.xwiki.script.service.ScriptService;
 
 /**
@@ -72,6 +74,15 @@ public void flushCache()
         this.cache.flush();
     }
 
+    /**
+     * @return the number of cache entries invalidated so far, for each reason
+     * @since 12.6RC1
+     */
+    public Map<InvalidationReason, Long> getCacheInvalidations()
+    {
+        return this.cache.getInvalidations();
+    }
+
     /**
      * Indicate that the current execution manipulate the passed entity and the result will need to be removed from the
      * cache if it's modified in any way.
@@ -0,0 +1,148 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.security.authorization.event.RightUpdatedEvent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link AsyncRendererCacheListener}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class AsyncRendererCacheListenerTest
+{
+    private static final EntityReference GROUP_CLASS = new LocalDocumentReference("XWiki", "XWikiGroups");
+
+    private static final EntityReference WIKI_DESCRIPTOR_CLASS =
+        new LocalDocumentReference("XWiki", "XWikiServerClass");
+
+    @InjectMockComponents
+    private AsyncRendererCacheListener listener;
+
+    @MockComponent
+    private AsyncRendererCache cache;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        XWikiContext xcontext = mock(XWikiContext.class);
+        when(xcontext.isMainWiki("xwiki")).thenReturn(true);
+        when(this.xcontextProvider.get()).thenReturn(xcontext);
+    }
+
+    private XWikiDocument mockDocument(DocumentReference documentReference, EntityReference classReference)
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(documentReference);
+        if (classReference != null) {
+            when(document.getXObject(classReference)).thenReturn(mock(BaseObject.class));
+        }
+
+        return document;
+    }
+
+    @Test
+    public void onRightUpdatedForDocument()
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+
+        this.listener.onEvent(new RightUpdatedEvent(), mockDocument(documentReference, null), null);
+
+        verify(this.cache).cleanCacheForRight(documentReference);
+    }
+
+    @Test
+    public void onRightUpdatedForSpacePreferences()
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "WebPreferences");
+
+        this.listener.onEvent(new RightUpdatedEvent(), mockDocument(documentReference, null), null);
+
+        verify(this.cache).cleanCacheForRight(documentReference.getLastSpaceReference());
+    }
+
+    @Test
+    public void onRightUpdatedForGroup()
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "XWiki", "MyGroup");
+
+        this.listener.onEvent(new RightUpdatedEvent(), mockDocument(documentReference, GROUP_CLASS), null);
+
+        verify(this.cache).cleanCacheForRight(new WikiReference("wiki"));
+    }
+
+    @Test
+    public void onRightUpdatedForRemovedGroupMember()
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "XWiki", "MyGroup");
+        XWikiDocument document = mockDocument(documentReference, null);
+        XWikiDocument originalDocument = mockDocument(documentReference, GROUP_CLASS);
+        when(document.getOriginalDocument()).thenReturn(originalDocument);
+
+        this.listener.onEvent(new RightUpdatedEvent(), document, null);
+
+        verify(this.cache).cleanCacheForRight(new WikiReference("wiki"));
+    }
+
+    @Test
+    public void onRightUpdatedForMainWikiGroup()
+    {
+        DocumentReference documentReference = new DocumentReference("xwiki", "XWiki", "MyGroup");
+
+        this.listener.onEvent(new RightUpdatedEvent(), mockDocument(documentReference, GROUP_CLASS), null);
+
+        verify(this.cache).cleanCacheForRight(isNull());
+    }
+
+    @Test
+    public void onRightUpdatedForWikiDescriptor()
+    {
+        DocumentReference documentReference = new DocumentReference("xwiki", "XWiki", "XWikiServerWiki");
+
+        this.listener.onEvent(new RightUpdatedEvent(), mockDocument(documentReference, WIKI_DESCRIPTOR_CLASS),
+            null);
+
+        verify(this.cache).cleanCacheForRight(isNull());
+    }
+}
@@ -34,11 +34,17 @@
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.ObjectReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.rendering.async.internal.AsyncRendererCache.InvalidationReason;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
+import org.xwiki.security.authorization.Right;
 import org.xwiki.test.annotation.BeforeComponent;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
@@ -100,6 +106,11 @@ private void setReferences(EntityReference... references)
         this.status.setReferences(new HashSet<>(Arrays.asList(references)));
     }
 
+    private void setRights(RightEntry... rights)
+    {
+        this.status.setRights(new HashSet<>(Arrays.asList(rights)));
+    }
+
     private List<String> getId()
     {
         return this.status.getRequest().getId();
@@ -197,6 +208,40 @@ public void invalidateSyncOnWiki()
         assertNull(this.asyncCache.getSync(getId()));
     }
 
+    @Test
+    public void invalidateSyncOnRight()
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Document");
+        setRights(new RightEntry(Right.VIEW, null, documentReference, true));
+
+        this.asyncCache.put(this.status);
+
+        this.asyncCache.cleanCacheForRight(new DocumentReference("wiki", "Space", "Other"));
+        this.asyncCache.cleanCacheForRight(new SpaceReference("wiki", "Other"));
+        this.asyncCache.cleanCacheForRight(new WikiReference("otherwiki"));
+
+        assertSame(this.status, this.asyncCache.getSync(getId()));
+        assertEquals(0L, this.asyncCache.getInvalidations().get(InvalidationReason.RIGHT));
+
+        this.asyncCache.cleanCacheForRight(documentReference.getLastSpaceReference());
+
+        assertNull(this.asyncCache.getSync(getId()));
+        assertEquals(1L, this.asyncCache.getInvalidations().get(InvalidationReason.RIGHT));
+        assertEquals(0L, this.asyncCache.getInvalidations().get(InvalidationReason.ENTITY));
+    }
+
+    @Test
+    public void invalidateSyncOnAnyRight()
+    {
+        setRights(new RightEntry(Right.VIEW, null, new DocumentReference("wiki", "Space", "Document"), true));
+
+        this.asyncCache.put(this.status);
+
+        this.asyncCache.cleanCacheForRight();
+
+        assertNull(this.asyncCache.getSync(getId()));
+    }
+
     @Test
     public void getAsyncSingleClient()
     {
@@ -29,6 +29,11 @@
 import org.xwiki.rest.model.jaxb.History;
 
 /**
+ * The history of a page. In addition to the usual {@code start} offset, the history can be browsed using the
+ * {@code after} parameter which indicates the last version of the previous result page: the versions are then
+ * retrieved directly from the index instead of skipping all the previous versions, which is a lot faster for pages
+ * with a long history.
+ *
  * @version $Id$
  */
 @Path("/wikis/{wikiName}/spaces/{spaceName: .+}/pages/{pageName}/history")
@@ -41,6 +46,7 @@
             @QueryParam("start") @DefaultValue("0") Integer start,
             @QueryParam("number") @DefaultValue("-1") Integer number,
             @QueryParam("order") @DefaultValue("desc") String order,
-            @QueryParam("prettyNames") @DefaultValue("false") Boolean withPrettyNames
+            @QueryParam("prettyNames") @DefaultValue("false") Boolean withPrettyNames,
+            @QueryParam("after") String after
     ) throws XWikiRestException;
 }
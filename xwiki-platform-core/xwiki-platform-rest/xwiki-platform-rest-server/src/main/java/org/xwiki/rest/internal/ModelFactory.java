@@ -604,7 +604,8 @@ private void toRestPageSummary(PageSummary pageSummary, URI baseUri, Document do
         historyLink.setRel(Relations.HISTORY);
         pageSummary.getLinks().add(historyLink);
 
-        if (!doc.getChildren().isEmpty()) {
+        // Only look for the first child since we just need to know if there is any
+        if (!doc.getChildren(1, 0).isEmpty()) {
             String pageChildrenUri = Utils.createURI(baseUri, PageChildrenResource.class, doc.getWiki(), spaces,
                 doc.getDocumentReference().getName()).toString();
             Link pageChildrenLink = this.objectFactory.createLink();
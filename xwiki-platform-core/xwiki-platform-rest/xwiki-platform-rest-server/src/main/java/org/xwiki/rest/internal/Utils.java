@@ -25,6 +25,7 @@
 import java.util.List;
 
 import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.httpclient.URIException;
 import org.apache.commons.httpclient.util.URIUtil;
@@ -42,6 +43,7 @@
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.query.internal.NoOpQueryFilter;
+import org.xwiki.rest.internal.representations.StreamedCollection;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -488,4 +490,14 @@ public static QueryFilter getHiddenQueryFilter(ComponentManager componentManager
         }
         return filter;
     }
+
+    /**
+     * @param uriInfo the URI of the current request
+     * @return {@code true} if the client asked for a {@link StreamedCollection streamed collection}
+     * @since 12.6RC1
+     */
+    public static boolean isStreamingRequested(UriInfo uriInfo)
+    {
+        return Boolean.parseBoolean(uriInfo.getQueryParameters().getFirst(StreamedCollection.PARAMETER));
+    }
 }
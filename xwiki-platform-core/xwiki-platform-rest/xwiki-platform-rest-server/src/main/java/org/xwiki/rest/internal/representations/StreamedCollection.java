@@ -0,0 +1,76 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+
+import org.xwiki.rest.model.jaxb.Link;
+
+/**
+ * A REST collection whose elements are produced while the response is written instead of being accumulated in memory
+ * before. The collection is serialized by {@link StreamedCollectionWriter} using the same XML elements and JSON
+ * properties as the JAXB model class it extends, so that clients cannot tell the difference.
+ * <p>
+ * Streaming is requested by adding the {@value #PARAMETER} query string parameter set to {@code true} to the resource
+ * URL. The elements are only computed once so the collection can be serialized only once.
+ *
+ * @param <E> the type of the elements of the collection
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public interface StreamedCollection<E> extends Closeable
+{
+    /**
+     * The name of the query string parameter used to request a streamed collection.
+     */
+    String PARAMETER = "stream";
+
+    /**
+     * @return the links of the collection, serialized before the elements
+     */
+    List<Link> getLinks();
+
+    /**
+     * @return the local name of the XML element wrapping the collection (e.g. {@code objects})
+     */
+    String getRootElementName();
+
+    /**
+     * @return the local name of the XML element of each element of the collection (e.g. {@code objectSummary})
+     */
+    String getElementName();
+
+    /**
+     * @return the name of the JSON property holding the array of elements (e.g. {@code objectSummaries})
+     */
+    String getElementsPropertyName();
+
+    /**
+     * @return the type of the elements of the collection
+     */
+    Class<E> getElementType();
+
+    /**
+     * @return the elements of the collection, computed lazily
+     */
+    Iterator<E> getElements();
+}
@@ -0,0 +1,180 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.restlet.ext.jackson.JacksonRepresentation;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.rest.XWikiRestComponent;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serialize a {@link StreamedCollection} element by element, with StAX for XML and with the Jackson streaming API for
+ * JSON. Each element is still converted using the JAXB model (JAXB for XML, Jackson bean introspection for JSON, like
+ * the default converters) so the output is the same as the one of the non streamed collection.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component
+@Named("org.xwiki.rest.internal.representations.StreamedCollectionWriter")
+@Provider
+@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+@Singleton
+public class StreamedCollectionWriter
+    implements MessageBodyWriter<StreamedCollection<?>>, XWikiRestComponent, Initializable
+{
+    private static final String NAMESPACE = "http://www.xwiki.org";
+
+    private static final String LINK_ELEMENT = "link";
+
+    private static final String LINKS_PROPERTY = "links";
+
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    private ObjectMapper objectMapper;
+
+    private JAXBContext jaxbContext;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.jaxbContext = JAXBContext.newInstance(ObjectFactory.class);
+        } catch (JAXBException e) {
+            throw new InitializationException("Failed to create the JAXB context of the REST model", e);
+        }
+
+        // Use the same configuration as the Restlet Jackson converter which writes the non streamed collections
+        this.objectMapper =
+            new JacksonRepresentation<>(org.restlet.data.MediaType.APPLICATION_JSON, null).getObjectMapper()
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return StreamedCollection.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(StreamedCollection<?> collection, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType)
+    {
+        // The size is not known before the collection is written
+        return -1;
+    }
+
+    @Override
+    public void writeTo(StreamedCollection<?> collection, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException, WebApplicationException
+    {
+        try {
+            if (MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)) {
+                writeJSON(collection, entityStream);
+            } else {
+                writeXML(collection, entityStream);
+            }
+        } finally {
+            // Release the resources (e.g. the database cursor) used to produce the elements
+            collection.close();
+        }
+    }
+
+    private void writeJSON(StreamedCollection<?> collection, OutputStream entityStream) throws IOException
+    {
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(entityStream)) {
+            generator.writeStartObject();
+
+            generator.writeFieldName(LINKS_PROPERTY);
+            this.objectMapper.writeValue(generator, collection.getLinks());
+
+            generator.writeArrayFieldStart(collection.getElementsPropertyName());
+            for (Iterator<?> it = collection.getElements(); it.hasNext();) {
+                this.objectMapper.writeValue(generator, it.next());
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+
+    private <E> void writeXML(StreamedCollection<E> collection, OutputStream entityStream) throws IOException
+    {
+        try {
+            XMLStreamWriter writer =
+                this.xmlOutputFactory.createXMLStreamWriter(entityStream, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.setDefaultNamespace(NAMESPACE);
+            writer.writeStartElement(NAMESPACE, collection.getRootElementName());
+            writer.writeDefaultNamespace(NAMESPACE);
+
+            Marshaller marshaller = this.jaxbContext.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+            QName linkName = new QName(NAMESPACE, LINK_ELEMENT);
+            for (Link link : collection.getLinks()) {
+                marshaller.marshal(new JAXBElement<>(linkName, Link.class, link), writer);
+            }
+
+            QName elementName = new QName(NAMESPACE, collection.getElementName());
+            for (Iterator<E> it = collection.getElements(); it.hasNext();) {
+                marshaller.marshal(new JAXBElement<>(elementName, collection.getElementType(), it.next()), writer);
+            }
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException("Failed to write the streamed collection", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.xwiki.rest.model.jaxb.HistorySummary;
+import org.xwiki.rest.model.jaxb.History;
+
+/**
+ * {@link History} whose {@link HistorySummary}s are produced while the response is written.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class StreamedHistory extends History implements StreamedCollection<HistorySummary>
+{
+    private final Supplier<Stream<HistorySummary>> elementsSupplier;
+
+    private Stream<HistorySummary> elements;
+
+    /**
+     * @param elementsSupplier opens the stream of the elements of the collection when the collection is written, the
+     *            stream is closed once the collection is written
+     */
+    public StreamedHistory(Supplier<Stream<HistorySummary>> elementsSupplier)
+    {
+        this.elementsSupplier = elementsSupplier;
+    }
+
+    @Override
+    public String getRootElementName()
+    {
+        return "history";
+    }
+
+    @Override
+    public String getElementName()
+    {
+        return "historySummary";
+    }
+
+    @Override
+    public String getElementsPropertyName()
+    {
+        return "historySummaries";
+    }
+
+    @Override
+    public Class<HistorySummary> getElementType()
+    {
+        return HistorySummary.class;
+    }
+
+    @Override
+    public Iterator<HistorySummary> getElements()
+    {
+        // Only open the stream (e.g. the database cursor) when the collection is actually written
+        if (this.elements == null) {
+            this.elements = this.elementsSupplier.get();
+        }
+
+        return this.elements.iterator();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.elements != null) {
+            this.elements.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.objects;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.xwiki.rest.internal.representations.StreamedCollection;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+
+/**
+ * {@link Objects} whose {@link ObjectSummary}s are produced while the response is written.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class StreamedObjects extends Objects implements StreamedCollection<ObjectSummary>
+{
+    private final Supplier<Stream<ObjectSummary>> elementsSupplier;
+
+    private Stream<ObjectSummary> elements;
+
+    /**
+     * @param elementsSupplier opens the stream of the elements of the collection when the collection is written, the
+     *            stream is closed once the collection is written
+     */
+    public StreamedObjects(Supplier<Stream<ObjectSummary>> elementsSupplier)
+    {
+        this.elementsSupplier = elementsSupplier;
+    }
+
+    @Override
+    public String getRootElementName()
+    {
+        return "objects";
+    }
+
+    @Override
+    public String getElementName()
+    {
+        return "objectSummary";
+    }
+
+    @Override
+    public String getElementsPropertyName()
+    {
+        return "objectSummaries";
+    }
+
+    @Override
+    public Class<ObjectSummary> getElementType()
+    {
+        return ObjectSummary.class;
+    }
+
+    @Override
+    public Iterator<ObjectSummary> getElements()
+    {
+        // Only open the stream (e.g. the database cursor) when the collection is actually written
+        if (this.elements == null) {
+            this.elements = this.elementsSupplier.get();
+        }
+
+        return this.elements.iterator();
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.elements != null) {
+            this.elements.close();
+        }
+    }
+}
@@ -22,9 +22,11 @@
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Formatter;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -35,6 +37,7 @@
 import org.apache.commons.lang3.StringUtils;
 import org.xwiki.localization.LocalizationContext;
 import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReferenceProvider;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.query.Query;
@@ -292,7 +295,9 @@ protected List<SearchResult> getPagesSearchResults(List<Object> queryResult, Str
     {
         List<SearchResult> result = new ArrayList<>();
         Set<String> seenPages = new HashSet<>();
-        XWiki xwikiApi = Utils.getXWikiApi(componentManager);
+        // The results usually share a few authors
+        Map<DocumentReference, String> authorNames = new HashMap<>();
+        XWikiContext xcontext = Utils.getXWikiContext(componentManager);
 
         for (Object object : queryResult) {
             // Stop if there's a limit specified and we reach it.
@@ -316,8 +321,11 @@ protected List<SearchResult> getPagesSearchResults(List<Object> queryResult, Str
             seenPages.add(pageFullName);
 
             /* Check if the user has the right to see the found document */
-            if (xwikiApi.hasAccessLevel("view", pageId)) {
-                Document doc = xwikiApi.getDocument(pageFullName).getTranslatedDocument();
+            DocumentReference pageReference = new DocumentReference(wikiName, spaces, pageName);
+            if (this.authorizationManager.hasAccess(Right.VIEW, pageReference)) {
+                // The access right is already checked so load the document directly
+                Document doc = xcontext.getWiki().getDocument(pageReference, xcontext).newDocument(xcontext)
+                    .getTranslatedDocument();
                 String title = doc.getDisplayTitle();
                 SearchResult searchResult = objectFactory.createSearchResult();
                 searchResult.setType("page");
@@ -334,7 +342,8 @@ protected List<SearchResult> getPagesSearchResults(List<Object> queryResult, Str
                 searchResult.setModified(calendar);
 
                 if (withPrettyNames) {
-                    searchResult.setAuthorName(Utils.getAuthorName(doc.getAuthorReference(), componentManager));
+                    searchResult.setAuthorName(authorNames.computeIfAbsent(doc.getAuthorReference(),
+                        authorReference -> Utils.getAuthorName(authorReference, componentManager)));
                 }
 
                 String pageUri;
@@ -22,8 +22,10 @@
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.query.Query;
@@ -32,6 +34,7 @@
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.internal.DomainObjectFactory;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.StreamedHistory;
 import org.xwiki.rest.model.jaxb.History;
 import org.xwiki.rest.model.jaxb.HistorySummary;
 import org.xwiki.rest.resources.ModificationsResource;
@@ -50,38 +53,26 @@ public History getModifications(String wikiName, Integer start, Integer number,
             Boolean withPrettyNames) throws XWikiRestException
     {
         try {
-            History history = new History();
-
             String query = String.format("select doc.space, doc.name, doc.language, rcs.id, rcs.date, rcs.author,"
                 + " rcs.comment from XWikiRCSNodeInfo as rcs, XWikiDocument as doc where rcs.id.docId = doc.id and"
                 + " rcs.date > :date order by rcs.date %s, rcs.id.version1 %s, rcs.id.version2 %s",
                     order, order, order);
 
-            List<Object> queryResult = null;
-            queryResult = queryManager.createQuery(query, Query.XWQL).bindValue("date", new Date(ts)).setLimit(number)
-                    .setOffset(start).setWiki(wikiName).execute();
+            Query historyQuery = queryManager.createQuery(query, Query.XWQL).bindValue("date", new Date(ts))
+                .setLimit(number).setOffset(start).setWiki(wikiName);
 
-            for (Object object : queryResult) {
-                Object[] fields = (Object[]) object;
-
-                String spaceId = (String) fields[0];
-                List<String> spaces = Utils.getSpacesFromSpaceId(spaceId);
-                String pageName = (String) fields[1];
-                String language = (String) fields[2];
-                if (language.equals("")) {
-                    language = null;
-                }
-                XWikiRCSNodeId nodeId = (XWikiRCSNodeId) fields[3];
-                Timestamp timestamp = (Timestamp) fields[4];
-                Date modified = new Date(timestamp.getTime());
-                String modifier = (String) fields[5];
-                String comment = (String) fields[6];
+            if (Utils.isStreamingRequested(uriInfo)) {
+                // The modifications are fetched and converted while the response is written, so the query is only
+                // executed if the response is actually written
+                return new StreamedHistory(
+                    () -> stream(historyQuery).map(fields -> getHistorySummary(fields, wikiName, withPrettyNames)));
+            }
 
-                HistorySummary historySummary = DomainObjectFactory.createHistorySummary(objectFactory,
-                        uriInfo.getBaseUri(), wikiName, spaces, pageName, language, nodeId.getVersion(), modifier,
-                        modified, comment, Utils.getXWikiApi(componentManager), withPrettyNames);
+            History history = new History();
 
-                history.getHistorySummaries().add(historySummary);
+            List<Object[]> queryResult = historyQuery.execute();
+            for (Object[] fields : queryResult) {
+                history.getHistorySummaries().add(getHistorySummary(fields, wikiName, withPrettyNames));
             }
 
             return history;
@@ -89,4 +80,33 @@ public History getModifications(String wikiName, Integer start, Integer number,
             throw new XWikiRestException(e);
         }
     }
+
+    private Stream<Object[]> stream(Query query)
+    {
+        try {
+            return query.stream();
+        } catch (QueryException e) {
+            throw new WebApplicationException(e);
+        }
+    }
+
+    private HistorySummary getHistorySummary(Object[] fields, String wikiName, Boolean withPrettyNames)
+    {
+        String spaceId = (String) fields[0];
+        List<String> spaces = Utils.getSpacesFromSpaceId(spaceId);
+        String pageName = (String) fields[1];
+        String language = (String) fields[2];
+        if (language.equals("")) {
+            language = null;
+        }
+        XWikiRCSNodeId nodeId = (XWikiRCSNodeId) fields[3];
+        Timestamp timestamp = (Timestamp) fields[4];
+        Date modified = new Date(timestamp.getTime());
+        String modifier = (String) fields[5];
+        String comment = (String) fields[6];
+
+        return DomainObjectFactory.createHistorySummary(objectFactory, uriInfo.getBaseUri(), wikiName, spaces,
+            pageName, language, nodeId.getVersion(), modifier, modified, comment,
+            Utils.getXWikiApi(componentManager), withPrettyNames);
+    }
 }
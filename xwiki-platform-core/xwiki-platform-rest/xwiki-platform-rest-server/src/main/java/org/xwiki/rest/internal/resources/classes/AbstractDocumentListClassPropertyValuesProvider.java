@@ -19,6 +19,7 @@
  */
 package org.xwiki.rest.internal.resources.classes;
 
+import java.util.Collections;
 import java.util.Map;
 
 import javax.inject.Inject;
@@ -123,6 +124,12 @@ protected PropertyValues getUsedValues(T propertyDefinition, int limit, String f
         query.getFilters().clear();
         if (propertyDefinition.isMultiSelect() && !propertyDefinition.isRelationalStorage()) {
             query.addFilter(new SplitValueQueryFilter(propertyDefinition.getSeparators(), limit, filter));
+        } else {
+            // The used values are requested again and again while typing in the picker and they change only when an
+            // object of the class (or the class itself) is modified
+            query.setCacheable(true);
+            query.setCacheDependencies(
+                Collections.singletonList(propertyDefinition.getOwnerDocument().getDocumentReference()));
         }
         query.addFilter(this.documentFilter);
         query.addFilter(this.viewableFilter);
@@ -20,22 +20,28 @@
 package org.xwiki.rest.internal.resources.objects;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.internal.DomainObjectFactory;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.objects.StreamedObjects;
 import org.xwiki.rest.model.jaxb.ObjectSummary;
 import org.xwiki.rest.model.jaxb.Objects;
 import org.xwiki.rest.resources.objects.AllObjectsForClassNameResource;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Document;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
@@ -54,6 +60,16 @@ public class AllObjectsForClassNameResourceImpl extends XWikiResource implements
     public Objects getObjects(String wikiName, String className, Integer start, Integer number, String order,
             Boolean withPrettyNames) throws XWikiRestException
     {
+        String query = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
+            + "where obj.name=doc.fullName and obj.className=:className";
+        if ("date".equals(order)) {
+            query += " order by doc.date desc";
+        }
+
+        if (Utils.isStreamingRequested(uriInfo)) {
+            return getStreamedObjects(query, wikiName, className, start, number, withPrettyNames);
+        }
+
         String database = Utils.getXWikiContext(componentManager).getWikiId();
 
         try {
@@ -61,33 +77,14 @@ public Objects getObjects(String wikiName, String className, Integer start, Inte
 
             Utils.getXWikiContext(componentManager).setWikiId(wikiName);
 
-            String query = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
-                + "where obj.name=doc.fullName and obj.className=:className";
-            if ("date".equals(order)) {
-                query += " order by doc.date desc";
-            }
-
             List<Object> queryResult = null;
             queryResult =
                     queryManager.createQuery(query, Query.XWQL).bindValue("className", className).setLimit(number)
                             .setOffset(start).execute();
 
             for (Object object : queryResult) {
-                Object[] fields = (Object[]) object;
-                XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
-                xwikiDocument.setDatabase(wikiName);
-
-                if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
-
-                    Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
-
-                    BaseObject xwikiObject = (BaseObject) fields[1];
-
-                    ObjectSummary objectSummary = DomainObjectFactory
-                        .createObjectSummary(objectFactory, uriInfo.getBaseUri(), Utils.getXWikiContext(
-                            componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
-                            withPrettyNames);
-
+                ObjectSummary objectSummary = getObjectSummary((Object[]) object, wikiName, withPrettyNames);
+                if (objectSummary != null) {
                     objects.getObjectSummaries().add(objectSummary);
                 }
             }
@@ -99,4 +96,63 @@ public Objects getObjects(String wikiName, String className, Integer start, Inte
             Utils.getXWikiContext(componentManager).setWikiId(database);
         }
     }
+
+    private Objects getStreamedObjects(String query, String wikiName, String className, Integer start,
+        Integer number, Boolean withPrettyNames) throws XWikiRestException
+    {
+        try {
+            Query streamQuery = queryManager.createQuery(query, Query.XWQL).bindValue("className", className)
+                .setLimit(number).setOffset(start).setWiki(wikiName);
+
+            // The rows are fetched and converted while the response is written, one at a time, so the query is only
+            // executed if the response is actually written
+            return new StreamedObjects(() -> stream(streamQuery).map(fields -> {
+                // The rows are converted while the response is written so the context wiki needs to be switched for
+                // each of them (e.g. to resolve the pretty names of the users in the right wiki)
+                XWikiContext xcontext = Utils.getXWikiContext(componentManager);
+                String database = xcontext.getWikiId();
+                try {
+                    xcontext.setWikiId(wikiName);
+
+                    return getObjectSummary(fields, wikiName, withPrettyNames);
+                } catch (XWikiException e) {
+                    throw new WebApplicationException(e);
+                } finally {
+                    xcontext.setWikiId(database);
+                }
+            }).filter(java.util.Objects::nonNull));
+        } catch (QueryException e) {
+            throw new XWikiRestException(e);
+        }
+    }
+
+    private Stream<Object[]> stream(Query query)
+    {
+        try {
+            return query.stream();
+        } catch (QueryException e) {
+            throw new WebApplicationException(e);
+        }
+    }
+
+    private ObjectSummary getObjectSummary(Object[] fields, String wikiName, Boolean withPrettyNames)
+        throws XWikiException
+    {
+        XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
+        xwikiDocument.setDatabase(wikiName);
+
+        if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
+
+            Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
+
+            BaseObject xwikiObject = (BaseObject) fields[1];
+
+            return DomainObjectFactory
+                .createObjectSummary(objectFactory, uriInfo.getBaseUri(), Utils.getXWikiContext(
+                    componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
+                    withPrettyNames);
+        }
+
+        return null;
+    }
 }
@@ -24,7 +24,11 @@
 import java.util.List;
 
 import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
 
+import org.apache.commons.lang3.StringUtils;
+import org.suigeneris.jrcs.rcs.Version;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
@@ -47,7 +51,7 @@ public class PageHistoryResourceImpl extends XWikiResource implements PageHistor
 {
     @Override
     public History getPageHistory(String wikiName, String spaceName, String pageName, Integer start, Integer number,
-            String order, Boolean withPrettyNames) throws XWikiRestException
+            String order, Boolean withPrettyNames, String after) throws XWikiRestException
     {
         List<String> spaces = parseSpaceSegments(spaceName);
         String spaceId = Utils.getLocalSpaceId(spaces);
@@ -56,14 +60,28 @@ public History getPageHistory(String wikiName, String spaceName, String pageName
 
         try {
             // Note that the query is made to work with Oracle which treats empty strings as null.
-            String query = String.format("select doc.space, doc.name, rcs.id, rcs.date, rcs.author, rcs.comment"
-                + " from XWikiRCSNodeInfo as rcs, XWikiDocument as doc where rcs.id.docId = doc.id and"
-                + " doc.space = :space and doc.name = :name and (doc.language = '' or doc.language is null)"
-                + " order by rcs.date %s, rcs.id.version1 %s, rcs.id.version2 %s", order, order, order);
+            StringBuilder statement = new StringBuilder("select doc.space, doc.name, rcs.id, rcs.date, rcs.author,"
+                + " rcs.comment from XWikiRCSNodeInfo as rcs, XWikiDocument as doc where rcs.id.docId = doc.id and"
+                + " doc.space = :space and doc.name = :name and (doc.language = '' or doc.language is null)");
 
-            List<Object> queryResult = null;
-            queryResult = queryManager.createQuery(query, Query.XWQL).bindValue("space", spaceId).bindValue("name",
-                    pageName).setLimit(number).setOffset(start).setWiki(wikiName).execute();
+            Version afterVersion = parseVersion(after);
+            if (afterVersion != null) {
+                // Seek the next page using the version (part of the primary key) instead of skipping the previous
+                // versions
+                String operator = "asc".equalsIgnoreCase(order) ? ">" : "<";
+                statement.append(String.format(" and (rcs.id.version1 %1$s :version1 or (rcs.id.version1 = :version1"
+                    + " and rcs.id.version2 %1$s :version2))", operator));
+            }
+            // Always sort on the version so that the first page and the pages seeking with "after" are consistent
+            statement.append(String.format(" order by rcs.id.version1 %1$s, rcs.id.version2 %1$s", order));
+
+            Query query = queryManager.createQuery(statement.toString(), Query.XWQL).bindValue("space", spaceId)
+                .bindValue("name", pageName).setLimit(number).setOffset(start).setWiki(wikiName);
+            if (afterVersion != null) {
+                query.bindValue("version1", afterVersion.at(0)).bindValue("version2", afterVersion.at(1));
+            }
+
+            List<Object> queryResult = query.execute();
 
             for (Object object : queryResult) {
                 Object[] fields = (Object[]) object;
@@ -86,4 +104,23 @@ public History getPageHistory(String wikiName, String spaceName, String pageName
 
         return history;
     }
+
+    private Version parseVersion(String version)
+    {
+        if (StringUtils.isEmpty(version)) {
+            return null;
+        }
+
+        try {
+            Version parsedVersion = new Version(version);
+            // The seek query needs both the major and the minor version numbers
+            if (parsedVersion.getNumbers().length == 2) {
+                return parsedVersion;
+            }
+        } catch (IllegalArgumentException e) {
+            // Invalid version syntax, handled below
+        }
+
+        throw new WebApplicationException(Status.BAD_REQUEST);
+    }
 }
@@ -19,22 +19,38 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
-import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Pages;
 import org.xwiki.rest.resources.pages.PagesResource;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
 
-import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
 
 /**
  * @version $Id$
@@ -43,6 +59,23 @@
 @Named("org.xwiki.rest.internal.resources.pages.PagesResourceImpl")
 public class PagesResourceImpl extends XWikiResource implements PagesResource
 {
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    private ModelFactory factory;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    @Named("explicit")
+    private DocumentReferenceResolver<String> explicitResolver;
+
     @Override
     public Pages getPages(String wikiName, String spaceName, Integer start, Integer number,
             String parentFilterExpression, String order, Boolean withPrettyNames)
@@ -57,51 +90,42 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
         try {
             Utils.getXWikiContext(componentManager).setWikiId(wikiName);
 
-            Query query = ("date".equals(order)) ? queryManager.createQuery(
-                    "select doc.name from Document doc where doc.space=:space and language='' order by doc.date desc",
-                    "xwql") : queryManager.getNamedQuery("getSpaceDocsName");
-
-            /* Use an explicit query to improve performance */
-            List<String> pageNames =
-                    query.addFilter(componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden"))
-                        .bindValue("space", spaceId).setOffset(start).setLimit(number).execute();
+            // Select the parent along with the name so that the parent filter is applied before loading the pages
+            String statement = "select doc.name, doc.parent from Document doc where doc.space = :space"
+                + " and doc.language = '' order by " + ("date".equals(order) ? "doc.date desc" : "doc.name asc");
+            List<Object[]> rows = queryManager.createQuery(statement, Query.XWQL)
+                .addFilter(componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden"))
+                .bindValue("space", spaceId).setOffset(start).setLimit(number).execute();
+
+            Map<DocumentReference, DocumentReference> pageReferences = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                DocumentReference pageReference = new DocumentReference(wikiName, spaces, (String) row[0]);
+                String parent = (String) row[1];
+                pageReferences.put(pageReference,
+                    StringUtils.isEmpty(parent) ? null : this.explicitResolver.resolve(parent, pageReference));
+            }
 
-            Pattern parentFilter = null;
             if (parentFilterExpression != null) {
-                if (parentFilterExpression.equals("null")) {
-                    parentFilter = Pattern.compile("");
-                } else {
-                    parentFilter = Pattern.compile(parentFilterExpression);
-                }
+                Pattern parentFilter =
+                    Pattern.compile(parentFilterExpression.equals("null") ? "" : parentFilterExpression);
+                Map<DocumentReference, String> parentIds = getParentIds(pageReferences.values());
+                pageReferences.values()
+                    .removeIf(parentReference -> !parentFilter.matcher(parentIds.get(parentReference)).matches());
             }
 
-            for (String pageName : pageNames) {
-                String pageFullName = Utils.getPageId(wikiName, spaces, pageName);
-
-                if (!Utils.getXWikiApi(componentManager).exists(pageFullName)) {
-                    getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.", pageName,
-                        spaceId);
-                } else {
-                    Document doc = Utils.getXWikiApi(componentManager).getDocument(pageFullName);
-
-                    /* We only add pages we have the right to access */
-                    if (doc != null) {
-                        boolean add = true;
-
-                        Document parent = Utils.getParentDocument(doc, Utils.getXWikiApi(componentManager));
-
-                        if (parentFilter != null) {
-                            String parentId = "";
-                            if (parent != null && !parent.isNew()) {
-                                parentId = parent.getPrefixedFullName();
-                            }
-                            add = parentFilter.matcher(parentId).matches();
-                        }
-
-                        if (add) {
-                            pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
-                                    uriInfo.getBaseUri(), doc, Utils.getXWikiApi(componentManager), withPrettyNames));
-                        }
+            XWikiContext xcontext = Utils.getXWikiContext(componentManager);
+
+            for (DocumentReference pageReference : pageReferences.keySet()) {
+                // The rights are only checked for the pages matching the parent filter and each page is loaded once
+                if (this.authorization.hasAccess(Right.VIEW, pageReference)) {
+                    XWikiDocument document = xcontext.getWiki().getDocument(pageReference, xcontext);
+
+                    if (document.isNew()) {
+                        getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.",
+                            pageReference.getName(), spaceId);
+                    } else {
+                        pages.getPageSummaries().add(this.factory.toRestPageSummary(uriInfo.getBaseUri(),
+                            document.newDocument(xcontext), withPrettyNames));
                     }
                 }
             }
@@ -113,4 +137,42 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
 
         return pages;
     }
+
+    /**
+     * @param parentReferences the parents of the listed pages, {@code null} for the pages without parent
+     * @return the serialized reference of each parent, or an empty string if the parent doesn't exist or cannot be
+     *         viewed by the current user
+     */
+    private Map<DocumentReference, String> getParentIds(Iterable<DocumentReference> parentReferences)
+        throws QueryException
+    {
+        Map<DocumentReference, String> parentIds = new HashMap<>();
+        parentIds.put(null, "");
+
+        // The pages of a space usually share a few parents: check their existence with one query per wiki
+        Map<String, Set<String>> parentNames = new HashMap<>();
+        for (DocumentReference parentReference : parentReferences) {
+            if (!parentIds.containsKey(parentReference)) {
+                parentIds.put(parentReference, "");
+                if (this.authorization.hasAccess(Right.VIEW, parentReference)) {
+                    parentNames.computeIfAbsent(parentReference.getWikiReference().getName(), k -> new HashSet<>())
+                        .add(this.localSerializer.serialize(parentReference));
+                }
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : parentNames.entrySet()) {
+            List<String> existingParents = queryManager
+                .createQuery("select doc.fullName from XWikiDocument doc"
+                    + " where doc.fullName in (:names) and doc.language = ''", Query.HQL)
+                .bindValue("names", new ArrayList<>(entry.getValue())).setWiki(entry.getKey()).execute();
+            for (String existingParent : existingParents) {
+                DocumentReference parentReference =
+                    this.explicitResolver.resolve(existingParent, new WikiReference(entry.getKey()));
+                parentIds.put(parentReference, this.serializer.serialize(parentReference));
+            }
+        }
+
+        return parentIds;
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rest.internal.representations.objects.StreamedObjects;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link StreamedCollectionWriter}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class StreamedCollectionWriterTest
+{
+    @InjectMockComponents
+    private StreamedCollectionWriter writer;
+
+    private AtomicBoolean opened = new AtomicBoolean();
+
+    private AtomicBoolean closed = new AtomicBoolean();
+
+    private StreamedObjects objects;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ObjectSummary first = new ObjectSummary();
+        first.setClassName("XWiki.TestClass");
+        first.setNumber(0);
+        ObjectSummary second = new ObjectSummary();
+        second.setClassName("XWiki.TestClass");
+        second.setNumber(1);
+
+        this.objects = new StreamedObjects(() -> {
+            this.opened.set(true);
+            return Stream.of(first, second).onClose(() -> this.closed.set(true));
+        });
+
+        Link link = new Link();
+        link.setHref("http://localhost/xwiki/rest/wikis/xwiki");
+        link.setRel("http://www.xwiki.org/rel/wiki");
+        this.objects.getLinks().add(link);
+    }
+
+    @Test
+    public void isWriteable()
+    {
+        assertTrue(this.writer.isWriteable(StreamedObjects.class, null, null, MediaType.APPLICATION_XML_TYPE));
+        assertFalse(this.writer.isWriteable(Objects.class, null, null, MediaType.APPLICATION_XML_TYPE));
+    }
+
+    @Test
+    public void closeWithoutWriting() throws Exception
+    {
+        // The elements are never produced if the collection is not written
+        this.objects.close();
+
+        assertFalse(this.opened.get());
+    }
+
+    @Test
+    public void writeXML() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.writer.writeTo(this.objects, StreamedObjects.class, null, null, MediaType.APPLICATION_XML_TYPE, null,
+            output);
+
+        String xml = output.toString(StandardCharsets.UTF_8.name());
+        assertTrue(xml.startsWith("<?xml"));
+        assertTrue(xml.contains("<objects xmlns=\"http://www.xwiki.org\">"));
+        assertTrue(xml.contains("href=\"http://localhost/xwiki/rest/wikis/xwiki\""));
+        assertTrue(xml.contains("number>0</"));
+        assertTrue(xml.contains("number>1</"));
+        assertTrue(xml.endsWith("</objects>"));
+        assertTrue(this.closed.get());
+    }
+
+    @Test
+    public void writeJSON() throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.writer.writeTo(this.objects, StreamedObjects.class, null, null, MediaType.APPLICATION_JSON_TYPE, null,
+            output);
+
+        String json = output.toString(StandardCharsets.UTF_8.name());
+        assertTrue(json.startsWith("{\"links\":[{"));
+        assertTrue(json.contains("\"href\":\"http://localhost/xwiki/rest/wikis/xwiki\""));
+        assertTrue(json.contains("\"objectSummaries\":[{"));
+        assertEquals(2, json.split("\"className\":\"XWiki.TestClass\"").length - 1);
+        assertTrue(this.closed.get());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.objects;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.internal.representations.objects.StreamedObjects;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AllObjectsForClassNameResourceImpl}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class AllObjectsForClassNameResourceImplTest
+{
+    private static final DocumentReference ALICE = new DocumentReference("otherwiki", "XWiki", "Alice");
+
+    private static final DocumentReference BOB = new DocumentReference("otherwiki", "XWiki", "Bob");
+
+    @InjectMockComponents
+    private AllObjectsForClassNameResourceImpl resource;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    private XWikiContext xcontext;
+
+    private Query query;
+
+    @BeforeComponent
+    public void beforeComponent() throws Exception
+    {
+        this.xcontext = new XWikiContext();
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.setProperty("xwikicontext", this.xcontext);
+        Execution execution = this.componentManager.registerMockComponent(Execution.class);
+        when(execution.getContext()).thenReturn(executionContext);
+        this.componentManager.registerComponent(ComponentManager.class, "context", this.componentManager);
+    }
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        this.xcontext.setWikiId("xwiki");
+
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getBaseUri()).thenReturn(new URI("/xwiki/rest"));
+        @SuppressWarnings("unchecked")
+        MultivaluedMap<String, String> parameters = mock(MultivaluedMap.class);
+        when(parameters.getFirst("stream")).thenReturn("true");
+        when(uriInfo.getQueryParameters()).thenReturn(parameters);
+        ReflectionUtils.setFieldValue(this.resource, "uriInfo", uriInfo);
+
+        this.query = mock(Query.class);
+        when(this.queryManager.createQuery(anyString(), eq(Query.XWQL))).thenReturn(this.query);
+        when(this.query.bindValue(anyString(), any())).thenReturn(this.query);
+        when(this.query.setLimit(anyInt())).thenReturn(this.query);
+        when(this.query.setOffset(anyInt())).thenReturn(this.query);
+        when(this.query.setWiki("otherwiki")).thenReturn(this.query);
+        when(this.query.stream()).thenReturn(Stream.of(getRow(ALICE), getRow(BOB)));
+    }
+
+    private Object[] getRow(DocumentReference documentReference)
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(documentReference);
+
+        return new Object[] { document, mock(BaseObject.class) };
+    }
+
+    @Test
+    public void getStreamedObjectsInTheRequestedWiki() throws Exception
+    {
+        List<String> conversionWikis = new ArrayList<>();
+        when(this.authorization.hasAccess(eq(Right.VIEW), any())).then(invocation -> {
+            conversionWikis.add(this.xcontext.getWikiId());
+            return false;
+        });
+
+        Objects objects = this.resource.getObjects("otherwiki", "XWiki.XWikiUsers", 0, -1, null, true);
+
+        assertTrue(objects instanceof StreamedObjects);
+        // The rows are fetched and converted only when the response is written
+        verify(this.query, never()).stream();
+        verify(this.authorization, never()).hasAccess(any(), any());
+
+        Iterator<ObjectSummary> elements = ((StreamedObjects) objects).getElements();
+        assertFalse(elements.hasNext());
+
+        // Each row is converted in the requested wiki and the context wiki is restored afterwards
+        assertEquals(Arrays.asList("otherwiki", "otherwiki"), conversionWikis);
+        assertEquals("xwiki", this.xcontext.getWikiId());
+        verify(this.authorization).hasAccess(Right.VIEW, ALICE);
+        verify(this.authorization).hasAccess(Right.VIEW, BOB);
+    }
+}
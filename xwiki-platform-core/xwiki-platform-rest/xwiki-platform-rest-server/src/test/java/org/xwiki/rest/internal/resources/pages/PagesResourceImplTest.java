@@ -0,0 +1,235 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.pages;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import javax.inject.Named;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.model.jaxb.PageSummary;
+import org.xwiki.rest.model.jaxb.Pages;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PagesResourceImpl}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class PagesResourceImplTest
+{
+    private static final DocumentReference ALICE = new DocumentReference("wiki", "Space", "Alice");
+
+    private static final DocumentReference BOB = new DocumentReference("wiki", "Space", "Bob");
+
+    private static final DocumentReference CAROL = new DocumentReference("wiki", "Space", "Carol");
+
+    private static final DocumentReference PARENT = new DocumentReference("wiki", "Space", "Parent");
+
+    private static final DocumentReference MISSING = new DocumentReference("wiki", "Space", "Missing");
+
+    @InjectMockComponents
+    private PagesResourceImpl resource;
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private ModelFactory factory;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @MockComponent
+    @Named("explicit")
+    private DocumentReferenceResolver<String> explicitResolver;
+
+    private XWikiContext xcontext;
+
+    private XWiki xwiki;
+
+    private Query pagesQuery;
+
+    private Query parentsQuery;
+
+    @BeforeComponent
+    public void beforeComponent() throws Exception
+    {
+        this.xcontext = new XWikiContext();
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.setProperty("xwikicontext", this.xcontext);
+        Execution execution = this.componentManager.registerMockComponent(Execution.class);
+        when(execution.getContext()).thenReturn(executionContext);
+        this.componentManager.registerComponent(ComponentManager.class, "context", this.componentManager);
+        this.componentManager.registerMockComponent(QueryFilter.class, "hidden");
+    }
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        this.xcontext.setWikiId("xwiki");
+        this.xwiki = mock(XWiki.class);
+        this.xcontext.setWiki(this.xwiki);
+
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getBaseUri()).thenReturn(new URI("/xwiki/rest"));
+        ReflectionUtils.setFieldValue(this.resource, "uriInfo", uriInfo);
+
+        this.pagesQuery = mock(Query.class, "pages");
+        when(this.queryManager.createQuery(anyString(), eq(Query.XWQL))).thenReturn(this.pagesQuery);
+        when(this.pagesQuery.addFilter(any())).thenReturn(this.pagesQuery);
+        when(this.pagesQuery.bindValue(anyString(), any())).thenReturn(this.pagesQuery);
+        when(this.pagesQuery.setOffset(anyInt())).thenReturn(this.pagesQuery);
+        when(this.pagesQuery.setLimit(anyInt())).thenReturn(this.pagesQuery);
+        when(this.pagesQuery.<Object[]>execute()).thenReturn(Arrays.asList(new Object[] { "Alice", "Space.Parent" },
+            new Object[] { "Bob", "" }, new Object[] { "Carol", "Space.Missing" }));
+
+        this.parentsQuery = mock(Query.class, "parents");
+        when(this.queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(this.parentsQuery);
+        when(this.parentsQuery.bindValue(anyString(), any())).thenReturn(this.parentsQuery);
+        when(this.parentsQuery.setWiki(anyString())).thenReturn(this.parentsQuery);
+        when(this.parentsQuery.<String>execute()).thenReturn(Collections.singletonList("Space.Parent"));
+
+        when(this.explicitResolver.resolve(eq("Space.Parent"), any())).thenReturn(PARENT);
+        when(this.explicitResolver.resolve(eq("Space.Missing"), any())).thenReturn(MISSING);
+        when(this.localSerializer.serialize(PARENT)).thenReturn("Space.Parent");
+        when(this.localSerializer.serialize(MISSING)).thenReturn("Space.Missing");
+        when(this.serializer.serialize(PARENT)).thenReturn("wiki:Space.Parent");
+
+        when(this.authorization.hasAccess(eq(Right.VIEW), any())).thenReturn(true);
+
+        for (DocumentReference reference : Arrays.asList(ALICE, BOB, CAROL)) {
+            XWikiDocument document = mock(XWikiDocument.class, reference.getName());
+            Document apiDocument = mock(Document.class, reference.getName());
+            when(document.newDocument(this.xcontext)).thenReturn(apiDocument);
+            when(this.xwiki.getDocument(reference, this.xcontext)).thenReturn(document);
+            PageSummary pageSummary = new PageSummary();
+            pageSummary.setName(reference.getName());
+            when(this.factory.toRestPageSummary(any(), eq(apiDocument), eq(false))).thenReturn(pageSummary);
+        }
+    }
+
+    private String getNames(Pages pages)
+    {
+        StringBuilder names = new StringBuilder();
+        for (PageSummary pageSummary : pages.getPageSummaries()) {
+            names.append(pageSummary.getName()).append(' ');
+        }
+        return names.toString().trim();
+    }
+
+    @Test
+    public void getPages() throws Exception
+    {
+        when(this.authorization.hasAccess(Right.VIEW, BOB)).thenReturn(false);
+
+        Pages pages = this.resource.getPages("wiki", "Space", 0, 10, null, null, false);
+
+        assertEquals("Alice Carol", getNames(pages));
+        verify(this.pagesQuery).bindValue("space", "Space");
+        verify(this.pagesQuery).setOffset(0);
+        verify(this.pagesQuery).setLimit(10);
+        // The pages the current user is not allowed to see are not loaded
+        verify(this.xwiki, never()).getDocument(BOB, this.xcontext);
+        // The parents are not checked without parent filter
+        verify(this.queryManager, never()).createQuery(anyString(), eq(Query.HQL));
+        assertEquals("xwiki", this.xcontext.getWikiId());
+    }
+
+    @Test
+    public void getPagesWithParentFilter() throws Exception
+    {
+        Pages pages = this.resource.getPages("wiki", "Space", 0, 10, "wiki:Space\\.Parent", null, false);
+
+        assertEquals("Alice", getNames(pages));
+        // The existence of all the parents is checked with a single query
+        verify(this.parentsQuery).bindValue(eq("names"), argThat((Collection<String> names) -> new HashSet<>(names)
+            .equals(new HashSet<>(Arrays.asList("Space.Parent", "Space.Missing")))));
+        verify(this.parentsQuery).setWiki("wiki");
+        verify(this.parentsQuery).execute();
+        // The pages which don't match the filter are neither checked nor loaded
+        verify(this.authorization, never()).hasAccess(Right.VIEW, BOB);
+        verify(this.authorization, never()).hasAccess(Right.VIEW, CAROL);
+        verify(this.xwiki, never()).getDocument(BOB, this.xcontext);
+        verify(this.xwiki, never()).getDocument(CAROL, this.xcontext);
+    }
+
+    @Test
+    public void getPagesWithoutParent() throws Exception
+    {
+        // A parent which doesn't exist is like no parent
+        Pages pages = this.resource.getPages("wiki", "Space", 0, 10, "null", "date", false);
+
+        assertEquals("Bob Carol", getNames(pages));
+        verify(this.queryManager).createQuery("select doc.name, doc.parent from Document doc where doc.space = :space"
+            + " and doc.language = '' order by doc.date desc", Query.XWQL);
+    }
+}
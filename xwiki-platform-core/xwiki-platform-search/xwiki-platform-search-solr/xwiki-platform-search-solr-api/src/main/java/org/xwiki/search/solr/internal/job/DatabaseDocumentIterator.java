@@ -25,6 +25,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -50,6 +51,8 @@
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 import org.xwiki.wiki.manager.WikiManagerException;
 
+import com.xpn.xwiki.internal.store.hibernate.HibernateStore;
+
 /**
  * Iterates the documents from the XWiki database.
  * 
@@ -61,6 +64,8 @@
 @Named("database")
 public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
 {
+    private static final String KEY_PARAMETER = "key";
+
     /**
      * The current index in the list of {@link #results}.
      */
@@ -88,9 +93,15 @@ public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
     private String wiki;
 
     /**
-     * The offset in the current wiki.
+     * The space and name of the last document of the previous 'page' in the current wiki, {@code null} when fetching
+     * the first page.
+     */
+    private Object[] lastKey;
+
+    /**
+     * Whether the previous 'page' was the last one of the current wiki.
      */
-    private int offset;
+    private boolean lastPage;
 
     /**
      * Used to query the underlying storage.
@@ -111,6 +122,11 @@ public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
      */
     private Query query;
 
+    /**
+     * The query used to fetch the documents located after {@link #lastKey} from the database.
+     */
+    private Query nextQuery;
+
     /**
      * The query used to count the documents from the database.
      */
@@ -182,7 +198,8 @@ private List<Object[]> getResults()
                     break;
                 }
                 wiki = getNextWiki();
-                offset = 0;
+                lastKey = null;
+                lastPage = false;
             }
             index = 0;
         }
@@ -194,17 +211,55 @@ private List<Object[]> getResults()
      */
     private void fetchNextResults()
     {
+        if (lastPage) {
+            results = Collections.emptyList();
+            return;
+        }
+
         try {
-            // We use basic pagination (absolute offset) because we don't expect the database to change too much while
-            // the synchronization takes place. Also, the database is used as the reference store, meaning that we
-            // update the Solr index to match the database, not the other way around.
-            results = getQuery().setWiki(wiki).setOffset(offset).execute();
-            offset += LIMIT;
+            // We paginate using the key (space and name) of the last document of the previous page instead of an
+            // absolute offset, which makes the database skip more and more rows as the synchronization progresses.
+            // The database is used as the reference store, meaning that we update the Solr index to match the
+            // database, not the other way around.
+            Query pageQuery;
+            if (lastKey == null) {
+                pageQuery = getQuery();
+            } else {
+                getQuery();
+                pageQuery = nextQuery;
+                for (Map.Entry<String, Object> parameter : HibernateStore.getKeysetParameters(KEY_PARAMETER, lastKey)
+                    .entrySet()) {
+                    pageQuery.bindValue(parameter.getKey(), parameter.getValue());
+                }
+            }
+            results = pageQuery.setWiki(wiki).execute();
+
+            if (results.size() < LIMIT) {
+                lastPage = true;
+            } else {
+                // The language is not part of the key because it can be null (e.g. on Oracle) so we make sure the
+                // translations of a document are all on the same page by leaving the last document for the next page
+                Object[] lastResult = results.get(results.size() - 1);
+                int lastDocumentStart = results.size() - 1;
+                while (lastDocumentStart > 0 && isSameDocument(results.get(lastDocumentStart - 1), lastResult)) {
+                    lastDocumentStart--;
+                }
+                if (lastDocumentStart > 0) {
+                    results = results.subList(0, lastDocumentStart);
+                }
+                lastResult = results.get(results.size() - 1);
+                lastKey = new Object[] { lastResult[0], lastResult[1] };
+            }
         } catch (QueryException e) {
             throw new IllegalStateException("Failed to query the database.", e);
         }
     }
 
+    private boolean isSameDocument(Object[] result, Object[] otherResult)
+    {
+        return Objects.equals(result[0], otherResult[0]) && Objects.equals(result[1], otherResult[1]);
+    }
+
     /**
      * @return the query used to fetch the documents from the database
      * @throws QueryException if creating the query fails
@@ -232,6 +287,10 @@ private Query getQuery() throws QueryException
             }
 
             query = queryManager.createQuery(select + whereClause + orderBy, Query.HQL).setLimit(LIMIT);
+            String keysetCondition = HibernateStore.getKeysetCondition(KEY_PARAMETER, "doc.space", "doc.name");
+            nextQuery = queryManager.createQuery(select
+                + (whereClause.isEmpty() ? " where " : whereClause + " and ") + keysetCondition + orderBy, Query.HQL)
+                .setLimit(LIMIT);
             countQuery = queryManager.createQuery(whereClause, Query.HQL).addFilter(countFilter);
 
             if (spaceReference != null) {
@@ -243,6 +302,7 @@ private Query getQuery() throws QueryException
 
             for (Map.Entry<String, Object> parameter : query.getNamedParameters().entrySet()) {
                 countQuery.bindValue(parameter.getKey(), parameter.getValue());
+                nextQuery.bindValue(parameter.getKey(), parameter.getValue());
             }
         }
         return query;
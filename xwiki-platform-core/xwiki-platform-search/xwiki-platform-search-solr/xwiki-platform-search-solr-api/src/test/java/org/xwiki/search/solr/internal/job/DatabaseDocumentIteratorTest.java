@@ -38,6 +38,8 @@
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryFilter;
@@ -53,6 +55,7 @@
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -105,12 +108,7 @@ public void sizeWithException() throws Exception
     @Test
     public void iterateAllWikis() throws Exception
     {
-        Query emptyQuery = mock(Query.class);
-        when(emptyQuery.execute()).thenReturn(Collections.emptyList());
-
         Query chessQuery = mock(Query.class);
-        when(chessQuery.setOffset(0)).thenReturn(chessQuery);
-        when(chessQuery.setOffset(100)).thenReturn(emptyQuery);
         when(chessQuery.execute()).thenReturn(Arrays.<Object>asList(new Object[] { "Blog.Code", "WebHome", "", "3.2" },
             new Object[] { "Main", "Welcome", "en", "1.1" }, new Object[] { "XWiki.Syntax", "Links", "fr", "2.5" }));
 
@@ -122,8 +120,6 @@ public void iterateAllWikis() throws Exception
             createDocumentReference("chess", Arrays.asList("XWiki", "Syntax"), "Links", Locale.FRENCH);
 
         Query tennisQuery = mock(Query.class);
-        when(tennisQuery.setOffset(0)).thenReturn(tennisQuery);
-        when(tennisQuery.setOffset(100)).thenReturn(emptyQuery);
         when(tennisQuery.execute()).thenReturn(Arrays.<Object>asList(new Object[] { "Main", "Welcome", "en", "2.1" },
             new Object[] { "XWiki.Syntax", "Links", "fr", "1.3" }));
 
@@ -153,6 +149,7 @@ public void iterateAllWikis() throws Exception
             this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
                 + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
         when(this.queryManager.createQuery("", Query.HQL)).thenReturn(countQuery);
+        mockNextQuery("");
 
         DocumentIterator<String> iterator = this.databaseIterator;
 
@@ -178,14 +175,9 @@ public void iterateOneWiki() throws Exception
     {
         DocumentReference rootReference = createDocumentReference("gang", Arrays.asList("A", "B"), "C", null);
 
-        Query emptyQuery = mock(Query.class);
-        when(emptyQuery.execute()).thenReturn(Collections.emptyList());
-
         Query query = mock(Query.class);
         when(query.setLimit(anyInt())).thenReturn(query);
         when(query.setWiki(rootReference.getWikiReference().getName())).thenReturn(query);
-        when(query.setOffset(0)).thenReturn(query);
-        when(query.setOffset(100)).thenReturn(emptyQuery);
         when(query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] { "A.B", "C", "de", "3.1" }));
 
         Map<String, Object> namedParameters = new HashMap<String, Object>();
@@ -201,6 +193,7 @@ public void iterateOneWiki() throws Exception
             this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
                 + whereClause + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
         when(this.queryManager.createQuery(whereClause, Query.HQL)).thenReturn(countQuery);
+        Query nextQuery = mockNextQuery(whereClause + " and");
 
         DocumentIterator<String> iterator = this.databaseIterator;
         iterator.setRootReference(rootReference);
@@ -221,6 +214,70 @@ public void iterateOneWiki() throws Exception
 
         verify(countQuery).bindValue("space", "A.B");
         verify(countQuery).bindValue("name", "C");
+
+        verify(nextQuery).bindValue("space", "A.B");
+        verify(nextQuery).bindValue("name", "C");
+        verify(nextQuery, never()).execute();
+    }
+
+    @Test
+    public void iterateSeveralPages() throws Exception
+    {
+        // The first page is full and ends with the first translation of a document.
+        List<Object> firstPage = new ArrayList<>();
+        for (int i = 0; i < 99; i++) {
+            firstPage.add(new Object[] { "Space", String.format("Page%03d", i), "", "1.1" });
+        }
+        firstPage.add(new Object[] { "Space", "Page099", "", "1.1" });
+        List<Object> nextPage = Arrays.<Object>asList(new Object[] { "Space", "Page099", "", "1.1" },
+            new Object[] { "Space", "Page099", "fr", "1.1" });
+
+        Query query = mock(Query.class);
+        when(query.setLimit(anyInt())).thenReturn(query);
+        when(query.getNamedParameters()).thenReturn(Collections.<String, Object>emptyMap());
+        when(query.setWiki("chess")).thenReturn(query);
+        when(query.execute()).thenReturn(firstPage);
+
+        when(
+            this.queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+                + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
+        Query countQuery = mock(Query.class);
+        when(countQuery.addFilter(this.countQueryFilter)).thenReturn(countQuery);
+        when(this.queryManager.createQuery("", Query.HQL)).thenReturn(countQuery);
+        Query nextQuery = mockNextQuery("");
+        when(nextQuery.setWiki("chess")).thenReturn(nextQuery);
+        when(nextQuery.execute()).thenReturn(nextPage);
+        when(this.wikiDescriptorManager.getAllIds()).thenReturn(Arrays.asList("chess"));
+
+        when(this.explicitEntityReferenceResolver.resolve("Space", EntityType.SPACE, new WikiReference("chess")))
+            .thenReturn(new SpaceReference("chess", "Space"));
+
+        List<DocumentReference> references = new ArrayList<>();
+        DocumentIterator<String> iterator = this.databaseIterator;
+        while (iterator.hasNext()) {
+            references.add(iterator.next().getLeft());
+        }
+
+        // The last document of the first page is taken from the next page, with its translation.
+        assertEquals(101, references.size());
+        assertEquals(new DocumentReference("chess", "Space", "Page098"), references.get(98));
+        assertEquals(new DocumentReference("chess", "Space", "Page099"), references.get(99));
+        assertEquals(new DocumentReference("chess", "Space", "Page099", Locale.FRENCH), references.get(100));
+
+        verify(nextQuery).bindValue("key0", "Space");
+        verify(nextQuery).bindValue("key1", "Page098");
+    }
+
+    private Query mockNextQuery(String whereClause) throws QueryException
+    {
+        Query nextQuery = mock(Query.class);
+        when(nextQuery.setLimit(anyInt())).thenReturn(nextQuery);
+        String select = "select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc";
+        when(this.queryManager.createQuery(select + (whereClause.isEmpty() ? " where" : whereClause)
+            + " ((doc.space > :key0) or (doc.space = :key0 and doc.name > :key1))"
+            + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(nextQuery);
+
+        return nextQuery;
     }
 
     private DocumentReference createDocumentReference(String wiki, List<String> spaces, String name, Locale locale)
@@ -0,0 +1,200 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.filesystem.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content addressed storage of the attachment files. Each distinct content is stored once in a blob named after its
+ * SHA-256 hash and the attachment files (current content, versions, deleted attachments) are hard links to these blobs.
+ * <p>
+ * The number of links of a blob is its reference count: a blob which is only linked from the blob directory is not
+ * used by any attachment anymore and is reclaimed by {@link #collectGarbage()}. The attachment files are never
+ * modified in place (they are always replaced by renaming a new file) so sharing them between attachments is safe.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class AttachmentBlobStore
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttachmentBlobStore.class);
+
+    private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+
+    private static final String LINK_FILE_SUFFIX = "~lnk";
+
+    /**
+     * The directory where the blobs are stored.
+     */
+    private final File directory;
+
+    /**
+     * @param directory the directory where the blobs are stored
+     */
+    public AttachmentBlobStore(File directory)
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * @return {@code true} if the file system provides the number of links of a file, which is required to know when
+     *         a blob is not used anymore
+     */
+    public static boolean isSupported()
+    {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    }
+
+    /**
+     * @return the directory where the blobs are stored
+     */
+    public File getDirectory()
+    {
+        return this.directory;
+    }
+
+    /**
+     * Make the passed file share its content with the blob having the same hash, or make it the blob of its content
+     * if there is none yet.
+     *
+     * @param file the file to deduplicate
+     * @throws IOException when failing to read or link the file
+     */
+    public void store(File file) throws IOException
+    {
+        Path path = file.toPath();
+        Path blob = getBlobPath(path);
+
+        if (Files.exists(blob)) {
+            if (Files.isSameFile(blob, path)) {
+                return;
+            }
+
+            // Replace the file by a link to the blob, atomically so that readers never see a missing file
+            Path link =
+                path.resolveSibling(path.getFileName() + LINK_FILE_SUFFIX + RandomStringUtils.randomAlphanumeric(8));
+            try {
+                Files.createLink(link, blob);
+                Files.move(link, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                return;
+            } catch (NoSuchFileException e) {
+                // The blob has just been reclaimed by the garbage collector: the file becomes the new blob
+            } finally {
+                Files.deleteIfExists(link);
+            }
+        }
+
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.createLink(blob, path);
+        } catch (FileAlreadyExistsException e) {
+            // The same content has been stored concurrently, the next save will share it
+        }
+    }
+
+    /**
+     * Create a file with the same content as another one without copying it.
+     *
+     * @param source the file holding the content
+     * @param target the file to create
+     * @return {@code true} if the link was created, {@code false} if the content has to be copied (for example because
+     *         both files are not located on the same file system)
+     */
+    public boolean link(File source, File target)
+    {
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.debug("Failed to link [{}] to [{}], copying it instead: {}", target, source, e.getMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Delete the blobs which are not linked from any attachment file anymore.
+     *
+     * @return the number of deleted blobs
+     * @throws IOException when failing to browse the blobs
+     */
+    public int collectGarbage() throws IOException
+    {
+        if (!this.directory.isDirectory()) {
+            return 0;
+        }
+
+        int[] count = new int[1];
+        Files.walkFileTree(this.directory.toPath(), new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path blob, BasicFileAttributes attrs) throws IOException
+            {
+                if (attrs.isRegularFile() && getLinkCount(blob) <= 1 && Files.deleteIfExists(blob)) {
+                    count[0]++;
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return count[0];
+    }
+
+    /**
+     * @param file the file
+     * @return the number of links to the file
+     * @throws IOException when failing to read the attributes of the file
+     */
+    public int getLinkCount(Path file) throws IOException
+    {
+        return ((Number) Files.getAttribute(file, LINK_COUNT_ATTRIBUTE)).intValue();
+    }
+
+    private Path getBlobPath(Path file) throws IOException
+    {
+        String hash;
+        try (InputStream stream = Files.newInputStream(file)) {
+            hash = DigestUtils.sha256Hex(stream);
+        }
+
+        // Avoid having too many files in one folder because some filesystems don't perform well with large numbers of
+        // files in one folder
+        return this.directory.toPath().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+}
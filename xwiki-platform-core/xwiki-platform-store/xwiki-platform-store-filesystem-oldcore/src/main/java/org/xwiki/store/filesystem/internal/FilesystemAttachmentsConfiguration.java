@@ -42,4 +42,13 @@
      * @since 11.4RC1
      */
     File getDirectory();
+
+    /**
+     * @return whether to share the files of the attachments having the same content
+     * @since 12.6RC1
+     */
+    default boolean isDeduplicationEnabled()
+    {
+        return false;
+    }
 }
@@ -22,6 +22,9 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import javax.inject.Inject;
@@ -30,8 +33,12 @@
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.environment.Environment;
@@ -50,7 +57,7 @@
  */
 @Component(roles = FilesystemStoreTools.class)
 @Singleton
-public class FilesystemStoreTools implements Initializable
+public class FilesystemStoreTools implements Initializable, Disposable
 {
     /**
      * The directory within each document's directory for document locales.
@@ -80,6 +87,13 @@ public class FilesystemStoreTools implements Initializable
      */
     public static final String DELETED_DOCUMENTS_DIR_NAME = "deleted-documents";
 
+    /**
+     * The directory within the store root directory where the deduplicated attachment contents are stored.
+     * 
+     * @since 12.6RC1
+     */
+    public static final String BLOBS_DIR_NAME = "~blobs";
+
     /**
      * When a file is being saved, the original will be moved to the same name with this after it. If the save operation
      * fails then this file will be moved back to the regular position to come as close as possible to ACID transaction
@@ -94,6 +108,11 @@ public class FilesystemStoreTools implements Initializable
      */
     private static final String TEMP_FILE_SUFFIX = "~tmp";
 
+    /**
+     * The delay between two runs of the attachment blobs garbage collector, in hours.
+     */
+    private static final long BLOBS_GC_DELAY = 24;
+
     @Inject
     private FilesystemAttachmentsConfiguration config;
 
@@ -119,6 +138,13 @@ public class FilesystemStoreTools implements Initializable
      */
     private File storeRootDirectory;
 
+    /**
+     * The store of deduplicated attachment contents, {@code null} when the deduplication is disabled.
+     */
+    private AttachmentBlobStore blobStore;
+
+    private ScheduledExecutorService blobsGarbageCollector;
+
     /**
      * Testing Constructor.
      *
@@ -164,6 +190,46 @@ public void initialize() throws InitializationException
 
             new Thread(() -> deleteEmptyDirs(dir, 0)).start();
         }
+
+        if (this.config.isDeduplicationEnabled()) {
+            initializeBlobStore();
+        }
+    }
+
+    private void initializeBlobStore()
+    {
+        if (!AttachmentBlobStore.isSupported()) {
+            this.logger.warn("The attachments deduplication is not supported by this file system and is disabled.");
+
+            return;
+        }
+
+        this.blobStore = new AttachmentBlobStore(new File(this.storeRootDirectory, BLOBS_DIR_NAME));
+
+        this.blobsGarbageCollector = Executors.newSingleThreadScheduledExecutor(
+            new BasicThreadFactory.Builder().namingPattern("Attachment blobs garbage collector").daemon(true)
+                .priority(Thread.MIN_PRIORITY).build());
+        this.blobsGarbageCollector.scheduleWithFixedDelay(this::collectBlobsGarbage, 1, BLOBS_GC_DELAY,
+            TimeUnit.HOURS);
+    }
+
+    private void collectBlobsGarbage()
+    {
+        try {
+            int count = this.blobStore.collectGarbage();
+
+            this.logger.debug("Deleted [{}] unused attachment blobs.", count);
+        } catch (Exception e) {
+            this.logger.warn("Failed to delete the unused attachment blobs: {}", ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.blobsGarbageCollector != null) {
+            this.blobsGarbageCollector.shutdownNow();
+        }
     }
 
     /**
@@ -262,6 +328,15 @@ public File getStoreRootDirectory()
         return this.storeRootDirectory;
     }
 
+    /**
+     * @return the store of deduplicated attachment contents, or {@code null} if the deduplication is disabled
+     * @since 12.6RC1
+     */
+    public AttachmentBlobStore getBlobStore()
+    {
+        return this.blobStore;
+    }
+
     /**
      * Get an instance of AttachmentFileProvider which will save everything to do with an attachment in a separate
      * location which is repeatable only with the same attachment name, and containing document.
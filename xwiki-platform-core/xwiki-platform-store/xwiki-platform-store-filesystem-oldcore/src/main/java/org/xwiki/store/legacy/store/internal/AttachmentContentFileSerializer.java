@@ -0,0 +1,87 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.legacy.store.internal;
+
+import java.io.File;
+
+import org.xwiki.store.FileSerializer;
+import org.xwiki.store.StreamProviderFileSerializer;
+import org.xwiki.store.filesystem.internal.AttachmentBlobStore;
+import org.xwiki.store.legacy.doc.internal.FilesystemAttachmentContent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+
+/**
+ * Write the content of an attachment to a file. When the deduplication is enabled, a content which is already stored
+ * in the filesystem store (copied or renamed attachment, restored deleted attachment, etc.) is linked instead of being
+ * copied and a new content is shared with the other attachments having the same content.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+public class AttachmentContentFileSerializer implements FileSerializer
+{
+    private final XWikiAttachment attachment;
+
+    private final XWikiContext context;
+
+    private final AttachmentBlobStore blobStore;
+
+    /**
+     * @param attachment the attachment whose content should be written
+     * @param context the XWikiContext needed to get the content from the attachment
+     * @param blobStore the store of deduplicated attachment contents, {@code null} if the deduplication is disabled
+     */
+    public AttachmentContentFileSerializer(XWikiAttachment attachment, XWikiContext context,
+        AttachmentBlobStore blobStore)
+    {
+        this.attachment = attachment;
+        this.context = context;
+        this.blobStore = blobStore;
+    }
+
+    @Override
+    public void serialize(File file) throws Exception
+    {
+        if (this.blobStore != null) {
+            File storageFile = getStorageFile();
+            if (storageFile != null && storageFile.exists() && this.blobStore.link(storageFile, file)) {
+                return;
+            }
+        }
+
+        new StreamProviderFileSerializer(new AttachmentContentStreamProvider(this.attachment, this.context))
+            .serialize(file);
+
+        if (this.blobStore != null) {
+            this.blobStore.store(file);
+        }
+    }
+
+    private File getStorageFile()
+    {
+        XWikiAttachmentContent content = this.attachment.getAttachment_content();
+
+        return content instanceof FilesystemAttachmentContent
+            ? ((FilesystemAttachmentContent) content).getStorageFile() : null;
+    }
+}
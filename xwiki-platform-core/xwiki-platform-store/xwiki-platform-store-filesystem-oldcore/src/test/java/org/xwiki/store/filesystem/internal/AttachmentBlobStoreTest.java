@@ -0,0 +1,119 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.filesystem.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for {@link AttachmentBlobStore}.
+ *
+ * @version $Id$
+ */
+@ExtendWith(XWikiTempDirExtension.class)
+public class AttachmentBlobStoreTest
+{
+    @XWikiTempDir
+    private File tmpDir;
+
+    private AttachmentBlobStore blobStore;
+
+    @BeforeEach
+    void setUp()
+    {
+        assumeTrue(AttachmentBlobStore.isSupported());
+
+        this.blobStore = new AttachmentBlobStore(new File(this.tmpDir, "~blobs"));
+    }
+
+    private File write(String name, String content) throws IOException
+    {
+        File file = new File(this.tmpDir, name);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+
+        return file;
+    }
+
+    @Test
+    void storeSameContent() throws IOException
+    {
+        File file1 = write("file1", "content");
+        File file2 = write("file2", "content");
+        File file3 = write("file3", "other content");
+
+        this.blobStore.store(file1);
+        this.blobStore.store(file2);
+        this.blobStore.store(file3);
+
+        // Both files and the blob share the same content
+        assertEquals(3, this.blobStore.getLinkCount(file1.toPath()));
+        assertEquals(3, this.blobStore.getLinkCount(file2.toPath()));
+        assertEquals(2, this.blobStore.getLinkCount(file3.toPath()));
+        assertEquals("content", FileUtils.readFileToString(file2, StandardCharsets.UTF_8));
+
+        // Storing again is harmless
+        this.blobStore.store(file1);
+        assertEquals(3, this.blobStore.getLinkCount(file1.toPath()));
+    }
+
+    @Test
+    void link() throws IOException
+    {
+        File source = write("source", "content");
+        File target = new File(this.tmpDir, "target");
+
+        assertTrue(this.blobStore.link(source, target));
+        assertEquals("content", FileUtils.readFileToString(target, StandardCharsets.UTF_8));
+        assertEquals(2, this.blobStore.getLinkCount(source.toPath()));
+
+        // The target already exists
+        assertFalse(this.blobStore.link(source, target));
+    }
+
+    @Test
+    void collectGarbage() throws IOException
+    {
+        File file1 = write("file1", "content");
+        File file2 = write("file2", "other content");
+        this.blobStore.store(file1);
+        this.blobStore.store(file2);
+
+        assertEquals(0, this.blobStore.collectGarbage());
+
+        file1.delete();
+
+        assertEquals(1, this.blobStore.collectGarbage());
+        assertEquals(1, FileUtils.listFiles(this.blobStore.getDirectory(), null, true).size());
+        assertEquals(2, this.blobStore.getLinkCount(file2.toPath()));
+    }
+}
@@ -66,4 +66,11 @@ public void getDirectory() throws IOException
         when(configurationSource.getProperty("store.file.directory")).thenReturn(tempDir.toString());
         assertEquals(tempDir.toFile(), configuration.getDirectory());
     }
+
+    @Test
+    public void isDeduplicationEnabled()
+    {
+        when(configurationSource.getProperty("store.file.deduplication", Boolean.FALSE)).thenReturn(true);
+        assertTrue(configuration.isDeduplicationEnabled());
+    }
 }
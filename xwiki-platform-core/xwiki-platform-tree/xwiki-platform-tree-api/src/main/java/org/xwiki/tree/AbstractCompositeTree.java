@@ -19,9 +19,14 @@
  */
 package org.xwiki.tree;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -51,6 +56,28 @@ public int getChildCount(String nodeId)
         return treeNode != null ? treeNode.getChildCount(nodeId) : 0;
     }
 
+    @Override
+    public Set<String> getNodesWithChildren(Collection<String> nodeIds)
+    {
+        // Let each node type check its own nodes at once.
+        Map<String, List<String>> nodeIdsByNodeType = new LinkedHashMap<>();
+        for (String nodeId : nodeIds) {
+            String[] parts = StringUtils.split(nodeId, ":", 2);
+            if (parts != null && parts.length == 2) {
+                nodeIdsByNodeType.computeIfAbsent(parts[0], key -> new ArrayList<>()).add(nodeId);
+            }
+        }
+
+        Set<String> nodesWithChildren = new HashSet<>();
+        for (List<String> sameTypeNodeIds : nodeIdsByNodeType.values()) {
+            TreeNode treeNode = getTreeNode(sameTypeNodeIds.get(0));
+            if (treeNode != null) {
+                nodesWithChildren.addAll(treeNode.getNodesWithChildren(sameTypeNodeIds));
+            }
+        }
+        return nodesWithChildren;
+    }
+
     @Override
     public String getParent(String nodeId)
     {
@@ -19,10 +19,14 @@
  */
 package org.xwiki.tree;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * The interface used to represent a node in a tree structure.
@@ -67,6 +71,20 @@
      */
     int getChildCount(String nodeId);
 
+    /**
+     * Retrieve the nodes that have at least one child, among the specified nodes. This is used when displaying a page
+     * of sibling nodes, so implementations are encouraged to check all the nodes at once (e.g. with a single query).
+     * 
+     * @param nodeIds the node ids
+     * @return the ids of the specified nodes that have child nodes
+     * @since 12.6RC1
+     */
+    @Unstable
+    default Set<String> getNodesWithChildren(Collection<String> nodeIds)
+    {
+        return nodeIds.stream().filter(nodeId -> getChildCount(nodeId) > 0).collect(Collectors.toSet());
+    }
+
     /**
      * Retrieve the parent of the specified node.
      * 
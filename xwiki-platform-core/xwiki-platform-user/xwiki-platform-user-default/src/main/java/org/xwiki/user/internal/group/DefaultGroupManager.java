@@ -36,6 +36,7 @@
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.QueryException;
 import org.xwiki.user.group.GroupException;
 import org.xwiki.user.group.GroupManager;
 import org.xwiki.user.group.WikiTarget;
@@ -43,9 +44,12 @@
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 import org.xwiki.wiki.manager.WikiManagerException;
 
+import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.user.api.XWikiGroupService;
+import com.xpn.xwiki.user.api.XWikiRightService;
+import com.xpn.xwiki.user.impl.xwiki.XWikiGroupServiceImpl;
 
 /**
  * Fast access to group membership.
@@ -63,6 +67,9 @@ public class DefaultGroupManager implements GroupManager
     @Inject
     private MembersCache membersCache;
 
+    @Inject
+    private GroupMembershipIndex membershipIndex;
+
     @Inject
     private WikiDescriptorManager wikis;
 
@@ -261,6 +268,18 @@ private Collection<DocumentReference> getGroups(DocumentReference reference, Obj
 
         Set<DocumentReference> groups = new LinkedHashSet<>();
 
+        if (isIndexed(groupService)) {
+            for (String wiki : searchWikis) {
+                try {
+                    addIndexedGroups(reference, wiki, groups, xcontext);
+                } catch (QueryException e) {
+                    this.logger.error("Failed to get all groups for member [{}] in wiki [{}]", reference, wiki, e);
+                }
+            }
+
+            return groups;
+        }
+
         WikiReference currrentWiki = xcontext.getWikiReference();
         for (String wiki : searchWikis) {
             try {
@@ -280,6 +299,38 @@ private Collection<DocumentReference> getGroups(DocumentReference reference, Obj
         return groups;
     }
 
+    private boolean isIndexed(XWikiGroupService groupService)
+    {
+        // Other group services don't necessarily rely on XWiki.XWikiGroups objects
+        return groupService.getClass() == XWikiGroupServiceImpl.class;
+    }
+
+    private void addIndexedGroups(DocumentReference reference, String wiki, Set<DocumentReference> groups,
+        XWikiContext xcontext) throws QueryException
+    {
+        groups.addAll(this.membershipIndex.getGroups(reference, wiki));
+
+        // Same rules as XWikiGroupServiceImpl#getAllGroupsReferencesForMember()
+        boolean local = reference.getWikiReference().getName().equals(wiki);
+        boolean guest = reference.getName().equals(XWikiRightService.GUEST_USER);
+        if (!local && guest && reference.getLastSpaceReference().getName().equals(XWiki.SYSTEM_SPACE)) {
+            // Groups can contain the guest user of another wiki with a local reference
+            groups.addAll(this.membershipIndex
+                .getGroups(new DocumentReference(wiki, XWiki.SYSTEM_SPACE, XWikiRightService.GUEST_USER), wiki));
+        }
+
+        // If the 'XWiki.XWikiAllGroup' is implicit, all users/groups except XWikiGuest and XWikiAllGroup itself are
+        // part of it
+        if (local && !guest && xcontext.getWiki().isAllGroupImplicit()) {
+            DocumentReference allGroup = this.referenceFactory
+                .getReference(new DocumentReference(wiki, XWiki.SYSTEM_SPACE, XWikiRightService.ALLGROUP_GROUP));
+
+            if (!allGroup.equals(reference)) {
+                groups.add(allGroup);
+            }
+        }
+    }
+
     private Collection<DocumentReference> get(GroupCacheEntry entry, boolean recurse)
     {
         Collection<DocumentReference> references;
@@ -385,6 +436,14 @@ private Collection<DocumentReference> getMembers(DocumentReference reference) th
 
         XWikiGroupService groupService = getXWikiGroupService(xcontext);
 
+        if (isIndexed(groupService)) {
+            try {
+                return this.membershipIndex.getMembers(reference);
+            } catch (QueryException e) {
+                throw new GroupException("Failed to get members of group [" + reference + "]", e);
+            }
+        }
+
         Collection<String> memberStrings;
         try {
             memberStrings =
@@ -68,6 +68,9 @@ public class GroupCacheInvalidationListener extends AbstractEventListener
     @Inject
     private MembersCache membersCache;
 
+    @Inject
+    private GroupMembershipIndex membershipIndex;
+
     /**
      * Default constructor.
      */
@@ -86,6 +89,7 @@ public void onEvent(Event event, Object source, Object data)
             WikiReference wikiReference = new WikiReference(((WikiDeletedEvent) event).getWikiId());
             this.groupsCache.cleanCache(wikiReference.getName());
             this.membersCache.cleanCache(wikiReference.getName());
+            this.membershipIndex.removeWiki(wikiReference.getName());
         } else {
             XWikiDocument document = (XWikiDocument) source;
 
@@ -102,15 +106,22 @@ public void onEvent(Event event, Object source, Object data)
             BaseObject newXObject = document.getXObject(reference);
             BaseObject previousXObject = document.getOriginalDocument().getXObject(reference);
 
-            clean(newXObject, documentReference);
-            clean(previousXObject, documentReference);
+            DocumentReference newMember = clean(newXObject, documentReference);
+            DocumentReference previousMember = clean(previousXObject, documentReference);
+
+            // Update the memberships index (only XWiki.XWikiGroups objects have a member)
+            if (newMember != null) {
+                this.membershipIndex.addMember(documentReference, newXObject.getNumber(), newMember);
+            } else if (previousMember != null) {
+                this.membershipIndex.removeMember(documentReference, previousXObject.getNumber());
+            }
         }
     }
 
-    private void clean(BaseObject xobject, DocumentReference groupReference)
+    private DocumentReference clean(BaseObject xobject, DocumentReference groupReference)
     {
         if (xobject == null) {
-            return;
+            return null;
         }
 
         String memberString = xobject.getStringValue("member");
@@ -119,6 +130,10 @@ private void clean(BaseObject xobject, DocumentReference groupReference)
 
             this.groupsCache.cleanCache(memberReference);
             this.membersCache.cleanCache(memberReference);
+
+            return memberReference;
         }
+
+        return null;
     }
 }
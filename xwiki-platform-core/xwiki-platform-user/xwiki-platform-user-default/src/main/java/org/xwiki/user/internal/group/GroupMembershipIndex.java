@@ -0,0 +1,275 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.user.internal.group;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+/**
+ * In-memory index of the direct memberships declared by the {@code XWiki.XWikiGroups} objects of each wiki.
+ * <p>
+ * The memberships of a wiki are loaded with a single query the first time they are needed and then updated
+ * incrementally (see {@link GroupCacheInvalidationListener}) so that resolving nested groups, even after the group
+ * caches have been cleaned, does not require any database access.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component(roles = GroupMembershipIndex.class)
+@Singleton
+public class GroupMembershipIndex
+{
+    private static final String MEMBERSHIPS_QUERY = "select doc.fullName, obj.number, prop.value "
+        + "from XWikiDocument as doc, BaseObject as obj, StringProperty as prop "
+        + "where obj.name = doc.fullName and obj.className = 'XWiki.XWikiGroups' "
+        + "and obj.id = prop.id.id and prop.id.name = 'member'";
+
+    @Inject
+    private Provider<QueryManager> queryManagerProvider;
+
+    @Inject
+    private DocumentReferenceResolver<String> resolver;
+
+    @Inject
+    private EntityReferenceFactory referenceFactory;
+
+    private final Map<String, WikiIndex> wikis = new ConcurrentHashMap<>();
+
+    /**
+     * The number of modifications of each wiki, used to detect modifications happening while a wiki is loaded.
+     */
+    private final Map<String, AtomicLong> modifications = new ConcurrentHashMap<>();
+
+    private static final class WikiIndex
+    {
+        /**
+         * The member declared by each {@code XWiki.XWikiGroups} object of each group, indexed by object number. Adding
+         * the same object twice (e.g. when it's both loaded from the database and notified) is thus harmless.
+         */
+        private final Map<DocumentReference, Map<Integer, DocumentReference>> membersByGroup = new HashMap<>();
+
+        private final Map<DocumentReference, Set<DocumentReference>> groupsByMember = new HashMap<>();
+
+        synchronized void add(DocumentReference group, int number, DocumentReference member)
+        {
+            DocumentReference previousMember =
+                this.membersByGroup.computeIfAbsent(group, key -> new HashMap<>()).put(number, member);
+            this.groupsByMember.computeIfAbsent(member, key -> new LinkedHashSet<>()).add(group);
+
+            if (previousMember != null && !previousMember.equals(member)) {
+                removeIfUndeclared(group, previousMember);
+            }
+        }
+
+        synchronized void remove(DocumentReference group, int number)
+        {
+            Map<Integer, DocumentReference> members = this.membersByGroup.get(group);
+            if (members != null) {
+                DocumentReference member = members.remove(number);
+                if (members.isEmpty()) {
+                    this.membersByGroup.remove(group);
+                }
+
+                if (member != null) {
+                    removeIfUndeclared(group, member);
+                }
+            }
+        }
+
+        private void removeIfUndeclared(DocumentReference group, DocumentReference member)
+        {
+            // The same member can be declared by several objects of the group
+            Map<Integer, DocumentReference> members = this.membersByGroup.get(group);
+            if (members == null || !members.containsValue(member)) {
+                Set<DocumentReference> groups = this.groupsByMember.get(member);
+                if (groups != null) {
+                    groups.remove(group);
+                    if (groups.isEmpty()) {
+                        this.groupsByMember.remove(member);
+                    }
+                }
+            }
+        }
+
+        synchronized Collection<DocumentReference> getMembers(DocumentReference group)
+        {
+            Map<Integer, DocumentReference> members = this.membersByGroup.get(group);
+
+            return members != null ? new LinkedHashSet<>(members.values()) : Collections.emptySet();
+        }
+
+        synchronized Collection<DocumentReference> getGroups(DocumentReference member)
+        {
+            Set<DocumentReference> groups = this.groupsByMember.get(member);
+
+            return groups != null ? new LinkedHashSet<>(groups) : Collections.emptySet();
+        }
+    }
+
+    /**
+     * @param member the reference of the user or group
+     * @param wiki the wiki where to search for groups
+     * @return the groups of the passed wiki which directly contain the passed member
+     * @throws QueryException when failing to load the memberships of the wiki
+     */
+    public Collection<DocumentReference> getGroups(DocumentReference member, String wiki) throws QueryException
+    {
+        return getWikiIndex(wiki).getGroups(member);
+    }
+
+    /**
+     * @param group the reference of the group
+     * @return the direct members of the passed group
+     * @throws QueryException when failing to load the memberships of the wiki of the group
+     */
+    public Collection<DocumentReference> getMembers(DocumentReference group) throws QueryException
+    {
+        return getWikiIndex(group.getWikiReference().getName()).getMembers(group);
+    }
+
+    /**
+     * Register a new or modified {@code XWiki.XWikiGroups} object.
+     * 
+     * @param group the reference of the group
+     * @param number the number of the object
+     * @param member the reference of the member
+     */
+    public void addMember(DocumentReference group, int number, DocumentReference member)
+    {
+        String wiki = group.getWikiReference().getName();
+
+        synchronized (this) {
+            getModifications(wiki).incrementAndGet();
+
+            WikiIndex index = this.wikis.get(wiki);
+            if (index != null) {
+                index.add(this.referenceFactory.getReference(group), number,
+                    this.referenceFactory.getReference(member));
+            }
+        }
+    }
+
+    /**
+     * Unregister a {@code XWiki.XWikiGroups} object.
+     * 
+     * @param group the reference of the group
+     * @param number the number of the object
+     */
+    public void removeMember(DocumentReference group, int number)
+    {
+        String wiki = group.getWikiReference().getName();
+
+        synchronized (this) {
+            getModifications(wiki).incrementAndGet();
+
+            WikiIndex index = this.wikis.get(wiki);
+            if (index != null) {
+                index.remove(group, number);
+            }
+        }
+    }
+
+    /**
+     * Forget everything about the passed wiki.
+     * 
+     * @param wiki the identifier of the wiki
+     */
+    public void removeWiki(String wiki)
+    {
+        synchronized (this) {
+            getModifications(wiki).incrementAndGet();
+
+            this.wikis.remove(wiki);
+        }
+    }
+
+    private AtomicLong getModifications(String wiki)
+    {
+        return this.modifications.computeIfAbsent(wiki, key -> new AtomicLong());
+    }
+
+    private WikiIndex getWikiIndex(String wiki) throws QueryException
+    {
+        WikiIndex index = this.wikis.get(wiki);
+
+        if (index == null) {
+            long modification = getModifications(wiki).get();
+
+            index = loadWikiIndex(wiki);
+
+            synchronized (this) {
+                // Don't remember memberships which might have been modified while they were loaded
+                if (getModifications(wiki).get() == modification) {
+                    WikiIndex existingIndex = this.wikis.putIfAbsent(wiki, index);
+                    if (existingIndex != null) {
+                        index = existingIndex;
+                    }
+                }
+            }
+        }
+
+        return index;
+    }
+
+    private WikiIndex loadWikiIndex(String wiki) throws QueryException
+    {
+        WikiIndex index = new WikiIndex();
+
+        WikiReference wikiReference = new WikiReference(wiki);
+
+        Query query = this.queryManagerProvider.get().createQuery(MEMBERSHIPS_QUERY, Query.HQL).setWiki(wiki);
+        try (Stream<Object[]> rows = query.stream()) {
+            rows.forEach(row -> {
+                String memberString = (String) row[2];
+                if (StringUtils.isNotEmpty(memberString)) {
+                    DocumentReference group =
+                        this.referenceFactory.getReference(this.resolver.resolve((String) row[0], wikiReference));
+                    DocumentReference member =
+                        this.referenceFactory.getReference(this.resolver.resolve(memberString, group));
+
+                    index.add(group, ((Number) row[1]).intValue(), member);
+                }
+            });
+        }
+
+        return index;
+    }
+}
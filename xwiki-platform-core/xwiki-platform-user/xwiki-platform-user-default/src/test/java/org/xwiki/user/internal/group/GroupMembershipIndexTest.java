@@ -0,0 +1,163 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.user.internal.group;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link GroupMembershipIndex}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class GroupMembershipIndexTest
+{
+    private static final WikiReference WIKI = new WikiReference("wiki");
+
+    private static final DocumentReference USER = new DocumentReference("wiki", "XWiki", "user");
+
+    private static final DocumentReference GROUP1 = new DocumentReference("wiki", "XWiki", "group1");
+
+    private static final DocumentReference GROUP2 = new DocumentReference("wiki", "XWiki", "group2");
+
+    @InjectMockComponents
+    private GroupMembershipIndex index;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private DocumentReferenceResolver<String> resolver;
+
+    @MockComponent
+    private EntityReferenceFactory referenceFactory;
+
+    private Query query;
+
+    @BeforeEach
+    public void beforeEach() throws QueryException
+    {
+        this.query = mock(Query.class);
+        when(this.queryManager.createQuery(any(), any())).thenReturn(this.query);
+        when(this.query.setWiki("wiki")).thenReturn(this.query);
+        when(this.query.stream()).thenReturn(Stream.of(new Object[] { "XWiki.group1", 0, "XWiki.user" },
+            new Object[] { "XWiki.group1", 1, "" }, new Object[] { "XWiki.group2", 0, "XWiki.group1" }));
+
+        when(this.resolver.resolve("XWiki.group1", WIKI)).thenReturn(GROUP1);
+        when(this.resolver.resolve("XWiki.group2", WIKI)).thenReturn(GROUP2);
+        when(this.resolver.resolve("XWiki.user", GROUP1)).thenReturn(USER);
+        when(this.resolver.resolve("XWiki.group1", GROUP2)).thenReturn(GROUP1);
+
+        when(this.referenceFactory.getReference(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void getGroupsAndMembers() throws QueryException
+    {
+        assertEquals(Collections.singleton(GROUP1), this.index.getGroups(USER, "wiki"));
+        assertEquals(Collections.singleton(GROUP2), this.index.getGroups(GROUP1, "wiki"));
+        assertEquals(Collections.emptySet(), this.index.getGroups(GROUP2, "wiki"));
+
+        assertEquals(Collections.singleton(USER), this.index.getMembers(GROUP1));
+        assertEquals(Collections.singleton(GROUP1), this.index.getMembers(GROUP2));
+
+        // The wiki is loaded only once
+        verify(this.query, times(1)).stream();
+    }
+
+    @Test
+    public void addAndRemoveMember() throws QueryException
+    {
+        this.index.getMembers(GROUP1);
+
+        this.index.addMember(GROUP2, 1, USER);
+        assertEquals(Arrays.asList(GROUP1, GROUP2), new ArrayList<>(this.index.getGroups(USER, "wiki")));
+
+        // The same member can be declared by several objects
+        this.index.addMember(GROUP2, 2, USER);
+        this.index.removeMember(GROUP2, 2);
+        assertEquals(Arrays.asList(GROUP1, GROUP2), new ArrayList<>(this.index.getGroups(USER, "wiki")));
+
+        this.index.removeMember(GROUP2, 1);
+        this.index.removeMember(GROUP1, 0);
+        assertEquals(Collections.emptySet(), this.index.getGroups(USER, "wiki"));
+        assertEquals(Collections.emptySet(), this.index.getMembers(GROUP1));
+
+        verify(this.query, times(1)).stream();
+    }
+
+    @Test
+    public void addSameObjectTwice() throws QueryException
+    {
+        // The object is both loaded from the database and notified as added
+        this.index.getMembers(GROUP1);
+        this.index.addMember(GROUP1, 0, USER);
+
+        this.index.removeMember(GROUP1, 0);
+        assertEquals(Collections.emptySet(), this.index.getGroups(USER, "wiki"));
+        assertEquals(Collections.emptySet(), this.index.getMembers(GROUP1));
+    }
+
+    @Test
+    public void updateMember() throws QueryException
+    {
+        this.index.getMembers(GROUP1);
+
+        this.index.addMember(GROUP1, 0, GROUP2);
+        assertEquals(Collections.emptySet(), this.index.getGroups(USER, "wiki"));
+        assertEquals(Collections.singleton(GROUP2), this.index.getMembers(GROUP1));
+        assertEquals(Collections.singleton(GROUP1), this.index.getGroups(GROUP2, "wiki"));
+    }
+
+    @Test
+    public void removeWiki() throws QueryException
+    {
+        this.index.getMembers(GROUP1);
+
+        this.index.removeWiki("wiki");
+
+        when(this.query.stream()).thenReturn(Stream.empty());
+
+        assertEquals(Collections.emptySet(), this.index.getMembers(GROUP1));
+    }
+}
@@ -70,24 +70,24 @@ public class DefaultWikiDescriptorManager implements WikiDescriptorManager
     @Override
     public Collection<WikiDescriptor> getAll() throws WikiManagerException
     {
-        // Note: Ideally to improve performance we could imagine loading all XWikiServerClasses at initialization time
-        // (in initialize()) and thereafter only use the cache. The problem with this approach is that our Cache will
-        // need to be unbounded which is not the case right now. This would mean being able to put all descriptors in
-        // the cache and thus it might not scale if there were a very large number of wikis.
-        // Note that the full list of ids is cached since it takes a lot less memory that descriptors.
+        // All the descriptors are loaded once (usually in background when XWiki is started, see
+        // WikiDescriptorCacheWarmupListener) and then kept up to date by WikiDescriptorListener. Descriptors are small
+        // enough to keep all of them in memory, even for farms with thousands of wikis.
+        Collection<DefaultWikiDescriptor> descriptors = loadAll();
 
-        Collection<String> wikiIds = getAllIds();
+        List<WikiDescriptor> result = new ArrayList<>(descriptors.size() + 1);
 
-        List<WikiDescriptor> result = new ArrayList<WikiDescriptor>(wikiIds.size());
+        boolean foundMainWiki = false;
 
-        for (String wikiId : wikiIds) {
-            // Get the descriptor
-            WikiDescriptor descriptor = getById(wikiId);
+        for (DefaultWikiDescriptor descriptor : descriptors) {
+            result.add(descriptor.clone());
 
-            // Add it to the result list
-            if (descriptor != null) {
-                result.add(descriptor);
-            }
+            foundMainWiki |= getMainWikiId().equals(descriptor.getId());
+        }
+
+        // Make sure we always return a descriptor for main wiki, even a virtual one
+        if (!foundMainWiki) {
+            result.add(getMainWikiDescriptor());
         }
 
         return result;
@@ -96,6 +96,16 @@ public Collection<WikiDescriptor> getAll() throws WikiManagerException
     @Override
     public Collection<String> getAllIds() throws WikiManagerException
     {
+        if (this.cache.isComplete()) {
+            Collection<String> wikiIds = this.cache.getWikiIds();
+            if (!wikiIds.contains(getMainWikiId())) {
+                wikiIds = new HashSet<>(wikiIds);
+                wikiIds.add(getMainWikiId());
+            }
+
+            return wikiIds;
+        }
+
         Collection<String> wikiIds = this.cache.getWikiIds();
 
         if (wikiIds == null) {
@@ -136,13 +146,8 @@ public WikiDescriptor getByAlias(String wikiAlias) throws WikiManagerException
     {
         WikiDescriptor descriptor = cache.getFromAlias(wikiAlias);
 
-        // If not found in the cache then query the wiki and add to the cache if found.
-        //
-        // Note that an alternative implementation would have been to find all Wiki Descriptors at startup but this
-        // would have meant keeping them all in memory at once. Since we want to be able to scale to any number of
-        // subwikis we only cache the most used one. This allows inactive wikis to not take up any memory for example.
-        // Note that In order for performance to be maximum it also means we need to have a cache size at least as
-        // large as the max # of wikis being used at once.
+        // If not found in the cache then query the wiki and add to the cache if found. This only happens until all the
+        // descriptors are indexed by the cache (see #getAll()).
         if (descriptor == null) {
             XWikiDocument document = descriptorDocumentHelperProvider.get().findXWikiServerClassDocument(wikiAlias);
             if (document != null) {
@@ -182,6 +187,11 @@ public WikiDescriptor getById(String wikiId) throws WikiManagerException
             }
         }
 
+        if (descriptor == DefaultWikiDescriptor.VOID && cache.isComplete() && getMainWikiId().equals(wikiId)) {
+            // Return a "virtual" descriptor if main wiki does not yet have a descriptor document
+            descriptor = new WikiDescriptor(wikiId, "localhost");
+        }
+
         return descriptor != DefaultWikiDescriptor.VOID && descriptor != null ? descriptor.clone() : null;
     }
 
@@ -242,16 +252,55 @@ public WikiDescriptor getCurrentWikiDescriptor() throws WikiManagerException
         return getById(getCurrentWikiId());
     }
 
-    private DefaultWikiDescriptor buildDescriptorFromDocument(XWikiDocument document)
+    private synchronized Collection<DefaultWikiDescriptor> loadAll() throws WikiManagerException
+    {
+        Collection<DefaultWikiDescriptor> descriptors = this.cache.getAll();
+
+        if (descriptors == null) {
+            // Remember the state of the cache to detect descriptors modified while they are being loaded
+            long modificationCount = this.cache.getModificationCount();
+
+            List<XWikiDocument> documents;
+            try {
+                documents = this.descriptorDocumentHelperProvider.get().getAllXWikiServerClassDocument();
+            } catch (Exception e) {
+                throw new WikiManagerException("Failed to load the wiki descriptors", e);
+            }
+
+            descriptors = new ArrayList<>(documents.size());
+            for (XWikiDocument document : documents) {
+                DefaultWikiDescriptor descriptor = buildDescriptor(document);
+                if (descriptor != null) {
+                    descriptors.add(descriptor);
+                }
+            }
+
+            // If a descriptor has been modified in the meantime the loaded descriptors are not indexed (they will be
+            // loaded again next time) but they are still good enough to be returned
+            this.cache.setAll(descriptors, modificationCount);
+        }
+
+        return descriptors;
+    }
+
+    private DefaultWikiDescriptor buildDescriptor(XWikiDocument document)
     {
         DefaultWikiDescriptor descriptor = null;
         List<BaseObject> serverClassObjects = document.getXObjects(DefaultWikiDescriptor.SERVER_CLASS);
         if (serverClassObjects != null && !serverClassObjects.isEmpty()) {
             descriptor = this.wikiDescriptorBuilderProvider.get().buildDescriptorObject(serverClassObjects, document);
-            // Add to the cache
-            if (descriptor != null) {
-                cache.add(descriptor);
-            }
+        }
+
+        return descriptor;
+    }
+
+    private DefaultWikiDescriptor buildDescriptorFromDocument(XWikiDocument document)
+    {
+        DefaultWikiDescriptor descriptor = buildDescriptor(document);
+
+        // Add to the cache
+        if (descriptor != null) {
+            cache.add(descriptor);
         }
 
         return descriptor;
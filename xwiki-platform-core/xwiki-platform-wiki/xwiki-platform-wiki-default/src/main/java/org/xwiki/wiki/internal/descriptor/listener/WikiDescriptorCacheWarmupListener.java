@@ -0,0 +1,101 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.wiki.internal.descriptor.listener;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.bridge.event.ApplicationReadyEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+import com.xpn.xwiki.util.AbstractXWikiRunnable;
+
+/**
+ * Load all the wiki descriptors in background when XWiki is started, so that the first requests listing the wikis
+ * don't have to wait for them to be loaded.
+ *
+ * @version $Id$
+ * @since 12.6RC1
+ */
+@Component
+@Named(WikiDescriptorCacheWarmupListener.NAME)
+@Singleton
+public class WikiDescriptorCacheWarmupListener implements EventListener
+{
+    /**
+     * The name of the event listener.
+     */
+    static final String NAME = "wikiDescriptorCacheWarmup";
+
+    @Inject
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return Arrays.asList(new ApplicationReadyEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        Thread thread = new Thread(new AbstractXWikiRunnable()
+        {
+            @Override
+            protected void runInternal()
+            {
+                warmup();
+            }
+        }, "Wiki descriptor cache warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void warmup()
+    {
+        try {
+            // Getting all the descriptors indexes them
+            this.wikiDescriptorManagerProvider.get().getAll();
+        } catch (WikiManagerException e) {
+            this.logger.warn("Failed to load the wiki descriptors: {}", ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+}
@@ -111,8 +111,8 @@ private void removeExistingDescriptor(XWikiDocument document)
             DefaultWikiDescriptor existingDescriptor = this.cache.getFromId(wikiId);
             if (existingDescriptor != null) {
                 this.cache.remove(wikiId, existingDescriptor.getAliases());
-                this.cache.setWikiIds(null);
             }
+            this.cache.setWikiIds(null);
         }
     }
 }
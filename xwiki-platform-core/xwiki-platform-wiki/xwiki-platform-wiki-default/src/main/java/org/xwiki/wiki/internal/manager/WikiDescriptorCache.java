@@ -20,7 +20,11 @@
 package org.xwiki.wiki.internal.manager;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -36,6 +40,11 @@
 
 /**
  * Component that handle caching for wiki descriptors.
+ * <p>
+ * Until the full list of descriptors is provided with {@link #setAll(Collection, long)}, only the most used
+ * descriptors are kept in bounded caches. After that, the cache holds an index of all the descriptors (updated by
+ * {@link #add(DefaultWikiDescriptor)} and {@link #remove(String, List)}) and a descriptor missing from it is known not
+ * to exist.
  * 
  * @version $Id$
  * @since 5.3M2
@@ -53,6 +62,18 @@ public class WikiDescriptorCache implements Initializable
 
     private Collection<String> wikiIds;
 
+    /**
+     * All the descriptors indexed by id, {@code null} until {@link #setAll(Collection, long)} is called.
+     */
+    private volatile Map<String, DefaultWikiDescriptor> descriptorsById;
+
+    /**
+     * All the descriptors indexed by alias, {@code null} until {@link #setAll(Collection, long)} is called.
+     */
+    private volatile Map<String, DefaultWikiDescriptor> descriptorsByAlias;
+
+    private final AtomicLong modificationCount = new AtomicLong();
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -80,6 +101,17 @@ private Cache<DefaultWikiDescriptor> createCache(String cacheId) throws Initiali
      */
     public void add(DefaultWikiDescriptor descriptor)
     {
+        synchronized (this) {
+            if (this.descriptorsById != null) {
+                this.descriptorsById.put(descriptor.getId(), descriptor);
+                for (String alias : descriptor.getAliases()) {
+                    if (alias != null) {
+                        this.descriptorsByAlias.put(alias, descriptor);
+                    }
+                }
+            }
+        }
+
         // Update the wiki name cache
         addFromId(descriptor.getId(), descriptor);
 
@@ -121,6 +153,17 @@ public void addFromId(String wikiId, DefaultWikiDescriptor descriptor)
      */
     public void remove(String wikiId, List<String> aliases)
     {
+        synchronized (this) {
+            if (this.descriptorsById != null) {
+                this.descriptorsById.remove(wikiId);
+                for (String alias : aliases) {
+                    if (alias != null) {
+                        this.descriptorsByAlias.remove(alias);
+                    }
+                }
+            }
+        }
+
         // Remove from the wiki name cache
         this.wikiIdCache.remove(wikiId);
 
@@ -138,6 +181,13 @@ public void remove(String wikiId, List<String> aliases)
      */
     public DefaultWikiDescriptor getFromId(String wikiId)
     {
+        Map<String, DefaultWikiDescriptor> index = this.descriptorsById;
+        if (index != null) {
+            DefaultWikiDescriptor descriptor = index.get(wikiId);
+
+            return descriptor != null ? descriptor : DefaultWikiDescriptor.VOID;
+        }
+
         return wikiIdCache.get(wikiId);
     }
 
@@ -149,6 +199,13 @@ public DefaultWikiDescriptor getFromId(String wikiId)
      */
     public DefaultWikiDescriptor getFromAlias(String wikiAlias)
     {
+        Map<String, DefaultWikiDescriptor> index = this.descriptorsByAlias;
+        if (index != null) {
+            DefaultWikiDescriptor descriptor = index.get(wikiAlias);
+
+            return descriptor != null ? descriptor : DefaultWikiDescriptor.VOID;
+        }
+
         return wikiAliasCache.get(wikiAlias);
     }
 
@@ -159,6 +216,11 @@ public DefaultWikiDescriptor getFromAlias(String wikiAlias)
     public void setWikiIds(Collection<String> wikiIds)
     {
         this.wikiIds = wikiIds;
+
+        if (wikiIds == null) {
+            // The list of wikis has been modified
+            this.modificationCount.incrementAndGet();
+        }
     }
 
     /**
@@ -167,6 +229,76 @@ public void setWikiIds(Collection<String> wikiIds)
      */
     public Collection<String> getWikiIds()
     {
+        Map<String, DefaultWikiDescriptor> index = this.descriptorsById;
+        if (index != null) {
+            return Collections.unmodifiableCollection(index.keySet());
+        }
+
         return this.wikiIds;
     }
+
+    /**
+     * @return the number of times the list of wikis has been modified, to pass to
+     *         {@link #setAll(Collection, long)}
+     * @since 12.6RC1
+     */
+    public long getModificationCount()
+    {
+        return this.modificationCount.get();
+    }
+
+    /**
+     * Index all the descriptors. After this call, the cache holds all the existing descriptors and is kept up to date
+     * by the descriptor listener.
+     *
+     * @param descriptors all the existing descriptors
+     * @param expectedModificationCount the value returned by {@link #getModificationCount()} before loading the
+     *            descriptors
+     * @return {@code false} if the list of wikis has been modified while the descriptors were loaded, in which case
+     *         the descriptors are not indexed
+     * @since 12.6RC1
+     */
+    public synchronized boolean setAll(Collection<DefaultWikiDescriptor> descriptors, long expectedModificationCount)
+    {
+        if (this.modificationCount.get() != expectedModificationCount) {
+            return false;
+        }
+
+        Map<String, DefaultWikiDescriptor> byId = new ConcurrentHashMap<>(descriptors.size() * 2);
+        Map<String, DefaultWikiDescriptor> byAlias = new ConcurrentHashMap<>(descriptors.size() * 2);
+        for (DefaultWikiDescriptor descriptor : descriptors) {
+            byId.put(descriptor.getId(), descriptor);
+            for (String alias : descriptor.getAliases()) {
+                if (alias != null) {
+                    byAlias.put(alias, descriptor);
+                }
+            }
+        }
+
+        this.descriptorsByAlias = byAlias;
+        this.descriptorsById = byId;
+
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the cache holds all the existing descriptors
+     * @since 12.6RC1
+     */
+    public boolean isComplete()
+    {
+        return this.descriptorsById != null;
+    }
+
+    /**
+     * @return all the descriptors, or {@code null} if the cache does not hold all of them
+     * @see #isComplete()
+     * @since 12.6RC1
+     */
+    public Collection<DefaultWikiDescriptor> getAll()
+    {
+        Map<String, DefaultWikiDescriptor> index = this.descriptorsById;
+
+        return index != null ? Collections.unmodifiableCollection(index.values()) : null;
+    }
 }
@@ -44,10 +44,12 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
@@ -182,25 +184,13 @@ public void getByAliasWhenNotInCacheAndItDoesntExist() throws Exception
     @Test
     public void getAll() throws Exception
     {
-        // Get the XWikiDocuments for the Document References
         XWikiDocument document1 = mock(XWikiDocument.class);
         XWikiDocument document2 = mock(XWikiDocument.class);
         XWikiDocument maindocument = mock(XWikiDocument.class);
 
-        DefaultWikiDescriptor descriptor3 = new DefaultWikiDescriptor("wikiid3", "wikialias3");
-
         // Get documents
-        when(this.descriptorDocumentHelper.getAllXWikiServerClassDocumentNames()).thenReturn(
-            Arrays.asList("XWiki.XWikiServerWikiid1", "XWiki.XWikiServerWikiid2", "XWiki.XWikiServerWikiid3"));
-        when(this.descriptorDocumentHelper.getWikiIdFromDocumentFullname("XWiki.XWikiServerWikiid1"))
-            .thenReturn("wikiid1");
-        when(this.descriptorDocumentHelper.getWikiIdFromDocumentFullname("XWiki.XWikiServerWikiid2"))
-            .thenReturn("wikiid2");
-        when(this.descriptorDocumentHelper.getWikiIdFromDocumentFullname("XWiki.XWikiServerWikiid3"))
-            .thenReturn("wikiid3");
-        when(this.cache.getFromId("wikiid3")).thenReturn(descriptor3);
-        when(this.descriptorDocumentHelper.getDocumentFromWikiId("wikiid1")).thenReturn(document1);
-        when(this.descriptorDocumentHelper.getDocumentFromWikiId("wikiid2")).thenReturn(document2);
+        when(this.descriptorDocumentHelper.getAllXWikiServerClassDocument())
+            .thenReturn(Arrays.asList(document1, document2));
         when(this.descriptorDocumentHelper.getDocumentFromWikiId("xwiki")).thenReturn(maindocument);
 
         when(maindocument.isNew()).thenReturn(true);
@@ -216,16 +206,30 @@ public void getAll() throws Exception
         when(this.wikiDescriptorBuilder.buildDescriptorObject(anyList(), any(XWikiDocument.class)))
             .thenReturn(descriptor1, descriptor2);
 
+        when(this.cache.getModificationCount()).thenReturn(42L);
+
         Collection<WikiDescriptor> descriptors = this.descriptorManager.getAll();
-        assertEquals(4, descriptors.size());
+        assertEquals(Arrays.asList(descriptor1, descriptor2, new WikiDescriptor("xwiki", "localhost")),
+            descriptors);
+
+        // Verify all descriptors were indexed
+        verify(this.cache).setAll(Arrays.asList(descriptor1, descriptor2), 42L);
+    }
 
-        // Verify that XWiki.XWikiServerWikiid3 has not be loaded
-        verify(this.descriptorDocumentHelper, never()).getDocumentFromWikiId("wikiid3");
+    @Test
+    public void getAllWhenIndexed() throws Exception
+    {
+        DefaultWikiDescriptor descriptor1 = new DefaultWikiDescriptor("wikiid1", "wikialias1");
+        DefaultWikiDescriptor mainDescriptor = new DefaultWikiDescriptor("xwiki", "xwiki");
+        when(this.cache.getAll()).thenReturn(Arrays.asList(descriptor1, mainDescriptor));
 
-        // Verify all descriptors were put in cache except those which was already there
-        verify(this.cache).add(descriptor1);
-        verify(this.cache).add(descriptor2);
-        verify(this.cache, never()).add(descriptor3);
+        Collection<WikiDescriptor> descriptors = this.descriptorManager.getAll();
+        assertEquals(Arrays.asList(descriptor1, mainDescriptor), descriptors);
+
+        // Verify the descriptors are protected and not loaded again
+        assertNotSame(descriptor1, descriptors.iterator().next());
+        verify(this.descriptorDocumentHelper, never()).getAllXWikiServerClassDocument();
+        verify(this.cache, never()).setAll(any(), anyLong());
     }
 
     @Test
@@ -240,6 +244,33 @@ public void exists() throws Exception
         assertFalse(this.descriptorManager.exists("wikiid2"));
     }
 
+    @Test
+    public void existsWhenIndexed() throws Exception
+    {
+        when(this.cache.isComplete()).thenReturn(true);
+        when(this.cache.getWikiIds()).thenReturn(Arrays.asList("wikiid1"));
+
+        assertTrue(this.descriptorManager.exists("wikiid1"));
+        assertFalse(this.descriptorManager.exists("wikiid2"));
+
+        // The main wiki always exists
+        assertTrue(this.descriptorManager.exists("xwiki"));
+
+        verify(this.descriptorDocumentHelper, never()).getAllXWikiServerClassDocumentNames();
+    }
+
+    @Test
+    public void getByIdWhenIndexedAndItDoesntExist() throws Exception
+    {
+        when(this.cache.isComplete()).thenReturn(true);
+        when(this.cache.getFromId(any())).thenReturn(DefaultWikiDescriptor.VOID);
+
+        assertNull(this.descriptorManager.getById("wikiid"));
+        assertEquals(new WikiDescriptor("xwiki", "localhost"), this.descriptorManager.getMainWikiDescriptor());
+
+        verify(this.descriptorDocumentHelper, never()).getDocumentFromWikiId(any());
+    }
+
     @Test
     public void getMainWikiId() throws Exception
     {
@@ -19,6 +19,9 @@
  */
 package org.xwiki.wiki.internal.manager;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,6 +32,11 @@
 import org.xwiki.wiki.descriptor.WikiDescriptor;
 import org.xwiki.wiki.internal.descriptor.DefaultWikiDescriptor;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -87,4 +95,52 @@ public void remove() throws Exception
         verify(wikiAliasCache).remove("alias2");
     }
 
+    @Test
+    public void setAll() throws Exception
+    {
+        WikiDescriptorCache cache = this.mocker.getComponentUnderTest();
+
+        DefaultWikiDescriptor descriptor1 = new DefaultWikiDescriptor("wikiid1", "wikialias1");
+        descriptor1.addAlias("alias2");
+        DefaultWikiDescriptor descriptor2 = new DefaultWikiDescriptor("wikiid2", "wikialias2");
+
+        assertFalse(cache.isComplete());
+        assertNull(cache.getAll());
+
+        assertTrue(cache.setAll(Arrays.asList(descriptor1, descriptor2), cache.getModificationCount()));
+
+        assertTrue(cache.isComplete());
+        assertEquals(new HashSet<>(Arrays.asList("wikiid1", "wikiid2")), new HashSet<>(cache.getWikiIds()));
+        assertSame(descriptor1, cache.getFromId("wikiid1"));
+        assertSame(descriptor1, cache.getFromAlias("alias2"));
+        assertSame(descriptor2, cache.getFromAlias("wikialias2"));
+        assertSame(DefaultWikiDescriptor.VOID, cache.getFromId("wikiid3"));
+        assertSame(DefaultWikiDescriptor.VOID, cache.getFromAlias("wikialias3"));
+
+        // Incremental updates
+        DefaultWikiDescriptor descriptor3 = new DefaultWikiDescriptor("wikiid3", "wikialias3");
+        cache.add(descriptor3);
+        cache.remove("wikiid1", descriptor1.getAliases());
+        cache.setWikiIds(null);
+
+        assertEquals(new HashSet<>(Arrays.asList("wikiid2", "wikiid3")), new HashSet<>(cache.getWikiIds()));
+        assertSame(descriptor3, cache.getFromId("wikiid3"));
+        assertSame(descriptor3, cache.getFromAlias("wikialias3"));
+        assertSame(DefaultWikiDescriptor.VOID, cache.getFromId("wikiid1"));
+        assertSame(DefaultWikiDescriptor.VOID, cache.getFromAlias("alias2"));
+    }
+
+    @Test
+    public void setAllWhenModified() throws Exception
+    {
+        WikiDescriptorCache cache = this.mocker.getComponentUnderTest();
+
+        long modificationCount = cache.getModificationCount();
+
+        // The list of wikis is modified while the descriptors are loaded
+        cache.setWikiIds(null);
+
+        assertFalse(cache.setAll(Arrays.asList(new DefaultWikiDescriptor("wikiid", "wikialias")), modificationCount));
+        assertFalse(cache.isComplete());
+    }
 }